@@ -1,8 +1,15 @@
 package org.jellyfin.androidtv.auth.store
 
 import android.content.Context
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
 import kotlinx.serialization.SerializationException
 import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonNull
 import kotlinx.serialization.json.JsonObject
 import kotlinx.serialization.json.JsonPrimitive
 import kotlinx.serialization.json.decodeFromJsonElement
@@ -16,16 +23,29 @@ import org.jellyfin.androidtv.auth.model.AuthenticationStoreServer
 import org.jellyfin.androidtv.auth.model.AuthenticationStoreUser
 import org.jellyfin.sdk.model.serializer.UUIDSerializer
 import timber.log.Timber
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
 import java.util.UUID
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
 
 /**
  * Storage for authentication related entities. Stores servers with users inside, including
  * access tokens.
  *
- * The data is stored in a JSON file located in the applications data directory.
+ * The data is stored in a JSON file located in the applications data directory. Every change is
+ * appended to a journal and synced to disk before it returns, the JSON file is only rewritten on
+ * [scope] after [flushDelay], so bursts of updates (like last used timestamps on login) cause a
+ * single rewrite. The JSON file is replaced by renaming a complete copy over it and the journal is
+ * only cleared after that, so a crash keeps every change that returned.
+ *
+ * Reads use an immutable snapshot and do not lock.
  */
 class AuthenticationStore(
 	private val context: Context,
+	private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+	private val flushDelay: Duration = 1.seconds,
 ) {
 	private val storePath
 		get() = context.filesDir.resolve("authentication_store.json")
@@ -33,6 +53,9 @@ class AuthenticationStore(
 	private val tempStorePath
 		get() = context.filesDir.resolve("authentication_store.json.tmp")
 
+	private val journalPath
+		get() = context.filesDir.resolve("authentication_store.journal")
+
 	private val lock = Any()
 
 	private val json = Json {
@@ -44,13 +67,68 @@ class AuthenticationStore(
 	}
 
 	@Volatile
-	private var storeCache: MutableMap<UUID, AuthenticationStoreServer>? = null
+	private var snapshot: Map<UUID, AuthenticationStoreServer>? = null
+	private var flushJob: Job? = null
+	// Whether the store is behind the snapshot
+	private var dirty = false
+
+	/** Number of times the JSON file was rewritten. */
+	@Volatile
+	internal var storeWriteCount = 0
+		private set
 
-	private fun getStore(): MutableMap<UUID, AuthenticationStoreServer> = synchronized(lock) {
-		storeCache ?: load().toMutableMap().also { storeCache = it }
+	private fun getStore(): Map<UUID, AuthenticationStoreServer> = snapshot ?: synchronized(lock) {
+		snapshot ?: load().also { snapshot = it }
 	}
 
 	private fun load(): Map<UUID, AuthenticationStoreServer> {
+		recoverTempStore()
+
+		val stored = loadStore()
+		val journal = readJournal()
+		if (journal.isEmpty()) return stored
+
+		Timber.i("Replaying ${journal.size} authentication store journal entries")
+		val servers = stored.toMutableMap()
+		for ((id, server) in journal) {
+			if (server == null) servers.remove(id)
+			else servers[id] = server
+		}
+		dirty = true
+		scheduleFlush()
+		return servers.toMap()
+	}
+
+	/**
+	 * Handle a replacement store left behind by an interrupted write. It is only used when the store
+	 * itself is missing or unreadable, otherwise the store and journal are complete.
+	 */
+	private fun recoverTempStore() {
+		if (!tempStorePath.exists()) return
+
+		val storeReadable = storePath.exists() && readStore(storePath) != null
+		if (!storeReadable && readStore(tempStorePath) != null) {
+			Timber.w("Recovering authentication store from an interrupted write")
+			quarantineCorruptFile()
+			if (tempStorePath.renameTo(storePath)) return
+			Timber.e("Failed to recover authentication store from ${tempStorePath.name}")
+		}
+
+		tempStorePath.delete()
+	}
+
+	/**
+	 * Read a version 2 store from [file], or `null` when it can't be read.
+	 */
+	private fun readStore(file: File): Map<UUID, AuthenticationStoreServer>? = try {
+		val root = json.parseToJsonElement(file.readText()).jsonObject
+		if (root["version"]?.jsonPrimitive?.intOrNull != 2) null
+		else root["servers"]?.let { json.decodeFromJsonElement<Map<UUID, AuthenticationStoreServer>>(it) }
+	} catch (e: Exception) {
+		null
+	}
+
+	private fun loadStore(): Map<UUID, AuthenticationStoreServer> {
 		// No store found
 		if (!storePath.exists()) return emptyMap()
 
@@ -119,6 +197,48 @@ class AuthenticationStore(
 		}
 	}
 
+	private fun readJournal(): List<Pair<UUID, AuthenticationStoreServer?>> {
+		if (!journalPath.exists()) return emptyList()
+
+		val entries = mutableListOf<Pair<UUID, AuthenticationStoreServer?>>()
+		for (line in journalPath.readLines()) {
+			if (line.isBlank()) continue
+
+			// A line that does not parse was cut off by a crash while appending, nothing after it was saved
+			val entry = try {
+				val element = json.parseToJsonElement(line).jsonObject
+				val id = json.decodeFromJsonElement<UUID>(element.getValue("id"))
+				val server = element["server"]
+					?.takeUnless { it is JsonNull }
+					?.let { json.decodeFromJsonElement<AuthenticationStoreServer>(it) }
+				id to server
+			} catch (e: Exception) {
+				Timber.w(e, "Ignoring incomplete authentication store journal entry")
+				break
+			}
+			entries += entry
+		}
+		return entries
+	}
+
+	// Must be called while holding the lock
+	private fun appendJournal(id: UUID, server: AuthenticationStoreServer?) {
+		val entry = JsonObject(mapOf(
+			"id" to json.encodeToJsonElement(id),
+			"server" to (server?.let { json.encodeToJsonElement(it) } ?: JsonNull),
+		))
+		val content = json.encodeToString(entry) + '\n'
+
+		try {
+			FileOutputStream(journalPath, true).use { output ->
+				output.write(content.toByteArray())
+				output.fd.sync()
+			}
+		} catch (e: IOException) {
+			Timber.e(e, "Failed to append to authentication store journal")
+		}
+	}
+
 	private fun write(servers: Map<UUID, AuthenticationStoreServer>): Boolean {
 		val root = JsonObject(mapOf(
 			"version" to JsonPrimitive(2),
@@ -126,65 +246,94 @@ class AuthenticationStore(
 		))
 
 		val content = json.encodeToString(root)
-		tempStorePath.writeText(content)
+		FileOutputStream(tempStorePath).use { output ->
+			output.write(content.toByteArray())
+			output.fd.sync()
+		}
+		// Rename replaces the store atomically, the previous store is kept when it fails
 		if (!tempStorePath.renameTo(storePath)) {
-			storePath.delete()
-			if (!tempStorePath.renameTo(storePath)) {
-				Timber.e("Atomic rename failed for authentication store")
-				tempStorePath.delete()
-				return false
-			}
+			Timber.e("Atomic rename failed for authentication store")
+			return false
 		}
 
+		storeWriteCount++
 		return true
 	}
 
-	fun getServers(): Map<UUID, AuthenticationStoreServer> = synchronized(lock) {
-		getStore().toMap()
+	private fun scheduleFlush() {
+		flushJob?.cancel()
+		flushJob = scope.launch {
+			delay(flushDelay)
+			flush()
+		}
 	}
 
-	fun getUsers(server: UUID): Map<UUID, AuthenticationStoreUser>? = synchronized(lock) {
-		getStore()[server]?.users?.toMap()
-	}
+	/**
+	 * Write all changes to the JSON file now and clear the journal.
+	 */
+	fun flush(): Boolean = synchronized(lock) {
+		flushJob?.cancel()
+		flushJob = null
 
-	fun getServer(serverId: UUID) = synchronized(lock) {
-		getStore()[serverId]
-	}
+		val servers = snapshot ?: return true
+		if (!dirty) return true
+
+		val written = try {
+			write(servers)
+		} catch (e: IOException) {
+			Timber.e(e, "Failed to write authentication store")
+			false
+		}
 
-	fun getUser(serverId: UUID, userId: UUID) = synchronized(lock) {
-		getStore()[serverId]?.users?.get(userId)
+		// Only clear the journal once its changes are in the store
+		if (written) {
+			dirty = false
+			journalPath.delete()
+		}
+		written
 	}
 
-	fun putServer(id: UUID, server: AuthenticationStoreServer): Boolean = synchronized(lock) {
-		val store = getStore()
-		store[id] = server
-		write(store)
+	private inline fun update(id: UUID, transform: (AuthenticationStoreServer?) -> AuthenticationStoreServer?): Boolean = synchronized(lock) {
+		val servers = getStore()
+		val current = servers[id]
+		val updated = transform(current)
+		if (updated == current) return true
+
+		snapshot = if (updated == null) servers - id else servers + (id to updated)
+		dirty = true
+		appendJournal(id, updated)
+		scheduleFlush()
+		true
 	}
 
-	fun putUser(server: UUID, userId: UUID, userInfo: AuthenticationStoreUser): Boolean = synchronized(lock) {
-		val store = getStore()
-		val serverInfo = store[server] ?: return false
+	fun getServers(): Map<UUID, AuthenticationStoreServer> = getStore()
+
+	fun getUsers(server: UUID): Map<UUID, AuthenticationStoreUser>? = getStore()[server]?.users
+
+	fun getServer(serverId: UUID) = getStore()[serverId]
 
-		store[server] = serverInfo.copy(users = serverInfo.users.toMutableMap().apply { put(userId, userInfo) })
+	fun getUser(serverId: UUID, userId: UUID) = getStore()[serverId]?.users?.get(userId)
 
-		write(store)
+	fun putServer(id: UUID, server: AuthenticationStoreServer): Boolean = update(id) { server }
+
+	fun putUser(server: UUID, userId: UUID, userInfo: AuthenticationStoreUser): Boolean {
+		if (getStore()[server] == null) return false
+
+		return update(server) { serverInfo ->
+			serverInfo?.copy(users = serverInfo.users + (userId to userInfo))
+		}
 	}
 
 	/**
 	 * Removes the server and stored users from the credential store.
 	 */
-	fun removeServer(server: UUID): Boolean = synchronized(lock) {
-		val store = getStore()
-		store.remove(server)
-		write(store)
-	}
-
-	fun removeUser(server: UUID, user: UUID): Boolean = synchronized(lock) {
-		val store = getStore()
-		val serverInfo = store[server] ?: return false
+	fun removeServer(server: UUID): Boolean = update(server) { null }
 
-		store[server] = serverInfo.copy(users = serverInfo.users.toMutableMap().apply { remove(user) })
+	fun removeUser(server: UUID, user: UUID): Boolean {
+		if (getStore()[server] == null) return false
 
-		write(store)
+		return update(server) { serverInfo ->
+			serverInfo?.copy(users = serverInfo.users - user)
+		}
 	}
 }
@@ -0,0 +1,101 @@
+package org.jellyfin.androidtv.data.eventhandling
+
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import org.jellyfin.sdk.model.api.BaseItemKind
+import java.util.UUID
+
+/**
+ * A change to one or more items on the server.
+ *
+ * [itemIds] may be incomplete when the server sent ids that are not UUIDs, consumers should treat
+ * an empty set as "unknown items" rather than "no items".
+ */
+data class ItemInvalidation(
+	val reason: Reason,
+	val itemIds: Set<UUID> = emptySet(),
+	val parentIds: Set<UUID> = emptySet(),
+	val itemKind: BaseItemKind? = null,
+) {
+	enum class Reason {
+		/** Played state or playback position changed. */
+		USER_DATA,
+
+		/** Favorite state changed. */
+		FAVORITE,
+
+		/** Items were added to [parentIds]. */
+		ADDED,
+
+		/** Item metadata changed. */
+		UPDATED,
+
+		/** Items were removed from [parentIds]. */
+		REMOVED,
+	}
+}
+
+/**
+ * Distributes [ItemInvalidation]s from the server socket and local mutations to rows and
+ * repositories.
+ *
+ * Every invalidation gets a sequence number. Consumers that are not always listening (like rows of
+ * a paused screen) remember the last sequence they saw and ask for everything newer with [since].
+ * Only the last [historySize] invalidations are kept, older consumers get a `null` list and should
+ * reload everything.
+ */
+class ItemInvalidationBus(
+	private val historySize: Int = DEFAULT_HISTORY_SIZE,
+) {
+	companion object {
+		const val DEFAULT_HISTORY_SIZE = 256
+	}
+
+	/**
+	 * Invalidations published after a sequence number.
+	 *
+	 * @property sequence the sequence number to pass to the next [since] call
+	 * @property invalidations the invalidations, or `null` when some were already discarded
+	 */
+	data class Pending(
+		val sequence: Long,
+		val invalidations: List<ItemInvalidation>?,
+	)
+
+	private val history = ArrayDeque<ItemInvalidation>(historySize)
+
+	/** Sequence number of the last published invalidation. */
+	@get:Synchronized
+	var sequence = 0L
+		private set
+
+	private val _invalidations = MutableSharedFlow<ItemInvalidation>(
+		extraBufferCapacity = 64,
+		onBufferOverflow = BufferOverflow.DROP_OLDEST,
+	)
+	val invalidations: SharedFlow<ItemInvalidation> = _invalidations.asSharedFlow()
+
+	fun publish(invalidation: ItemInvalidation) {
+		synchronized(this) {
+			if (history.size == historySize) history.removeFirst()
+			history.addLast(invalidation)
+			sequence++
+		}
+
+		_invalidations.tryEmit(invalidation)
+	}
+
+	@Synchronized
+	fun since(sequence: Long): Pending {
+		val count = this.sequence - sequence
+		val invalidations = when {
+			count <= 0 -> emptyList()
+			count > history.size -> null
+			else -> history.subList(history.size - count.toInt(), history.size).toList()
+		}
+
+		return Pending(this.sequence, invalidations)
+	}
+}
@@ -0,0 +1,85 @@
+package org.jellyfin.androidtv.data.eventhandling
+
+import org.jellyfin.androidtv.util.EmbyCompatInterceptor
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.LibraryUpdateInfo
+import org.jellyfin.sdk.model.api.UserDataChangeInfo
+import org.jellyfin.sdk.model.serializer.toUUIDOrNull
+import org.moonfin.server.core.model.ServerWebSocketMessage
+import java.util.UUID
+
+// Emby sends numeric ids, mapped to UUIDs the same way EmbyCompatInterceptor maps them in responses
+private fun String.toItemUUIDOrNull(): UUID? {
+	toUUIDOrNull()?.let { return it }
+	if (isEmpty() || length > 32 || !all(Char::isDigit)) return null
+	return EmbyCompatInterceptor.numericToUuid(this).toUUIDOrNull()
+}
+
+private fun Iterable<String>.toUUIDSet() = mapNotNullTo(LinkedHashSet()) { it.toItemUUIDOrNull() }
+
+private fun libraryInvalidations(
+	itemsAdded: List<String>,
+	itemsUpdated: List<String>,
+	itemsRemoved: List<String>,
+	foldersAddedTo: List<String>,
+	foldersRemovedFrom: List<String>,
+	collectionFolders: List<String>,
+): List<ItemInvalidation> = buildList {
+	val libraries = collectionFolders.toUUIDSet()
+
+	if (itemsAdded.isNotEmpty()) add(ItemInvalidation(
+		reason = ItemInvalidation.Reason.ADDED,
+		itemIds = itemsAdded.toUUIDSet(),
+		parentIds = foldersAddedTo.toUUIDSet() + libraries,
+	))
+
+	if (itemsUpdated.isNotEmpty()) add(ItemInvalidation(
+		reason = ItemInvalidation.Reason.UPDATED,
+		itemIds = itemsUpdated.toUUIDSet(),
+		parentIds = libraries,
+	))
+
+	if (itemsRemoved.isNotEmpty()) add(ItemInvalidation(
+		reason = ItemInvalidation.Reason.REMOVED,
+		itemIds = itemsRemoved.toUUIDSet(),
+		parentIds = foldersRemovedFrom.toUUIDSet() + libraries,
+	))
+}
+
+fun LibraryUpdateInfo.toItemInvalidations(): List<ItemInvalidation> = libraryInvalidations(
+	itemsAdded = itemsAdded,
+	itemsUpdated = itemsUpdated,
+	itemsRemoved = itemsRemoved,
+	foldersAddedTo = foldersAddedTo,
+	foldersRemovedFrom = foldersRemovedFrom,
+	collectionFolders = collectionFolders,
+)
+
+fun ServerWebSocketMessage.LibraryChanged.toItemInvalidations(): List<ItemInvalidation> = libraryInvalidations(
+	itemsAdded = itemsAdded,
+	itemsUpdated = itemsUpdated,
+	itemsRemoved = itemsRemoved,
+	foldersAddedTo = foldersAddedTo,
+	foldersRemovedFrom = foldersRemovedFrom,
+	collectionFolders = collectionFolders,
+)
+
+fun UserDataChangeInfo.toItemInvalidation() = ItemInvalidation(
+	reason = ItemInvalidation.Reason.USER_DATA,
+	itemIds = userDataList.mapTo(LinkedHashSet()) { it.itemId },
+)
+
+fun ServerWebSocketMessage.UserDataChanged.toItemInvalidation() = ItemInvalidation(
+	reason = ItemInvalidation.Reason.USER_DATA,
+	itemIds = itemIds.toUUIDSet(),
+)
+
+/**
+ * Invalidation for local playback of this item having stopped.
+ */
+fun BaseItemDto.toPlaybackInvalidation() = ItemInvalidation(
+	reason = ItemInvalidation.Reason.USER_DATA,
+	itemIds = setOf(id),
+	parentIds = setOfNotNull(parentId, seasonId, seriesId),
+	itemKind = type,
+)
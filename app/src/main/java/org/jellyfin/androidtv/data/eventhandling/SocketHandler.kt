@@ -15,7 +15,6 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.auth.repository.ServerRepository
 import org.jellyfin.androidtv.auth.repository.SessionRepository
-import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.syncplay.SyncPlayManager
 import org.jellyfin.androidtv.ui.itemhandling.ItemLauncher
 import org.jellyfin.androidtv.ui.navigation.Destinations
@@ -41,6 +40,7 @@ import org.jellyfin.sdk.model.api.PlaystateCommand
 import org.jellyfin.sdk.model.api.PlaystateMessage
 import org.jellyfin.sdk.model.api.SyncPlayCommandMessage
 import org.jellyfin.sdk.model.api.SyncPlayGroupUpdateMessage
+import org.jellyfin.sdk.model.api.UserDataChangedMessage
 import org.jellyfin.sdk.model.extensions.get
 import org.jellyfin.sdk.model.extensions.getValue
 import org.jellyfin.sdk.model.serializer.toUUIDOrNull
@@ -49,13 +49,12 @@ import org.moonfin.server.core.model.ServerType
 import org.moonfin.server.core.model.ServerWebSocketMessage
 import org.moonfin.server.emby.socket.EmbyWebSocketClient
 import timber.log.Timber
-import java.time.Instant
 import java.util.UUID
 
 class SocketHandler(
 	private val context: Context,
 	private val api: ApiClient,
-	private val dataRefreshService: DataRefreshService,
+	private val itemInvalidationBus: ItemInvalidationBus,
 	private val mediaManager: MediaManager,
 	private val playbackControllerContainer: PlaybackControllerContainer,
 	private val navigationRepository: NavigationRepository,
@@ -132,6 +131,10 @@ class SocketHandler(
 			.onEach { message -> message.data?.let(::onLibraryChanged) }
 			.launchIn(coroutineScope)
 
+		subscribe<UserDataChangedMessage>()
+			.onEach { message -> message.data?.let { itemInvalidationBus.publish(it.toItemInvalidation()) } }
+			.launchIn(coroutineScope)
+
 		subscribe<PlayMessage>()
 			.onEach { message -> onPlayMessage(message) }
 			.launchIn(coroutineScope)
@@ -230,14 +233,12 @@ class SocketHandler(
 		when (message) {
 			is ServerWebSocketMessage.LibraryChanged -> {
 				Timber.d("Emby library changed: +${message.itemsAdded.size} ~${message.itemsUpdated.size} -${message.itemsRemoved.size}")
-				if (message.itemsAdded.isNotEmpty() || message.itemsRemoved.isNotEmpty()) {
-					dataRefreshService.lastLibraryChange = Instant.now()
-				}
+				message.toItemInvalidations().forEach(itemInvalidationBus::publish)
 			}
 
 			is ServerWebSocketMessage.UserDataChanged -> {
 				Timber.d("Emby user data changed for ${message.itemIds.size} items")
-				dataRefreshService.lastLibraryChange = Instant.now()
+				itemInvalidationBus.publish(message.toItemInvalidation())
 			}
 
 			is ServerWebSocketMessage.Play -> {
@@ -338,8 +339,7 @@ class SocketHandler(
 			appendLine("Updated ${info.itemsUpdated.size} items")
 		})
 
-		if (info.itemsAdded.any() || info.itemsRemoved.any())
-			dataRefreshService.lastLibraryChange = Instant.now()
+		info.toItemInvalidations().forEach(itemInvalidationBus::publish)
 	}
 
 	private fun onPlayMessage(message: PlayMessage) {
@@ -7,9 +7,5 @@ import java.util.UUID
 class DataRefreshService {
 	var lastDeletedItemId: UUID? = null
 	var lastPlayback: Instant? = null
-	var lastMoviePlayback: Instant? = null
-	var lastTvPlayback: Instant? = null
-	var lastLibraryChange: Instant? = null
-	var lastFavoriteUpdate: Instant? = null
 	var lastPlayedItem: BaseItemDto? = null
 }
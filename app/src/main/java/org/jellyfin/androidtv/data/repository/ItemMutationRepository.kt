@@ -1,13 +1,13 @@
 package org.jellyfin.androidtv.data.repository
 
-import org.jellyfin.androidtv.data.model.DataRefreshService
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidation
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
 import org.jellyfin.androidtv.util.apiclient.ioCall
 import org.jellyfin.sdk.api.client.ApiClient
 import org.jellyfin.sdk.api.client.extensions.playStateApi
 import org.jellyfin.sdk.api.client.extensions.userLibraryApi
 import org.jellyfin.sdk.model.UUID
 import org.jellyfin.sdk.model.api.UserItemDataDto
-import java.time.Instant
 
 interface ItemMutationRepository {
 	suspend fun setFavorite(item: UUID, favorite: Boolean): UserItemDataDto
@@ -16,7 +16,7 @@ interface ItemMutationRepository {
 
 class ItemMutationRepositoryImpl(
 	private val api: ApiClient,
-	private val dataRefreshService: DataRefreshService,
+	private val itemInvalidationBus: ItemInvalidationBus,
 ) : ItemMutationRepository {
 	override suspend fun setFavorite(item: UUID, favorite: Boolean): UserItemDataDto {
 		val response by when {
@@ -24,7 +24,7 @@ class ItemMutationRepositoryImpl(
 			else -> api.ioCall { userLibraryApi.unmarkFavoriteItem(itemId = item) }
 		}
 
-		dataRefreshService.lastFavoriteUpdate = Instant.now()
+		itemInvalidationBus.publish(ItemInvalidation(ItemInvalidation.Reason.FAVORITE, itemIds = setOf(item)))
 		return response
 	}
 
@@ -34,6 +34,7 @@ class ItemMutationRepositoryImpl(
 			else -> api.ioCall { playStateApi.markUnplayedItem(itemId = item) }
 		}
 
+		itemInvalidationBus.publish(ItemInvalidation(ItemInvalidation.Reason.USER_DATA, itemIds = setOf(item)))
 		return response
 	}
 }
@@ -2,10 +2,20 @@ package org.jellyfin.androidtv.data.repository
 
 import android.content.Context
 import android.content.SharedPreferences
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.ProcessLifecycleOwner
+import androidx.lifecycle.eventFlow
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.encodeToString
@@ -30,27 +40,49 @@ data class WatchlistEntry(
 /**
  * Repository for managing a local app-only watchlist.
  * Items are stored locally in SharedPreferences and not synced to the server.
+ *
+ * The stored entries are read once into an index keyed by server and item id, so membership checks
+ * from card bindings don't parse the stored list. Changes are written behind on [scope] after a short
+ * delay, coalescing bursts into a single write of the whole list. Pending changes are written right
+ * away when [stopEvents] emits, which is when the app moves to the background and may be killed.
  */
 class LocalWatchlistRepository(
-	context: Context
+	private val prefs: SharedPreferences,
+	private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+	stopEvents: Flow<*> = emptyFlow<Unit>(),
 ) {
+	constructor(context: Context) : this(
+		prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE),
+		stopEvents = ProcessLifecycleOwner.get().lifecycle.eventFlow.filter { it == Lifecycle.Event.ON_STOP },
+	)
+
 	companion object {
 		private const val PREFS_NAME = "local_watchlist"
 		private const val KEY_WATCHLIST = "watchlist_items"
+		private const val PERSIST_DELAY_MS = 500L
 	}
 
-	private val prefs: SharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+	private data class Key(val serverId: String, val itemId: String)
+
 	private val json = Json { ignoreUnknownKeys = true }
+	private val lock = Any()
+	private val entries = LinkedHashMap<Key, WatchlistEntry>()
+	private val writeLock = Any()
+	private var persistJob: Job? = null
+	private var dirty = false
 
 	private val _watchlistFlow = MutableStateFlow<List<WatchlistEntry>>(emptyList())
 	val watchlistFlow: Flow<List<WatchlistEntry>> = _watchlistFlow.asStateFlow()
 
 	init {
 		// Load initial watchlist
-		_watchlistFlow.value = getWatchlistEntries()
+		readWatchlistEntries().forEach { entry -> entries[Key(entry.serverId, entry.itemId)] = entry }
+		_watchlistFlow.value = entries.values.toList()
+
+		scope.launch { stopEvents.collect { flush() } }
 	}
 
-	private fun getWatchlistEntries(): List<WatchlistEntry> {
+	private fun readWatchlistEntries(): List<WatchlistEntry> {
 		val jsonString = prefs.getString(KEY_WATCHLIST, null) ?: return emptyList()
 		return try {
 			json.decodeFromString(jsonString)
@@ -60,56 +92,76 @@ class LocalWatchlistRepository(
 		}
 	}
 
-	private fun saveWatchlistEntries(entries: List<WatchlistEntry>) {
-		val jsonString = json.encodeToString(entries)
-		prefs.edit().putString(KEY_WATCHLIST, jsonString).apply()
-		_watchlistFlow.value = entries
+	// Must be called while holding the lock
+	private fun onEntriesChanged() {
+		_watchlistFlow.value = entries.values.toList()
+		dirty = true
+
+		persistJob?.cancel()
+		persistJob = scope.launch {
+			delay(PERSIST_DELAY_MS)
+			flush()
+		}
+	}
+
+	/**
+	 * Write pending changes to storage immediately.
+	 */
+	fun flush() {
+		// Writes are serialized so an older list never overwrites a newer one
+		synchronized(writeLock) {
+			val list = synchronized(lock) {
+				if (!dirty) return
+				dirty = false
+				persistJob?.cancel()
+				persistJob = null
+				_watchlistFlow.value
+			}
+
+			// Commit replaces the stored file atomically, a crash keeps the previous list
+			if (!prefs.edit().putString(KEY_WATCHLIST, json.encodeToString(list)).commit()) {
+				Timber.w("Failed to persist watchlist")
+				synchronized(lock) { dirty = true }
+			}
+		}
 	}
 
 	/**
 	 * Add an item to the watchlist.
 	 */
-	fun addToWatchlist(itemId: UUID, serverId: UUID): Boolean {
-		val entries = getWatchlistEntries().toMutableList()
-		val itemIdStr = itemId.toString()
-		val serverIdStr = serverId.toString()
+	fun addToWatchlist(itemId: UUID, serverId: UUID): Boolean = synchronized(lock) {
+		val key = Key(serverId.toString(), itemId.toString())
 
-		if (entries.any { it.itemId == itemIdStr && it.serverId == serverIdStr }) {
+		if (key in entries) {
 			Timber.d("Item $itemId already in watchlist")
 			return false
 		}
 
-		entries.add(WatchlistEntry(itemIdStr, serverIdStr))
-		saveWatchlistEntries(entries)
+		entries[key] = WatchlistEntry(key.itemId, key.serverId)
+		onEntriesChanged()
 		Timber.d("Added item $itemId to local watchlist")
-		return true
+		true
 	}
 
 	/**
 	 * Remove an item from the watchlist.
 	 */
-	fun removeFromWatchlist(itemId: UUID, serverId: UUID): Boolean {
-		val entries = getWatchlistEntries().toMutableList()
-		val itemIdStr = itemId.toString()
-		val serverIdStr = serverId.toString()
-
-		val removed = entries.removeAll { it.itemId == itemIdStr && it.serverId == serverIdStr }
+	fun removeFromWatchlist(itemId: UUID, serverId: UUID): Boolean = synchronized(lock) {
+		val removed = entries.remove(Key(serverId.toString(), itemId.toString())) != null
 		if (removed) {
-			saveWatchlistEntries(entries)
+			onEntriesChanged()
 			Timber.d("Removed item $itemId from local watchlist")
 		}
-		return removed
+		removed
 	}
 
-	fun isInWatchlist(itemId: UUID, serverId: UUID): Boolean {
-		val itemIdStr = itemId.toString()
-		val serverIdStr = serverId.toString()
-		return getWatchlistEntries().any { it.itemId == itemIdStr && it.serverId == serverIdStr }
+	fun isInWatchlist(itemId: UUID, serverId: UUID): Boolean = synchronized(lock) {
+		Key(serverId.toString(), itemId.toString()) in entries
 	}
 
 	fun getWatchlistForServer(serverId: UUID): List<WatchlistEntry> {
 		val serverIdStr = serverId.toString()
-		return getWatchlistEntries().filter { it.serverId == serverIdStr }
+		return synchronized(lock) { entries.values.filter { it.serverId == serverIdStr } }
 	}
 
 	fun getWatchlistItemIds(serverId: UUID): List<UUID> {
@@ -148,14 +200,19 @@ class LocalWatchlistRepository(
 	}
 
 	fun clearWatchlist() {
-		saveWatchlistEntries(emptyList())
+		synchronized(lock) {
+			if (entries.isEmpty()) return
+			entries.clear()
+			onEntriesChanged()
+		}
 		Timber.d("Cleared local watchlist")
 	}
 
 	fun clearWatchlistForServer(serverId: UUID) {
 		val serverIdStr = serverId.toString()
-		val entries = getWatchlistEntries().filterNot { it.serverId == serverIdStr }
-		saveWatchlistEntries(entries)
+		synchronized(lock) {
+			if (entries.values.removeAll { it.serverId == serverIdStr }) onEntriesChanged()
+		}
 		Timber.d("Cleared local watchlist for server $serverId")
 	}
 }
@@ -45,11 +45,26 @@ interface MultiServerRepository {
 
 	suspend fun getAggregatedLibraries(includeHidden: Boolean = false): List<AggregatedLibrary>
 
-	suspend fun getAggregatedResumeItems(limit: Int): List<AggregatedItem>
-
-	suspend fun getAggregatedLatestItems(parentId: UUID, limit: Int, serverId: UUID? = null): List<AggregatedItem>
-
-	suspend fun getAggregatedNextUpItems(limit: Int): List<AggregatedItem>
+	/**
+	 * Get the [limit] most recently played resume items of all servers. [onPartialResult] receives the
+	 * items of the servers that answered first while slower servers are still loading.
+	 */
+	suspend fun getAggregatedResumeItems(
+		limit: Int,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)? = null,
+	): List<AggregatedItem>
+
+	suspend fun getAggregatedLatestItems(
+		parentId: UUID,
+		limit: Int,
+		serverId: UUID? = null,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)? = null,
+	): List<AggregatedItem>
+
+	suspend fun getAggregatedNextUpItems(
+		limit: Int,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)? = null,
+	): List<AggregatedItem>
 
 	suspend fun getAggregatedMergedContinueWatchingItems(limit: Int): List<AggregatedItem>
 }
@@ -209,167 +224,129 @@ class MultiServerRepositoryImpl(
 		)
 	}
 
-	override suspend fun getAggregatedResumeItems(limit: Int): List<AggregatedItem> = withContext(Dispatchers.IO) {
+	override suspend fun getAggregatedResumeItems(
+		limit: Int,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)?,
+	): List<AggregatedItem> = withContext(Dispatchers.IO) {
 		val loggedInServers = getLoggedInServers()
 		Timber.d("MultiServerRepository: Aggregating resume items from ${loggedInServers.size} servers")
 
-		// Request more items per server to ensure all servers are represented
-		// Then limit after combining and sorting globally
-		val perServerLimit = minOf(limit * 3, 100) // Get 10x per server to ensure good mix
-
-		// Query all servers in parallel
-		val allItems = loggedInServers.map { session ->
-			async {
-				try {
-					withTimeoutOrNull(SERVER_TIMEOUT) {
-						val query = GetResumeItemsRequest(
-							limit = perServerLimit,
-							fields = ItemRepository.itemFields,
-							imageTypeLimit = 1,
-							enableTotalRecordCount = false,
-						)
-
-						val response = session.apiClient.itemsApi.getResumeItems(query)
-						
-						Timber.d("MultiServerRepository: Got ${response.content.items.size} resume items from ${session.server.name}")
+		// Merge the per server results by most recent playback date (userData.lastPlayedDate)
+		mergeSortedPages(
+			sources = loggedInServers.map { session ->
+				session.pageSource("resume") { startIndex, pageLimit ->
+					val query = GetResumeItemsRequest(
+						startIndex = startIndex,
+						limit = pageLimit,
+						fields = ItemRepository.itemFields,
+						imageTypeLimit = 1,
+						enableTotalRecordCount = false,
+					)
 
-							response.content.items.map { item ->
-							val itemWithServer = item.withServerId(session.server.id)
-							Timber.d("MultiServerRepository: Resume item ${itemWithServer.id} from ${session.server.name} has serverId=${itemWithServer.serverId}")
-							AggregatedItem(
-								item = itemWithServer,
-									server = session.server,
-									userId = session.userId,
-									apiClient = session.apiClient
-								)
-							}
-					} ?: run {
-						Timber.w("MultiServerRepository: Timeout getting resume items from ${session.server.name}")
-						emptyList()
-					}
-				} catch (e: Exception) {
-					// Use warning level for transient server errors (5xx) to avoid triggering crash reports
-					if (e is InvalidStatusException && e.status in 500..599) {
-						Timber.w("MultiServerRepository: Server ${session.server.name} temporarily unavailable (HTTP ${e.status})")
-					} else {
-						Timber.e(e, "MultiServerRepository: Error getting resume items from ${session.server.name}")
-					}
-					emptyList()
+					itemsApi.getResumeItems(query).content.items
 				}
-			}
-		}.awaitAll().flatten()
-
-		// Sort by most recent (userData.lastPlayedDate) and take limit AFTER combining
-		allItems.sortedByDescending { it.item.userData?.lastPlayedDate }
-			.take(limit)
+			},
+			comparator = compareByDescending { it.item.userData?.lastPlayedDate },
+			limit = limit,
+			onPartialResult = onPartialResult,
+		)
 	}
 
-	override suspend fun getAggregatedLatestItems(parentId: UUID, limit: Int, serverId: UUID?): List<AggregatedItem> = withContext(Dispatchers.IO) {
+	override suspend fun getAggregatedLatestItems(
+		parentId: UUID,
+		limit: Int,
+		serverId: UUID?,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)?,
+	): List<AggregatedItem> = withContext(Dispatchers.IO) {
 		val loggedInServers = getLoggedInServers()
 			.let { servers -> serverId?.let { id -> servers.filter { it.server.id == id } } ?: servers }
 		Timber.d("MultiServerRepository: Aggregating latest items for library $parentId from ${loggedInServers.size} servers")
 
-		// Request more items per server to ensure all servers are represented
-		// Then limit after combining and sorting globally
-		val perServerLimit = minOf(limit * 3, 100) // Get 10x per server to ensure good mix
-
-		// Query all servers in parallel
-		val allItems = loggedInServers.map { session ->
-			async {
-				try {
-					withTimeoutOrNull(SERVER_TIMEOUT) {
-						val query = GetLatestMediaRequest(
-							parentId = parentId,
-							fields = ItemRepository.itemFields,
-							imageTypeLimit = 1,
-							limit = perServerLimit,
-							groupItems = true,
-						)
-
-						val response = session.apiClient.userLibraryApi.getLatestMedia(query)
-						
-						Timber.d("MultiServerRepository: Got ${response.content.size} latest items from ${session.server.name}")
+		// Merge the per server results by date created (most recent first)
+		mergeSortedPages(
+			sources = loggedInServers.map { session ->
+				session.pageSource("latest") { startIndex, pageLimit ->
+					// The latest endpoint has no start index, later pages ask for everything up to their end
+					val query = GetLatestMediaRequest(
+						parentId = parentId,
+						fields = ItemRepository.itemFields,
+						imageTypeLimit = 1,
+						limit = startIndex + pageLimit,
+						groupItems = true,
+					)
 
-							response.content.map { item ->
-							val itemWithServer = item.withServerId(session.server.id)
-							Timber.d("MultiServerRepository: Latest item ${itemWithServer.id} from ${session.server.name} has serverId=${itemWithServer.serverId}")
-							AggregatedItem(
-								item = itemWithServer,
-									server = session.server,
-									userId = session.userId,
-									apiClient = session.apiClient
-								)
-							}
-					} ?: run {
-						Timber.w("MultiServerRepository: Timeout getting latest items from ${session.server.name}")
-						emptyList()
-					}
-				} catch (e: Exception) {
-					// Use warning level for transient server errors (5xx) to avoid triggering crash reports
-					if (e is InvalidStatusException && e.status in 500..599) {
-						Timber.w("MultiServerRepository: Server ${session.server.name} temporarily unavailable (HTTP ${e.status})")
-					} else {
-						Timber.e(e, "MultiServerRepository: Error getting latest items from ${session.server.name}")
-					}
-					emptyList()
+					userLibraryApi.getLatestMedia(query).content.drop(startIndex)
 				}
-			}
-		}.flatMap { it.await() }
-
-		// Sort by date created (most recent first) and take limit AFTER combining
-		allItems.sortedByDescending { it.item.dateCreated }
-			.take(limit)
+			},
+			comparator = compareByDescending { it.item.dateCreated },
+			limit = limit,
+			onPartialResult = onPartialResult,
+		)
 	}
 
-	override suspend fun getAggregatedNextUpItems(limit: Int): List<AggregatedItem> = withContext(Dispatchers.IO) {
+	override suspend fun getAggregatedNextUpItems(
+		limit: Int,
+		onPartialResult: (suspend (List<AggregatedItem>) -> Unit)?,
+	): List<AggregatedItem> = withContext(Dispatchers.IO) {
 		val loggedInServers = getLoggedInServers()
 		Timber.d("MultiServerRepository: Aggregating next up items from ${loggedInServers.size} servers")
 
-		// Request more items per server to ensure all servers are represented
-		// Then limit after combining and sorting globally
-		val perServerLimit = minOf(limit * 3, 100) // Get 10x per server to ensure good mix
+		// Next up is not ordered by userData.lastPlayedDate, which is usually unset for the unplayed
+		// episodes it returns. Items without a date tie and keep the server order, so the merge is a
+		// best effort that fills the row with the first servers' items before later servers.
+		mergeSortedPages(
+			sources = loggedInServers.map { session ->
+				session.pageSource("next up") { startIndex, pageLimit ->
+					val query = GetNextUpRequest(
+						startIndex = startIndex,
+						imageTypeLimit = 1,
+						limit = pageLimit,
+						fields = ItemRepository.itemFields,
+					)
 
-		// Query all servers in parallel
-		val allItems = loggedInServers.map { session ->
-			async {
-				try {
-					withTimeoutOrNull(SERVER_TIMEOUT) {
-						val query = GetNextUpRequest(
-							imageTypeLimit = 1,
-							limit = perServerLimit,
-							fields = ItemRepository.itemFields,
-						)
+					tvShowsApi.getNextUp(query).content.items
+				}
+			},
+			comparator = compareByDescending { it.item.userData?.lastPlayedDate },
+			limit = limit,
+			onPartialResult = onPartialResult,
+		)
+	}
 
-						val response = session.apiClient.tvShowsApi.getNextUp(query)
-						
-						Timber.d("MultiServerRepository: Got ${response.content.items.size} next up items from ${session.server.name}")
-
-							response.content.items.map { item ->
-								AggregatedItem(
-									item = item.withServerId(session.server.id),
-									server = session.server,
-									userId = session.userId,
-									apiClient = session.apiClient
-								)
-							}
-					} ?: run {
-						Timber.w("MultiServerRepository: Timeout getting next up items from ${session.server.name}")
-						emptyList()
-					}
-				} catch (e: Exception) {
-					// Use warning level for transient server errors (5xx) to avoid triggering crash reports
-					if (e is InvalidStatusException && e.status in 500..599) {
-						Timber.w("MultiServerRepository: Server ${session.server.name} temporarily unavailable (HTTP ${e.status})")
-					} else {
-						Timber.e(e, "MultiServerRepository: Error getting next up items from ${session.server.name}")
-					}
-					emptyList()
+	/**
+	 * Create a page source that reads items of this server with [fetch]. Timeouts and server errors
+	 * end the source with an empty page so the other servers still show up.
+	 */
+	private fun ServerUserSession.pageSource(
+		name: String,
+		fetch: suspend ApiClient.(startIndex: Int, limit: Int) -> List<BaseItemDto>,
+	): SortedPageSource<AggregatedItem> = { startIndex, limit ->
+		try {
+			withTimeoutOrNull(SERVER_TIMEOUT) {
+				val items = apiClient.fetch(startIndex, limit)
+				Timber.d("MultiServerRepository: Got ${items.size} $name items from ${server.name} (start $startIndex)")
+
+				items.map { item ->
+					AggregatedItem(
+						item = item.withServerId(server.id),
+						server = server,
+						userId = userId,
+						apiClient = apiClient
+					)
 				}
+			} ?: run {
+				Timber.w("MultiServerRepository: Timeout getting $name items from ${server.name}")
+				emptyList()
 			}
-		}.flatMap { it.await() }
-
-		allItems.sortedByDescending { it.item.userData?.lastPlayedDate }
-			.take(limit)
+		} catch (e: Exception) {
+			// Use warning level for transient server errors (5xx) to avoid triggering crash reports
+			if (e is InvalidStatusException && e.status in 500..599) {
+				Timber.w("MultiServerRepository: Server ${server.name} temporarily unavailable (HTTP ${e.status})")
+			} else {
+				Timber.e(e, "MultiServerRepository: Error getting $name items from ${server.name}")
+			}
+			emptyList()
+		}
 	}
 
 	override suspend fun getAggregatedMergedContinueWatchingItems(limit: Int): List<AggregatedItem> = withContext(Dispatchers.IO) {
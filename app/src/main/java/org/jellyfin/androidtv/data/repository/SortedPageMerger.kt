@@ -0,0 +1,99 @@
+package org.jellyfin.androidtv.data.repository
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * A source of items sorted by the merge comparator, read in pages.
+ */
+typealias SortedPageSource<T> = suspend (startIndex: Int, limit: Int) -> List<T>
+
+private const val MIN_PAGE_SIZE = 10
+
+/**
+ * Get the page size used to merge [limit] items from [sourceCount] sources. A single source is asked
+ * for everything at once, multiple sources share the limit with some slack for uneven distributions.
+ */
+fun mergePageSize(limit: Int, sourceCount: Int): Int = when {
+	sourceCount <= 1 -> limit
+	else -> minOf(limit, maxOf(MIN_PAGE_SIZE, (limit * 3 / 2 + sourceCount - 1) / sourceCount))
+}
+
+private class MergeCursor<T>(val source: SortedPageSource<T>) {
+	val buffer = ArrayDeque<T>()
+	var fetched = 0
+	var loaded = false
+	var exhausted = false
+}
+
+/**
+ * Merge the first [limit] items of [sources] that each return their items sorted by [comparator].
+ * First pages are fetched in parallel, after that a source is only asked for its next page when all
+ * of its items made it into the result, so sources whose items sort too low are never read past
+ * their first page. [onPartialResult] receives the merged items of the sources that answered so far
+ * while others are still loading.
+ *
+ * The result equals a stable sort of all items of all sources followed by taking [limit], with ties
+ * kept in source order. This only holds when every source really is sorted by [comparator] across
+ * its pages, items of a later page that sort before the current result are never looked at.
+ */
+suspend fun <T> mergeSortedPages(
+	sources: List<SortedPageSource<T>>,
+	comparator: Comparator<in T>,
+	limit: Int,
+	pageSize: Int = mergePageSize(limit, sources.size),
+	onPartialResult: (suspend (List<T>) -> Unit)? = null,
+): List<T> = coroutineScope {
+	if (limit <= 0 || sources.isEmpty()) return@coroutineScope emptyList()
+
+	val cursors = sources.map { MergeCursor(it) }
+	val lock = Mutex()
+
+	suspend fun MergeCursor<T>.fetchNextPage(): List<T> {
+		// Sorting only fixes the order within the page, not items that belong on another page
+		val page = source(fetched, pageSize).sortedWith(comparator)
+		fetched += page.size
+		// A short page means the source has nothing more
+		if (page.size < pageSize) exhausted = true
+		return page
+	}
+
+	cursors.map { cursor ->
+		async {
+			val page = cursor.fetchNextPage()
+			lock.withLock {
+				cursor.buffer.addAll(page)
+				cursor.loaded = true
+
+				if (onPartialResult != null && cursors.any { !it.loaded }) {
+					val partial = cursors.filter { it.loaded }
+						.flatMap { it.buffer }
+						.sortedWith(comparator)
+						.take(limit)
+					onPartialResult(partial)
+				}
+			}
+		}
+	}.awaitAll()
+
+	val result = ArrayList<T>(limit)
+	while (result.size < limit) {
+		// A drained source may hold the next item, so it needs its next page before picking
+		cursors.filter { it.buffer.isEmpty() && !it.exhausted }
+			.map { cursor -> async { cursor.buffer.addAll(cursor.fetchNextPage()) } }
+			.awaitAll()
+
+		var best: MergeCursor<T>? = null
+		for (cursor in cursors) {
+			val head = cursor.buffer.firstOrNull() ?: continue
+			if (best == null || comparator.compare(head, best.buffer.first()) < 0) best = cursor
+		}
+
+		result.add((best ?: break).buffer.removeFirst())
+	}
+
+	result
+}
@@ -16,7 +16,6 @@ import okhttp3.Request
 import org.jellyfin.androidtv.BuildConfig
 import timber.log.Timber
 import java.io.File
-import java.io.FileOutputStream
 import java.util.concurrent.TimeUnit
 
 /**
@@ -28,6 +27,8 @@ class UpdateCheckerService(private val context: Context) {
 		.readTimeout(30, TimeUnit.SECONDS)
 		.build()
 
+	private val downloader = UpdateDownloader(httpClient)
+
 	private val json = Json {
 		ignoreUnknownKeys = true
 		isLenient = true
@@ -65,6 +66,7 @@ class UpdateCheckerService(private val context: Context) {
 		@SerialName("name") val name: String,
 		@SerialName("browser_download_url") val downloadUrl: String,
 		@SerialName("size") val size: Long,
+		@SerialName("digest") val digest: String? = null,
 	)
 
 	/**
@@ -77,6 +79,7 @@ class UpdateCheckerService(private val context: Context) {
 		val releaseNotes: String? = null,
 		val releaseUrl: String? = null,
 		val apkSize: Long? = null,
+		val sha256: String? = null,
 	)
 
 	data class UpdateInfo(
@@ -86,6 +89,7 @@ class UpdateCheckerService(private val context: Context) {
 		val releaseUrl: String,
 		val isNewer: Boolean,
 		val apkSize: Long,
+		val sha256: String? = null,
 	)
 
 	/**
@@ -127,6 +131,7 @@ class UpdateCheckerService(private val context: Context) {
 					releaseUrl = pluginResponse.releaseUrl ?: "",
 					isNewer = isNewer,
 					apkSize = pluginResponse.apkSize ?: 0L,
+					sha256 = pluginResponse.sha256,
 				).also { latestPluginUpdateInfo = it }
 			}
 		}
@@ -178,79 +183,50 @@ class UpdateCheckerService(private val context: Context) {
 					releaseUrl = release.htmlUrl,
 					isNewer = isNewer,
 					apkSize = apkAsset.size,
+					sha256 = apkAsset.digest?.takeIf { it.startsWith("sha256:") }?.removePrefix("sha256:"),
 				)
 			}
 		}
 	}
 
 	/**
-	 * Download the APK update
+	 * Download the APK update, resuming a previously interrupted download when possible
 	 * @param downloadUrl The URL to download from
-	 * @param onProgress Callback for download progress (0-100)
+	 * @param expectedSha256 Published SHA-256 of the APK, verified against the streamed digest
+	 * @param onProgress Callback for download progress (0-100), rate limited by [UpdateDownloader]
 	 * @return The file URI of the downloaded APK
 	 */
 	suspend fun downloadUpdate(
 		downloadUrl: String,
+		expectedSha256: String? = null,
 		onProgress: (Int) -> Unit = {}
 	): Result<Uri> = withContext(Dispatchers.IO) {
 		runCatching {
-			val request = Request.Builder()
-				.url(downloadUrl)
-				.build()
-
-			httpClient.newCall(request).execute().use { response ->
-				if (!response.isSuccessful) {
-					throw Exception("Failed to download update: ${response.code}")
+			val downloadsDir = File(context.getExternalFilesDir(null), "downloads")
+			val result = downloader.download(
+				url = downloadUrl,
+				target = File(downloadsDir, "update.apk"),
+				expectedSha256 = expectedSha256,
+			) { progress ->
+				withContext(Dispatchers.Main) {
+					onProgress(progress)
 				}
+			}
+			val apkFile = result.file
 
-				val body = response.body ?: throw Exception("Empty response body")
-				val contentLength = body.contentLength()
-
-				// Create downloads directory
-				val downloadsDir = File(context.getExternalFilesDir(null), "downloads")
-				downloadsDir.mkdirs()
-
-				// Create APK file
-				val apkFile = File(downloadsDir, "update.apk")
-				if (apkFile.exists()) {
-					apkFile.delete()
-				}
-
-				// Download with progress
-				FileOutputStream(apkFile).use { output ->
-					val buffer = ByteArray(8192)
-					var bytesRead: Int
-					var totalBytesRead = 0L
-
-					body.byteStream().use { input ->
-						while (input.read(buffer).also { bytesRead = it } != -1) {
-							output.write(buffer, 0, bytesRead)
-							totalBytesRead += bytesRead
-
-							if (contentLength > 0) {
-								val progress = (totalBytesRead * 100 / contentLength).toInt()
-								withContext(Dispatchers.Main) {
-									onProgress(progress)
-								}
-							}
-						}
-					}
-				}
-
-				Timber.d("Update downloaded to: ${apkFile.absolutePath}")
-
-				if (!verifyApkSignature(apkFile)) {
-					apkFile.delete()
-					throw SecurityException("Downloaded APK signature does not match the installed app")
-				}
+			Timber.d("Update downloaded to: ${apkFile.absolutePath} (sha256=${result.sha256}, resumed from ${result.resumedFromBytes} bytes)")
 
-				// Return FileProvider URI
-				FileProvider.getUriForFile(
-					context,
-					"${context.packageName}.fileprovider",
-					apkFile
-				)
+			if (!verifyApkSignature(apkFile)) {
+				apkFile.delete()
+				throw SecurityException("Downloaded APK signature does not match the installed app")
 			}
+
+			// Return FileProvider URI
+			FileProvider.getUriForFile(
+				context,
+				"${context.packageName}.fileprovider",
+				apkFile
+			)
 		}
 	}
 
@@ -0,0 +1,193 @@
+package org.jellyfin.androidtv.data.service
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.withContext
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import timber.log.Timber
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * Downloads a file into a `.partial` sibling of the target, resuming with an HTTP `Range` request
+ * when a previous attempt was interrupted. The SHA-256 digest is computed while streaming, so the
+ * caller can verify the file without reading it again.
+ */
+class UpdateDownloader(
+	private val httpClient: OkHttpClient,
+	private val progressIntervalMs: Long = DEFAULT_PROGRESS_INTERVAL_MS,
+	private val clock: () -> Long = System::currentTimeMillis,
+) {
+	companion object {
+		const val DEFAULT_PROGRESS_INTERVAL_MS = 250L
+		private const val BUFFER_SIZE = 64 * 1024
+		private const val PARTIAL_SUFFIX = ".partial"
+		private const val META_SUFFIX = ".partial.meta"
+
+		internal fun partialFileFor(target: File) = File(target.parentFile, target.name + PARTIAL_SUFFIX)
+		private fun metaFileFor(target: File) = File(target.parentFile, target.name + META_SUFFIX)
+
+		private fun parseContentRangeStart(value: String?): Long? = value
+			?.removePrefix("bytes ")
+			?.substringBefore('-')
+			?.trim()
+			?.toLongOrNull()
+
+		private fun ByteArray.toHex(): String = joinToString("") { "%02x".format(it) }
+	}
+
+	data class DownloadResult(
+		val file: File,
+		val sha256: String,
+		val totalBytes: Long,
+		val resumedFromBytes: Long,
+	)
+
+	/**
+	 * Download [url] into [target].
+	 *
+	 * @param expectedSha256 Hex digest to verify against, or `null` to skip hash verification
+	 * @param onProgress Called with 0-100 at most once per [progressIntervalMs], plus a final 100
+	 * @throws SecurityException if the streamed digest does not match [expectedSha256]
+	 */
+	suspend fun download(
+		url: String,
+		target: File,
+		expectedSha256: String? = null,
+		onProgress: suspend (Int) -> Unit = {},
+	): DownloadResult = withContext(Dispatchers.IO) {
+		target.parentFile?.mkdirs()
+		val partialFile = partialFileFor(target)
+		val metaFile = metaFileFor(target)
+
+		val resumeFrom = resumeOffset(url, partialFile, metaFile)
+		val request = Request.Builder()
+			.url(url)
+			.apply {
+				if (resumeFrom > 0) {
+					header("Range", "bytes=$resumeFrom-")
+					header("If-Range", metaFile.readLines()[1])
+				}
+			}
+			.build()
+
+		httpClient.newCall(request).execute().use { response ->
+			if (response.code == 416) {
+				// Server no longer recognises our range, throw the partial away so the next attempt starts fresh
+				discard(partialFile, metaFile)
+				throw IOException("Range not satisfiable, partial download discarded")
+			}
+			if (!response.isSuccessful) throw IOException("Failed to download update: ${response.code}")
+
+			val body = response.body ?: throw IOException("Empty response body")
+			val resumed = resumeFrom > 0 &&
+				response.code == 206 &&
+				parseContentRangeStart(response.header("Content-Range")) == resumeFrom
+			val startOffset = if (resumed) resumeFrom else 0L
+			if (resumeFrom > 0 && !resumed) Timber.d("Server ignored range request, restarting download")
+
+			writeMeta(metaFile, url, response)
+
+			val digest = MessageDigest.getInstance("SHA-256")
+			if (resumed) seedDigest(digest, partialFile, resumeFrom)
+
+			val contentLength = body.contentLength()
+			val totalLength = if (contentLength >= 0) startOffset + contentLength else -1L
+			var written = startOffset
+			var lastProgressAt = clock()
+			var lastProgress = -1
+
+			FileOutputStream(partialFile, resumed).use { output ->
+				body.byteStream().use { input ->
+					val buffer = ByteArray(BUFFER_SIZE)
+					while (true) {
+						ensureActive()
+						val read = input.read(buffer)
+						if (read == -1) break
+						output.write(buffer, 0, read)
+						digest.update(buffer, 0, read)
+						written += read
+
+						val now = clock()
+						if (totalLength > 0 && now - lastProgressAt >= progressIntervalMs) {
+							val progress = (written * 100 / totalLength).toInt()
+							if (progress != lastProgress) {
+								lastProgress = progress
+								lastProgressAt = now
+								onProgress(progress)
+							}
+						}
+					}
+				}
+			}
+
+			if (totalLength >= 0 && written != totalLength) {
+				throw IOException("Download incomplete: $written of $totalLength bytes")
+			}
+
+			val sha256 = digest.digest().toHex()
+			if (expectedSha256 != null && !expectedSha256.equals(sha256, ignoreCase = true)) {
+				discard(partialFile, metaFile)
+				throw SecurityException("Downloaded file hash does not match the published checksum")
+			}
+
+			if (target.exists()) target.delete()
+			if (!partialFile.renameTo(target)) throw IOException("Unable to move download into place")
+			metaFile.delete()
+			if (lastProgress != 100) onProgress(100)
+
+			DownloadResult(
+				file = target,
+				sha256 = sha256,
+				totalBytes = written,
+				resumedFromBytes = startOffset,
+			)
+		}
+	}
+
+	private fun resumeOffset(url: String, partialFile: File, metaFile: File): Long {
+		if (!partialFile.exists() || !metaFile.exists()) {
+			discard(partialFile, metaFile)
+			return 0L
+		}
+
+		val meta = runCatching { metaFile.readLines() }.getOrNull()
+		if (meta == null || meta.size < 2 || meta[0] != url || meta[1].isBlank()) {
+			discard(partialFile, metaFile)
+			return 0L
+		}
+
+		return partialFile.length()
+	}
+
+	/**
+	 * Stores the url and a validator (ETag, falling back to Last-Modified) used as `If-Range` on resume.
+	 */
+	private fun writeMeta(metaFile: File, url: String, response: Response) {
+		val validator = response.header("ETag") ?: response.header("Last-Modified").orEmpty()
+		metaFile.writeText("$url\n$validator\n")
+	}
+
+	private fun seedDigest(digest: MessageDigest, partialFile: File, length: Long) {
+		FileInputStream(partialFile).use { input ->
+			val buffer = ByteArray(BUFFER_SIZE)
+			var remaining = length
+			while (remaining > 0) {
+				val read = input.read(buffer, 0, minOf(buffer.size.toLong(), remaining).toInt())
+				if (read == -1) break
+				digest.update(buffer, 0, read)
+				remaining -= read
+			}
+		}
+	}
+
+	private fun discard(partialFile: File, metaFile: File) {
+		partialFile.delete()
+		metaFile.delete()
+	}
+}
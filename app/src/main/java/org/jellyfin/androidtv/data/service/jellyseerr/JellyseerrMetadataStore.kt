@@ -0,0 +1,210 @@
+package org.jellyfin.androidtv.data.service.jellyseerr
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.withContext
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.Json
+import timber.log.Timber
+import java.io.File
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.hours
+
+/**
+ * Display metadata for a TMDB title, as used to enrich Jellyseerr requests.
+ */
+@Serializable
+data class JellyseerrMetadata(
+	val title: String? = null,
+	val name: String? = null,
+	val posterPath: String? = null,
+	val backdropPath: String? = null,
+	val overview: String? = null,
+) {
+	companion object {
+		fun from(details: JellyseerrMovieDetailsDto) = JellyseerrMetadata(
+			title = details.title,
+			posterPath = details.posterPath,
+			backdropPath = details.backdropPath,
+			overview = details.overview,
+		)
+
+		fun from(details: JellyseerrTvDetailsDto) = JellyseerrMetadata(
+			name = details.name ?: details.title,
+			posterPath = details.posterPath,
+			backdropPath = details.backdropPath,
+			overview = details.overview,
+		)
+	}
+}
+
+/**
+ * Process-wide cache of [JellyseerrMetadata] keyed by media type and TMDB id.
+ *
+ * - Entries expire after [ttl] and the least recently used ones are evicted past [maxEntries]
+ * - Concurrent lookups for the same key share a single fetch
+ * - At most [maxConcurrentFetches] fetches run at once
+ * - The cache is persisted to [cacheFile] so enriched requests can render on a cold start
+ *
+ * Failed fetches are not cached, so the next lookup retries.
+ */
+class JellyseerrMetadataStore(
+	private val cacheFile: File,
+	private val ttl: Duration = 24.hours,
+	private val maxEntries: Int = 500,
+	maxConcurrentFetches: Int = 5,
+	private val clock: () -> Long = System::currentTimeMillis,
+	private val scope: CoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob()),
+) {
+	companion object {
+		private const val PERSIST_DELAY_MS = 1_000L
+	}
+
+	@Serializable
+	private data class Entry(
+		val mediaType: String,
+		val tmdbId: Int,
+		val fetchedAt: Long,
+		val metadata: JellyseerrMetadata,
+	)
+
+	private data class Key(val mediaType: String, val tmdbId: Int)
+
+	private val json = Json { ignoreUnknownKeys = true }
+	private val mutex = Mutex()
+	private val fetchPermits = Semaphore(maxConcurrentFetches)
+	private val entries = LinkedHashMap<Key, Entry>(16, 0.75f, true)
+	private val inFlight = HashMap<Key, CompletableDeferred<JellyseerrMetadata?>>()
+	private var loaded = false
+	private var persistJob: Job? = null
+
+	/**
+	 * Get metadata for [tmdbId], calling [fetch] only when there is no fresh entry and no fetch for
+	 * the same key is already running.
+	 *
+	 * @return the metadata, or `null` when the fetch failed
+	 */
+	suspend fun get(
+		mediaType: String,
+		tmdbId: Int,
+		fetch: suspend () -> JellyseerrMetadata?,
+	): JellyseerrMetadata? {
+		val key = Key(mediaType, tmdbId)
+		var owner = false
+		val deferred = mutex.withLock {
+			ensureLoaded()
+			val cached = entries[key]
+			if (cached != null && clock() - cached.fetchedAt < ttl.inWholeMilliseconds) return cached.metadata
+
+			inFlight.getOrPut(key) {
+				owner = true
+				CompletableDeferred()
+			}
+		}
+
+		if (!owner) return deferred.await()
+
+		val metadata = try {
+			fetchPermits.withPermit { fetch() }
+		} catch (err: CancellationException) {
+			deferred.complete(null)
+			mutex.withLock { inFlight.remove(key) }
+			throw err
+		} catch (err: Exception) {
+			Timber.w(err, "JellyseerrMetadataStore: Failed to fetch $mediaType $tmdbId")
+			null
+		}
+
+		mutex.withLock {
+			inFlight.remove(key)
+			if (metadata != null) {
+				entries[key] = Entry(mediaType, tmdbId, clock(), metadata)
+				trim()
+				schedulePersist()
+			}
+		}
+		deferred.complete(metadata)
+		return metadata
+	}
+
+	/** Drop all cached metadata, in memory and on disk. */
+	suspend fun clear() {
+		mutex.withLock {
+			loaded = true
+			entries.clear()
+			persistJob?.cancel()
+			persistJob = null
+		}
+		withContext(Dispatchers.IO) { cacheFile.delete() }
+	}
+
+	/** Write pending changes to disk immediately. */
+	suspend fun flush() {
+		val snapshot = mutex.withLock {
+			persistJob?.cancel()
+			persistJob = null
+			entries.values.toList()
+		}
+		write(snapshot)
+	}
+
+	private suspend fun ensureLoaded() {
+		if (loaded) return
+		loaded = true
+
+		val stored = withContext(Dispatchers.IO) {
+			if (!cacheFile.exists()) return@withContext emptyList()
+			runCatching { json.decodeFromString<List<Entry>>(cacheFile.readText()) }
+				.onFailure { Timber.w(it, "JellyseerrMetadataStore: Discarding unreadable cache") }
+				.getOrDefault(emptyList())
+		}
+
+		val now = clock()
+		stored
+			.filter { now - it.fetchedAt < ttl.inWholeMilliseconds }
+			.sortedBy { it.fetchedAt }
+			.forEach { entries[Key(it.mediaType, it.tmdbId)] = it }
+		trim()
+	}
+
+	private fun trim() {
+		val iterator = entries.entries.iterator()
+		while (entries.size > maxEntries && iterator.hasNext()) {
+			iterator.next()
+			iterator.remove()
+		}
+	}
+
+	private fun schedulePersist() {
+		persistJob?.cancel()
+		persistJob = scope.launch {
+			delay(PERSIST_DELAY_MS)
+			val snapshot = mutex.withLock { entries.values.toList() }
+			write(snapshot)
+		}
+	}
+
+	private suspend fun write(snapshot: List<Entry>) = withContext(Dispatchers.IO) {
+		try {
+			cacheFile.parentFile?.mkdirs()
+			val temp = File(cacheFile.parentFile, cacheFile.name + ".tmp")
+			temp.writeText(json.encodeToString(snapshot))
+			if (!temp.renameTo(cacheFile)) {
+				cacheFile.delete()
+				temp.renameTo(cacheFile)
+			}
+		} catch (err: Exception) {
+			Timber.w(err, "JellyseerrMetadataStore: Failed to persist cache")
+		}
+	}
+}
@@ -1,15 +1,22 @@
 package org.jellyfin.androidtv.data.service.jellyseerr
 
 import android.content.Context
+import android.content.SharedPreferences
 import io.ktor.client.plugins.cookies.CookiesStorage
 import io.ktor.http.Cookie
 import io.ktor.http.CookieEncoding
 import io.ktor.http.Url
 import io.ktor.util.date.GMTDate
-import kotlinx.coroutines.sync.Mutex
-import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import timber.log.Timber
 import java.util.Base64
+import java.util.PriorityQueue
+import java.util.WeakHashMap
 
 /**
  * Delegating cookie storage that can switch between different user storages
@@ -22,6 +29,7 @@ class DelegatingCookiesStorage(private val context: Context) : CookiesStorage {
 	
 	fun switchToUser(userId: String) {
 		if (currentUserId != userId) {
+			delegate.close()
 			currentUserId = userId
 			delegate = PersistentCookiesStorage(context, userId)
 		}
@@ -40,78 +48,55 @@ class DelegatingCookiesStorage(private val context: Context) : CookiesStorage {
  * Persistent cookie storage that saves cookies to SharedPreferences
  * This allows cookies to survive app restarts
  * Each Jellyfin user gets their own cookie storage to maintain separate Jellyseerr sessions
+ *
+ * Cookies are indexed by registrable domain with an expiry queue, so lookups only touch the
+ * cookies that can match the request host. Changes are written per cookie and coalesced into a
+ * single background SharedPreferences edit. Instances backed by the same preferences share one
+ * index, so a storage recreated on user switch sees writes that have not reached disk yet.
  */
 class PersistentCookiesStorage(context: Context, userId: String? = null) : CookiesStorage {
 	private val prefsKey = if (userId != null) "jellyseerr_cookies_$userId" else "jellyseerr_cookies"
 	private val preferences = context.getSharedPreferences(prefsKey, Context.MODE_PRIVATE)
-	private val mutex = Mutex()
-	private val cookies = mutableMapOf<String, Cookie>()
+	private val index = indexFor(preferences)
 
-	init {
-		// Load cookies from preferences on initialization
-		loadCookies()
-	}
+	override suspend fun get(requestUrl: Url): List<Cookie> {
+		val host = requestUrl.host.lowercase()
+		val path = requestUrl.encodedPath
+		val now = GMTDate().timestamp
 
-	private fun loadCookies() {
-		try {
-			preferences.all.forEach { (key, value) ->
-				if (value is String) {
-					val cookie = deserializeCookie(value)
-					if (cookie != null && !isExpired(cookie)) {
-						cookies[key] = cookie
-					}
-				}
-			}
-		} catch (e: Exception) {
-			Timber.e(e, "PersistentCookiesStorage: Error loading cookies")
-		}
-	}
+		return synchronized(index) {
+			if (index.purgeExpired(now)) scheduleFlush()
 
-	private fun saveCookies() {
-		try {
-			preferences.edit().apply {
-				clear()
-				cookies.forEach { (key, cookie) ->
-					putString(key, serializeCookie(cookie))
-				}
-				apply()
+			index.bucket(host).values.mapNotNull { entry ->
+				entry.cookie.takeIf { matchesDomain(entry, host) && matchesPath(it, path) }
 			}
-		} catch (e: Exception) {
-			Timber.e(e, "PersistentCookiesStorage: Error saving cookies")
-		}
-	}
-
-	override suspend fun get(requestUrl: Url): List<Cookie> = mutex.withLock {
-		// Remove expired cookies
-		val expiredKeys = cookies.filter { (_, cookie) ->
-			isExpired(cookie)
-		}.keys
-		
-		if (expiredKeys.isNotEmpty()) {
-			expiredKeys.forEach { cookies.remove(it) }
-			saveCookies()
-		}
-
-		// Return cookies that match the URL
-		cookies.values.filter { cookie ->
-			matchesDomain(cookie, requestUrl) && matchesPath(cookie, requestUrl)
 		}
 	}
 
-	override suspend fun addCookie(requestUrl: Url, cookie: Cookie): Unit = mutex.withLock {
+	override suspend fun addCookie(requestUrl: Url, cookie: Cookie) {
+		val host = requestUrl.host.lowercase()
 		val key = "${cookie.name}_${requestUrl.host}"
 		// Force RAW encoding to prevent Ktor from double-encoding cookie values.
 		// Jellyseerr (Express.js) sends connect.sid values already URL-encoded (e.g. s%3A...).
 		// Without RAW encoding, Ktor re-encodes on send, turning %3A into %253A,
 		// which Jellyseerr doesn't recognize → 401 Unauthorized on API calls.
 		val rawCookie = cookie.copy(encoding = CookieEncoding.RAW)
-		cookies[key] = rawCookie
-		saveCookies()
+
+		synchronized(index) {
+			if (isExpired(rawCookie, GMTDate().timestamp)) {
+				// Servers delete cookies by resending them with an expiry in the past
+				if (index.remove(key) != null) index.pending[key] = null
+			} else {
+				index.put(key, CookieEntry(key, host, rawCookie))
+				index.pending[key] = serializeCookie(rawCookie)
+			}
+		}
+		scheduleFlush()
 	}
 
 	override fun close() {
 		try {
-			saveCookies()
+			flushNow()
 		} catch (e: Exception) {
 			Timber.e(e, "PersistentCookiesStorage: Error during close")
 		}
@@ -120,22 +105,55 @@ class PersistentCookiesStorage(context: Context, userId: String? = null) : Cooki
 	/**
 	 * Clear all stored cookies
 	 */
-	suspend fun clearAll() = mutex.withLock {
-		cookies.clear()
-		// Use commit() (synchronous) instead of apply() (async) to ensure
-		// cookies are removed from disk before any new storage instance can load them
-		preferences.edit().clear().commit()
+	suspend fun clearAll() {
+		synchronized(index) {
+			index.clear()
+			// Use commit() (synchronous) instead of apply() (async) to ensure
+			// cookies are removed from disk before any new storage instance can load them
+			preferences.edit().clear().commit()
+		}
 	}
 
-	private fun isExpired(cookie: Cookie): Boolean {
-		val expires = cookie.expires ?: return false
-		return expires.timestamp < GMTDate().timestamp
+	/**
+	 * Write pending cookie changes now instead of waiting for the coalescing delay.
+	 */
+	internal suspend fun flush() = withContext(Dispatchers.IO) { flushNow() }
+
+	private fun scheduleFlush() {
+		synchronized(index) {
+			if (index.pending.isEmpty() || index.flushScheduled) return
+			index.flushScheduled = true
+		}
+
+		flushScope.launch {
+			delay(FLUSH_DELAY_MS)
+			flushNow()
+		}
+	}
+
+	private fun flushNow() {
+		synchronized(index) {
+			index.flushScheduled = false
+			if (index.pending.isEmpty()) return
+
+			// Written while holding the lock so a concurrent clearAll can't be undone by older changes
+			try {
+				preferences.edit().apply {
+					index.pending.forEach { (key, serialized) ->
+						if (serialized == null) remove(key) else putString(key, serialized)
+					}
+					apply()
+				}
+			} catch (e: Exception) {
+				Timber.e(e, "PersistentCookiesStorage: Error saving cookies")
+			}
+			index.pending.clear()
+		}
 	}
 
-	private fun matchesDomain(cookie: Cookie, url: Url): Boolean {
-		val domain = cookie.domain?.lowercase() ?: return true
-		val host = url.host.lowercase()
-		
+	private fun matchesDomain(entry: CookieEntry, host: String): Boolean {
+		val domain = entry.cookie.domain?.lowercase() ?: return host == entry.originHost
+
 		return if (domain.startsWith(".")) {
 			// Domain cookie: matches host and all subdomains
 			host == domain.substring(1) || host.endsWith(domain)
@@ -145,14 +163,126 @@ class PersistentCookiesStorage(context: Context, userId: String? = null) : Cooki
 		}
 	}
 
-	private fun matchesPath(cookie: Cookie, url: Url): Boolean {
+	private fun matchesPath(cookie: Cookie, urlPath: String): Boolean {
 		val cookiePath = cookie.path ?: "/"
-		val urlPath = url.encodedPath
 		return urlPath.startsWith(cookiePath)
 	}
 
+	private class CookieEntry(
+		val key: String,
+		val originHost: String,
+		val cookie: Cookie,
+	) {
+		val expiresAt: Long? = cookie.expires?.timestamp
+		val bucket: String = registrableDomain(cookie.domain?.lowercase()?.removePrefix(".") ?: originHost)
+	}
+
+	/**
+	 * In-memory cookie index for one preferences file. All access is guarded by the instance monitor.
+	 */
+	private class CookieIndex {
+		private val byKey = HashMap<String, CookieEntry>()
+		private val byDomain = HashMap<String, LinkedHashMap<String, CookieEntry>>()
+		private val expiryQueue = PriorityQueue<CookieEntry>(compareBy { it.expiresAt })
+
+		/** Serialized cookie per changed key, `null` for removals, waiting to be written. */
+		val pending = LinkedHashMap<String, String?>()
+		var flushScheduled = false
+
+		fun bucket(host: String): Map<String, CookieEntry> = byDomain[registrableDomain(host)].orEmpty()
+
+		fun put(key: String, entry: CookieEntry) {
+			remove(key)
+			byKey[key] = entry
+			byDomain.getOrPut(entry.bucket) { LinkedHashMap() }[key] = entry
+			if (entry.expiresAt != null) expiryQueue.add(entry)
+		}
+
+		fun remove(key: String): CookieEntry? {
+			val entry = byKey.remove(key) ?: return null
+			byDomain[entry.bucket]?.let { bucket ->
+				bucket.remove(key)
+				if (bucket.isEmpty()) byDomain.remove(entry.bucket)
+			}
+			// Replaced entries are left in the queue and skipped lazily in purgeExpired
+			return entry
+		}
+
+		/**
+		 * Drop cookies that expired before [now] and queue their removal.
+		 * @return true if anything was removed
+		 */
+		fun purgeExpired(now: Long): Boolean {
+			var removed = false
+			while (true) {
+				val head = expiryQueue.peek() ?: break
+				if (head.expiresAt!! >= now) break
+				expiryQueue.poll()
+				if (byKey[head.key] === head) {
+					remove(head.key)
+					pending[head.key] = null
+					removed = true
+				}
+			}
+			return removed
+		}
+
+		fun clear() {
+			byKey.clear()
+			byDomain.clear()
+			expiryQueue.clear()
+			pending.clear()
+		}
+	}
+
+	private fun indexFor(preferences: SharedPreferences): CookieIndex = synchronized(indexes) {
+		indexes.getOrPut(preferences) { loadCookies(preferences) }
+	}
+
+	private fun loadCookies(preferences: SharedPreferences): CookieIndex {
+		val loaded = CookieIndex()
+		val now = GMTDate().timestamp
+		try {
+			preferences.all.forEach { (key, value) ->
+				if (value is String) {
+					val cookie = deserializeCookie(value)
+					if (cookie != null && !isExpired(cookie, now)) {
+						loaded.put(key, CookieEntry(key, key.substringAfterLast('_').lowercase(), cookie))
+					}
+				}
+			}
+		} catch (e: Exception) {
+			Timber.e(e, "PersistentCookiesStorage: Error loading cookies")
+		}
+		return loaded
+	}
+
+	private fun isExpired(cookie: Cookie, now: Long): Boolean {
+		val expires = cookie.expires ?: return false
+		return expires.timestamp < now
+	}
+
 	private companion object {
 		const val SERIALIZATION_VERSION_V2 = "v2"
+		const val FLUSH_DELAY_MS = 250L
+
+		val flushScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+		/** One index per backing preferences file, shared by every storage instance that opens it. */
+		val indexes = WeakHashMap<SharedPreferences, CookieIndex>()
+
+		/**
+		 * Approximate registrable domain: the last two labels of a host name, or the full host for
+		 * IP addresses and single-label hosts. A cookie domain always lands in the same bucket as any
+		 * host it can match, which is all the index needs.
+		 */
+		fun registrableDomain(host: String): String {
+			if (host.isEmpty() || host.startsWith("[") || host.last().isDigit()) return host
+			val lastDot = host.lastIndexOf('.')
+			if (lastDot <= 0) return host
+			val secondLastDot = host.lastIndexOf('.', lastDot - 1)
+			return if (secondLastDot == -1) host else host.substring(secondLastDot + 1)
+		}
 	}
 
 	private fun encodeCookieFieldV2(value: String) =
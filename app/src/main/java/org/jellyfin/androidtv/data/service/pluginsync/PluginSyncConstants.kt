@@ -21,6 +21,9 @@ object PluginSyncConstants {
 	/** SharedPreferences file name for the last-synced snapshot (three-way merge baseline). */
 	const val SNAPSHOT_PREFS_NAME = "moonfin_sync_snapshot"
 
+	/** SharedPreferences file name for the [PluginSyncJournal] of pending changes and server versions. */
+	const val JOURNAL_PREFS_NAME = "moonfin_sync_journal"
+
 	/** Client identifier sent with POST requests to the server. */
 	const val CLIENT_ID = "moonfin-androidtv"
 
@@ -98,6 +101,14 @@ object PluginSyncConstants {
 			.toSet()
 	}
 
+	/**
+	 * Local SharedPreferences key to server key, used to journal changes reported by listeners.
+	 */
+	val LOCAL_TO_SERVER_KEYS: Map<String, String> by lazy {
+		(USER_PREFERENCES + USER_SETTING_PREFERENCES + JELLYSEERR_PREFERENCES)
+			.associate { it.preference.key to it.serverKey }
+	}
+
 	/**
 	 * Server-side keys used throughout the sync pipeline (maps, snapshots, HTTP).
 	 */
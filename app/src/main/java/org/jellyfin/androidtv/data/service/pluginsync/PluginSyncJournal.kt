@@ -0,0 +1,103 @@
+package org.jellyfin.androidtv.data.service.pluginsync
+
+import android.content.SharedPreferences
+
+/**
+ * Change journal for plugin sync.
+ *
+ * Records which server keys changed locally since the last successful push, each with a
+ * monotonically increasing local version, and remembers the server-side state (ETag and
+ * per-key versions) seen on the last pull. This lets [PluginSyncService] push only deltas
+ * and skip keys that did not change on the server.
+ *
+ * Backed by [PluginSyncConstants.JOURNAL_PREFS_NAME]; writes touch only the keys involved.
+ */
+internal class PluginSyncJournal(private val prefs: SharedPreferences) {
+	private companion object {
+		const val PENDING_PREFIX = "pending:"
+		const val SERVER_VERSION_PREFIX = "serverVersion:"
+		const val CLOCK_KEY = "_clock"
+		const val ETAG_KEY = "_etag"
+		const val SCHEMA_VERSION_KEY = "_schemaVersion"
+	}
+
+	/** ETag returned by the server on the last successful pull or push, if the server supports it. */
+	var etag: String?
+		get() = prefs.getString(ETAG_KEY, null)
+		set(value) = prefs.edit().apply { if (value == null) remove(ETAG_KEY) else putString(ETAG_KEY, value) }.apply()
+
+	/** Schema version of the last server response, kept so a 304 response can reuse it. */
+	var schemaVersion: Int
+		get() = prefs.getInt(SCHEMA_VERSION_KEY, 1)
+		set(value) = prefs.edit().putInt(SCHEMA_VERSION_KEY, value).apply()
+
+	/**
+	 * Record a local change to [serverKey].
+	 * @return the new local version of the key
+	 */
+	fun recordChange(serverKey: String): Long = recordChanges(listOf(serverKey))
+
+	/**
+	 * Record local changes to all [serverKeys] in a single write.
+	 * @return the new local version of the keys
+	 */
+	@Synchronized
+	fun recordChanges(serverKeys: Collection<String>): Long {
+		val version = prefs.getLong(CLOCK_KEY, 0L) + 1
+		val editor = prefs.edit().putLong(CLOCK_KEY, version)
+		for (serverKey in serverKeys) editor.putLong(PENDING_PREFIX + serverKey, version)
+		editor.apply()
+		return version
+	}
+
+	/** Keys changed locally and not yet acknowledged by the server, with their local version. */
+	@Synchronized
+	fun pending(): Map<String, Long> = prefs.all
+		.filterKeys { it.startsWith(PENDING_PREFIX) }
+		.mapNotNull { (key, value) -> (value as? Long)?.let { key.removePrefix(PENDING_PREFIX) to it } }
+		.toMap()
+
+	/**
+	 * Clear pending entries that were pushed. Keys whose version moved on since [pushed] was
+	 * captured were changed again during the push and stay pending.
+	 */
+	@Synchronized
+	fun acknowledge(pushed: Map<String, Long>) {
+		val editor = prefs.edit()
+		for ((key, version) in pushed) {
+			if (prefs.getLong(PENDING_PREFIX + key, -1L) == version) editor.remove(PENDING_PREFIX + key)
+		}
+		editor.apply()
+	}
+
+	/**
+	 * Keys whose server version is newer than the one seen on the previous pull, or all of
+	 * [serverVersions] keys when nothing was recorded yet. Returns `null` when the server does
+	 * not report per-key versions, meaning every key must be treated as possibly changed.
+	 */
+	@Synchronized
+	fun serverChangedKeys(serverVersions: Map<String, Long>?): Set<String>? {
+		if (serverVersions == null) return null
+		return serverVersions.filter { (key, version) ->
+			version > prefs.getLong(SERVER_VERSION_PREFIX + key, -1L)
+		}.keys
+	}
+
+	/** Remember per-key server versions after they were merged. */
+	@Synchronized
+	fun recordServerVersions(serverVersions: Map<String, Long>) {
+		val editor = prefs.edit()
+		for ((key, version) in serverVersions) {
+			if (prefs.getLong(SERVER_VERSION_PREFIX + key, -1L) != version) {
+				editor.putLong(SERVER_VERSION_PREFIX + key, version)
+			}
+		}
+		editor.apply()
+	}
+
+	/** Forget everything, forcing the next sync to do a full pull and merge. */
+	@Synchronized
+	fun reset() {
+		prefs.edit().clear().apply()
+	}
+}
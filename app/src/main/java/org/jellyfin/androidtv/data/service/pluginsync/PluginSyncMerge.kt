@@ -49,6 +49,33 @@ internal object PluginSyncMerge {
 		return merged
 	}
 
+	/**
+	 * Build the server side of a merge when only some keys changed on the server.
+	 *
+	 * Keys outside [serverChangedKeys] are taken from [snapshot], so they count as unchanged
+	 * server-side. A `null` [serverChangedKeys] means the server did not report per-key
+	 * versions and [server] is used as-is.
+	 */
+	fun serverView(
+		server: Map<String, Any?>,
+		snapshot: Map<String, Any?>,
+		serverChangedKeys: Set<String>?,
+	): Map<String, Any?> {
+		if (serverChangedKeys == null || snapshot.isEmpty()) return server
+		return snapshot + server.filterKeys { it in serverChangedKeys }
+	}
+
+	/**
+	 * Keys whose value in [settings] differs from [baseline], i.e. the delta to push.
+	 */
+	fun changedKeys(
+		settings: Map<String, Any?>,
+		baseline: Map<String, Any?>,
+	): Set<String> = settings.keys
+		.filter { it in PluginSyncConstants.ALL_SERVER_KEYS }
+		.filter { normalizeForComparison(settings[it]) != normalizeForComparison(baseline[it]) }
+		.toSet()
+
 	/**
 	 * Normalize a value to a comparable string form so that type mismatches
 	 * (e.g. Int 1 vs String "1", Boolean true vs String "true") don't cause
@@ -25,6 +25,7 @@ import kotlinx.serialization.json.longOrNull
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.RequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import org.jellyfin.androidtv.auth.repository.UserRepository
 import org.jellyfin.androidtv.data.repository.JellyseerrRepository
@@ -69,8 +70,19 @@ import java.util.concurrent.TimeUnit
  *
  * **On Every Settings Change** (via [SharedPreferences.OnSharedPreferenceChangeListener]):
  * - Saves to local storage immediately (handled by the preference store itself)
- * - If server is reachable, pushes all syncable settings to server (debounced 500ms)
- * - Updates the snapshot after each successful push
+ * - Collects the changed key until the debounced push (500ms) runs
+ * - Journals all collected keys in the [PluginSyncJournal] and, if the server is reachable and a
+ *   journaled key differs from the snapshot, pushes the settings to the server
+ * - Updates only those keys in the snapshot after each successful push
+ * - Values written by the sync itself are not journaled as local changes
+ *
+ * **Deltas and Preconditions:**
+ * - Pushes always send the full settings map, the server replaces the stored settings (or the
+ *   global profile) with the posted map. The journal only decides whether a push is needed.
+ * - When the server returns an `ETag`, pulls use `If-None-Match` and pushes carry `If-Match`.
+ *   A `412` means another device wrote first: the service pulls, merges the pending keys and
+ *   retries once instead of overwriting the other device's change.
+ * - When the server reports per-key `Versions`, only keys with a newer version are merged.
  *
  * **Cross-Client Behavior:**
  * - New device with no local settings → pulls from server, settings follow the user
@@ -95,6 +107,8 @@ class PluginSyncService(
 		private const val SETTINGS_PATH = "/Moonfin/Settings"
 		private const val JELLYSEERR_CONFIG_PATH = "/Moonfin/Jellyseerr/Config"
 		private const val DEBOUNCE_MS = 500L
+		private const val HTTP_NOT_MODIFIED = 304
+		private const val HTTP_PRECONDITION_FAILED = 412
 		private val JSON_MEDIA_TYPE = "application/json; charset=utf-8".toMediaType()
 	}
 
@@ -139,6 +153,15 @@ class PluginSyncService(
 	/** Listeners currently registered for change tracking. */
 	private val changeListeners = mutableListOf<Pair<SharedPreferenceStore, SharedPreferences.OnSharedPreferenceChangeListener>>()
 
+	/** Local keys changed since the last debounced push, journaled together when it runs. */
+	private val changedLocalKeys = mutableSetOf<String>()
+
+	/**
+	 * Values written by [applySettings] by local key. Change listeners are notified after the write,
+	 * so a notification for a key that still holds the applied value is not a local change.
+	 */
+	private val appliedLocalValues = mutableMapOf<String, Any?>()
+
 	/** Coroutine scope for push-on-change debouncing. Uses IO dispatcher. */
 	private var pushScope: CoroutineScope? = null
 
@@ -150,6 +173,21 @@ class PluginSyncService(
 	private val _syncCompletedCounter = MutableStateFlow(0)
 	val syncCompletedCounter: StateFlow<Int> = _syncCompletedCounter.asStateFlow()
 
+	/** Settings pulled from the server along with the metadata used for delta sync. */
+	private data class ServerSettings(
+		val values: Map<String, Any?>,
+		val etag: String?,
+		val versions: Map<String, Long>?,
+		val notModified: Boolean,
+	)
+
+	private enum class PushResult { SUCCESS, CONFLICT, FAILED }
+
+	/** Journal of locally changed keys and last-seen server state. */
+	private val journal: PluginSyncJournal by lazy {
+		PluginSyncJournal(context.getSharedPreferences(PluginSyncConstants.JOURNAL_PREFS_NAME, Context.MODE_PRIVATE))
+	}
+
 	/** SharedPreferences storing the last-synced snapshot for three-way merge. */
 	private val snapshotPrefs: SharedPreferences by lazy {
 		context.getSharedPreferences(PluginSyncConstants.SNAPSHOT_PREFS_NAME, Context.MODE_PRIVATE)
@@ -185,6 +223,7 @@ class PluginSyncService(
 			Timber.i("$TAG: Auto-detect: plugin found, enabling sync")
 			userPreferences[UserPreferences.pluginSyncEnabled] = true
 			snapshotPrefs.edit().clear().apply()
+			journal.reset()
 		}
 
 		if (!serverAvailable) {
@@ -192,22 +231,24 @@ class PluginSyncService(
 			return@withContext
 		}
 
-		val serverSettings = fetchServerSettings(baseUrl, token)
+		val pending = journal.pending()
 		val localSettings = collectLocalSettings()
 		val snapshot = loadSnapshot()
+		val serverSettings = fetchServerSettings(baseUrl, token, conditional = snapshot.isNotEmpty())
 
 		when {
 			serverSettings != null -> {
-				val merged = mergeThreeWay(localSettings, serverSettings, snapshot)
-				applySettings(merged)
-				pushSettings(baseUrl, token, merged)
-				saveSnapshot(merged)
+				val merged = mergeAndPush(baseUrl, token, localSettings, serverSettings, snapshot)
+				if (merged != null) journal.acknowledge(pending)
 				_syncCompletedCounter.value++
 				Timber.i("$TAG: Startup sync complete (three-way merge)")
 			}
 			else -> {
-				pushSettings(baseUrl, token, localSettings)
-				saveSnapshot(localSettings)
+				val changed = PluginSyncMerge.changedKeys(localSettings, snapshot)
+				if (pushSettings(baseUrl, token, localSettings, changed) == PushResult.SUCCESS) {
+					updateSnapshot(localSettings, changed)
+					journal.acknowledge(pending)
+				}
 				Timber.i("$TAG: Startup sync complete (pushed local to server)")
 			}
 		}
@@ -261,6 +302,7 @@ class PluginSyncService(
 	 */
 	suspend fun initialSync() = withContext(Dispatchers.IO) {
 		snapshotPrefs.edit().clear().apply()
+		journal.reset()
 		Timber.i("$TAG: Snapshot cleared for initial server-wins sync")
 
 		syncOnStartup()
@@ -274,6 +316,8 @@ class PluginSyncService(
 			store.unregisterChangeListener(listener)
 		}
 		changeListeners.clear()
+		journalChangedKeys()
+		synchronized(appliedLocalValues) { appliedLocalValues.clear() }
 		pushJob?.cancel()
 		pushJob = null
 		pushScope = null
@@ -310,21 +354,33 @@ class PluginSyncService(
 	 * `global`, `desktop`, `mobile`, `tv` profiles) response formats.
 	 * For v2, resolves settings using TV → global fallback chain.
 	 *
+	 * When [conditional] is set and an ETag is known, the request carries `If-None-Match`; a `304`
+	 * response returns the snapshot values with [ServerSettings.notModified] set.
+	 *
 	 * @return Flat key-value map of server settings, or null if unavailable.
 	 */
-	private fun fetchServerSettings(baseUrl: String, token: String): Map<String, Any?>? {
+	private fun fetchServerSettings(baseUrl: String, token: String, conditional: Boolean): ServerSettings? {
 		return try {
+			val knownEtag = journal.etag.takeIf { conditional }
 			val request = Request.Builder()
 				.url("$baseUrl$SETTINGS_PATH")
 				.header("Authorization", "MediaBrowser Token=\"$token\"")
+				.apply { if (knownEtag != null) header("If-None-Match", knownEtag) }
 				.get()
 				.build()
 			val response = httpClient.newCall(request).execute()
+			if (response.code == HTTP_NOT_MODIFIED && knownEtag != null) {
+				response.close()
+				serverSchemaVersion = journal.schemaVersion
+				Timber.d("$TAG: Server settings not modified since last sync")
+				return ServerSettings(loadSnapshot(), knownEtag, versions = null, notModified = true)
+			}
 			if (!response.isSuccessful) {
 				Timber.w("$TAG: Fetch settings failed (${response.code})")
 				response.close()
 				return null
 			}
+			val etag = response.header("ETag")
 			val body = response.body?.string()
 			response.close()
 			if (body.isNullOrBlank()) return null
@@ -337,6 +393,14 @@ class PluginSyncService(
 			val schemaVersion = (jsonObject["SchemaVersion"] ?: jsonObject["schemaVersion"])
 				?.let { (it as? JsonPrimitive)?.intOrNull } ?: 1
 			serverSchemaVersion = schemaVersion
+			journal.schemaVersion = schemaVersion
+			journal.etag = etag
+
+			val versions = ((jsonObject["Versions"] ?: jsonObject["versions"]) as? JsonObject)
+				?.mapNotNull { (key, element) ->
+					(element as? JsonPrimitive)?.longOrNull?.let { toCamelCase(key) to it }
+				}
+				?.toMap()
 
 			val mapped = if (schemaVersion >= 2) {
 				// v2 envelope — resolve flat settings from TV → global profile chain
@@ -352,7 +416,7 @@ class PluginSyncService(
 			}
 
 			Timber.d("$TAG: Server keys received (v$schemaVersion): ${mapped.keys}")
-			mapped
+			ServerSettings(mapped, etag, versions, notModified = false)
 		} catch (e: Exception) {
 			Timber.w(e, "$TAG: Fetch settings failed")
 			null
@@ -473,50 +537,69 @@ class PluginSyncService(
 	 * For v1 servers: `POST {baseUrl}/Moonfin/Settings` with flat settings.
 	 * For v2 servers: `POST {baseUrl}/Moonfin/Settings/Profile/global` to
 	 * save into the global profile so settings are visible on all devices.
+	 *
+	 * The full [settings] map is sent as the server replaces its stored settings with it. If the
+	 * server supports ETags the push is guarded by `If-Match`. Nothing is sent when [changedKeys]
+	 * is empty.
 	 */
-	private fun pushSettings(baseUrl: String, token: String, settings: Map<String, Any?>) {
-		try {
+	private fun pushSettings(
+		baseUrl: String,
+		token: String,
+		settings: Map<String, Any?>,
+		changedKeys: Set<String>,
+	): PushResult {
+		if (changedKeys.isEmpty()) return PushResult.SUCCESS
+
+		return try {
+			val etag = journal.etag
 			val settingsObj = settingsToJsonObject(settings)
 
-			if (serverSchemaVersion >= 2) {
-				// v2: push into the global profile directly
-				val wrappedBody = JsonObject(mapOf(
-					"profile" to settingsObj,
-					"clientId" to JsonPrimitive(PluginSyncConstants.CLIENT_ID),
-				))
-				val jsonBody = json.encodeToString(JsonObject.serializer(), wrappedBody)
-				val requestBody = jsonBody.toRequestBody(JSON_MEDIA_TYPE)
-				val request = Request.Builder()
-					.url("$baseUrl$SETTINGS_PATH/Profile/global")
-					.header("Authorization", "MediaBrowser Token=\"$token\"")
-					.post(requestBody)
-					.build()
-				val response = httpClient.newCall(request).execute()
-				if (!response.isSuccessful) {
-					Timber.w("$TAG: Push settings (v2 profile) failed (${response.code})")
-				}
-				response.close()
+			// v2: push into the global profile directly, v1: push flat settings
+			val (path, bodyKey) = if (serverSchemaVersion >= 2) {
+				"$SETTINGS_PATH/Profile/global" to "profile"
 			} else {
-				// v1: push flat settings
-				val wrappedBody = JsonObject(mapOf(
-					"settings" to settingsObj,
-					"clientId" to JsonPrimitive(PluginSyncConstants.CLIENT_ID),
-				))
-				val jsonBody = json.encodeToString(JsonObject.serializer(), wrappedBody)
-				val requestBody = jsonBody.toRequestBody(JSON_MEDIA_TYPE)
-				val request = Request.Builder()
-					.url("$baseUrl$SETTINGS_PATH")
-					.header("Authorization", "MediaBrowser Token=\"$token\"")
-					.post(requestBody)
-					.build()
-				val response = httpClient.newCall(request).execute()
-				if (!response.isSuccessful) {
-					Timber.w("$TAG: Push settings failed (${response.code})")
-				}
-				response.close()
+				SETTINGS_PATH to "settings"
 			}
+			val wrappedBody = JsonObject(mapOf(
+				bodyKey to settingsObj,
+				"clientId" to JsonPrimitive(PluginSyncConstants.CLIENT_ID),
+			))
+			val jsonBody = json.encodeToString(JsonObject.serializer(), wrappedBody)
+			executePush(baseUrl + path, token, jsonBody.toRequestBody(JSON_MEDIA_TYPE), etag)
 		} catch (e: Exception) {
 			Timber.w(e, "$TAG: Push settings failed")
+			PushResult.FAILED
+		}
+	}
+
+	private fun executePush(
+		url: String,
+		token: String,
+		requestBody: RequestBody,
+		etag: String?,
+	): PushResult {
+		val request = Request.Builder()
+			.url(url)
+			.header("Authorization", "MediaBrowser Token=\"$token\"")
+			.apply { if (etag != null) header("If-Match", etag) }
+			.post(requestBody)
+			.build()
+		httpClient.newCall(request).execute().use { response ->
+			return when {
+				response.code == HTTP_PRECONDITION_FAILED -> {
+					Timber.i("$TAG: Push rejected, server settings changed since last pull")
+					PushResult.CONFLICT
+				}
+				!response.isSuccessful -> {
+					Timber.w("$TAG: Push settings failed (${response.code})")
+					PushResult.FAILED
+				}
+				else -> {
+					// A response without a new ETag leaves the next pushes without If-Match until the next pull
+					if (etag != null) journal.etag = response.header("ETag")
+					PushResult.SUCCESS
+				}
+			}
 		}
 	}
 
@@ -547,7 +630,7 @@ class PluginSyncService(
 
 	/**
 	 * Apply a settings map back into local preference stores.
-	 * Only updates keys that are in the syncable set.
+	 * Only updates keys that are in the syncable set. Each store is written in a single transaction.
 	 */
 	private fun applySettings(settings: Map<String, Any?>) {
 		val userPrefKeys = PluginSyncConstants.USER_PREFERENCES.associateBy { it.serverKey }
@@ -555,18 +638,34 @@ class PluginSyncService(
 		val jellyseerrPrefKeys = PluginSyncConstants.JELLYSEERR_PREFERENCES.associateBy { it.serverKey }
 		val jellyseerrPrefs = getJellyseerrPrefs()
 
-		try {
-			for ((key, value) in settings) {
-				if (value == null) continue
+		val writes = mutableMapOf<SharedPreferenceStore, MutableList<Pair<SyncablePreference<*>, Any>>>()
+		for ((key, value) in settings) {
+			if (value == null) continue
+
+			val (store, syncPreference) = when {
+				key in userPrefKeys -> userPreferences to userPrefKeys.getValue(key)
+				key in userSettingPrefKeys -> {
+					val syncPreference = userSettingPrefKeys.getValue(key)
+					val store = getUserSettingStore(syncPreference) ?: continue
+					store to syncPreference
+				}
+				key in jellyseerrPrefKeys && jellyseerrPrefs != null -> jellyseerrPrefs to jellyseerrPrefKeys.getValue(key)
+				else -> continue
+			}
+			writes.getOrPut(store) { mutableListOf() } += syncPreference to value
+		}
 
-				when {
-					key in userPrefKeys -> writePreference(userPreferences, userPrefKeys[key]!!, value)
-					key in userSettingPrefKeys -> {
-						val syncPreference = userSettingPrefKeys[key]!!
-						val store = getUserSettingStore(syncPreference) ?: continue
-						writePreference(store, syncPreference, value)
+		try {
+			for ((store, values) in writes) {
+				store.transaction {
+					for ((syncPreference, value) in values) writePreference(store, syncPreference, value)
+
+					// Recorded before the transaction is applied and listeners are notified
+					synchronized(appliedLocalValues) {
+						for ((syncPreference, _) in values) {
+							appliedLocalValues[syncPreference.preference.key] = readPreference(store, syncPreference)
+						}
 					}
-					key in jellyseerrPrefKeys && jellyseerrPrefs != null -> writePreference(jellyseerrPrefs, jellyseerrPrefKeys[key]!!, value)
 				}
 			}
 		} catch (e: Exception) {
@@ -574,6 +673,33 @@ class PluginSyncService(
 		}
 	}
 
+	/**
+	 * Merge [server] into local settings, apply the result and push the keys that differ from
+	 * the server. Updates the snapshot for every key that changed.
+	 *
+	 * @return the merged settings, or null if the push failed
+	 */
+	private fun mergeAndPush(
+		baseUrl: String,
+		token: String,
+		local: Map<String, Any?>,
+		server: ServerSettings,
+		snapshot: Map<String, Any?>,
+	): Map<String, Any?>? {
+		val serverChangedKeys = if (server.notModified) emptySet() else journal.serverChangedKeys(server.versions)
+		val serverValues = PluginSyncMerge.serverView(server.values, snapshot, serverChangedKeys)
+		val merged = mergeThreeWay(local, serverValues, snapshot)
+
+		val locallyChanged = PluginSyncMerge.changedKeys(merged, local)
+		applySettings(merged.filterKeys { it in locallyChanged })
+		val result = pushSettings(baseUrl, token, merged, PluginSyncMerge.changedKeys(merged, serverValues))
+		if (result != PushResult.SUCCESS) return null
+
+		updateSnapshot(merged, PluginSyncMerge.changedKeys(merged, snapshot))
+		server.versions?.let(journal::recordServerVersions)
+		return merged
+	}
+
 	private fun mergeThreeWay(
 		local: Map<String, Any?>,
 		server: Map<String, Any?>,
@@ -586,8 +712,10 @@ class PluginSyncService(
 	}
 
 	/**
-	 * Register [SharedPreferences.OnSharedPreferenceChangeListener] on each preference store.
-	 * On any syncable key change, debounce 500ms then push all settings to server.
+	 * Register a [SharedPreferences.OnSharedPreferenceChangeListener] on each preference file.
+	 * Listening on the shared preferences instead of a store object also sees writes made through
+	 * other store instances backed by the same file. Changed syncable keys are collected and
+	 * journaled together by the debounced push, so a burst of changes results in a single push.
 	 */
 	private fun registerChangeListeners() {
 		unregisterChangeListeners()
@@ -598,20 +726,12 @@ class PluginSyncService(
 		val globalListener = SharedPreferences.OnSharedPreferenceChangeListener { _, key ->
 			if (key == null || key !in PluginSyncConstants.ALL_LOCAL_KEYS) return@OnSharedPreferenceChangeListener
 			if (key in perUserPinKeys) return@OnSharedPreferenceChangeListener
-			if (!userPreferences[UserPreferences.pluginSyncEnabled]) return@OnSharedPreferenceChangeListener
-			if (!serverAvailable) return@OnSharedPreferenceChangeListener
-
-			Timber.d("$TAG: Syncable preference changed: $key — scheduling push")
-			scheduleDebouncedPush()
+			onLocalKeyChanged(key)
 		}
 
 		val perUserPinListener = SharedPreferences.OnSharedPreferenceChangeListener { _, key ->
 			if (key == null || key !in perUserPinKeys) return@OnSharedPreferenceChangeListener
-			if (!userPreferences[UserPreferences.pluginSyncEnabled]) return@OnSharedPreferenceChangeListener
-			if (!serverAvailable) return@OnSharedPreferenceChangeListener
-
-			Timber.d("$TAG: Syncable per-user PIN preference changed: $key — scheduling push")
-			scheduleDebouncedPush()
+			onLocalKeyChanged(key)
 		}
 
 		registerListenerOnStore(userPreferences, globalListener)
@@ -638,21 +758,89 @@ class PluginSyncService(
 		changeListeners.add(store to listener)
 	}
 
+	private fun onLocalKeyChanged(key: String) {
+		if (!userPreferences[UserPreferences.pluginSyncEnabled]) return
+		if (!serverAvailable) return
+		if (isAppliedValue(key)) return
+
+		Timber.d("$TAG: Syncable preference changed: $key — scheduling push")
+		synchronized(changedLocalKeys) { changedLocalKeys += key }
+		scheduleDebouncedPush()
+	}
+
+	/**
+	 * Whether [key] still holds the value [applySettings] wrote, making its change notification an
+	 * echo of the sync instead of a local change.
+	 */
+	private fun isAppliedValue(key: String): Boolean {
+		if (synchronized(appliedLocalValues) { key !in appliedLocalValues }) return false
+
+		val current = findLocalPreference(key)?.let { (store, syncPreference) -> readPreference(store, syncPreference) }
+		return synchronized(appliedLocalValues) {
+			key in appliedLocalValues && appliedLocalValues.remove(key) == current
+		}
+	}
+
+	private fun findLocalPreference(key: String): Pair<SharedPreferenceStore, SyncablePreference<*>>? {
+		PluginSyncConstants.USER_PREFERENCES.find { it.preference.key == key }
+			?.let { return userPreferences to it }
+		PluginSyncConstants.USER_SETTING_PREFERENCES.find { it.preference.key == key }
+			?.let { syncPreference -> return getUserSettingStore(syncPreference)?.let { it to syncPreference } }
+		PluginSyncConstants.JELLYSEERR_PREFERENCES.find { it.preference.key == key }
+			?.let { syncPreference -> return getJellyseerrPrefs()?.let { it to syncPreference } }
+		return null
+	}
+
+	/**
+	 * Journal the local keys collected since the last call in a single write.
+	 */
+	private fun journalChangedKeys() {
+		val keys = synchronized(changedLocalKeys) {
+			changedLocalKeys.toList().also { changedLocalKeys.clear() }
+		}
+		if (keys.isEmpty()) return
+
+		journal.recordChanges(keys.mapNotNull { PluginSyncConstants.LOCAL_TO_SERVER_KEYS[it] })
+	}
+
 	/**
 	 * Schedule a debounced push to server. Cancels any pending push and waits [DEBOUNCE_MS]
 	 * before executing. This prevents rapid-fire pushes when multiple settings change quickly.
+	 *
+	 * The full settings map is pushed, but only when a key in the [PluginSyncJournal] differs from
+	 * the snapshot. On a precondition conflict the server settings are pulled and merged before one retry.
 	 */
 	private fun scheduleDebouncedPush() {
 		pushJob?.cancel()
 		pushJob = pushScope?.launch {
 			delay(DEBOUNCE_MS)
+			journalChangedKeys()
 
 			val baseUrl = api.baseUrl ?: return@launch
 			val token = api.accessToken ?: return@launch
+			val pending = journal.pending()
+			if (pending.isEmpty()) return@launch
+
 			val settings = collectLocalSettings()
-			pushSettings(baseUrl, token, settings)
-			saveSnapshot(settings)
-			Timber.d("$TAG: Debounced push complete")
+			val snapshot = loadSnapshot()
+			val changed = PluginSyncMerge.changedKeys(settings.filterKeys { it in pending }, snapshot)
+
+			when (pushSettings(baseUrl, token, settings, changed)) {
+				PushResult.SUCCESS -> {
+					updateSnapshot(settings, changed)
+					journal.acknowledge(pending)
+					Timber.d("$TAG: Debounced push complete (${changed.size} keys)")
+				}
+				PushResult.CONFLICT -> {
+					val serverSettings = fetchServerSettings(baseUrl, token, conditional = false) ?: return@launch
+					if (mergeAndPush(baseUrl, token, settings, serverSettings, snapshot) != null) {
+						journal.acknowledge(pending)
+						_syncCompletedCounter.value++
+						Timber.d("$TAG: Debounced push complete after resolving conflict")
+					}
+				}
+				PushResult.FAILED -> Unit
+			}
 		}
 	}
 
@@ -852,15 +1040,17 @@ class PluginSyncService(
 	}
 
 	/**
-	 * Persist the current merged settings as the snapshot baseline for the next sync.
+	 * Write [keys] from [settings] into the snapshot baseline for the next sync.
+	 * Keys that did not change keep their stored value, so unchanged settings are not rewritten.
 	 */
-	private fun saveSnapshot(settings: Map<String, Any?>) {
+	private fun updateSnapshot(settings: Map<String, Any?>, keys: Set<String>) {
+		if (keys.isEmpty() && snapshotPrefs.contains(PluginSyncConstants.SNAPSHOT_VERSION_KEY)) return
+
 		val editor = snapshotPrefs.edit()
-		editor.clear()
 		editor.putInt(PluginSyncConstants.SNAPSHOT_VERSION_KEY, PluginSyncConstants.SNAPSHOT_VERSION)
-		for ((key, value) in settings) {
+		for (key in keys) {
 			if (key !in PluginSyncConstants.ALL_SERVER_KEYS) continue
-			when (value) {
+			when (val value = settings[key]) {
 				is Boolean -> editor.putBoolean(key, value)
 				is Int -> editor.putInt(key, value)
 				is Long -> editor.putLong(key, value)
@@ -872,12 +1062,12 @@ class PluginSyncService(
 					editor.putString(key, jsonStr)
 				}
 				is String -> editor.putString(key, value)
-				null -> { /* skip nulls */ }
+				null -> editor.remove(key)
 				else -> editor.putString(key, value.toString())
 			}
 		}
 		editor.apply()
-		Timber.d("$TAG: Snapshot saved (${settings.size} keys)")
+		Timber.d("$TAG: Snapshot updated (${keys.size} keys)")
 	}
 
 	/**
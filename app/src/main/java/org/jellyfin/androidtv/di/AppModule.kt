@@ -17,6 +17,7 @@ import org.jellyfin.androidtv.BuildConfig
 import org.jellyfin.androidtv.auth.repository.ServerRepository
 import org.jellyfin.androidtv.auth.repository.UserRepository
 import org.jellyfin.androidtv.auth.repository.UserRepositoryImpl
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
 import org.jellyfin.androidtv.data.eventhandling.SocketHandler
 import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.repository.CustomMessageRepository
@@ -35,6 +36,7 @@ import org.jellyfin.androidtv.data.repository.UserViewsRepository
 import org.jellyfin.androidtv.data.repository.UserViewsRepositoryImpl
 import org.jellyfin.androidtv.data.service.BackgroundService
 import org.jellyfin.androidtv.data.service.UpdateCheckerService
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrMetadataStore
 import org.jellyfin.androidtv.preference.JellyseerrPreferences
 import org.jellyfin.androidtv.data.syncplay.SyncPlayManager
 import org.jellyfin.androidtv.integration.dream.DreamViewModel
@@ -51,6 +53,7 @@ import org.jellyfin.androidtv.ui.playback.nextup.NextUpViewModel
 import org.jellyfin.androidtv.ui.playback.segment.MediaSegmentRepository
 import org.jellyfin.androidtv.ui.playback.segment.MediaSegmentRepositoryImpl
 import org.jellyfin.androidtv.ui.playback.stillwatching.StillWatchingViewModel
+import org.jellyfin.androidtv.ui.player.photo.CoilPhotoDecoder
 import org.jellyfin.androidtv.ui.player.photo.PhotoPlayerViewModel
 import org.jellyfin.androidtv.ui.search.SearchFragmentDelegate
 import org.jellyfin.androidtv.ui.search.SearchRepository
@@ -79,6 +82,7 @@ import org.koin.android.ext.koin.androidContext
 import org.koin.core.module.dsl.viewModel
 import org.koin.core.qualifier.named
 import org.koin.dsl.module
+import java.io.File
 import org.jellyfin.sdk.Jellyfin as JellyfinSdk
 
 val defaultDeviceInfo = named("defaultDeviceInfo")
@@ -170,6 +174,7 @@ val appModule = module {
 
 	// Non API related
 	single { DataRefreshService() }
+	single { ItemInvalidationBus() }
 	single { PlaybackControllerContainer() }
 	// Use single scope to ensure the same instance is used across all playback sessions
 	single { InteractionTrackerViewModel(get(), get()) }
@@ -180,7 +185,7 @@ val appModule = module {
 	single<ItemMutationRepository> { ItemMutationRepositoryImpl(get(), get()) }
 	single<CustomMessageRepository> { CustomMessageRepositoryImpl() }
 	single<NavigationRepository> { NavigationRepositoryImpl(Destinations.home) }
-	single { ShuffleManager(get(), get(), get(), get()) }
+	single { ShuffleManager(get(), get(), get(), get(), get(), get()) }
 	single<SearchRepository> { SearchRepositoryImpl(get(), get()) }
 	single<MediaSegmentRepository> { MediaSegmentRepositoryImpl(get(), get(), get(), get()) }
 	single<ExternalAppRepository> { ExternalAppRepository(get()) }
@@ -201,6 +206,7 @@ val appModule = module {
 	// Jellyseerr - User-specific preferences (auth data, API keys) - scoped per user
 	factory(named("user")) { (userId: String) -> JellyseerrPreferences(androidContext(), userId) }
 	single<JellyseerrRepository> { JellyseerrRepositoryImpl(androidContext(), get(named("global")), get()) }
+	single { JellyseerrMetadataStore(File(androidContext().cacheDir, "jellyseerr_metadata.json")) }
 	single { MdbListRepository(get<OkHttpFactory>().createClient(get()), get()) }
 	single { TmdbRepository(get<OkHttpFactory>().createClient(get()), get(), get()) }
 
@@ -215,12 +221,12 @@ val appModule = module {
 	viewModel { ServerAddViewModel(get()) }
 	viewModel { NextUpViewModel(get(), get(), get(), get()) }
 	viewModel { StillWatchingViewModel(get<Context>(), get(), get(), get(), get()) }
-	viewModel { PhotoPlayerViewModel(get()) }
+	viewModel { PhotoPlayerViewModel(get(), CoilPhotoDecoder(androidContext(), get(), get())) }
 	viewModel { SearchViewModel(get(), get(), get(named("global")), get(), get()) }
 	viewModel { DreamViewModel(get(), get(), get(), get(), get()) }
 	viewModel { SettingsViewModel() }
 	viewModel { SyncPlayViewModel() }
-	viewModel { org.jellyfin.androidtv.ui.jellyseerr.JellyseerrViewModel(get()) }
+	viewModel { org.jellyfin.androidtv.ui.jellyseerr.JellyseerrViewModel(get(), get()) }
 	viewModel { org.jellyfin.androidtv.ui.itemdetail.v2.ItemDetailsViewModel(get(), get()) }
 	viewModel { org.jellyfin.androidtv.ui.browsing.v2.LibraryBrowseViewModel(get(), get(), get(), get(), get()) }
 	viewModel { org.jellyfin.androidtv.ui.browsing.v2.GenresGridViewModel(get(), get(), get(), get()) }
@@ -241,7 +247,7 @@ val appModule = module {
 	single { MarkdownRenderer(get()) }
 	single { ItemLauncher() }
 	single { KeyProcessor() }
-	single { ReportingHelper(get(), get(), get()) }
+	single { ReportingHelper(get(), get(), get(), get()) }
 	single<PlaybackHelper> { SdkPlaybackHelper(get(), get(), get(), get(), get()) }
 	single { org.jellyfin.androidtv.ui.playback.ThemeMusicPlayer(androidContext()) }
 
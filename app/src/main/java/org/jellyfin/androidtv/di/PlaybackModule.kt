@@ -16,10 +16,13 @@ import org.jellyfin.androidtv.preference.UserSettingPreferences
 import org.jellyfin.androidtv.ui.browsing.MainActivity
 import org.jellyfin.androidtv.ui.playback.MediaManager
 import org.jellyfin.androidtv.ui.playback.PlaybackLauncher
+import org.jellyfin.androidtv.ui.playback.PlayerPool
 import org.jellyfin.androidtv.ui.playback.PrePlaybackTrackSelector
 import org.jellyfin.androidtv.ui.playback.VideoQueueManager
+import org.jellyfin.androidtv.ui.playback.createPreviewPlayerFactory
 import org.jellyfin.androidtv.ui.playback.rewrite.RewriteMediaManager
 import org.jellyfin.androidtv.util.profile.createDeviceProfile
+import org.jellyfin.androidtv.util.profile.createDeviceProfileKey
 import org.jellyfin.androidtv.util.sdk.ApiClientFactory
 import org.jellyfin.playback.core.playbackManager
 import org.jellyfin.playback.jellyfin.jellyfinPlugin
@@ -58,6 +61,8 @@ val playbackModule = module {
 		OkHttpDataSource.Factory(okHttpFactory.createClient(httpClientOptions))
 	}
 
+	single { PlayerPool(createPreviewPlayerFactory(androidContext(), get())) }
+
 	single { createPlaybackManager() }
 }
 
@@ -95,6 +100,7 @@ fun Scope.createPlaybackManager() = playbackManager(androidContext()) {
 	install(media3SessionPlugin(get(), mediaSessionOptions))
 
 	val deviceProfileBuilder = { createDeviceProfile(androidContext(), userPreferences, get()) }
+	val deviceProfileKey = { createDeviceProfileKey(userPreferences) }
 	
 	val apiClientFactory = get<ApiClientFactory>()
 	val apiClientResolver: (UUID?) -> ApiClient? = { serverId ->
@@ -104,8 +110,8 @@ fun Scope.createPlaybackManager() = playbackManager(androidContext()) {
 	val serverRepository = get<ServerRepository>()
 	val isEmbyActive = { serverRepository.currentServer.value?.serverType == ServerType.EMBY }
 
-	install(embyPlugin(get(), deviceProfileBuilder))
-	install(jellyfinPlugin(get(), deviceProfileBuilder, ProcessLifecycleOwner.get().lifecycle, apiClientResolver, isActive = { !isEmbyActive() }))
+	install(embyPlugin(get(), deviceProfileBuilder, deviceProfileKey))
+	install(jellyfinPlugin(get(), deviceProfileBuilder, ProcessLifecycleOwner.get().lifecycle, apiClientResolver, isActive = { !isEmbyActive() }, deviceProfileKey = deviceProfileKey))
 
 	val userSettingPreferences = get<UserSettingPreferences>()
 	defaultRewindAmount = { userSettingPreferences[UserSettingPreferences.skipBackLength].milliseconds }
@@ -44,6 +44,7 @@ import org.jellyfin.playback.core.PlaybackManager
 import org.jellyfin.playback.core.model.PlayState
 import org.jellyfin.playback.jellyfin.lyrics
 import org.jellyfin.playback.jellyfin.lyricsFlow
+import org.jellyfin.playback.jellyfin.lyricsTimeline
 import org.jellyfin.sdk.api.client.ApiClient
 import org.jellyfin.sdk.model.api.ImageType
 import org.koin.compose.koinInject
@@ -85,6 +86,7 @@ fun DreamContentNowPlaying(
 
 		LyricsDtoBox(
 			lyricDto = lyrics,
+			timeline = content.entry.lyricsTimeline,
 			currentTimestamp = playbackManager.state.positionInfo.active,
 			duration = playbackManager.state.positionInfo.duration,
 			paused = playState != PlayState.PLAYING,
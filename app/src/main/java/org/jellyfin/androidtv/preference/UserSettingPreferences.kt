@@ -210,7 +210,7 @@ class UserSettingPreferences(
 	 */
 	fun setHomeRowImageType(sectionType: HomeSectionType, imageType: org.jellyfin.androidtv.constant.ImageType) {
 		val key = "homeRowImageType_${sectionType.serializedName}"
-		sharedPreferences.edit().putString(key, imageType.name).apply()
+		putRawString(key, imageType.name)
 	}
 	
 	init {
@@ -26,22 +26,16 @@ import androidx.compose.ui.unit.TextUnit
 import androidx.compose.ui.unit.dp
 import org.jellyfin.androidtv.ui.base.LocalTextStyle
 import org.jellyfin.androidtv.ui.base.Text
+import org.jellyfin.playback.jellyfin.LyricsTimeline
 import org.jellyfin.sdk.model.api.LyricDto
-import org.jellyfin.sdk.model.extensions.ticks
+import org.jellyfin.sdk.model.extensions.inWholeTicks
 import kotlin.time.Duration
 
-data class TimedLine(
-	val timestamp: Duration,
-	val text: String,
-)
-
 private data class LyricsBoxContentMeasurements(
 	val size: Size,
 	val items: List<Measured>,
 )
 
-private fun Collection<TimedLine>.indexAtTimestamp(timestamp: Duration) = indexOfLast { it.timestamp <= timestamp }.takeIf { it != -1 }
-
 @Composable
 private fun LyricsLine(
 	text: String,
@@ -114,13 +108,13 @@ private fun <T> LyricsBoxContent(
 
 @Composable
 fun LyricsBox(
-	lines: List<TimedLine>,
+	timeline: LyricsTimeline,
 	currentTimestamp: Duration = Duration.ZERO,
 	fontSize: TextUnit = LocalTextStyle.current.fontSize,
 	color: Color = LocalTextStyle.current.color,
 ) {
 	var lineMeasurements by remember { mutableStateOf<List<Measured>>(emptyList()) }
-	val activeLine = lines.indexAtTimestamp(currentTimestamp)
+	val activeLine = timeline.indexAt(currentTimestamp.inWholeTicks)
 	val activeLineOffsetAnimation = remember { Animatable(0f) }
 
 	LaunchedEffect(activeLine) {
@@ -137,14 +131,14 @@ fun LyricsBox(
 	}
 
 	LyricsBoxContent(
-		items = lines,
+		items = timeline.lines,
 		modifier = Modifier.graphicsLayer {
 			translationY = -activeLineOffsetAnimation.value
 		},
 		onMeasured = { measurements -> lineMeasurements = measurements.items }
 	) { line, index ->
 		LyricsLine(
-			text = line.text,
+			text = line,
 			active = index == activeLine,
 			fontSize = fontSize,
 			color = color,
@@ -184,26 +178,24 @@ fun LyricsBox(
 fun LyricsDtoBox(
 	lyricDto: LyricDto,
 	modifier: Modifier = Modifier,
+	timeline: LyricsTimeline? = null,
 	currentTimestamp: Duration = Duration.ZERO,
 	duration: Duration = Duration.ZERO,
 	paused: Boolean = false,
 	fontSize: TextUnit = LocalTextStyle.current.fontSize,
 	color: Color = LocalTextStyle.current.color,
 ) = Box(modifier) {
-	val lyrics = lyricDto.lyrics
-	val isTimed = lyrics.firstOrNull()?.start != null
-	if (isTimed) {
+	val lyricsTimeline = timeline ?: remember(lyricDto) { LyricsTimeline(lyricDto) }
+	if (lyricsTimeline.isSynced) {
 		LyricsBox(
-			lines = lyrics.map {
-				TimedLine(it.start?.ticks ?: Duration.ZERO, it.text)
-			},
+			timeline = lyricsTimeline,
 			currentTimestamp = currentTimestamp,
 			fontSize = fontSize,
 			color = color,
 		)
 	} else {
 		LyricsBox(
-			lines = lyrics.map { it.text },
+			lines = lyricsTimeline.lines,
 			currentTimestamp = currentTimestamp,
 			duration = duration,
 			paused = paused,
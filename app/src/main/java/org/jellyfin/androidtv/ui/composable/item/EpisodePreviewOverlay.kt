@@ -20,7 +20,6 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.alpha
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
-import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.viewinterop.AndroidView
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleEventObserver
@@ -31,16 +30,15 @@ import androidx.media3.common.PlaybackException
 import androidx.media3.common.Player
 import androidx.media3.common.util.UnstableApi
 import androidx.media3.datasource.HttpDataSource
-import androidx.media3.exoplayer.DefaultRenderersFactory
 import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.exoplayer.source.ProgressiveMediaSource
-import androidx.media3.exoplayer.trackselection.DefaultTrackSelector
 import androidx.media3.ui.AspectRatioFrameLayout
 import androidx.media3.ui.PlayerView
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.ui.base.StonecrusherTheme
+import org.jellyfin.androidtv.ui.playback.PlayerPool
 import org.jellyfin.androidtv.ui.playback.segment.MediaSegmentRepository
 import org.jellyfin.androidtv.util.UUIDUtils
 import org.jellyfin.androidtv.util.sdk.ApiClientFactory
@@ -71,9 +69,9 @@ private fun runtimeFallbackMs(item: BaseItemDto): Long {
  *  1. Waits [PREVIEW_START_DELAY_MS] to avoid triggering on quick scrolls
  *  2. Resolves a direct play stream URL from Jellyfin
  *  3. Fetches intro segments and seeks past them
- *  4. Starts ExoPlayer muted, fading in over the poster image
+ *  4. Starts a player from the [PlayerPool] muted, fading in over the poster image
  *
- * When [focused] becomes false, the player is stopped and released.
+ * When [focused] becomes false, the player is given back to the pool.
  *
  * @param item The BaseItemDto (episode or movie) to preview
  * @param focused Whether the card is currently focused
@@ -87,11 +85,11 @@ fun EpisodePreviewOverlay(
 	muted: Boolean = true,
 	modifier: Modifier = Modifier,
 ) {
-	val context = LocalContext.current
 	val api = koinInject<ApiClient>()
 	val apiClientFactory = koinInject<ApiClientFactory>()
 	val mediaSegmentRepository = koinInject<MediaSegmentRepository>()
 	val httpDataSourceFactory = koinInject<HttpDataSource.Factory>()
+	val playerPool = koinInject<PlayerPool>()
 
 	var streamUrl by remember { mutableStateOf<String?>(null) }
 	var fallbackUrl by remember { mutableStateOf<String?>(null) }
@@ -115,12 +113,12 @@ fun EpisodePreviewOverlay(
 			streamUrl = null
 			fallbackUrl = null
 			isPlaying = false
-			exoPlayer?.stop()
-			exoPlayer?.release()
-			exoPlayer = null
 			return@LaunchedEffect
 		}
 
+		// Build the player and fetch the segments while waiting for the focus to settle
+		playerPool.warmUp()
+		mediaSegmentRepository.prefetchSegmentsForItem(item)
 		delay(PREVIEW_START_DELAY_MS)
 
 		try {
@@ -173,28 +171,17 @@ fun EpisodePreviewOverlay(
 		val currentUrl = streamUrl!!
 
 		DisposableEffect(currentUrl) {
-			val renderersFactory = DefaultRenderersFactory(context).apply {
-				setEnableDecoderFallback(true)
-				setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_PREFER)
-			}
-
-			val trackSelector = DefaultTrackSelector(context).apply {
-				parameters = parameters.buildUpon()
+			val lease = playerPool.borrow() ?: return@DisposableEffect onDispose { }
+			val player = lease.player.apply {
+				trackSelectionParameters = trackSelectionParameters.buildUpon()
 					.setTrackTypeDisabled(C.TRACK_TYPE_TEXT, true)
 					.build()
+				volume = if (muted) 0f else 1f
+				repeatMode = Player.REPEAT_MODE_OFF
+				playWhenReady = true
+				videoScalingMode = C.VIDEO_SCALING_MODE_SCALE_TO_FIT_WITH_CROPPING
 			}
 
-			val player = ExoPlayer.Builder(context)
-				.setRenderersFactory(renderersFactory)
-				.setTrackSelector(trackSelector)
-				.build()
-				.apply {
-					volume = if (muted) 0f else 1f
-					repeatMode = Player.REPEAT_MODE_OFF
-					playWhenReady = true
-					videoScalingMode = C.VIDEO_SCALING_MODE_SCALE_TO_FIT_WITH_CROPPING
-				}
-
 			val mediaSource = ProgressiveMediaSource.Factory(httpDataSourceFactory)
 				.createMediaSource(MediaItem.fromUri(Uri.parse(currentUrl)))
 
@@ -205,7 +192,7 @@ fun EpisodePreviewOverlay(
 				player.stop()
 			}
 
-			player.addListener(object : Player.Listener {
+			lease.addListener(object : Player.Listener {
 				override fun onPlaybackStateChanged(playbackState: Int) {
 					when (playbackState) {
 						Player.STATE_READY -> {
@@ -243,8 +230,7 @@ fun EpisodePreviewOverlay(
 
 			onDispose {
 				handler.removeCallbacks(stopRunnable)
-				player.stop()
-				player.release()
+				lease.close()
 				exoPlayer = null
 				isPlaying = false
 			}
@@ -286,6 +272,9 @@ fun EpisodePreviewOverlay(
 				update = { playerView ->
 					playerView.player = exoPlayer
 				},
+				onRelease = { playerView ->
+					playerView.player = null
+				},
 				modifier = Modifier.fillMaxSize()
 			)
 		}
@@ -0,0 +1,79 @@
+package org.jellyfin.androidtv.ui.home
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import org.jellyfin.androidtv.ui.presentation.MutableObjectAdapter
+
+/**
+ * Loads the content of several home rows with at most [maxConcurrency] requests in flight. Each
+ * result is handed to [onLoaded] as soon as it lands, together with the index of its source, so the
+ * caller can fill the row at its configured position no matter which request finishes first.
+ * [onLoaded] runs in the context of the caller, failures are passed on as a failed [Result].
+ */
+suspend fun <T, R> loadRowsConcurrently(
+	sources: List<T>,
+	maxConcurrency: Int,
+	load: suspend (source: T) -> R,
+	onLoaded: suspend (index: Int, source: T, result: Result<R>) -> Unit,
+) = coroutineScope {
+	val permits = Semaphore(maxConcurrency)
+
+	sources.forEachIndexed { index, source ->
+		launch {
+			val result = permits.withPermit {
+				try {
+					Result.success(load(source))
+				} catch (err: CancellationException) {
+					throw err
+				} catch (err: Exception) {
+					Result.failure(err)
+				}
+			}
+
+			onLoaded(index, source, result)
+		}
+	}
+}
+
+/**
+ * Rows shown in place of [anchor] in [rows] while their content loads. Each placeholder is replaced
+ * in place once its content landed, so rows landing out of order don't move the rows around them or
+ * the focus. Placeholders removed from [rows] in the meantime are left alone.
+ */
+class PlaceholderRows<T : Any>(
+	private val rows: MutableObjectAdapter<T>,
+	private val anchor: T,
+) {
+	/**
+	 * Replace the anchor with [placeholders], or remove it when there are none.
+	 * @return false when nothing was added because the anchor is gone or there are no placeholders
+	 */
+	fun expand(placeholders: List<T>): Boolean {
+		val anchorIndex = rows.indexOf(anchor)
+		if (anchorIndex < 0) return false
+		if (placeholders.isEmpty()) {
+			rows.removeAt(anchorIndex)
+			return false
+		}
+
+		rows.set(anchorIndex, placeholders.first())
+		placeholders.drop(1).forEachIndexed { index, placeholder -> rows.add(anchorIndex + index + 1, placeholder) }
+		return true
+	}
+
+	fun isShown(placeholder: T) = rows.indexOf(placeholder) >= 0
+
+	/**
+	 * Replace [placeholder] with [row] at the same position, or remove it when [row] is null.
+	 */
+	fun replace(placeholder: T, row: T?) {
+		val index = rows.indexOf(placeholder)
+		if (index < 0) return
+
+		if (row == null) rows.removeAt(index)
+		else rows.set(index, row)
+	}
+}
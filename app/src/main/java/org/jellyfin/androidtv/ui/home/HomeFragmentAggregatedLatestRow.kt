@@ -14,6 +14,7 @@ import org.jellyfin.androidtv.data.repository.MultiServerRepository
 import org.jellyfin.androidtv.data.repository.ParentalControlsRepository
 import org.jellyfin.androidtv.constant.HomeSectionType
 import org.jellyfin.androidtv.constant.ImageType
+import org.jellyfin.androidtv.data.model.AggregatedLibrary
 import org.jellyfin.androidtv.preference.UserPreferences
 import org.jellyfin.androidtv.preference.UserSettingPreferences
 import org.jellyfin.androidtv.ui.itemhandling.AggregatedItemRowAdapter
@@ -26,6 +27,9 @@ import timber.log.Timber
 /**
  * Home rows that display Recently Added items aggregated from all logged-in servers.
  * Creates one row per library across all servers, with format "Recently added in Library (ServerName)".
+ * Libraries are fetched concurrently, each into a placeholder row at its configured position so rows
+ * appearing out of order do not move the focus. The first fetch only asks for the items that fit on
+ * screen, the rest is fetched once all rows are shown.
  * Supports pagination - loads 15 items initially, then more as the user scrolls.
  */
 class HomeFragmentAggregatedLatestRow : HomeFragmentRow, KoinComponent {
@@ -37,9 +41,16 @@ class HomeFragmentAggregatedLatestRow : HomeFragmentRow, KoinComponent {
 	companion object {
 		private const val MAX_ITEMS = 100
 		private const val CHUNK_SIZE = 15
+		private const val INITIAL_ITEMS = CHUNK_SIZE
+		// Matches the OkHttp limit of concurrent requests per host
+		internal const val MAX_CONCURRENT_LIBRARIES = 5
 	}
 
 	override fun addToRowsAdapter(context: Context, cardPresenter: CardPresenter, rowsAdapter: MutableObjectAdapter<Row>) {
+		// Hold the position of the rows while the libraries are loading
+		val anchor = ListRow(HeaderItem(context.getString(R.string.lbl_latest)), MutableObjectAdapter<Any>(cardPresenter))
+		rowsAdapter.add(anchor)
+
 		val lifecycleOwner = ProcessLifecycleOwner.get()
 		lifecycleOwner.lifecycleScope.launch {
 			try {
@@ -49,46 +60,76 @@ class HomeFragmentAggregatedLatestRow : HomeFragmentRow, KoinComponent {
 
 				Timber.d("HomeFragmentAggregatedLatestRow: Got ${libraries.size} libraries from multiple servers")
 
+				val placeholders = libraries.map { aggLib ->
+					ListRow(HeaderItem(context.getString(R.string.lbl_latest_in, aggLib.displayName)), MutableObjectAdapter<Any>(cardPresenter))
+				}
+
+				val placeholderRows = PlaceholderRows(rowsAdapter, anchor)
+				if (!placeholderRows.expand(placeholders)) return@launch
+
 				val preferParentThumb = userPreferences[UserPreferences.seriesThumbnailsEnabled]
+				val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.LATEST_MEDIA)
+				val partialRows = mutableListOf<Pair<AggregatedLibrary, AggregatedItemRowAdapter>>()
 
-				libraries.forEach { aggLib ->
-					try {
-						val items = withContext(Dispatchers.IO) {
-							multiServerRepository.getAggregatedLatestItems(
-								parentId = aggLib.library.id,
-								limit = MAX_ITEMS,
-								serverId = aggLib.server.id
-							)
-						}
-
-						if (items.isEmpty()) return@forEach
-
-						val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.LATEST_MEDIA)
-						val adapter = AggregatedItemRowAdapter(
-							presenter = cardPresenter,
-							allItems = items,
-							parentalControlsRepository = parentalControlsRepository,
-							userPreferences = userPreferences,
-							chunkSize = CHUNK_SIZE,
-							preferParentThumb = preferParentThumb,
-							staticHeight = true,
-							imageType = imageType
-						)
-
-						if (!adapter.hasItems()) return@forEach
-
-						adapter.loadInitialItems()
-
-						val header = HeaderItem(context.getString(R.string.lbl_latest_in, aggLib.displayName))
-						rowsAdapter.add(ListRow(header, adapter))
-						Timber.d("HomeFragmentAggregatedLatestRow: Added row for ${aggLib.displayName} with ${adapter.size()}/${adapter.getTotalItems()} items (paginated)")
-					} catch (e: Exception) {
+				loadRowsConcurrently(
+					sources = libraries,
+					maxConcurrency = MAX_CONCURRENT_LIBRARIES,
+					load = { aggLib -> getLatestItems(aggLib, INITIAL_ITEMS) },
+				) { index, aggLib, result ->
+					val placeholder = placeholders[index]
+					if (!placeholderRows.isShown(placeholder)) return@loadRowsConcurrently
+
+					val items = result.getOrElse { e ->
 						Timber.e(e, "HomeFragmentAggregatedLatestRow: Error loading latest items for ${aggLib.displayName}")
+						emptyList()
+					}
+
+					val adapter = AggregatedItemRowAdapter(
+						presenter = cardPresenter,
+						allItems = items,
+						parentalControlsRepository = parentalControlsRepository,
+						userPreferences = userPreferences,
+						chunkSize = CHUNK_SIZE,
+						preferParentThumb = preferParentThumb,
+						staticHeight = true,
+						imageType = imageType
+					)
+
+					if (!adapter.hasItems()) {
+						placeholderRows.replace(placeholder, null)
+						return@loadRowsConcurrently
 					}
+
+					adapter.loadInitialItems()
+
+					// Replaced in place so a focused placeholder keeps the focus
+					placeholderRows.replace(placeholder, ListRow(placeholder.headerItem, adapter))
+					if (items.size >= INITIAL_ITEMS) partialRows.add(aggLib to adapter)
+					Timber.d("HomeFragmentAggregatedLatestRow: Added row for ${aggLib.displayName} with ${adapter.size()}/${adapter.getTotalItems()} items (paginated)")
+				}
+
+				// Fetch the remaining items of the rows that were cut off at the first screen
+				loadRowsConcurrently(
+					sources = partialRows,
+					maxConcurrency = MAX_CONCURRENT_LIBRARIES,
+					load = { (aggLib, _) -> getLatestItems(aggLib, MAX_ITEMS) },
+				) { _, (aggLib, adapter), result ->
+					result
+						.onSuccess { items -> adapter.appendItems(items) }
+						.onFailure { e -> Timber.w(e, "HomeFragmentAggregatedLatestRow: Error loading remaining latest items for ${aggLib.displayName}") }
 				}
 			} catch (e: Exception) {
 				Timber.e(e, "HomeFragmentAggregatedLatestRow: Error loading aggregated libraries")
+				rowsAdapter.remove(anchor)
 			}
 		}
 	}
+
+	private suspend fun getLatestItems(aggLib: AggregatedLibrary, limit: Int) = withContext(Dispatchers.IO) {
+		multiServerRepository.getAggregatedLatestItems(
+			parentId = aggLib.library.id,
+			limit = limit,
+			serverId = aggLib.server.id
+		)
+	}
 }
@@ -16,6 +16,7 @@ import org.jellyfin.androidtv.constant.HomeSectionType
 import org.jellyfin.androidtv.constant.ImageType
 import org.jellyfin.androidtv.preference.UserPreferences
 import org.jellyfin.androidtv.preference.UserSettingPreferences
+import org.jellyfin.androidtv.ui.itemhandling.AggregatedItemBaseRowItem
 import org.jellyfin.androidtv.ui.itemhandling.AggregatedItemRowAdapter
 import org.jellyfin.androidtv.ui.presentation.CardPresenter
 import org.jellyfin.androidtv.ui.presentation.MutableObjectAdapter
@@ -45,8 +46,18 @@ class HomeFragmentAggregatedNextUpRow(
 		val lifecycleOwner = ProcessLifecycleOwner.get()
 		lifecycleOwner.lifecycleScope.launch {
 			try {
+				val preferParentThumb = userPreferences[UserPreferences.seriesThumbnailsEnabled]
+				val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.NEXT_UP)
 				val items = withContext(Dispatchers.IO) {
-					multiServerRepository.getAggregatedNextUpItems(maxItems)
+					multiServerRepository.getAggregatedNextUpItems(maxItems) { partialItems ->
+						// Show the servers that answered first while slower servers are still loading
+						withContext(Dispatchers.Main) {
+							placeholderAdapter.replaceAll(partialItems
+								.filterNot { parentalControlsRepository.shouldFilterItem(it.item) }
+								.take(AggregatedItemRowAdapter.DEFAULT_CHUNK_SIZE)
+								.map { AggregatedItemBaseRowItem(it, preferParentThumb, staticHeight = true, preferSeriesPoster = imageType == ImageType.POSTER) })
+						}
+					}
 				}
 
 				Timber.d("HomeFragmentAggregatedNextUpRow: Loaded ${items.size} next up items from multiple servers")
@@ -56,8 +67,6 @@ class HomeFragmentAggregatedNextUpRow(
 					return@launch
 				}
 
-				val preferParentThumb = userPreferences[UserPreferences.seriesThumbnailsEnabled]
-				val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.NEXT_UP)
 				val adapter = AggregatedItemRowAdapter(
 					presenter = cardPresenter,
 					allItems = items,
@@ -78,10 +87,8 @@ class HomeFragmentAggregatedNextUpRow(
 				Timber.d("HomeFragmentAggregatedNextUpRow: Initial load complete, showing ${adapter.size()}/${adapter.getTotalItems()} items")
 
 				val index = rowsAdapter.indexOf(row)
-				if (index >= 0) {
-					rowsAdapter.removeAt(index, 1)
-					rowsAdapter.add(index, ListRow(header, adapter))
-				}
+				// Replaced in place so a focused partial row keeps the focus
+				if (index >= 0) rowsAdapter.set(index, ListRow(header, adapter))
 			} catch (e: Exception) {
 				Timber.e(e, "HomeFragmentAggregatedNextUpRow: Error loading next up items")
 				rowsAdapter.remove(row)
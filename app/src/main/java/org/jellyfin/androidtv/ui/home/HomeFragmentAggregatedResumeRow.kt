@@ -16,6 +16,7 @@ import org.jellyfin.androidtv.constant.HomeSectionType
 import org.jellyfin.androidtv.constant.ImageType
 import org.jellyfin.androidtv.preference.UserPreferences
 import org.jellyfin.androidtv.preference.UserSettingPreferences
+import org.jellyfin.androidtv.ui.itemhandling.AggregatedItemBaseRowItem
 import org.jellyfin.androidtv.ui.itemhandling.AggregatedItemRowAdapter
 import org.jellyfin.androidtv.ui.presentation.CardPresenter
 import org.jellyfin.androidtv.ui.presentation.MutableObjectAdapter
@@ -50,11 +51,21 @@ class HomeFragmentAggregatedResumeRow(
 		val lifecycleOwner = ProcessLifecycleOwner.get()
 		lifecycleOwner.lifecycleScope.launch {
 			try {
+				val preferParentThumb = userPreferences[UserPreferences.seriesThumbnailsEnabled]
+				val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.RESUME)
 				val items = withContext(Dispatchers.IO) {
 					if (includeNextUp) {
 						multiServerRepository.getAggregatedMergedContinueWatchingItems(maxItems)
 					} else {
-						multiServerRepository.getAggregatedResumeItems(maxItems)
+						multiServerRepository.getAggregatedResumeItems(maxItems) { partialItems ->
+							// Show the servers that answered first while slower servers are still loading
+							withContext(Dispatchers.Main) {
+								placeholderAdapter.replaceAll(partialItems
+									.filterNot { parentalControlsRepository.shouldFilterItem(it.item) }
+									.take(AggregatedItemRowAdapter.DEFAULT_CHUNK_SIZE)
+									.map { AggregatedItemBaseRowItem(it, preferParentThumb, staticHeight = true, preferSeriesPoster = imageType == ImageType.POSTER) })
+							}
+						}
 					}
 				}
 
@@ -65,8 +76,6 @@ class HomeFragmentAggregatedResumeRow(
 					return@launch
 				}
 
-				val preferParentThumb = userPreferences[UserPreferences.seriesThumbnailsEnabled]
-				val imageType = userSettingPreferences.getHomeRowImageType(HomeSectionType.RESUME)
 				val adapter = AggregatedItemRowAdapter(
 					presenter = cardPresenter,
 					allItems = items,
@@ -87,10 +96,8 @@ class HomeFragmentAggregatedResumeRow(
 				Timber.d("HomeFragmentAggregatedResumeRow: Initial load complete, showing ${adapter.size()}/${adapter.getTotalItems()} items")
 
 				val index = rowsAdapter.indexOf(row)
-				if (index >= 0) {
-					rowsAdapter.removeAt(index, 1)
-					rowsAdapter.add(index, ListRow(header, adapter))
-				}
+				// Replaced in place so a focused partial row keeps the focus
+				if (index >= 0) rowsAdapter.set(index, ListRow(header, adapter))
 			} catch (e: Exception) {
 				Timber.e(e, "HomeFragmentAggregatedResumeRow: Error loading resume items")
 				rowsAdapter.remove(row)
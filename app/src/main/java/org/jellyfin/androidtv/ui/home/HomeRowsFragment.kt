@@ -35,6 +35,7 @@ import org.jellyfin.androidtv.auth.repository.UserRepository
 import org.jellyfin.androidtv.constant.CustomMessage
 import org.jellyfin.androidtv.constant.HomeSectionType
 import org.jellyfin.androidtv.constant.QueryType
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
 import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.repository.CustomMessageRepository
 import org.jellyfin.androidtv.data.repository.NotificationsRepository
@@ -56,6 +57,7 @@ import org.jellyfin.androidtv.ui.playback.AudioEventListener
 import org.jellyfin.androidtv.ui.playback.MediaManager
 import org.jellyfin.androidtv.ui.playback.PlaybackController
 import org.jellyfin.androidtv.ui.playback.ThemeMusicPlayer
+import org.jellyfin.androidtv.ui.playback.segment.MediaSegmentRepository
 import org.jellyfin.androidtv.ui.presentation.CardPresenter
 import org.jellyfin.androidtv.ui.presentation.MutableObjectAdapter
 import org.jellyfin.androidtv.ui.presentation.PositionableListRowPresenter
@@ -64,10 +66,8 @@ import org.jellyfin.androidtv.util.Debouncer
 import org.jellyfin.playback.core.PlaybackManager
 import org.jellyfin.sdk.api.client.ApiClient
 import org.jellyfin.sdk.api.client.extensions.liveTvApi
-import org.jellyfin.sdk.api.sockets.subscribe
 import org.jellyfin.sdk.model.api.BaseItemDto
-import org.jellyfin.sdk.model.api.LibraryChangedMessage
-import org.jellyfin.sdk.model.api.UserDataChangedMessage
+import org.jellyfin.sdk.model.api.BaseItemKind
 import org.koin.android.ext.android.inject
 import timber.log.Timber
 import kotlin.time.Duration.Companion.milliseconds
@@ -85,12 +85,14 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 	private val userSettingPreferences by inject<UserSettingPreferences>()
 	private val userViewsRepository by inject<UserViewsRepository>()
 	private val dataRefreshService by inject<DataRefreshService>()
+	private val itemInvalidationBus by inject<ItemInvalidationBus>()
 	private val customMessageRepository by inject<CustomMessageRepository>()
 	private val navigationRepository by inject<NavigationRepository>()
 	private val itemLauncher by inject<ItemLauncher>()
 	private val keyProcessor by inject<KeyProcessor>()
 	private val mediaBarViewModel by inject<MediaBarSlideshowViewModel>()
 	private val themeMusicPlayer by inject<ThemeMusicPlayer>()
+	private val mediaSegmentRepository by inject<MediaSegmentRepository>()
 
 	private val helper by lazy { HomeFragmentHelper(requireContext(), userRepository) }
 
@@ -286,12 +288,9 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 
 		lifecycleScope.launch {
 			lifecycle.repeatOnLifecycle(Lifecycle.State.RESUMED) {
-				api.webSocket.subscribe<UserDataChangedMessage>()
-					.onEach { refreshRows(force = true, delayed = false) }
-					.launchIn(this)
-
-				api.webSocket.subscribe<LibraryChangedMessage>()
-					.onEach { refreshRows(force = true, delayed = false) }
+				// Rows decide themselves whether an invalidation needs a full reload or only item refreshes
+				itemInvalidationBus.invalidations
+					.onEach { refreshRows(delayed = false) }
 					.launchIn(this)
 			}
 		}
@@ -485,6 +484,9 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 	}
 
 	private inner class ItemViewSelectedListener : OnItemViewSelectedListener {
+		private var lastSelectedRow: Row? = null
+		private var lastSelectedIndex = -1
+
 		override fun onItemSelected(
 			itemViewHolder: Presenter.ViewHolder?,
 			item: Any?,
@@ -512,13 +514,16 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 				currentRow = row as ListRow
 
 				// Handle pagination for both ItemRowAdapter and AggregatedItemRowAdapter
-				when (val adapter = row.adapter) {
-					is ItemRowAdapter -> adapter.loadMoreItemsIfNeeded(adapter.indexOf(item))
+				val adapter = row.adapter
+				val index = when (adapter) {
+					is ItemRowAdapter -> adapter.indexOf(item).also { adapter.loadMoreItemsIfNeeded(it) }
 					is AggregatedItemRowAdapter -> {
 						val pos = adapter.indexOf(item)
 						Timber.d("HomeRowsFragment: AggregatedItemRowAdapter selected item at pos=$pos, adapter.size=${adapter.size()}")
 						adapter.loadMoreItemsIfNeeded(pos)
+						pos
 					}
+					else -> -1
 				}
 
 				// Debounce UI updates - only update after user stops navigating for 150ms
@@ -528,6 +533,9 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 						summary = item.getSummary(requireContext()) ?: "",
 						baseItem = item.baseItem
 					)
+
+					// Have the skip actions ready when the episode is played
+					item.baseItem?.takeIf { it.type == BaseItemKind.EPISODE }?.let(mediaSegmentRepository::prefetchSegmentsForItem)
 				}
 
 				backgroundDebouncer.debounce {
@@ -544,6 +552,17 @@ class HomeRowsFragment : RowsSupportFragment(), AudioEventListener, View.OnKeyLi
 				item.baseItem?.let { baseItem ->
 					themeMusicPlayer.playThemeMusicOnFocusDelayed(baseItem)
 				}
+
+				// Prebuffer the theme music of the next item in the browsing direction
+				val direction = if (row == lastSelectedRow && index < lastSelectedIndex) -1 else 1
+				lastSelectedRow = row
+				lastSelectedIndex = index
+				val nextIndex = index + direction
+				if (index != -1 && nextIndex in 0 until adapter.size()) {
+					(adapter.get(nextIndex) as? BaseRowItem)?.baseItem?.let { nextItem ->
+						themeMusicPlayer.prebufferThemeMusicOnFocus(nextItem)
+					}
+				}
 			}
 		}
 	}
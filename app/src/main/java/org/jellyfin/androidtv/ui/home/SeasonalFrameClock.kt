@@ -0,0 +1,39 @@
+package org.jellyfin.androidtv.ui.home
+
+import android.os.Handler
+import android.os.Looper
+
+/**
+ * Frame clock shared by the seasonal effect views so all running effects are stepped from a single
+ * callback on the main thread. The clock only runs while at least one listener is registered.
+ */
+object SeasonalFrameClock {
+	// Target ~30fps for smooth animations
+	private const val FRAME_INTERVAL_MS = 33L
+
+	fun interface Listener {
+		fun onFrame()
+	}
+
+	private val handler by lazy { Handler(Looper.getMainLooper()) }
+	private val listeners = ArrayList<Listener>(4)
+
+	private val tick = object : Runnable {
+		override fun run() {
+			// Iterate backwards so listeners can remove themselves while being called
+			for (i in listeners.lastIndex downTo 0) listeners.getOrNull(i)?.onFrame()
+			if (listeners.isNotEmpty()) handler.postDelayed(this, FRAME_INTERVAL_MS)
+		}
+	}
+
+	fun addListener(listener: Listener) {
+		if (listener in listeners) return
+
+		listeners.add(listener)
+		if (listeners.size == 1) handler.post(tick)
+	}
+
+	fun removeListener(listener: Listener) {
+		if (listeners.remove(listener) && listeners.isEmpty()) handler.removeCallbacks(tick)
+	}
+}
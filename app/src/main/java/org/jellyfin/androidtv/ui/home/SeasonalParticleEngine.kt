@@ -0,0 +1,541 @@
+package org.jellyfin.androidtv.ui.home
+
+import androidx.annotation.DrawableRes
+import kotlin.math.PI
+import kotlin.math.sin
+import kotlin.random.Random
+
+private const val SINE_TABLE_SIZE = 360
+
+// Pre-calculated sine table for faster drift calculations
+private val sineTable = FloatArray(SINE_TABLE_SIZE) { i ->
+	sin(i * PI / 180.0).toFloat()
+}
+
+/**
+ * Image drawn for the particles of a [SeasonalParticleLayer].
+ *
+ * @param tints colors to tint the image with, one for each particle variant
+ */
+class SeasonalSprite(
+	@DrawableRes val drawable: Int,
+	val bitmapSize: Int,
+	val tints: IntArray? = null,
+)
+
+/**
+ * Draws the particles of a [SeasonalParticleEngine]. Called for every visible particle on each
+ * frame so implementations should not allocate.
+ */
+fun interface SeasonalParticleRenderer {
+	/**
+	 * @param sprite index of the sprite in [SeasonalParticleEngine.sprites]
+	 */
+	fun drawParticle(
+		sprite: Int,
+		variant: Int,
+		x: Float,
+		y: Float,
+		size: Int,
+		rotation: Float,
+		mirrored: Boolean,
+		alpha: Int,
+	)
+}
+
+/**
+ * Particle engine for the seasonal effects on the home screen. The effect is made of layers that
+ * are drawn in order. Each layer keeps its particles in primitive arrays that are allocated once
+ * and reused when particles respawn, so stepping and drawing a frame does not allocate.
+ */
+class SeasonalParticleEngine(
+	private val layers: Array<out SeasonalParticleLayer>,
+) {
+	val sprites: List<SeasonalSprite> = layers.map { it.sprite }
+
+	var frameCount = 0
+		private set
+
+	/**
+	 * Advance all layers by one frame. Layers with an update interval are only updated on every
+	 * n-th frame to reduce per-frame work.
+	 */
+	fun step(width: Int, height: Int) {
+		if (width <= 0 || height <= 0) return
+
+		frameCount++
+		for (layer in layers) {
+			if (frameCount % layer.updateInterval == 0) layer.update(width, height)
+		}
+	}
+
+	fun draw(renderer: SeasonalParticleRenderer) {
+		for (index in layers.indices) layers[index].draw(index, renderer)
+	}
+
+	fun reset() {
+		frameCount = 0
+		for (layer in layers) layer.reset()
+	}
+}
+
+abstract class SeasonalParticleLayer(
+	val sprite: SeasonalSprite,
+	val updateInterval: Int,
+) {
+	/**
+	 * Amount of particles that are currently on screen.
+	 */
+	abstract val activeCount: Int
+
+	abstract fun update(width: Int, height: Int)
+	abstract fun draw(sprite: Int, renderer: SeasonalParticleRenderer)
+	abstract fun reset()
+}
+
+/**
+ * Particles falling from the top of the screen with varying sizes, speeds and horizontal drift.
+ * Particles that leave the bottom of the screen respawn at the top.
+ */
+class FallingParticleLayer(
+	sprite: SeasonalSprite,
+	private val count: Int,
+	private val minSize: Float,
+	private val maxSize: Float,
+	private val minSpeed: Float,
+	private val maxSpeed: Float,
+	private val minAlpha: Int,
+	private val maxAlpha: Int,
+	private val minDriftAmplitude: Float,
+	private val maxDriftAmplitude: Float,
+	private val driftFactor: Float,
+	private val minDriftSpeed: Int,
+	private val maxDriftSpeed: Int,
+	private val rotates: Boolean = false,
+	private val minRotationSpeed: Float = 0f,
+	private val maxRotationSpeed: Float = 0f,
+	private val variants: Int = 1,
+	private val random: Random = Random,
+) : SeasonalParticleLayer(sprite, updateInterval = 1) {
+	private val x = FloatArray(count)
+	private val y = FloatArray(count)
+	private val size = FloatArray(count)
+	private val speed = FloatArray(count)
+	private val driftAmplitude = FloatArray(count)
+	private val rotation = FloatArray(count)
+	private val rotationSpeed = FloatArray(count)
+	private val driftIndex = IntArray(count)
+	private val driftSpeed = IntArray(count)
+	private val alpha = IntArray(count)
+	private val variant = IntArray(count)
+	private var initialized = false
+
+	override val activeCount get() = if (initialized) count else 0
+
+	override fun update(width: Int, height: Int) {
+		if (!initialized) {
+			for (i in 0 until count) respawn(i, width, height, randomY = true)
+			initialized = true
+		}
+
+		for (i in 0 until count) {
+			y[i] += speed[i]
+
+			if (rotates) {
+				rotation[i] += rotationSpeed[i]
+				if (rotation[i] > 360f) rotation[i] -= 360f
+				else if (rotation[i] < 0f) rotation[i] += 360f
+			}
+
+			driftIndex[i] = (driftIndex[i] + driftSpeed[i]) % SINE_TABLE_SIZE
+			x[i] += sineTable[driftIndex[i]] * driftAmplitude[i] * driftFactor
+
+			if (y[i] > height + size[i]) {
+				respawn(i, width, height, randomY = false)
+			} else if (x[i] < -size[i]) {
+				x[i] = width + size[i]
+			} else if (x[i] > width + size[i]) {
+				x[i] = -size[i]
+			}
+		}
+	}
+
+	private fun respawn(i: Int, width: Int, height: Int, randomY: Boolean) {
+		size[i] = random.nextFloat() * (maxSize - minSize) + minSize
+		x[i] = random.nextFloat() * width
+		y[i] = if (randomY) random.nextFloat() * height else -size[i] * 2
+		speed[i] = random.nextFloat() * (maxSpeed - minSpeed) + minSpeed
+		driftAmplitude[i] = random.nextFloat() * (maxDriftAmplitude - minDriftAmplitude) + minDriftAmplitude
+		driftIndex[i] = random.nextInt(SINE_TABLE_SIZE)
+		driftSpeed[i] = random.nextInt(minDriftSpeed, maxDriftSpeed)
+		alpha[i] = random.nextInt(minAlpha, maxAlpha)
+		rotation[i] = if (rotates) random.nextFloat() * 360f else 0f
+		rotationSpeed[i] = random.nextFloat() * (maxRotationSpeed - minRotationSpeed) + minRotationSpeed
+		variant[i] = random.nextInt(variants)
+	}
+
+	override fun draw(sprite: Int, renderer: SeasonalParticleRenderer) {
+		if (!initialized) return
+
+		for (i in 0 until count) {
+			renderer.drawParticle(sprite, variant[i], x[i], y[i], size[i].toInt(), rotation[i], false, alpha[i])
+		}
+	}
+
+	override fun reset() {
+		initialized = false
+	}
+}
+
+/**
+ * A wave of figures that pop up from the bottom of the screen, bounce once, settle and fade out.
+ * A new wave is spawned every [spawnInterval] updates once the previous one is gone.
+ */
+class PopUpLayer(
+	sprite: SeasonalSprite,
+	updateInterval: Int,
+	private val count: Int,
+	private val size: Float,
+	private val spawnInterval: Int,
+	private val minWaitStep: Int,
+	private val maxWaitStep: Int,
+	private val waitJitter: Int,
+	private val random: Random = Random,
+) : SeasonalParticleLayer(sprite, updateInterval) {
+	private val x = FloatArray(count)
+	private val y = FloatArray(count)
+	private val velocity = FloatArray(count)
+	private val state = IntArray(count) { DONE }
+	private val alpha = IntArray(count)
+	private val waitTimer = IntArray(count)
+	private var groundY = 0f
+	private var spawnTimer = 0
+
+	override val activeCount: Int
+		get() {
+			var active = 0
+			for (i in 0 until count) if (state[i] != DONE) active++
+			return active
+		}
+
+	override fun update(width: Int, height: Int) {
+		spawnTimer++
+		if (spawnTimer >= spawnInterval && activeCount == 0) {
+			spawnTimer = 0
+			spawn(width, height)
+		}
+
+		for (i in 0 until count) {
+			when (state[i]) {
+				WAITING -> {
+					waitTimer[i]--
+					if (waitTimer[i] <= 0) {
+						state[i] = RISING
+						velocity[i] = POP_UP_VELOCITY
+					}
+				}
+
+				RISING -> {
+					velocity[i] += GRAVITY
+					y[i] += velocity[i]
+
+					if (velocity[i] >= 0 && y[i] >= groundY) {
+						y[i] = groundY
+						velocity[i] = POP_UP_VELOCITY * BOUNCE_DAMPING // Small bounce
+						state[i] = BOUNCING
+					}
+				}
+
+				BOUNCING -> {
+					velocity[i] += GRAVITY
+					y[i] += velocity[i]
+
+					if (y[i] >= groundY) {
+						y[i] = groundY
+						velocity[i] = 0f
+						state[i] = SETTLING
+					}
+				}
+
+				SETTLING -> state[i] = FADING
+
+				FADING -> {
+					alpha[i] -= 3 // Fade out gradually
+					if (alpha[i] <= 0) state[i] = DONE
+				}
+			}
+		}
+	}
+
+	private fun spawn(width: Int, height: Int) {
+		groundY = height - size / 2 - 20f // Slightly above bottom
+		val spacing = width / (count + 1)
+
+		for (i in 0 until count) {
+			x[i] = spacing * (i + 1) + random.nextFloat() * 40 - 20
+			y[i] = height + size // Start below screen
+			velocity[i] = 0f
+			state[i] = WAITING
+			alpha[i] = 255
+			// Staggered start times
+			waitTimer[i] = random.nextInt(minWaitStep, maxWaitStep + 1) * i + random.nextInt(0, waitJitter)
+		}
+	}
+
+	override fun draw(sprite: Int, renderer: SeasonalParticleRenderer) {
+		for (i in 0 until count) {
+			if (state[i] == WAITING || state[i] == DONE) continue
+			renderer.drawParticle(sprite, 0, x[i], y[i], size.toInt(), 0f, false, alpha[i].coerceIn(0, 255))
+		}
+	}
+
+	override fun reset() {
+		state.fill(DONE)
+		spawnTimer = 0
+	}
+
+	private companion object {
+		const val WAITING = 0
+		const val RISING = 1
+		const val BOUNCING = 2
+		const val SETTLING = 3
+		const val FADING = 4
+		const val DONE = 5
+
+		const val GRAVITY = 0.35f
+		const val BOUNCE_DAMPING = 0.2f
+		const val POP_UP_VELOCITY = -6f
+	}
+}
+
+/**
+ * A wave of figures that fly across the screen from either side in their own horizontal lane,
+ * moving up and down while flying. A new wave is spawned every [spawnInterval] updates once the
+ * previous one is gone.
+ *
+ * @param cumulativeWave whether the wave motion adds up to a wandering path instead of moving
+ * around the lane
+ */
+class FlyByLayer(
+	sprite: SeasonalSprite,
+	updateInterval: Int,
+	private val count: Int,
+	private val minSize: Float,
+	private val maxSize: Float,
+	private val minSpeed: Float,
+	private val maxSpeed: Float,
+	private val laneTop: Float,
+	private val laneHeight: Float,
+	private val laneOffset: Float,
+	private val startAlpha: Int,
+	private val fadeStep: Int,
+	private val spawnInterval: Int,
+	private val waitStep: Int,
+	private val minWait: Int,
+	private val maxWait: Int,
+	private val minWaveSpeed: Int,
+	private val maxWaveSpeed: Int,
+	private val minWaveAmplitude: Float,
+	private val maxWaveAmplitude: Float,
+	private val cumulativeWave: Boolean,
+	private val random: Random = Random,
+) : SeasonalParticleLayer(sprite, updateInterval) {
+	private val x = FloatArray(count)
+	private val y = FloatArray(count)
+	private val baseY = FloatArray(count)
+	private val size = FloatArray(count)
+	private val speed = FloatArray(count)
+	private val waveAmplitude = FloatArray(count)
+	private val state = IntArray(count) { DONE }
+	private val alpha = IntArray(count)
+	private val waitTimer = IntArray(count)
+	private val waveIndex = IntArray(count)
+	private val waveSpeed = IntArray(count)
+	private val fromLeft = BooleanArray(count)
+	private var spawnTimer = 0
+
+	override val activeCount: Int
+		get() {
+			var active = 0
+			for (i in 0 until count) if (state[i] != DONE) active++
+			return active
+		}
+
+	override fun update(width: Int, height: Int) {
+		spawnTimer++
+		if (spawnTimer >= spawnInterval && activeCount == 0) {
+			spawnTimer = 0
+			spawn(width, height)
+		}
+
+		for (i in 0 until count) {
+			when (state[i]) {
+				WAITING -> {
+					waitTimer[i]--
+					if (waitTimer[i] <= 0) state[i] = FLYING
+				}
+
+				FLYING -> {
+					x[i] += if (fromLeft[i]) speed[i] else -speed[i]
+
+					waveIndex[i] = (waveIndex[i] + waveSpeed[i]) % SINE_TABLE_SIZE
+					val wave = sineTable[waveIndex[i]] * waveAmplitude[i]
+					y[i] = if (cumulativeWave) y[i] + wave else baseY[i] + wave
+
+					val reachedEnd = if (fromLeft[i]) x[i] > width + size[i] else x[i] < -size[i]
+					if (reachedEnd) state[i] = FADING
+				}
+
+				FADING -> {
+					alpha[i] -= fadeStep
+					if (alpha[i] <= 0) state[i] = DONE
+				}
+			}
+		}
+	}
+
+	private fun spawn(width: Int, height: Int) {
+		val top = height * laneTop
+		val lane = height * laneHeight / count
+
+		for (i in 0 until count) {
+			fromLeft[i] = random.nextBoolean()
+			size[i] = random.nextFloat() * (maxSize - minSize) + minSize
+			x[i] = if (fromLeft[i]) -size[i] else width + size[i]
+			baseY[i] = top + lane * i + lane * laneOffset + random.nextFloat() * (lane * 0.6f)
+			y[i] = baseY[i]
+			speed[i] = random.nextFloat() * (maxSpeed - minSpeed) + minSpeed
+			state[i] = WAITING
+			alpha[i] = startAlpha
+			waitTimer[i] = i * waitStep + random.nextInt(minWait, maxWait)
+			waveIndex[i] = random.nextInt(SINE_TABLE_SIZE)
+			waveSpeed[i] = random.nextInt(minWaveSpeed, maxWaveSpeed)
+			waveAmplitude[i] = random.nextFloat() * (maxWaveAmplitude - minWaveAmplitude) + minWaveAmplitude
+		}
+	}
+
+	override fun draw(sprite: Int, renderer: SeasonalParticleRenderer) {
+		for (i in 0 until count) {
+			if (state[i] == WAITING || state[i] == DONE) continue
+			renderer.drawParticle(sprite, 0, x[i], y[i], size[i].toInt(), 0f, !fromLeft[i], alpha[i].coerceIn(0, 255))
+		}
+	}
+
+	override fun reset() {
+		state.fill(DONE)
+		spawnTimer = 0
+	}
+
+	private companion object {
+		const val WAITING = 0
+		const val FLYING = 1
+		const val FADING = 2
+		const val DONE = 3
+	}
+}
+
+/**
+ * Figures that appear at a random spot near the top of the screen, stay for a while and
+ * disappear again. A new figure appears every [spawnInterval] updates while less than
+ * [maxCount] are shown.
+ */
+class LurkLayer(
+	sprite: SeasonalSprite,
+	updateInterval: Int,
+	private val maxCount: Int,
+	private val minSize: Float,
+	private val maxSize: Float,
+	private val areaHeight: Float,
+	private val spawnInterval: Int,
+	private val minWait: Int,
+	private val maxWait: Int,
+	private val minVisible: Int,
+	private val maxVisible: Int,
+	private val fadeInStep: Int,
+	private val fadeOutStep: Int,
+	private val random: Random = Random,
+) : SeasonalParticleLayer(sprite, updateInterval) {
+	private val x = FloatArray(maxCount)
+	private val y = FloatArray(maxCount)
+	private val size = FloatArray(maxCount)
+	private val state = IntArray(maxCount) { DONE }
+	private val alpha = IntArray(maxCount)
+	private val waitTimer = IntArray(maxCount)
+	private val visibleTimer = IntArray(maxCount)
+	private var spawnTimer = 0
+
+	override val activeCount: Int
+		get() {
+			var active = 0
+			for (i in 0 until maxCount) if (state[i] != DONE) active++
+			return active
+		}
+
+	override fun update(width: Int, height: Int) {
+		spawnTimer++
+		if (spawnTimer >= spawnInterval && activeCount < maxCount) {
+			spawnTimer = 0
+			spawn(width, height)
+		}
+
+		for (i in 0 until maxCount) {
+			when (state[i]) {
+				WAITING -> {
+					waitTimer[i]--
+					if (waitTimer[i] <= 0) state[i] = APPEARING
+				}
+
+				APPEARING -> {
+					alpha[i] += fadeInStep
+					if (alpha[i] >= 255) {
+						alpha[i] = 255
+						state[i] = VISIBLE
+					}
+				}
+
+				VISIBLE -> {
+					visibleTimer[i]--
+					if (visibleTimer[i] <= 0) state[i] = DISAPPEARING
+				}
+
+				DISAPPEARING -> {
+					alpha[i] -= fadeOutStep
+					if (alpha[i] <= 0) state[i] = DONE
+				}
+			}
+		}
+	}
+
+	private fun spawn(width: Int, height: Int) {
+		val i = state.indexOf(DONE)
+		if (i == -1) return
+
+		x[i] = random.nextFloat() * (width - minSize * 2) + minSize
+		y[i] = random.nextFloat() * (height * areaHeight) + minSize
+		size[i] = random.nextFloat() * (maxSize - minSize) + minSize
+		state[i] = WAITING
+		alpha[i] = 0
+		waitTimer[i] = random.nextInt(minWait, maxWait)
+		visibleTimer[i] = random.nextInt(minVisible, maxVisible)
+	}
+
+	override fun draw(sprite: Int, renderer: SeasonalParticleRenderer) {
+		for (i in 0 until maxCount) {
+			if (state[i] == WAITING || state[i] == DONE) continue
+			renderer.drawParticle(sprite, 0, x[i], y[i], size[i].toInt(), 0f, false, alpha[i].coerceIn(0, 255))
+		}
+	}
+
+	override fun reset() {
+		state.fill(DONE)
+		spawnTimer = 0
+	}
+
+	private companion object {
+		const val WAITING = 0
+		const val APPEARING = 1
+		const val VISIBLE = 2
+		const val DISAPPEARING = 3
+		const val DONE = 4
+	}
+}
@@ -0,0 +1,137 @@
+package org.jellyfin.androidtv.ui.home
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffColorFilter
+import android.util.AttributeSet
+import android.util.SparseArray
+import android.view.View
+import androidx.core.content.ContextCompat
+import androidx.core.graphics.drawable.toBitmap
+
+/**
+ * Base view for the seasonal effect overlays on the home screen. Renders a
+ * [SeasonalParticleEngine] that is stepped by the shared [SeasonalFrameClock] while the effect is
+ * running and the view is shown.
+ *
+ * Performance optimized for Android TV / Fire TV devices:
+ * - Uses cached bitmap rendering from vector drawables
+ * - Particles are kept in preallocated buffers, no allocations per frame
+ * - A single frame clock for all effects that is paused while no effect is shown
+ */
+abstract class SeasonalParticleView(
+	context: Context,
+	attrs: AttributeSet?,
+	defStyleAttr: Int,
+	private val engine: SeasonalParticleEngine,
+) : View(context, attrs, defStyleAttr), SeasonalParticleRenderer {
+	private val paint = Paint(Paint.ANTI_ALIAS_FLAG or Paint.FILTER_BITMAP_FLAG)
+
+	// Cached bitmaps for efficient drawing
+	private val bitmaps = engine.sprites.map { sprite ->
+		ContextCompat.getDrawable(context, sprite.drawable)?.toBitmap(sprite.bitmapSize, sprite.bitmapSize)
+	}
+	private val scaledBitmaps = engine.sprites.map { SparseArray<Bitmap>() }
+	private val colorFilters = engine.sprites.map { sprite ->
+		sprite.tints?.map { color -> PorterDuffColorFilter(color, PorterDuff.Mode.SRC_IN) }
+	}
+
+	private val frameListener = SeasonalFrameClock.Listener {
+		engine.step(width, height)
+		invalidate()
+	}
+	private var drawCanvas: Canvas? = null
+	private var isRunning = false
+
+	init {
+		isClickable = false
+		isFocusable = false
+	}
+
+	protected fun start() {
+		if (isRunning) return
+		isRunning = true
+
+		engine.reset()
+		updateFrameClock()
+	}
+
+	protected fun stop() {
+		if (!isRunning) return
+		isRunning = false
+
+		updateFrameClock()
+		engine.reset()
+		invalidate()
+	}
+
+	private fun updateFrameClock() {
+		if (isRunning && isAttachedToWindow && isShown) SeasonalFrameClock.addListener(frameListener)
+		else SeasonalFrameClock.removeListener(frameListener)
+	}
+
+	override fun onDraw(canvas: Canvas) {
+		super.onDraw(canvas)
+
+		if (!isRunning) return
+
+		drawCanvas = canvas
+		engine.draw(this)
+		drawCanvas = null
+		paint.colorFilter = null
+	}
+
+	override fun drawParticle(
+		sprite: Int,
+		variant: Int,
+		x: Float,
+		y: Float,
+		size: Int,
+		rotation: Float,
+		mirrored: Boolean,
+		alpha: Int,
+	) {
+		val canvas = drawCanvas ?: return
+		val bitmap = getScaledBitmap(sprite, size) ?: return
+
+		paint.alpha = alpha
+		paint.colorFilter = colorFilters[sprite]?.get(variant)
+		canvas.save()
+		canvas.translate(x, y)
+		if (rotation != 0f) canvas.rotate(rotation)
+		if (mirrored) canvas.scale(-1f, 1f)
+		canvas.drawBitmap(bitmap, -size / 2f, -size / 2f, paint)
+		canvas.restore()
+	}
+
+	private fun getScaledBitmap(sprite: Int, size: Int): Bitmap? {
+		if (size <= 0) return null
+
+		val cache = scaledBitmaps[sprite]
+		cache[size]?.let { return it }
+
+		val source = bitmaps[sprite] ?: return null
+		return Bitmap.createScaledBitmap(source, size, size, true).also { cache.put(size, it) }
+	}
+
+	override fun onAttachedToWindow() {
+		super.onAttachedToWindow()
+		updateFrameClock()
+	}
+
+	override fun onDetachedFromWindow() {
+		super.onDetachedFromWindow()
+		stop()
+		scaledBitmaps.forEach { it.clear() }
+	}
+
+	override fun onVisibilityChanged(changedView: View, visibility: Int) {
+		super.onVisibilityChanged(changedView, visibility)
+
+		// Also called while constructing the view, before it can be running
+		if (isRunning) updateFrameClock()
+	}
+}
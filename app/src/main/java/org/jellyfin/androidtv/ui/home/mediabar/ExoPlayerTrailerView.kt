@@ -1,6 +1,5 @@
 package org.jellyfin.androidtv.ui.home.mediabar
 
-import android.content.Context
 import android.os.Handler
 import android.os.Looper
 import androidx.annotation.OptIn
@@ -18,7 +17,6 @@ import androidx.compose.runtime.setValue
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.alpha
 import androidx.compose.ui.graphics.Color
-import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.viewinterop.AndroidView
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleEventObserver
@@ -35,6 +33,9 @@ import androidx.media3.exoplayer.source.MergingMediaSource
 import androidx.media3.exoplayer.source.ProgressiveMediaSource
 import androidx.media3.ui.AspectRatioFrameLayout
 import androidx.media3.ui.PlayerView
+import org.jellyfin.androidtv.ui.playback.PlayerLease
+import org.jellyfin.androidtv.ui.playback.PlayerPool
+import org.koin.compose.koinInject
 import timber.log.Timber
 
 
@@ -51,7 +52,7 @@ fun ExoPlayerTrailerView(
 	dataSourceFactory: DataSource.Factory? = null,
 	modifier: Modifier = Modifier,
 ) {
-	val context = LocalContext.current
+	val playerPool = koinInject<PlayerPool>()
 	var player by remember { mutableStateOf<ExoPlayer?>(null) }
 	val mainHandler = remember { Handler(Looper.getMainLooper()) }
 	val skipRunnable = remember { mutableStateOf<Runnable?>(null) }
@@ -63,8 +64,15 @@ fun ExoPlayerTrailerView(
 	)
 
 	DisposableEffect(streamInfo.videoUrl) {
-		val exoPlayer = buildTrailerPlayer(
-			context = context,
+		val lease = playerPool.borrow()
+		if (lease == null) {
+			Timber.w("ExoTrailer: No player available")
+			onVideoEnded()
+			return@DisposableEffect onDispose { }
+		}
+
+		val exoPlayer = startTrailerPlayer(
+			lease = lease,
 			streamInfo = streamInfo,
 			startSeconds = startSeconds,
 			muted = muted,
@@ -101,7 +109,7 @@ fun ExoPlayerTrailerView(
 		onDispose {
 			skipRunnable.value?.let { mainHandler.removeCallbacks(it) }
 			skipRunnable.value = null
-			exoPlayer.release()
+			lease.close()
 			player = null
 		}
 	}
@@ -147,6 +155,9 @@ fun ExoPlayerTrailerView(
 				update = { view ->
 					view.player = currentPlayer
 				},
+				onRelease = { view ->
+					view.player = null
+				},
 				modifier = Modifier.fillMaxSize()
 			)
 		}
@@ -154,8 +165,8 @@ fun ExoPlayerTrailerView(
 }
 
 @OptIn(UnstableApi::class)
-private fun buildTrailerPlayer(
-	context: Context,
+private fun startTrailerPlayer(
+	lease: PlayerLease,
 	streamInfo: YouTubeStreamResolver.StreamInfo,
 	startSeconds: Double,
 	muted: Boolean,
@@ -165,9 +176,7 @@ private fun buildTrailerPlayer(
 ): ExoPlayer {
 	val effectiveDataSourceFactory = dataSourceFactory ?: DefaultHttpDataSource.Factory()
 
-	val player = ExoPlayer.Builder(context)
-		.setMediaSourceFactory(DefaultMediaSourceFactory(effectiveDataSourceFactory))
-		.build()
+	val player = lease.player
 
 	player.volume = if (muted) 0f else 1f
 	player.repeatMode = Player.REPEAT_MODE_OFF
@@ -179,7 +188,7 @@ private fun buildTrailerPlayer(
 
 	var readySignaled = false
 
-	player.addListener(object : Player.Listener {
+	lease.addListener(object : Player.Listener {
 		override fun onPlaybackStateChanged(playbackState: Int) {
 			when (playbackState) {
 				Player.STATE_READY -> {
@@ -206,7 +215,9 @@ private fun buildTrailerPlayer(
 		val merged = MergingMediaSource(videoSource, audioSource)
 		player.setMediaSource(merged)
 	} else {
-		player.setMediaItem(MediaItem.fromUri(streamInfo.videoUrl))
+		val mediaSource = DefaultMediaSourceFactory(effectiveDataSourceFactory)
+			.createMediaSource(MediaItem.fromUri(streamInfo.videoUrl))
+		player.setMediaSource(mediaSource)
 	}
 
 	player.prepare()
@@ -132,7 +132,6 @@ fun FullDetailsFragment.createFakeSeriesTimerBaseItemDto(timer: SeriesTimerInfoD
 
 fun FullDetailsFragment.toggleFavorite() {
 	val itemMutationRepository by inject<ItemMutationRepository>()
-	val dataRefreshService by inject<DataRefreshService>()
 
 	lifecycleScope.launch {
 		val userData = itemMutationRepository.setFavorite(
@@ -141,7 +140,6 @@ fun FullDetailsFragment.toggleFavorite() {
 		)
 		mBaseItem = mBaseItem.copyWithUserData(userData)
 		favButton.isActivated = userData.isFavorite
-		dataRefreshService.lastFavoriteUpdate = Instant.now()
 	}
 }
 
@@ -164,11 +162,6 @@ fun FullDetailsFragment.togglePlayed() {
 
 		// Force lists to re-fetch
 		dataRefreshService.lastPlayback = Instant.now()
-		when (mBaseItem.type) {
-			BaseItemKind.MOVIE -> dataRefreshService.lastMoviePlayback = Instant.now()
-			BaseItemKind.EPISODE -> dataRefreshService.lastTvPlayback = Instant.now()
-			else -> Unit
-		}
 
 		showMoreButtonIfNeeded()
 	}
@@ -543,7 +543,6 @@ public class ItemListFragment extends Fragment implements View.OnKeyListener {
                 ItemListFragmentHelperKt.toggleFavorite(ItemListFragment.this, mBaseItem, (BaseItemDto updatedItem) -> {
                     mBaseItem = updatedItem;
                     v.setActivated(mBaseItem.getUserData().isFavorite());
-                    dataRefreshService.getValue().setLastFavoriteUpdate(Instant.now());
                     return null;
                 });
             }
@@ -17,7 +17,6 @@ import androidx.media3.common.PlaybackException
 import androidx.media3.common.Player
 import androidx.media3.common.util.UnstableApi
 import androidx.media3.datasource.DefaultHttpDataSource
-import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
 import androidx.media3.exoplayer.source.MergingMediaSource
 import androidx.media3.exoplayer.source.ProgressiveMediaSource
@@ -30,6 +29,8 @@ import kotlinx.serialization.json.Json
 import org.jellyfin.androidtv.ui.home.mediabar.YouTubeStreamResolver
 import org.jellyfin.androidtv.ui.home.mediabar.SponsorBlockApi
 import org.jellyfin.androidtv.ui.navigation.NavigationRepository
+import org.jellyfin.androidtv.ui.playback.PlayerLease
+import org.jellyfin.androidtv.ui.playback.PlayerPool
 import org.koin.android.ext.android.inject
 import timber.log.Timber
 
@@ -43,7 +44,10 @@ class TrailerPlayerFragment : Fragment() {
 	}
 
 	private val navigationRepository: NavigationRepository by inject()
-	private var player: ExoPlayer? = null
+	private val playerPool: PlayerPool by inject()
+	private var lease: PlayerLease? = null
+	private val player get() = lease?.player
+	private var playerView: PlayerView? = null
 	private val mainHandler = Handler(Looper.getMainLooper())
 	private var skipRunnable: Runnable? = null
 
@@ -92,6 +96,7 @@ class TrailerPlayerFragment : Fragment() {
 		}
 
 		root.addView(playerView)
+		this.playerView = playerView
 
 		lifecycleScope.launch {
 			val streamInfo = withContext(Dispatchers.IO) {
@@ -111,17 +116,21 @@ class TrailerPlayerFragment : Fragment() {
 
 			if (!isAdded) return@launch
 
-			val dataSourceFactory = DefaultHttpDataSource.Factory()
+			val playerLease = playerPool.borrow()
+			if (playerLease == null) {
+				Timber.w("TrailerPlayer: No player available for $videoId, going back")
+				goBack()
+				return@launch
+			}
 
-			val exoPlayer = ExoPlayer.Builder(requireContext())
-				.setMediaSourceFactory(DefaultMediaSourceFactory(dataSourceFactory))
-				.build()
+			val dataSourceFactory = DefaultHttpDataSource.Factory()
+			val exoPlayer = playerLease.player
 
 			exoPlayer.volume = 1f
 			exoPlayer.repeatMode = Player.REPEAT_MODE_OFF
 			exoPlayer.playWhenReady = true
 
-			exoPlayer.addListener(object : Player.Listener {
+			playerLease.addListener(object : Player.Listener {
 				override fun onPlaybackStateChanged(playbackState: Int) {
 					if (playbackState == Player.STATE_ENDED) {
 						Timber.d("TrailerPlayer: Playback ended for $videoId")
@@ -142,7 +151,9 @@ class TrailerPlayerFragment : Fragment() {
 					.createMediaSource(MediaItem.fromUri(streamInfo.audioUrl))
 				exoPlayer.setMediaSource(MergingMediaSource(videoSource, audioSource))
 			} else {
-				exoPlayer.setMediaItem(MediaItem.fromUri(streamInfo.videoUrl))
+				val mediaSource = DefaultMediaSourceFactory(dataSourceFactory)
+					.createMediaSource(MediaItem.fromUri(streamInfo.videoUrl))
+				exoPlayer.setMediaSource(mediaSource)
 			}
 
 			exoPlayer.prepare()
@@ -151,7 +162,7 @@ class TrailerPlayerFragment : Fragment() {
 				exoPlayer.seekTo((startSeconds * 1000).toLong())
 			}
 
-			player = exoPlayer
+			lease = playerLease
 			playerView.player = exoPlayer
 
 			if (!lifecycle.currentState.isAtLeast(Lifecycle.State.RESUMED)) {
@@ -205,8 +216,10 @@ class TrailerPlayerFragment : Fragment() {
 		super.onDestroyView()
 		skipRunnable?.let { mainHandler.removeCallbacks(it) }
 		skipRunnable = null
-		player?.release()
-		player = null
+		playerView?.player = null
+		playerView = null
+		lease?.close()
+		lease = null
 	}
 }
 
@@ -29,8 +29,8 @@ class AggregatedItemRowAdapter(
 	private var currentlyRetrieving = false
 	private val handler = Handler(Looper.getMainLooper())
 
-	private val filteredItems: List<AggregatedItem> by lazy {
-		allItems.filter { aggItem ->
+	private val filteredItems: MutableList<AggregatedItem> by lazy {
+		allItems.filterTo(mutableListOf()) { aggItem ->
 			!parentalControlsRepository.shouldFilterItem(aggItem.item)
 		}
 	}
@@ -90,6 +90,22 @@ class AggregatedItemRowAdapter(
 		Timber.d("AggregatedItemRowAdapter: Loaded chunk $startIndex-$endIndex, total loaded: $itemsLoaded/${filteredItems.size}, fullyLoaded: $fullyLoaded")
 	}
 
+	/**
+	 * Append items fetched after the row was created, skipping the ones the row already has.
+	 * Used when a row is first shown with only the items that fit on screen.
+	 */
+	fun appendItems(items: List<AggregatedItem>) {
+		val known = filteredItems.mapTo(HashSet()) { it.server.id to it.item.id }
+		val added = items.filter { aggItem ->
+			(aggItem.server.id to aggItem.item.id) !in known && !parentalControlsRepository.shouldFilterItem(aggItem.item)
+		}
+		if (added.isEmpty()) return
+
+		filteredItems.addAll(added)
+		fullyLoaded = false
+		Timber.d("AggregatedItemRowAdapter: Appended ${added.size} items, total: ${filteredItems.size}")
+	}
+
 	/**
 	 * Get total number of items available (after filtering)
 	 */
@@ -16,8 +16,8 @@ import org.jellyfin.androidtv.R;
 import org.jellyfin.androidtv.auth.repository.UserRepository;
 import org.jellyfin.androidtv.constant.ChangeTriggerType;
 import org.jellyfin.androidtv.constant.QueryType;
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus;
 import org.jellyfin.androidtv.data.model.ChapterItemInfo;
-import org.jellyfin.androidtv.data.model.DataRefreshService;
 import org.jellyfin.androidtv.data.model.FilterOptions;
 import org.jellyfin.androidtv.data.querying.GetAdditionalPartsRequest;
 import org.jellyfin.androidtv.data.querying.GetSeriesTimersRequest;
@@ -51,8 +51,10 @@ import org.jellyfin.sdk.model.api.request.GetSimilarItemsRequest;
 import org.jellyfin.sdk.model.api.request.GetUpcomingEpisodesRequest;
 import org.koin.java.KoinJavaComponent;
 
-import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import kotlin.Lazy;
 import timber.log.Timber;
@@ -83,7 +85,7 @@ public class ItemRowAdapter extends MutableObjectAdapter<Object> {
     private EmptyResponse mRetrieveFinishedListener;
 
     private ChangeTriggerType[] reRetrieveTriggers = new ChangeTriggerType[]{};
-    private Instant lastFullRetrieve;
+    private long invalidationSequence = 0;
 
     private BaseItemPerson[] mPersons;
     private List<ChapterItemInfo> mChapters;
@@ -626,40 +628,56 @@ public class ItemRowAdapter extends MutableObjectAdapter<Object> {
     }
 
     public boolean ReRetrieveIfNeeded() {
-        if (reRetrieveTriggers == null) {
-            return false;
+        ItemInvalidationBus invalidationBus = KoinJavaComponent.get(ItemInvalidationBus.class);
+        ItemInvalidationBus.Pending pending = invalidationBus.since(invalidationSequence);
+        invalidationSequence = pending.getSequence();
+
+        RowRefresh refresh = RowInvalidation.resolve(reRetrieveTriggers, getRowParentId(), getRowItemIds(), pending.getInvalidations());
+        if (refresh instanceof RowRefresh.Full) {
+            Timber.i("Re-retrieving row of type %s", queryType.toString());
+            Retrieve();
+            return true;
         }
 
-        boolean retrieve = false;
-        DataRefreshService dataRefreshService = KoinJavaComponent.get(DataRefreshService.class);
-        for (ChangeTriggerType trigger : reRetrieveTriggers) {
-            switch (trigger) {
-                case LibraryUpdated:
-                    retrieve |= dataRefreshService.getLastLibraryChange() != null && lastFullRetrieve.isBefore(dataRefreshService.getLastLibraryChange());
-                    break;
-                case MoviePlayback:
-                    retrieve |= dataRefreshService.getLastMoviePlayback() != null && lastFullRetrieve.isBefore(dataRefreshService.getLastMoviePlayback());
-                    break;
-                case TvPlayback:
-                    retrieve |= dataRefreshService.getLastTvPlayback() != null && lastFullRetrieve.isBefore(dataRefreshService.getLastTvPlayback());
-                    break;
-                case FavoriteUpdate:
-                    retrieve |= dataRefreshService.getLastFavoriteUpdate() != null && lastFullRetrieve.isBefore(dataRefreshService.getLastFavoriteUpdate());
-                    break;
-            }
+        if (refresh instanceof RowRefresh.Items) {
+            Set<UUID> itemIds = ((RowRefresh.Items) refresh).getItemIds();
+            Timber.i("Refreshing %d items in row of type %s", itemIds.size(), queryType.toString());
+            ItemRowAdapterHelperKt.refreshItems(this, getApiClient(), itemIds);
         }
 
-        if (retrieve) {
-            Timber.i("Re-retrieving row of type %s", queryType.toString());
-            Retrieve();
+        return false;
+    }
+
+    @Nullable
+    private UUID getRowParentId() {
+        switch (queryType) {
+            case Items:
+                return mQuery != null ? mQuery.getParentId() : null;
+            case NextUp:
+                return mNextUpQuery != null ? mNextUpQuery.getParentId() : null;
+            case LatestItems:
+                return mLatestQuery != null ? mLatestQuery.getParentId() : null;
+            case Resume:
+                return resumeQuery != null ? resumeQuery.getParentId() : null;
+            default:
+                return null;
         }
+    }
 
-        return retrieve;
+    private Set<UUID> getRowItemIds() {
+        Set<UUID> itemIds = new HashSet<>();
+        for (int i = 0; i < size(); i++) {
+            Object item = get(i);
+            if (item instanceof BaseRowItem && ((BaseRowItem) item).getBaseItem() != null) {
+                itemIds.add(((BaseRowItem) item).getBaseItem().getId());
+            }
+        }
+        return itemIds;
     }
 
     public void Retrieve() {
         notifyRetrieveStarted();
-        lastFullRetrieve = Instant.now();
+        invalidationSequence = KoinJavaComponent.get(ItemInvalidationBus.class).getSequence();
         itemsLoaded = 0;
         fullyLoaded = false;
         cachedLatestItems = null;
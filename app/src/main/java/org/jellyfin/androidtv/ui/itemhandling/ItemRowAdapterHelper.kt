@@ -15,6 +15,7 @@ import org.jellyfin.androidtv.constant.LiveTvOption
 import org.jellyfin.androidtv.data.querying.GetAdditionalPartsRequest
 import org.jellyfin.androidtv.data.querying.GetSpecialsRequest
 import org.jellyfin.androidtv.data.querying.GetTrailersRequest
+import org.jellyfin.androidtv.data.repository.ItemRepository
 import org.jellyfin.androidtv.data.repository.ParentalControlsRepository
 import org.jellyfin.androidtv.data.repository.UserViewsRepository
 import org.jellyfin.androidtv.ui.GridButton
@@ -48,6 +49,7 @@ import org.jellyfin.sdk.model.api.request.GetSimilarItemsRequest
 import org.jellyfin.sdk.model.api.request.GetUpcomingEpisodesRequest
 import org.koin.java.KoinJavaComponent.inject
 import timber.log.Timber
+import java.util.UUID
 import kotlin.math.min
 
 private val parentalControlsRepositoryLazy: Lazy<ParentalControlsRepository> = inject(ParentalControlsRepository::class.java)
@@ -913,3 +915,48 @@ fun ItemRowAdapter.refreshItem(
 		callback()
 	}
 }
+
+/**
+ * Fetch the row items with [itemIds] again and replace them in place. Items the server no longer
+ * returns are removed.
+ */
+fun ItemRowAdapter.refreshItems(api: ApiClient, itemIds: Set<UUID>) {
+	ProcessLifecycleOwner.get().lifecycleScope.launch {
+		runCatching {
+			withContext(Dispatchers.IO) {
+				api.itemsApi.getItems(
+					ids = itemIds,
+					fields = ItemRepository.itemFields,
+				).content.items
+			}
+		}.fold(
+			onSuccess = { refreshedItems ->
+				val refreshedById = refreshedItems.associateBy { it.id }
+
+				for (index in size() - 1 downTo 0) {
+					val rowItem = get(index) as? BaseItemDtoBaseRowItem ?: continue
+					if (rowItem is AudioQueueBaseRowItem) continue
+					val id = rowItem.baseItem?.id ?: continue
+					if (id !in itemIds) continue
+
+					val refreshedItem = refreshedById[id]
+					if (refreshedItem == null) {
+						removeAt(index, 1)
+						continue
+					}
+
+					set(
+						index = index,
+						element = BaseItemDtoBaseRowItem(
+							item = refreshedItem,
+							preferParentThumb = rowItem.preferParentThumb,
+							staticHeight = rowItem.staticHeight,
+							selectAction = rowItem.selectAction
+						)
+					)
+				}
+			},
+			onFailure = { err -> Timber.e(err, "Failed to refresh items") }
+		)
+	}
+}
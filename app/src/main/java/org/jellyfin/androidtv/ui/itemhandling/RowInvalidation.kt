@@ -0,0 +1,69 @@
+package org.jellyfin.androidtv.ui.itemhandling
+
+import org.jellyfin.androidtv.constant.ChangeTriggerType
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidation
+import org.jellyfin.sdk.model.api.BaseItemKind
+import java.util.UUID
+
+sealed interface RowRefresh {
+	/** Nothing in the row changed. */
+	data object None : RowRefresh
+
+	/** Only the listed items need to be fetched again. */
+	data class Items(val itemIds: Set<UUID>) : RowRefresh
+
+	/** The row contents may have changed and need a full retrieve. */
+	data object Full : RowRefresh
+}
+
+object RowInvalidation {
+	/**
+	 * Decide how a row reacts to [invalidations].
+	 *
+	 * Rows whose contents depend on what changed (resume, next up, favorites, latest) reload fully
+	 * when one of their [triggers] applies, other rows only refetch the items they show.
+	 *
+	 * @param parentId library or folder the row is limited to, if any
+	 * @param rowItemIds items currently shown in the row
+	 * @param invalidations invalidations since the last check, `null` when some were missed
+	 */
+	@JvmStatic
+	fun resolve(
+		triggers: Array<ChangeTriggerType>?,
+		parentId: UUID?,
+		rowItemIds: Set<UUID>,
+		invalidations: List<ItemInvalidation>?,
+	): RowRefresh {
+		val rowTriggers = triggers.orEmpty()
+		if (invalidations == null) return if (rowTriggers.isNotEmpty()) RowRefresh.Full else RowRefresh.None
+
+		val changedItems = mutableSetOf<UUID>()
+		for (invalidation in invalidations) {
+			if (rowTriggers.any { it.appliesTo(invalidation, parentId) }) return RowRefresh.Full
+
+			invalidation.itemIds.filterTo(changedItems) { it in rowItemIds }
+		}
+
+		return if (changedItems.isEmpty()) RowRefresh.None else RowRefresh.Items(changedItems)
+	}
+
+	private fun ChangeTriggerType.appliesTo(invalidation: ItemInvalidation, parentId: UUID?): Boolean = when (this) {
+		ChangeTriggerType.LibraryUpdated -> when (invalidation.reason) {
+			ItemInvalidation.Reason.ADDED,
+			ItemInvalidation.Reason.REMOVED -> parentId == null ||
+				invalidation.parentIds.isEmpty() ||
+				parentId in invalidation.parentIds
+
+			else -> false
+		}
+
+		ChangeTriggerType.MoviePlayback -> invalidation.isPlayback(BaseItemKind.MOVIE)
+		ChangeTriggerType.TvPlayback -> invalidation.isPlayback(BaseItemKind.EPISODE)
+		ChangeTriggerType.MusicPlayback -> invalidation.isPlayback(BaseItemKind.AUDIO)
+		ChangeTriggerType.FavoriteUpdate -> invalidation.reason == ItemInvalidation.Reason.FAVORITE
+	}
+
+	// Server pushed user data does not include the item kind, assume it applies to every playback row
+	private fun ItemInvalidation.isPlayback(kind: BaseItemKind) =
+		reason == ItemInvalidation.Reason.USER_DATA && (itemKind == null || itemKind == kind)
+}
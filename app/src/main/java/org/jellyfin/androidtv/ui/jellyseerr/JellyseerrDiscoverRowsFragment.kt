@@ -63,16 +63,22 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 
 	// API pagination loading flags
 	private var isLoadingRequests = false
-	private var isLoadingTrending = false
-	private var isLoadingMovies = false
-	private var isLoadingUpcomingMovies = false
-	private var isLoadingTv = false
-	private var isLoadingUpcomingTv = false
 	
 	// Map to track which row index corresponds to which row type
 	private val rowTypeToIndex = mutableMapOf<JellyseerrRowType, Int>()
 	private val indexToRowType = mutableMapOf<Int, JellyseerrRowType>()
 
+	// Last snapshot applied to each paged row, used to apply only the difference of the next one
+	private data class AppliedSnapshot(val adapter: ArrayObjectAdapter, val snapshot: JellyseerrRowSnapshot) {
+		fun canAdvanceTo(rowAdapter: ArrayObjectAdapter, next: JellyseerrRowSnapshot) =
+			adapter === rowAdapter &&
+				snapshot.generation == next.generation &&
+				rowAdapter.size() == snapshot.items.size &&
+				next.droppedCount - snapshot.droppedCount in 0..rowAdapter.size() &&
+				next.endIndex >= snapshot.endIndex
+	}
+	private val appliedSnapshots = mutableMapOf<JellyseerrRowType, AppliedSnapshot>()
+
 	companion object {
 		private const val STATE_LAST_FOCUSED_POSITION = "last_focused_position"
 		private const val STATE_LAST_FOCUSED_SUB_POSITION = "last_focused_sub_position"
@@ -273,41 +279,10 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 							}
 						}
 						
-						// Check if we need to load more items for pagination
-						// Trigger API call when within last 10 items of the row
-						if (itemPosition >= rowAdapter.size() - 10 && itemPosition >= 0 && rowAdapter.size() > 0) {
-							val rowType = indexToRowType[newPosition]
-							when (rowType) {
-								JellyseerrRowType.RECENT_REQUESTS -> {
-									// Requests are loaded once, no API pagination
-								}
-								JellyseerrRowType.TRENDING -> {
-									if (!isLoadingTrending) {
-										loadMoreTrending()
-									}
-								}
-								JellyseerrRowType.POPULAR_MOVIES -> {
-									if (!isLoadingMovies) {
-										loadMoreMovies()
-									}
-								}
-								JellyseerrRowType.UPCOMING_MOVIES -> {
-									if (!isLoadingUpcomingMovies) {
-										loadMoreUpcomingMovies()
-									}
-								}
-								JellyseerrRowType.POPULAR_SERIES -> {
-									if (!isLoadingTv) {
-										loadMoreTv()
-									}
-								}
-								JellyseerrRowType.UPCOMING_SERIES -> {
-									if (!isLoadingUpcomingTv) {
-										loadMoreUpcomingTv()
-									}
-								}
-								else -> { }
-							}
+						// Let the row pager prefetch the next page once focus passes its threshold
+						val rowType = indexToRowType[newPosition]
+						if (rowType != null && itemPosition >= 0) {
+							viewModel.onRowItemFocused(rowType, itemPosition)
 						}
 					}
 				}
@@ -394,22 +369,22 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 		
 		// Trending
 		lifecycleScope.launch {
-			viewModel.trending.collect { trending ->
-				updateRowByType(JellyseerrRowType.TRENDING, trending)
+			viewModel.trending.collect { snapshot ->
+				applyRowSnapshot(JellyseerrRowType.TRENDING, snapshot)
 			}
 		}
 
 		// Popular Movies
 		lifecycleScope.launch {
-			viewModel.trendingMovies.collect { movies ->
-				updateRowByType(JellyseerrRowType.POPULAR_MOVIES, movies)
+			viewModel.trendingMovies.collect { snapshot ->
+				applyRowSnapshot(JellyseerrRowType.POPULAR_MOVIES, snapshot)
 			}
 		}
 
 		// Popular Series
 		lifecycleScope.launch {
-			viewModel.trendingTv.collect { tv ->
-				updateRowByType(JellyseerrRowType.POPULAR_SERIES, tv)
+			viewModel.trendingTv.collect { snapshot ->
+				applyRowSnapshot(JellyseerrRowType.POPULAR_SERIES, snapshot)
 			}
 		}
 
@@ -443,15 +418,15 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 
 		// Upcoming Movies
 		lifecycleScope.launch {
-			viewModel.upcomingMovies.collect { movies ->
-				updateRowByType(JellyseerrRowType.UPCOMING_MOVIES, movies)
+			viewModel.upcomingMovies.collect { snapshot ->
+				applyRowSnapshot(JellyseerrRowType.UPCOMING_MOVIES, snapshot)
 			}
 		}
 
 		// Upcoming Series
 		lifecycleScope.launch {
-			viewModel.upcomingTv.collect { tv ->
-				updateRowByType(JellyseerrRowType.UPCOMING_SERIES, tv)
+			viewModel.upcomingTv.collect { snapshot ->
+				applyRowSnapshot(JellyseerrRowType.UPCOMING_SERIES, snapshot)
 			}
 		}
 
@@ -489,6 +464,35 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 		updateRow(index, items)
 	}
 
+	/**
+	 * Apply a paged row snapshot. Snapshots of the same generation only drop items at the front and
+	 * append at the end, so only the difference to the last applied snapshot is sent to the adapter.
+	 */
+	private fun applyRowSnapshot(rowType: JellyseerrRowType, snapshot: JellyseerrRowSnapshot) {
+		val index = rowTypeToIndex[rowType] ?: return
+		val rowsAdapter = adapter as? ArrayObjectAdapter ?: return
+		if (index >= rowsAdapter.size()) return
+		val rowAdapter = (rowsAdapter.get(index) as? ListRow)?.adapter as? ArrayObjectAdapter ?: return
+
+		val apply = {
+			val applied = appliedSnapshots[rowType]
+			if (applied != null && applied.canAdvanceTo(rowAdapter, snapshot)) {
+				val removeCount = snapshot.droppedCount - applied.snapshot.droppedCount
+				if (removeCount > 0) rowAdapter.removeItems(0, removeCount)
+				val appended = snapshot.items.subList(applied.snapshot.endIndex - snapshot.droppedCount, snapshot.items.size)
+				if (appended.isNotEmpty()) rowAdapter.addAll(rowAdapter.size(), appended.map { JellyseerrMediaBaseRowItem(it) })
+				Timber.d("JellyseerrDiscoverRowsFragment: Row $rowType dropped $removeCount and appended ${appended.size} items")
+			} else {
+				rowAdapter.setItems(snapshot.items.map { JellyseerrMediaBaseRowItem(it) }, null)
+			}
+			appliedSnapshots[rowType] = AppliedSnapshot(rowAdapter, snapshot)
+		}
+
+		// Defer while the view exists to avoid modifying RecyclerView during layout
+		val currentView = view
+		if (currentView != null) currentView.post(apply) else apply()
+	}
+
 	private fun updateRowGenericByType(rowType: JellyseerrRowType, items: List<Any>) {
 		val index = rowTypeToIndex[rowType] ?: return
 		updateRowGeneric(index, items)
@@ -540,46 +544,6 @@ class JellyseerrDiscoverRowsFragment : RowsSupportFragment() {
 		}
 	}
 
-	private fun loadMoreTrending() {
-		if (isLoadingTrending) return
-		isLoadingTrending = true
-		Timber.d("JellyseerrDiscoverRowsFragment: Loading more trending via API")
-		viewModel.loadNextTrendingPage()
-		isLoadingTrending = false
-	}
-
-	private fun loadMoreMovies() {
-		if (isLoadingMovies) return
-		isLoadingMovies = true
-		Timber.d("JellyseerrDiscoverRowsFragment: Loading more movies via API")
-		viewModel.loadNextTrendingMoviesPage()
-		isLoadingMovies = false
-	}
-
-	private fun loadMoreUpcomingMovies() {
-		if (isLoadingUpcomingMovies) return
-		isLoadingUpcomingMovies = true
-		Timber.d("JellyseerrDiscoverRowsFragment: Loading more upcoming movies via API")
-		viewModel.loadNextUpcomingMoviesPage()
-		isLoadingUpcomingMovies = false
-	}
-
-	private fun loadMoreTv() {
-		if (isLoadingTv) return
-		isLoadingTv = true
-		Timber.d("JellyseerrDiscoverRowsFragment: Loading more TV via API")
-		viewModel.loadNextTrendingTvPage()
-		isLoadingTv = false
-	}
-
-	private fun loadMoreUpcomingTv() {
-		if (isLoadingUpcomingTv) return
-		isLoadingUpcomingTv = true
-		Timber.d("JellyseerrDiscoverRowsFragment: Loading more upcoming TV via API")
-		viewModel.loadNextUpcomingTvPage()
-		isLoadingUpcomingTv = false
-	}
-
 	/**
 	 * Walk up the view hierarchy from the focused view to find the containing HorizontalGridView.
 	 */
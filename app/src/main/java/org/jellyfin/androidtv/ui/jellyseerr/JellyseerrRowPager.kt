@@ -0,0 +1,151 @@
+package org.jellyfin.androidtv.ui.jellyseerr
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrDiscoverItemDto
+import timber.log.Timber
+
+/**
+ * Items currently retained by a [JellyseerrRowPager].
+ *
+ * Snapshots of the same [generation] only ever grow at the end and shrink at the front, so a
+ * consumer that remembers the previous snapshot can apply the difference instead of replacing the
+ * whole row: remove `droppedCount - previous.droppedCount` items from the front and append the
+ * items past `previous.endIndex`.
+ */
+data class JellyseerrRowSnapshot(
+	val items: List<JellyseerrDiscoverItemDto> = emptyList(),
+	/** Items removed from the front since the generation started. */
+	val droppedCount: Int = 0,
+	val generation: Int = 0,
+	val endReached: Boolean = false,
+) {
+	/** Absolute index just past the last retained item. */
+	val endIndex: Int get() = droppedCount + items.size
+}
+
+/**
+ * Pages a Jellyseerr discover row.
+ *
+ * Page N+1 is requested as soon as focus passes [prefetchThreshold] of the last loaded page rather
+ * than when the end of the row is reached. Pages are merged into an append-only
+ * [JellyseerrRowSnapshot] and at most [maxRetainedPages] pages are kept, dropping the oldest first.
+ *
+ * Must be driven from a single thread (the main thread in the app).
+ */
+class JellyseerrRowPager(
+	private val scope: CoroutineScope,
+	private val prefetchThreshold: Float = DEFAULT_PREFETCH_THRESHOLD,
+	private val maxRetainedPages: Int = DEFAULT_MAX_RETAINED_PAGES,
+	private val fetchPage: suspend (page: Int) -> Result<Page>,
+) {
+	companion object {
+		const val DEFAULT_PREFETCH_THRESHOLD = 0.5f
+		const val DEFAULT_MAX_RETAINED_PAGES = 10
+	}
+
+	/**
+	 * A fetched page. [items] are already filtered for display and may be empty even when more
+	 * pages follow, [isLast] tells whether the server has more.
+	 */
+	data class Page(
+		val items: List<JellyseerrDiscoverItemDto>,
+		val isLast: Boolean,
+	)
+
+	private val _snapshot = MutableStateFlow(JellyseerrRowSnapshot())
+	val snapshot: StateFlow<JellyseerrRowSnapshot> = _snapshot.asStateFlow()
+
+	// Number of items each retained page contributed, oldest first
+	private val retainedPageSizes = ArrayDeque<Int>()
+	private val retainedKeys = HashSet<String>()
+	private var lastPage = 0
+	private var loadJob: Job? = null
+
+	val isLoading: Boolean get() = loadJob?.isActive == true
+
+	/** Start a new generation with an already fetched first page. */
+	fun submitFirstPage(page: Page) {
+		loadJob?.cancel()
+		loadJob = null
+		retainedPageSizes.clear()
+		retainedKeys.clear()
+		lastPage = 0
+
+		_snapshot.value = JellyseerrRowSnapshot(generation = _snapshot.value.generation + 1)
+		append(page)
+	}
+
+	/** Forget all pages. */
+	fun clear() {
+		loadJob?.cancel()
+		loadJob = null
+		retainedPageSizes.clear()
+		retainedKeys.clear()
+		lastPage = 0
+		_snapshot.value = JellyseerrRowSnapshot(generation = _snapshot.value.generation + 1)
+	}
+
+	/**
+	 * Report that the item at [position] in the current snapshot gained focus, prefetching the next
+	 * page when it is past the threshold of the last loaded page.
+	 */
+	fun onItemFocused(position: Int) {
+		val current = _snapshot.value
+		if (current.endReached || isLoading || lastPage == 0) return
+		if (position >= prefetchIndex(current)) loadNextPage()
+	}
+
+	private fun prefetchIndex(snapshot: JellyseerrRowSnapshot): Int {
+		val lastPageSize = retainedPageSizes.lastOrNull() ?: 0
+		val lastPageStart = snapshot.items.size - lastPageSize
+		return (lastPageStart + (lastPageSize * prefetchThreshold).toInt())
+			.coerceAtMost(snapshot.items.size - 1)
+	}
+
+	private fun loadNextPage() {
+		val page = lastPage + 1
+		val generation = _snapshot.value.generation
+		loadJob = scope.launch {
+			val result = fetchPage(page)
+			if (_snapshot.value.generation != generation) return@launch
+
+			result
+				.onSuccess { append(it) }
+				.onFailure { Timber.w(it, "JellyseerrRowPager: Failed to load page $page") }
+		}
+	}
+
+	private fun append(page: Page) {
+		lastPage++
+
+		val newItems = page.items.filter { retainedKeys.add(it.key) }
+		retainedPageSizes.addLast(newItems.size)
+
+		val current = _snapshot.value
+		var items = current.items + newItems
+		var droppedCount = current.droppedCount
+		while (retainedPageSizes.size > maxRetainedPages) {
+			val dropped = retainedPageSizes.removeFirst()
+			items.subList(0, dropped).forEach { retainedKeys.remove(it.key) }
+			items = items.subList(dropped, items.size).toList()
+			droppedCount += dropped
+		}
+
+		val endReached = page.isLast
+		_snapshot.value = current.copy(
+			items = items,
+			droppedCount = droppedCount,
+			endReached = endReached,
+		)
+
+		// Nothing new to focus on, so there won't be a focus event to trigger the next page
+		if (newItems.isEmpty() && !endReached) loadNextPage()
+	}
+
+	private val JellyseerrDiscoverItemDto.key get() = "${mediaType}:${id}"
+}
@@ -11,13 +11,16 @@ import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.launch
 import org.jellyfin.androidtv.data.repository.JellyseerrRepository
 import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrDiscoverItemDto
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrDiscoverPageDto
 import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrGenreDto
-import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrMediaDto
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrMetadata
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrMetadataStore
 import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrNetworkDto
 import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrRequestDto
 import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrStudioDto
 import org.jellyfin.androidtv.data.service.jellyseerr.Seasons
 import org.jellyfin.androidtv.constant.JellyseerrFetchLimit
+import org.jellyfin.androidtv.constant.JellyseerrRowType
 import org.jellyfin.androidtv.preference.JellyseerrPreferences
 import org.jellyfin.androidtv.util.ErrorHandler
 import timber.log.Timber
@@ -35,6 +38,7 @@ sealed class JellyseerrLoadingState {
 
 class JellyseerrViewModel(
 	private val jellyseerrRepository: JellyseerrRepository,
+	private val metadataStore: JellyseerrMetadataStore,
 ) : ViewModel() {
 
 	// Cache for user preferences (loaded asynchronously)
@@ -93,20 +97,17 @@ class JellyseerrViewModel(
 	private val _loadingState = MutableStateFlow<JellyseerrLoadingState>(JellyseerrLoadingState.Idle)
 	val loadingState: StateFlow<JellyseerrLoadingState> = _loadingState.asStateFlow()
 
-	private val _trendingMovies = MutableStateFlow<List<JellyseerrDiscoverItemDto>>(emptyList())
-	val trendingMovies: StateFlow<List<JellyseerrDiscoverItemDto>> = _trendingMovies.asStateFlow()
+	private val trendingPager = discoverPager(setOf("movie", "tv")) { limit, offset -> jellyseerrRepository.getTrending(limit, offset) }
+	private val trendingMoviesPager = discoverPager(setOf("movie")) { limit, offset -> jellyseerrRepository.getTrendingMovies(limit, offset) }
+	private val trendingTvPager = discoverPager(setOf("tv")) { limit, offset -> jellyseerrRepository.getTrendingTv(limit, offset) }
+	private val upcomingMoviesPager = discoverPager(setOf("movie")) { limit, offset -> jellyseerrRepository.getUpcomingMovies(limit, offset) }
+	private val upcomingTvPager = discoverPager(setOf("tv")) { limit, offset -> jellyseerrRepository.getUpcomingTv(limit, offset) }
 
-	private val _trendingTv = MutableStateFlow<List<JellyseerrDiscoverItemDto>>(emptyList())
-	val trendingTv: StateFlow<List<JellyseerrDiscoverItemDto>> = _trendingTv.asStateFlow()
-
-	private val _trending = MutableStateFlow<List<JellyseerrDiscoverItemDto>>(emptyList())
-	val trending: StateFlow<List<JellyseerrDiscoverItemDto>> = _trending.asStateFlow()
-
-	private val _upcomingMovies = MutableStateFlow<List<JellyseerrDiscoverItemDto>>(emptyList())
-	val upcomingMovies: StateFlow<List<JellyseerrDiscoverItemDto>> = _upcomingMovies.asStateFlow()
-
-	private val _upcomingTv = MutableStateFlow<List<JellyseerrDiscoverItemDto>>(emptyList())
-	val upcomingTv: StateFlow<List<JellyseerrDiscoverItemDto>> = _upcomingTv.asStateFlow()
+	val trendingMovies: StateFlow<JellyseerrRowSnapshot> = trendingMoviesPager.snapshot
+	val trendingTv: StateFlow<JellyseerrRowSnapshot> = trendingTvPager.snapshot
+	val trending: StateFlow<JellyseerrRowSnapshot> = trendingPager.snapshot
+	val upcomingMovies: StateFlow<JellyseerrRowSnapshot> = upcomingMoviesPager.snapshot
+	val upcomingTv: StateFlow<JellyseerrRowSnapshot> = upcomingTvPager.snapshot
 
 	private val _movieGenres = MutableStateFlow<List<JellyseerrGenreDto>>(emptyList())
 	val movieGenres: StateFlow<List<JellyseerrGenreDto>> = _movieGenres.asStateFlow()
@@ -120,16 +121,24 @@ class JellyseerrViewModel(
 	private val _studios = MutableStateFlow(POPULAR_STUDIOS)
 	val studios: StateFlow<List<JellyseerrStudioDto>> = _studios.asStateFlow()
 
-	private var trendingCurrentPage = 3
-	private var trendingMoviesCurrentPage = 3
-	private var trendingTvCurrentPage = 3
-	private var upcomingMoviesCurrentPage = 3
-	private var upcomingTvCurrentPage = 3
-	private var isLoadingMoreTrending = false
-	private var isLoadingMoreTrendingMovies = false
-	private var isLoadingMoreTrendingTv = false
-	private var isLoadingMoreUpcomingMovies = false
-	private var isLoadingMoreUpcomingTv = false
+	private fun discoverPager(
+		mediaTypes: Set<String>,
+		fetch: suspend (limit: Int, offset: Int) -> Result<JellyseerrDiscoverPageDto>,
+	) = JellyseerrRowPager(viewModelScope) { page ->
+		val prefs = getPreferences()
+		val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
+		val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
+		fetch(itemsPerPage, (page - 1) * itemsPerPage).map { it.toRowPage(mediaTypes, blockNsfw) }
+	}
+
+	private fun JellyseerrDiscoverPageDto.toRowPage(mediaTypes: Set<String>, blockNsfw: Boolean) = JellyseerrRowPager.Page(
+		items = results
+			.filterNot { it.isAvailable() }
+			.filterNot { it.isBlacklisted() }
+			.filter { (it.mediaType ?: "").lowercase() in mediaTypes }
+			.filterNsfw(blockNsfw),
+		isLast = results.isEmpty() || (totalPages > 0 && page >= totalPages),
+	)
 
 	private fun List<JellyseerrDiscoverItemDto>.filterNsfw(blockNsfw: Boolean): List<JellyseerrDiscoverItemDto> {
 		return if (blockNsfw) {
@@ -235,11 +244,11 @@ class JellyseerrViewModel(
 
 	/** Returns true if discover content has already been loaded (avoids redundant API calls on resume). */
 	fun hasContent(): Boolean {
-		return _trending.value.isNotEmpty() ||
-			_trendingMovies.value.isNotEmpty() ||
-			_trendingTv.value.isNotEmpty() ||
-			_upcomingMovies.value.isNotEmpty() ||
-			_upcomingTv.value.isNotEmpty()
+		return trending.value.items.isNotEmpty() ||
+			trendingMovies.value.items.isNotEmpty() ||
+			trendingTv.value.items.isNotEmpty() ||
+			upcomingMovies.value.items.isNotEmpty() ||
+			upcomingTv.value.items.isNotEmpty()
 	}
 
 	fun loadTrendingContent() {
@@ -280,55 +289,28 @@ class JellyseerrViewModel(
 			val allTrending = trendingResult.getOrNull()?.results ?: emptyList()
 			val allTrendingMovies = trendingMoviesResult.getOrNull()?.results ?: emptyList()
 			val allTrendingTv = trendingTvResult.getOrNull()?.results ?: emptyList()
-			val allUpcomingMovies = upcomingMoviesResult.getOrNull()?.results ?: emptyList()
-			val allUpcomingTv = upcomingTvResult.getOrNull()?.results ?: emptyList()
 
 			if (allTrending.isNotEmpty() || allTrendingMovies.isNotEmpty() || allTrendingTv.isNotEmpty()) {
 				// Filter out already-available content, blacklisted items (server-side status), NSFW content
-				val trending = allTrending
-					.filterNot { it.isAvailable() }
-					.filterNot { it.isBlacklisted() }
-					.filter { (it.mediaType ?: "").lowercase() in listOf("movie", "tv") }
-					.filterNsfw(blockNsfw)
-				val trendingMovies = allTrendingMovies
-					.filterNot { it.isAvailable() }
-					.filterNot { it.isBlacklisted() }
-					.filter { (it.mediaType ?: "").lowercase() == "movie" }
-					.filterNsfw(blockNsfw)
-				val trendingTv = allTrendingTv
-					.filterNot { it.isAvailable() }
-					.filterNot { it.isBlacklisted() }
-					.filter { (it.mediaType ?: "").lowercase() == "tv" }
-					.filterNsfw(blockNsfw)
-				val upcomingMovies = allUpcomingMovies
-					.filterNot { it.isAvailable() }
-					.filterNot { it.isBlacklisted() }
-					.filter { (it.mediaType ?: "").lowercase() == "movie" }
-					.filterNsfw(blockNsfw)
-				val upcomingTv = allUpcomingTv
-					.filterNot { it.isAvailable() }
-					.filterNot { it.isBlacklisted() }
-					.filter { (it.mediaType ?: "").lowercase() == "tv" }
-					.filterNsfw(blockNsfw)
+				val emptyPage = JellyseerrDiscoverPageDto()
+				val trendingPage = (trendingResult.getOrNull() ?: emptyPage).toRowPage(setOf("movie", "tv"), blockNsfw)
+				val trendingMoviesPage = (trendingMoviesResult.getOrNull() ?: emptyPage).toRowPage(setOf("movie"), blockNsfw)
+				val trendingTvPage = (trendingTvResult.getOrNull() ?: emptyPage).toRowPage(setOf("tv"), blockNsfw)
+				val upcomingMoviesPage = (upcomingMoviesResult.getOrNull() ?: emptyPage).toRowPage(setOf("movie"), blockNsfw)
+				val upcomingTvPage = (upcomingTvResult.getOrNull() ?: emptyPage).toRowPage(setOf("tv"), blockNsfw)
 				
-				Timber.d("JellyseerrViewModel: Fetched trending: ${allTrending.size} (filtered: ${trending.size})")
-				Timber.d("JellyseerrViewModel: Fetched trending movies: ${allTrendingMovies.size} (filtered: ${trendingMovies.size})")
-				Timber.d("JellyseerrViewModel: Fetched trending TV: ${allTrendingTv.size} (filtered: ${trendingTv.size})")
-				Timber.d("JellyseerrViewModel: Fetched upcoming movies: ${allUpcomingMovies.size} (filtered: ${upcomingMovies.size})")
-				Timber.d("JellyseerrViewModel: Fetched upcoming TV: ${allUpcomingTv.size} (filtered: ${upcomingTv.size})")
+				Timber.d("JellyseerrViewModel: Fetched trending: ${allTrending.size} (filtered: ${trendingPage.items.size})")
+				Timber.d("JellyseerrViewModel: Fetched trending movies: ${allTrendingMovies.size} (filtered: ${trendingMoviesPage.items.size})")
+				Timber.d("JellyseerrViewModel: Fetched trending TV: ${allTrendingTv.size} (filtered: ${trendingTvPage.items.size})")
+				Timber.d("JellyseerrViewModel: Fetched upcoming movies (filtered: ${upcomingMoviesPage.items.size})")
+				Timber.d("JellyseerrViewModel: Fetched upcoming TV (filtered: ${upcomingTvPage.items.size})")
 				
-				_trending.emit(trending)
-				_trendingMovies.emit(trendingMovies)
-				_trendingTv.emit(trendingTv)
-				_upcomingMovies.emit(upcomingMovies)
-				_upcomingTv.emit(upcomingTv)
+				trendingPager.submitFirstPage(trendingPage)
+				trendingMoviesPager.submitFirstPage(trendingMoviesPage)
+				trendingTvPager.submitFirstPage(trendingTvPage)
+				upcomingMoviesPager.submitFirstPage(upcomingMoviesPage)
+				upcomingTvPager.submitFirstPage(upcomingTvPage)
 				_loadingState.emit(JellyseerrLoadingState.Success())
-				
-				trendingCurrentPage = 1
-				trendingMoviesCurrentPage = 1
-				trendingTvCurrentPage = 1
-				upcomingMoviesCurrentPage = 1
-				upcomingTvCurrentPage = 1
 				} else if (hasPermissionError) {
 					val errorMessage = "Permission Denied: Your Jellyfin account needs Jellyseerr permissions.\n\n" +
 						"To fix this:\n" +
@@ -400,11 +382,6 @@ class JellyseerrViewModel(
 					}
 					Timber.d("JellyseerrViewModel: Filtered ${userRequests.size} to ${filteredRequests.size} before enrichment")
 					
-					// Cache to avoid duplicate fetches for the same TMDB ID
-					val movieCache = mutableMapOf<Int, JellyseerrMediaDto?>()
-					val tvCache = mutableMapOf<Int, JellyseerrMediaDto?>()
-					val semaphore = kotlinx.coroutines.sync.Semaphore(5)
-					
 					val enrichedRequests = coroutineScope {
 						filteredRequests.map { request ->
 							async {
@@ -414,56 +391,29 @@ class JellyseerrViewModel(
 									return@async request
 								}
 								
-								val enrichedMedia = when (request.type) {
-									"movie" -> {
-										movieCache.getOrPut(tmdbId) {
-											semaphore.acquire()
-											try {
-												val result = jellyseerrRepository.getMovieDetails(tmdbId)
-												if (result.isSuccess) {
-													val movieDetails = result.getOrNull()
-													request.media?.copy(
-														title = movieDetails?.title,
-														posterPath = movieDetails?.posterPath,
-														backdropPath = movieDetails?.backdropPath,
-														overview = movieDetails?.overview
-													)
-												} else {
-													Timber.w("JellyseerrViewModel: Failed to fetch movie details for tmdbId: $tmdbId")
-													request.media
-												}
-											} finally {
-												semaphore.release()
-											}
-										}
+								val metadata = when (request.type) {
+									"movie" -> metadataStore.get("movie", tmdbId) {
+										jellyseerrRepository.getMovieDetails(tmdbId).getOrNull()?.let(JellyseerrMetadata::from)
 									}
-									"tv" -> {
-										tvCache.getOrPut(tmdbId) {
-											semaphore.acquire()
-											try {
-												val result = jellyseerrRepository.getTvDetails(tmdbId)
-												if (result.isSuccess) {
-													val tvDetails = result.getOrNull()
-													request.media?.copy(
-														name = tvDetails?.name ?: tvDetails?.title,
-														posterPath = tvDetails?.posterPath,
-														backdropPath = tvDetails?.backdropPath,
-														overview = tvDetails?.overview
-													)
-												} else {
-													Timber.w("JellyseerrViewModel: Failed to fetch TV details for tmdbId: $tmdbId")
-													request.media
-												}
-											} finally {
-												semaphore.release()
-											}
-										}
+									"tv" -> metadataStore.get("tv", tmdbId) {
+										jellyseerrRepository.getTvDetails(tmdbId).getOrNull()?.let(JellyseerrMetadata::from)
 									}
 									else -> {
 										Timber.w("JellyseerrViewModel: Unknown media type: ${request.type}")
-										request.media
+										null
 									}
 								}
+								if (metadata == null) Timber.w("JellyseerrViewModel: No details for ${request.type} tmdbId: $tmdbId")
+								
+								val enrichedMedia = if (metadata == null) request.media else request.media?.let { media ->
+									media.copy(
+										title = metadata.title ?: media.title,
+										name = metadata.name ?: media.name,
+										posterPath = metadata.posterPath,
+										backdropPath = metadata.backdropPath,
+										overview = metadata.overview
+									)
+								}
 								
 								request.copy(media = enrichedMedia)
 							}
@@ -520,164 +470,20 @@ class JellyseerrViewModel(
 		}
 	}
 
-	fun loadNextTrendingPage() {
-		if (isLoadingMoreTrending) return
-		viewModelScope.launch {
-			isLoadingMoreTrending = true
-			try {
-				val prefs = getPreferences()
-				val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
-				val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
-				trendingCurrentPage++
-				val offset = (trendingCurrentPage - 1) * itemsPerPage
-				val result = jellyseerrRepository.getTrending(limit = itemsPerPage, offset = offset)
-				
-				if (result.isSuccess) {
-					val newItems = result.getOrNull()?.results ?: emptyList()
-					val filtered = newItems
-						.filterNot { it.isAvailable() }
-						.filterNot { it.isBlacklisted() }
-						.filter { (it.mediaType ?: "").lowercase() in listOf("movie", "tv") }
-						.filterNsfw(blockNsfw)
-					val currentList = _trending.value.toMutableList()
-					currentList.addAll(filtered)
-					_trending.emit(currentList)
-					Timber.d("JellyseerrViewModel: Loaded page $trendingCurrentPage - added ${filtered.size} trending items, total: ${currentList.size}")
-				}
-			} catch (error: Exception) {
-				Timber.e(error, "Failed to load more trending")
-			} finally {
-				isLoadingMoreTrending = false
-			}
-		}
-	}
-
-	fun loadNextTrendingMoviesPage() {
-		if (isLoadingMoreTrendingMovies) return
-		viewModelScope.launch {
-			isLoadingMoreTrendingMovies = true
-			try {
-				val prefs = getPreferences()
-				val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
-				val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
-				trendingMoviesCurrentPage++
-				val offset = (trendingMoviesCurrentPage - 1) * itemsPerPage
-				val result = jellyseerrRepository.getTrendingMovies(limit = itemsPerPage, offset = offset)
-				
-				if (result.isSuccess) {
-					val newItems = result.getOrNull()?.results ?: emptyList()
-					val filtered = newItems
-						.filterNot { it.isAvailable() }
-						.filterNot { it.isBlacklisted() }
-						.filter { (it.mediaType ?: "").lowercase() == "movie" }
-						.filterNsfw(blockNsfw)
-					val currentList = _trendingMovies.value.toMutableList()
-					currentList.addAll(filtered)
-					_trendingMovies.emit(currentList)
-					Timber.d("JellyseerrViewModel: Loaded page $trendingMoviesCurrentPage - added ${filtered.size} movie items, total: ${currentList.size}")
-				}
-			} catch (error: Exception) {
-				Timber.e(error, "Failed to load more trending movies")
-			} finally {
-				isLoadingMoreTrendingMovies = false
-			}
-		}
-	}
-
-	fun loadNextTrendingTvPage() {
-		if (isLoadingMoreTrendingTv) return
-		viewModelScope.launch {
-			isLoadingMoreTrendingTv = true
-			try {
-				val prefs = getPreferences()
-				val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
-				val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
-				trendingTvCurrentPage++
-				val offset = (trendingTvCurrentPage - 1) * itemsPerPage
-				val result = jellyseerrRepository.getTrendingTv(limit = itemsPerPage, offset = offset)
-				
-				if (result.isSuccess) {
-					val newItems = result.getOrNull()?.results ?: emptyList()
-					val filtered = newItems
-						.filterNot { it.isAvailable() }
-						.filterNot { it.isBlacklisted() }
-						.filter { (it.mediaType ?: "").lowercase() == "tv" }
-						.filterNsfw(blockNsfw)
-					val currentList = _trendingTv.value.toMutableList()
-					currentList.addAll(filtered)
-					_trendingTv.emit(currentList)
-					Timber.d("JellyseerrViewModel: Loaded page $trendingTvCurrentPage - added ${filtered.size} TV items, total: ${currentList.size}")
-				}
-			} catch (error: Exception) {
-				Timber.e(error, "Failed to load more trending TV")
-			} finally {
-				isLoadingMoreTrendingTv = false
-			}
-		}
-	}
-
-	fun loadNextUpcomingMoviesPage() {
-		if (isLoadingMoreUpcomingMovies) return
-		viewModelScope.launch {
-			isLoadingMoreUpcomingMovies = true
-			try {
-				val prefs = getPreferences()
-				val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
-				val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
-				upcomingMoviesCurrentPage++
-				val offset = (upcomingMoviesCurrentPage - 1) * itemsPerPage
-				val result = jellyseerrRepository.getUpcomingMovies(limit = itemsPerPage, offset = offset)
-				
-				if (result.isSuccess) {
-					val newItems = result.getOrNull()?.results ?: emptyList()
-					val filtered = newItems
-						.filterNot { it.isAvailable() }
-						.filterNot { it.isBlacklisted() }
-						.filter { (it.mediaType ?: "").lowercase() == "movie" }
-						.filterNsfw(blockNsfw)
-					val currentList = _upcomingMovies.value.toMutableList()
-					currentList.addAll(filtered)
-					_upcomingMovies.emit(currentList)
-					Timber.d("JellyseerrViewModel: Loaded page $upcomingMoviesCurrentPage - added ${filtered.size} upcoming movie items, total: ${currentList.size}")
-				}
-			} catch (error: Exception) {
-				Timber.e(error, "Failed to load more upcoming movies")
-			} finally {
-				isLoadingMoreUpcomingMovies = false
-			}
-		}
-	}
-
-	fun loadNextUpcomingTvPage() {
-		if (isLoadingMoreUpcomingTv) return
-		viewModelScope.launch {
-			isLoadingMoreUpcomingTv = true
-			try {
-				val prefs = getPreferences()
-				val itemsPerPage = prefs?.get(JellyseerrPreferences.fetchLimit)?.limit ?: JellyseerrFetchLimit.MEDIUM.limit
-				val blockNsfw = prefs?.get(JellyseerrPreferences.blockNsfw) ?: false
-				upcomingTvCurrentPage++
-				val offset = (upcomingTvCurrentPage - 1) * itemsPerPage
-				val result = jellyseerrRepository.getUpcomingTv(limit = itemsPerPage, offset = offset)
-				
-				if (result.isSuccess) {
-					val newItems = result.getOrNull()?.results ?: emptyList()
-					val filtered = newItems
-						.filterNot { it.isAvailable() }
-						.filterNot { it.isBlacklisted() }
-						.filter { (it.mediaType ?: "").lowercase() == "tv" }
-						.filterNsfw(blockNsfw)
-					val currentList = _upcomingTv.value.toMutableList()
-					currentList.addAll(filtered)
-					_upcomingTv.emit(currentList)
-					Timber.d("JellyseerrViewModel: Loaded page $upcomingTvCurrentPage - added ${filtered.size} upcoming TV items, total: ${currentList.size}")
-				}
-			} catch (error: Exception) {
-				Timber.e(error, "Failed to load more upcoming TV")
-			} finally {
-				isLoadingMoreUpcomingTv = false
-			}
+	/**
+	 * Report focus on the item at [position] of a paged discover row, prefetching the row's next
+	 * page once focus passes the pager threshold.
+	 */
+	fun onRowItemFocused(rowType: JellyseerrRowType, position: Int) {
+		val pager = when (rowType) {
+			JellyseerrRowType.TRENDING -> trendingPager
+			JellyseerrRowType.POPULAR_MOVIES -> trendingMoviesPager
+			JellyseerrRowType.POPULAR_SERIES -> trendingTvPager
+			JellyseerrRowType.UPCOMING_MOVIES -> upcomingMoviesPager
+			JellyseerrRowType.UPCOMING_SERIES -> upcomingTvPager
+			else -> return
 		}
+		pager.onItemFocused(position)
 	}
 
 	fun createRequest(mediaId: Int, mediaType: String, seasons: Seasons? = null) {
@@ -11,7 +11,6 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.R
-import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.repository.ItemMutationRepository
 import org.jellyfin.androidtv.databinding.LiveTvGuideBinding
 import org.jellyfin.androidtv.ui.GuideChannelHeader
@@ -28,7 +27,6 @@ import org.jellyfin.sdk.model.api.BaseItemKind
 import org.jellyfin.sdk.model.api.MediaType
 import org.koin.android.ext.android.inject
 import timber.log.Timber
-import java.time.Instant
 import java.time.LocalDateTime
 import java.util.UUID
 
@@ -52,7 +50,6 @@ fun LiveTvGuideFragment.toggleFavorite() {
 	val channel = header?.channel ?: return
 
 	val itemMutationRepository by inject<ItemMutationRepository>()
-	val dataRefreshService by inject<DataRefreshService>()
 
 	lifecycleScope.launch {
 		runCatching {
@@ -63,7 +60,6 @@ fun LiveTvGuideFragment.toggleFavorite() {
 
 			header.channel = header.channel.copy(userData = userData)
 			header.findViewById<View>(R.id.favImage).isVisible = userData.isFavorite
-			dataRefreshService.lastFavoriteUpdate = Instant.now()
 		}
 	}
 }
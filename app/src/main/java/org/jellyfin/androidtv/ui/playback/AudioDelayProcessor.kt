@@ -6,165 +6,128 @@ import androidx.media3.common.audio.AudioProcessor
 import androidx.media3.common.audio.AudioProcessor.AudioFormat
 import androidx.media3.common.audio.AudioProcessor.EMPTY_BUFFER
 import androidx.media3.common.util.UnstableApi
+import androidx.media3.common.util.Util
 import timber.log.Timber
 import java.nio.ByteBuffer
 import java.nio.ByteOrder
-import java.util.LinkedList
-import java.util.Queue
+import kotlin.math.abs
 import kotlin.math.max
 import kotlin.math.min
+import kotlin.math.roundToInt
 
 /**
  * An AudioProcessor that delays audio samples by a configurable amount.
- * 
+ *
  * Positive delay values will delay the audio (make it play later),
  * which effectively makes video appear ahead of audio.
- * 
+ *
  * Negative delay values will advance the audio (skip initial samples),
  * which effectively makes audio appear ahead of video.
+ *
+ * Audio passes through a circular delay line that is allocated when the processor is configured,
+ * so processing does not allocate. The delay can be changed while playing, the output crossfades
+ * from the old to the new delay to avoid clicks.
  */
 @OptIn(UnstableApi::class)
 class AudioDelayProcessor : AudioProcessor {
+    companion object {
+        private const val CROSSFADE_MS = 20
 
+        // Amount of frames written to the delay line at once
+        private const val CHUNK_FRAMES = 4096
+    }
+
+    private var pendingAudioFormat = AudioFormat.NOT_SET
     private var inputAudioFormat = AudioFormat.NOT_SET
-    private var outputAudioFormat = AudioFormat.NOT_SET
-    private var isActive = false
-    
-    private var delayMs: Long = 0
+
+    @Volatile
     private var pendingDelayMs: Long = 0
-    private var delaySamples: Int = 0
-    
-    private val delayBuffer: Queue<ByteBuffer> = LinkedList()
-    private var bufferedSampleCount: Int = 0
-    private var inputEnded = false
+    private var delayMs: Long = 0
+
+    private var bytesPerFrame = 0
+    private var canCrossfade = false
+    private var silence: Byte = 0
+    private val bigEndian = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN
+
+    // Delay line, frame n of the stream is stored at (n % capacityFrames) * bytesPerFrame
+    private var delayLine = ByteArray(0)
+    private var capacityFrames = 0
+    private var historyStart: Long = 0
+    private var writtenFrames: Long = 0
+    private var outputFrames: Long = 0
+
+    // Delay in frames, output frame n plays stream frame n - delayFrames
+    private var delayFrames: Long = 0
+    private var fadeFromFrames: Long = 0
+    private var fadeLength = 0
+    private var fadeRemaining = 0
+
+    private var buffer = EMPTY_BUFFER
     private var outputBuffer = EMPTY_BUFFER
-    private var skipSamples: Int = 0
-    
+    private var inputEnded = false
+
     /**
      * Sets the audio delay in milliseconds.
      * Positive values delay audio (audio plays later).
-     * Negative values advance audio (audio plays earlier by skipping initial samples).
+     * Negative values advance audio (audio plays earlier by skipping samples).
+     * Can be called from any thread, the delay is applied to the next processed audio.
      */
     fun setDelayMs(delayMs: Long) {
         Timber.d("AudioDelayProcessor: Setting delay to %d ms", delayMs)
         this.pendingDelayMs = delayMs
     }
-    
-    fun getDelayMs(): Long = delayMs
+
+    fun getDelayMs(): Long = pendingDelayMs
 
     override fun configure(inputAudioFormat: AudioFormat): AudioFormat {
         Timber.d("AudioDelayProcessor: configure called with format: %s", inputAudioFormat)
-        
-        if (inputAudioFormat.encoding == C.ENCODING_INVALID) {
+
+        if (!Util.isEncodingLinearPcm(inputAudioFormat.encoding)) {
+            pendingAudioFormat = AudioFormat.NOT_SET
             return AudioFormat.NOT_SET
         }
-        
-        this.inputAudioFormat = inputAudioFormat
-        this.outputAudioFormat = inputAudioFormat
-        
-        // Apply pending delay
-        this.delayMs = pendingDelayMs
-        
-        // Calculate delay in samples
-        if (delayMs > 0) {
-            // Positive delay: buffer audio samples
-            val bytesPerSample = getBytesPerSample(inputAudioFormat.encoding) * inputAudioFormat.channelCount
-            val bytesPerMs = (inputAudioFormat.sampleRate * bytesPerSample) / 1000
-            delaySamples = (delayMs * bytesPerMs).toInt()
-            skipSamples = 0
-            Timber.d("AudioDelayProcessor: Delay samples = %d bytes", delaySamples)
-        } else if (delayMs < 0) {
-            // Negative delay: skip initial samples
-            val bytesPerSample = getBytesPerSample(inputAudioFormat.encoding) * inputAudioFormat.channelCount
-            val bytesPerMs = (inputAudioFormat.sampleRate * bytesPerSample) / 1000
-            skipSamples = (-delayMs * bytesPerMs).toInt()
-            delaySamples = 0
-            Timber.d("AudioDelayProcessor: Skip samples = %d bytes", skipSamples)
-        } else {
-            delaySamples = 0
-            skipSamples = 0
-        }
-        
-        isActive = delayMs != 0L
-        return outputAudioFormat
+
+        // The format is applied on the next flush, always active so the delay can change without
+        // reconfiguring the audio sink
+        pendingAudioFormat = inputAudioFormat
+        return inputAudioFormat
     }
 
-    override fun isActive(): Boolean = isActive
+    override fun isActive(): Boolean = pendingAudioFormat != AudioFormat.NOT_SET
 
     override fun queueInput(inputBuffer: ByteBuffer) {
-        if (!inputBuffer.hasRemaining()) {
-            return
-        }
-        
-        // Handle negative delay (skip samples)
-        if (skipSamples > 0) {
-            val bytesToSkip = min(skipSamples, inputBuffer.remaining())
-            inputBuffer.position(inputBuffer.position() + bytesToSkip)
-            skipSamples -= bytesToSkip
-            if (!inputBuffer.hasRemaining()) {
-                return
-            }
-        }
-        
-        // Handle positive delay (buffer samples)
-        if (delaySamples > 0) {
-            // Add input to delay buffer
-            val copy = ByteBuffer.allocateDirect(inputBuffer.remaining())
-                .order(ByteOrder.nativeOrder())
-            copy.put(inputBuffer)
-            copy.flip()
-            delayBuffer.offer(copy)
-            bufferedSampleCount += copy.remaining()
-            
-            // Output from delay buffer if we have enough
-            if (bufferedSampleCount >= delaySamples) {
-                val excess = bufferedSampleCount - delaySamples
-                if (excess > 0) {
-                    outputFromDelayBuffer(excess)
-                }
-            }
-        } else {
-            // No delay, pass through
-            val copy = ByteBuffer.allocateDirect(inputBuffer.remaining())
-                .order(ByteOrder.nativeOrder())
-            copy.put(inputBuffer)
-            copy.flip()
-            outputBuffer = copy
-        }
-    }
-    
-    private fun outputFromDelayBuffer(bytesToOutput: Int) {
-        var remaining = bytesToOutput
-        val output = ByteBuffer.allocateDirect(bytesToOutput).order(ByteOrder.nativeOrder())
-        
-        while (remaining > 0 && delayBuffer.isNotEmpty()) {
-            val buffer = delayBuffer.peek() ?: break
-            val bytesToRead = min(remaining, buffer.remaining())
-            
-            // Read bytes from buffer
-            val oldLimit = buffer.limit()
-            buffer.limit(buffer.position() + bytesToRead)
-            output.put(buffer)
-            buffer.limit(oldLimit)
-            
-            remaining -= bytesToRead
-            bufferedSampleCount -= bytesToRead
-            
-            if (!buffer.hasRemaining()) {
-                delayBuffer.poll()
-            }
+        if (!inputBuffer.hasRemaining() || bytesPerFrame == 0) return
+
+        applyPendingDelay()
+
+        // The stream can at most advance by the frames that are queued
+        val inputFrames = inputBuffer.remaining() / bytesPerFrame
+        ensureOutputCapacity(writtenFrames + inputFrames - outputFrames)
+
+        while (inputBuffer.remaining() >= bytesPerFrame) {
+            val lag = writtenFrames - outputFrames
+            val chunk = minOf(
+                (inputBuffer.remaining() / bytesPerFrame).toLong(),
+                capacityFrames - maxTap() - lag,
+                CHUNK_FRAMES.toLong(),
+            ).toInt()
+            write(inputBuffer, chunk)
+            emit(writtenFrames + min(minTap(), 0))
         }
-        
-        output.flip()
-        outputBuffer = output
+
+        // Partial frames are never queued by the audio sink
+        inputBuffer.position(inputBuffer.limit())
+        finishOutput()
     }
 
     override fun queueEndOfStream() {
         inputEnded = true
-        // Flush remaining buffered audio
-        if (bufferedSampleCount > 0) {
-            outputFromDelayBuffer(bufferedSampleCount)
-        }
+
+        // Play out the audio that is still in the delay line
+        val end = max(outputFrames, writtenFrames + delayFrames)
+        ensureOutputCapacity(end - outputFrames)
+        emit(end)
+        finishOutput()
     }
 
     override fun getOutput(): ByteBuffer {
@@ -173,61 +136,202 @@ class AudioDelayProcessor : AudioProcessor {
         return buffer
     }
 
-    override fun isEnded(): Boolean = inputEnded && outputBuffer === EMPTY_BUFFER && delayBuffer.isEmpty()
+    override fun isEnded(): Boolean = inputEnded && outputBuffer === EMPTY_BUFFER
 
     override fun flush() {
+        if (pendingAudioFormat != inputAudioFormat) setAudioFormat(pendingAudioFormat)
+
         outputBuffer = EMPTY_BUFFER
-        delayBuffer.clear()
-        bufferedSampleCount = 0
         inputEnded = false
-        
-        // Apply pending delay
+        historyStart = 0
+        writtenFrames = 0
+        outputFrames = 0
+        fadeRemaining = 0
+
+        // A new stream starts, no crossfade needed to apply the pending delay
         delayMs = pendingDelayMs
-        
-        // Recalculate delay/skip samples based on current format
         if (inputAudioFormat != AudioFormat.NOT_SET) {
-            val bytesPerSample = getBytesPerSample(inputAudioFormat.encoding) * inputAudioFormat.channelCount
-            val bytesPerMs = (inputAudioFormat.sampleRate * bytesPerSample) / 1000
-            
-            if (delayMs > 0) {
-                // Positive delay: buffer audio samples
-                delaySamples = (delayMs * bytesPerMs).toInt()
-                skipSamples = 0
-                Timber.d("AudioDelayProcessor flush: Delay samples = %d bytes", delaySamples)
-            } else if (delayMs < 0) {
-                // Negative delay: skip initial samples
-                skipSamples = (-delayMs * bytesPerMs).toInt()
-                delaySamples = 0
-                Timber.d("AudioDelayProcessor flush: Skip samples = %d bytes", skipSamples)
-            } else {
-                delaySamples = 0
-                skipSamples = 0
-            }
+            delayFrames = framesOf(delayMs)
+            ensureDelayLineCapacity(abs(delayFrames))
         }
-        
-        isActive = delayMs != 0L
-        Timber.d("AudioDelayProcessor flush: delay=%d ms, isActive=%b", delayMs, isActive)
+
+        Timber.d("AudioDelayProcessor flush: delay=%d ms", delayMs)
     }
 
     override fun reset() {
+        pendingAudioFormat = AudioFormat.NOT_SET
         flush()
-        inputAudioFormat = AudioFormat.NOT_SET
-        outputAudioFormat = AudioFormat.NOT_SET
-        isActive = false
-        delaySamples = 0
-        skipSamples = 0
         delayMs = 0
         pendingDelayMs = 0
+        delayFrames = 0
+        buffer = EMPTY_BUFFER
+    }
+
+    private fun setAudioFormat(audioFormat: AudioFormat) {
+        inputAudioFormat = audioFormat
+        bytesPerFrame = if (audioFormat == AudioFormat.NOT_SET) 0 else audioFormat.bytesPerFrame
+        canCrossfade = audioFormat.encoding == C.ENCODING_PCM_16BIT || audioFormat.encoding == C.ENCODING_PCM_FLOAT
+        silence = if (audioFormat.encoding == C.ENCODING_PCM_8BIT) 0x80.toByte() else 0
+        fadeLength = max(1, audioFormat.sampleRate * CROSSFADE_MS / 1000)
+
+        // The delay line is sized in frames of the previous format
+        delayLine = ByteArray(0)
+        capacityFrames = 0
+    }
+
+    private fun framesOf(delayMs: Long): Long = delayMs * inputAudioFormat.sampleRate / 1000
+
+    // Frames before this one are no longer (or never were) in the delay line
+    private fun firstAvailableFrame() = max(historyStart, writtenFrames - capacityFrames)
+
+    private fun minTap() = if (fadeRemaining > 0) min(fadeFromFrames, delayFrames) else delayFrames
+    private fun maxTap() = max(0, if (fadeRemaining > 0) max(fadeFromFrames, delayFrames) else delayFrames)
+
+    private fun applyPendingDelay() {
+        val requestedDelayMs = pendingDelayMs
+        if (requestedDelayMs == delayMs) return
+
+        delayMs = requestedDelayMs
+        val frames = framesOf(delayMs)
+        Timber.d("AudioDelayProcessor: Changing delay to %d frames", frames)
+
+        // A change during a crossfade continues from the delay that was faded to, the delay line needs
+        // to hold the audio for both delays and the audio that is held back for a negative delay
+        ensureDelayLineCapacity(abs(delayFrames) + abs(frames) + writtenFrames - outputFrames)
+        if (canCrossfade && outputFrames > 0) {
+            fadeFromFrames = delayFrames
+            fadeRemaining = fadeLength
+        }
+        delayFrames = frames
+    }
+
+    private fun ensureDelayLineCapacity(delayFrames: Long) {
+        val required = (delayFrames + fadeLength + 2 * CHUNK_FRAMES).toInt()
+        if (required <= capacityFrames) return
+
+        val previous = delayLine
+        val previousCapacity = capacityFrames
+        delayLine = ByteArray(required * bytesPerFrame)
+        capacityFrames = required
+
+        // Keep the history that is still in the delay line
+        val start = max(historyStart, writtenFrames - previousCapacity)
+        historyStart = start
+        for (frame in start until writtenFrames) {
+            System.arraycopy(
+                previous, ((frame % previousCapacity) * bytesPerFrame).toInt(),
+                delayLine, ((frame % capacityFrames) * bytesPerFrame).toInt(),
+                bytesPerFrame,
+            )
+        }
+    }
+
+    private fun ensureOutputCapacity(frames: Long) {
+        val bytes = (max(frames, 0) * bytesPerFrame).toInt()
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder())
+        } else {
+            buffer.clear()
+        }
+    }
+
+    private fun finishOutput() {
+        buffer.flip()
+        outputBuffer = if (buffer.hasRemaining()) buffer else EMPTY_BUFFER
+    }
+
+    private fun write(inputBuffer: ByteBuffer, frames: Int) {
+        var remaining = frames
+        while (remaining > 0) {
+            val offset = (writtenFrames % capacityFrames).toInt()
+            val count = min(remaining, capacityFrames - offset)
+            inputBuffer.get(delayLine, offset * bytesPerFrame, count * bytesPerFrame)
+            writtenFrames += count
+            remaining -= count
+        }
+    }
+
+    /**
+     * Write output frames to [buffer] until [end] is reached.
+     */
+    private fun emit(end: Long) {
+        while (outputFrames < end) {
+            if (fadeRemaining > 0) {
+                emitCrossfade()
+            } else {
+                val frames = end - outputFrames
+                copy(outputFrames - delayFrames, frames)
+                outputFrames += frames
+            }
+        }
     }
-    
-    private fun getBytesPerSample(encoding: Int): Int {
-        return when (encoding) {
-            C.ENCODING_PCM_8BIT -> 1
-            C.ENCODING_PCM_16BIT, C.ENCODING_PCM_16BIT_BIG_ENDIAN -> 2
-            C.ENCODING_PCM_24BIT, C.ENCODING_PCM_24BIT_BIG_ENDIAN -> 3
-            C.ENCODING_PCM_32BIT, C.ENCODING_PCM_32BIT_BIG_ENDIAN -> 4
-            C.ENCODING_PCM_FLOAT -> 4
-            else -> 2 // Default to 16-bit
+
+    /**
+     * Copy [frames] frames of the stream starting at [streamFrame] to the output.
+     */
+    private fun copy(streamFrame: Long, frames: Long) {
+        var frame = streamFrame
+        val end = streamFrame + frames
+        val firstAvailableFrame = firstAvailableFrame()
+        while (frame < end) {
+            if (frame < firstAvailableFrame || frame >= writtenFrames) {
+                // Before the start or after the end of the stream
+                val count = if (frame < firstAvailableFrame) min(end, firstAvailableFrame) - frame else end - frame
+                repeat((count * bytesPerFrame).toInt()) { buffer.put(silence) }
+                frame += count
+            } else {
+                val offset = (frame % capacityFrames).toInt()
+                val count = minOf(end - frame, writtenFrames - frame, (capacityFrames - offset).toLong()).toInt()
+                buffer.put(delayLine, offset * bytesPerFrame, count * bytesPerFrame)
+                frame += count
+            }
+        }
+    }
+
+    private fun emitCrossfade() {
+        val channels = inputAudioFormat.channelCount
+        val progress = (fadeLength - fadeRemaining + 0.5f) / fadeLength
+        val fromFrame = outputFrames - fadeFromFrames
+        val toFrame = outputFrames - delayFrames
+
+        for (channel in 0 until channels) {
+            val from = sample(fromFrame, channel)
+            val to = sample(toFrame, channel)
+            val mixed = from + (to - from) * progress
+            if (inputAudioFormat.encoding == C.ENCODING_PCM_FLOAT) {
+                buffer.putFloat(mixed)
+            } else {
+                buffer.putShort(mixed.roundToInt().coerceIn(Short.MIN_VALUE.toInt(), Short.MAX_VALUE.toInt()).toShort())
+            }
+        }
+
+        outputFrames++
+        fadeRemaining--
+    }
+
+    private fun sample(frame: Long, channel: Int): Float {
+        if (frame < firstAvailableFrame() || frame >= writtenFrames) return 0f
+
+        val position = (frame % capacityFrames).toInt() * bytesPerFrame
+        return if (inputAudioFormat.encoding == C.ENCODING_PCM_FLOAT) {
+            Float.fromBits(readInt(position + channel * 4))
+        } else {
+            readShort(position + channel * 2).toFloat()
+        }
+    }
+
+    private fun readShort(position: Int): Short {
+        val first = delayLine[position].toInt() and 0xFF
+        val second = delayLine[position + 1].toInt() and 0xFF
+        return if (bigEndian) (first shl 8 or second).toShort() else (second shl 8 or first).toShort()
+    }
+
+    private fun readInt(position: Int): Int {
+        var value = 0
+        for (i in 0 until 4) {
+            val byte = delayLine[position + if (bigEndian) i else 3 - i].toInt() and 0xFF
+            value = value shl 8 or byte
         }
+        return value
     }
 }
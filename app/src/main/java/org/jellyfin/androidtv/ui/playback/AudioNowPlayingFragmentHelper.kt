@@ -39,6 +39,7 @@ import org.jellyfin.playback.core.PlaybackManager
 import org.jellyfin.playback.core.model.PlayState
 import org.jellyfin.playback.jellyfin.lyrics
 import org.jellyfin.playback.jellyfin.lyricsFlow
+import org.jellyfin.playback.jellyfin.lyricsTimeline
 import org.jellyfin.playback.jellyfin.queue.baseItem
 import org.jellyfin.playback.jellyfin.queue.baseItemFlow
 import org.jellyfin.sdk.api.client.ApiClient
@@ -114,6 +115,7 @@ fun initializePreviewView(
 
 			LyricsDtoBox(
 				lyricDto = lyrics,
+				timeline = entry?.lyricsTimeline,
 				currentTimestamp = playbackManager.state.positionInfo.active,
 				duration = playbackManager.state.positionInfo.duration,
 				paused = playState != PlayState.PLAYING,
@@ -8,7 +8,6 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.R
-import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.repository.ItemMutationRepository
 import org.jellyfin.androidtv.ui.GuideChannelHeader
 import org.jellyfin.androidtv.ui.asTimerInfoDto
@@ -20,7 +19,6 @@ import org.jellyfin.sdk.model.api.BaseItemDto
 import org.jellyfin.sdk.model.api.MediaSegmentType
 import org.koin.android.ext.android.inject
 import timber.log.Timber
-import java.time.Instant
 import java.util.UUID
 import kotlin.time.Duration
 import kotlin.time.Duration.Companion.milliseconds
@@ -30,7 +28,6 @@ fun CustomPlaybackOverlayFragment.toggleFavorite() {
 	val channel = header?.channel ?: return
 
 	val itemMutationRepository by inject<ItemMutationRepository>()
-	val dataRefreshService by inject<DataRefreshService>()
 
 	lifecycleScope.launch {
 		runCatching {
@@ -41,7 +38,6 @@ fun CustomPlaybackOverlayFragment.toggleFavorite() {
 
 			header.channel = header.channel.copy(userData = userData)
 			header.findViewById<View>(R.id.favImage).isVisible = userData.isFavorite
-			dataRefreshService.lastFavoriteUpdate = Instant.now()
 		}
 	}
 }
@@ -13,6 +13,8 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.R
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
+import org.jellyfin.androidtv.data.eventhandling.toPlaybackInvalidation
 import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.data.repository.ExternalAppRepository
 import org.jellyfin.androidtv.util.componentName
@@ -22,7 +24,6 @@ import org.jellyfin.sdk.api.client.extensions.playStateApi
 import org.jellyfin.sdk.api.client.extensions.subtitleApi
 import org.jellyfin.sdk.api.client.extensions.videosApi
 import org.jellyfin.sdk.model.api.BaseItemDto
-import org.jellyfin.sdk.model.api.BaseItemKind
 import org.jellyfin.sdk.model.api.MediaSourceInfo
 import org.jellyfin.sdk.model.api.MediaStream
 import org.jellyfin.sdk.model.api.MediaStreamType
@@ -79,6 +80,7 @@ class ExternalPlayerActivity : FragmentActivity() {
 
 	private val videoQueueManager by inject<VideoQueueManager>()
 	private val dataRefreshService by inject<DataRefreshService>()
+	private val itemInvalidationBus by inject<ItemInvalidationBus>()
 	private val externalAppRepository by inject<ExternalAppRepository>()
 	private val api by inject<ApiClient>()
 
@@ -261,13 +263,8 @@ class ExternalPlayerActivity : FragmentActivity() {
 				Toast.makeText(this@ExternalPlayerActivity, R.string.video_error_unknown_error, Toast.LENGTH_LONG).show()
 			}
 
-			val now = Instant.now()
-			dataRefreshService.lastPlayback = now
-			when (currentItem?.first?.type) {
-				BaseItemKind.MOVIE -> dataRefreshService.lastMoviePlayback = now
-				BaseItemKind.EPISODE -> dataRefreshService.lastTvPlayback = now
-				else -> Unit
-			}
+			dataRefreshService.lastPlayback = Instant.now()
+			currentItem?.first?.let { item -> itemInvalidationBus.publish(item.toPlaybackInvalidation()) }
 
 			if (shouldPlayNext) playNext()
 			else finish()
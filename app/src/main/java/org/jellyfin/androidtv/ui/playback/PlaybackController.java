@@ -29,6 +29,7 @@ import org.jellyfin.androidtv.preference.constant.ZoomMode;
 import org.jellyfin.androidtv.ui.InteractionTrackerViewModel;
 import org.jellyfin.androidtv.ui.livetv.TvManager;
 import org.jellyfin.androidtv.ui.playback.PrePlaybackTrackSelector;
+import org.jellyfin.androidtv.ui.playback.segment.MediaSegmentRepository;
 import org.jellyfin.androidtv.util.TimeUtils;
 import org.jellyfin.androidtv.util.UUIDUtils;
 import org.jellyfin.androidtv.util.Utils;
@@ -78,6 +79,7 @@ public class PlaybackController implements PlaybackControllerNotifiable {
     private Lazy<ReportingHelper> reportingHelper = inject(ReportingHelper.class);
     private final Lazy<InteractionTrackerViewModel> lazyInteractionTracker = inject(InteractionTrackerViewModel.class);
     private Lazy<PrePlaybackTrackSelector> trackSelector = inject(PrePlaybackTrackSelector.class);
+    private Lazy<MediaSegmentRepository> mediaSegmentRepository = inject(MediaSegmentRepository.class);
     private Lazy<org.jellyfin.androidtv.data.syncplay.SyncPlayManager> syncPlayManager = inject(org.jellyfin.androidtv.data.syncplay.SyncPlayManager.class);
 
     List<BaseItemDto> mItems;
@@ -777,6 +779,9 @@ public class PlaybackController implements PlaybackControllerNotifiable {
     }
 
     private void playInternal(final BaseItemDto item, final Long position, final VideoOptions internalOptions) {
+        // Fetch the media segments while the stream is resolved
+        if (!isLiveTv) mediaSegmentRepository.getValue().prefetchSegmentsForItem(item);
+
         if (isLiveTv) {
             updateTvProgramInfo();
             TvManager.setLastLiveTvChannel(item.getId());
@@ -924,7 +929,7 @@ public class PlaybackController implements PlaybackControllerNotifiable {
             mVideoManager.setMediaStreamInfo(subtitleApi, response);
         }
 
-        PlaybackControllerHelperKt.applyMediaSegments(this, item, () -> {
+        PlaybackControllerHelperKt.applyMediaSegments(this, item, position, () -> {
             // Set video start delay
             long videoStartDelay = userPreferences.getValue().get(UserPreferences.Companion.getVideoStartDelay());
             if (videoStartDelay > 0) {
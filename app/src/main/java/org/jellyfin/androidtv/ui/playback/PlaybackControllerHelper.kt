@@ -21,6 +21,7 @@ import org.jellyfin.sdk.model.api.SubtitleDeliveryMethod
 import org.koin.android.ext.android.inject
 import timber.log.Timber
 import java.util.UUID
+import kotlin.time.Duration.Companion.milliseconds
 
 fun PlaybackController.getLiveTvChannel(
 	id: UUID,
@@ -155,15 +156,17 @@ fun PlaybackController.setSubtitleIndex(index: Int, force: Boolean = false) {
 
 fun PlaybackController.applyMediaSegments(
 	item: BaseItemDto,
+	startPositionMs: Long,
 	callback: () -> Unit,
 ) {
 	val mediaSegmentRepository by fragment.inject<MediaSegmentRepository>()
 
 	fragment?.clearSkipOverlay()
 	fragment.lifecycleScope.launch {
-		val mediaSegments = runCatching {
-			mediaSegmentRepository.getSegmentsForItem(item)
-		}.getOrNull().orEmpty()
+		val timeline = runCatching {
+			mediaSegmentRepository.getSegmentTimelineForItem(item)
+		}.getOrNull()
+		val mediaSegments = timeline?.segments.orEmpty()
 
 		for (mediaSegment in mediaSegments) {
 			val action = mediaSegmentRepository.getMediaSegmentAction(mediaSegment)
@@ -175,6 +178,16 @@ fun PlaybackController.applyMediaSegments(
 			}
 		}
 
+		// Messages at the segment start are never delivered when playback resumes inside a segment,
+		// offer to skip the innermost one instead as seeking before the stream started isn't possible
+		val startPosition = startPositionMs.milliseconds
+		timeline?.segmentsAt(startPosition)
+			?.lastOrNull { it.start < startPosition && mediaSegmentRepository.getMediaSegmentAction(it) != MediaSegmentAction.NOTHING }
+			?.let { fragment?.askToSkip(it.end, it.type) }
+
+		// Have the segments of the next item ready when it starts
+		getNextItem()?.let(mediaSegmentRepository::prefetchSegmentsForItem)
+
 		callback()
 	}
 }
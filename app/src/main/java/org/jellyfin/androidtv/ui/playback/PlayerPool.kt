@@ -0,0 +1,184 @@
+package org.jellyfin.androidtv.ui.playback
+
+import android.content.Context
+import androidx.annotation.OptIn
+import androidx.media3.common.C
+import androidx.media3.common.Player
+import androidx.media3.common.TrackSelectionParameters
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.datasource.DefaultDataSource
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import timber.log.Timber
+
+/**
+ * Pool of ExoPlayer instances for previews and trailers. Players are built ahead of time and reset
+ * when they are given back, so focusing a card does not pay for player construction. At most
+ * [maxPlayers] players are borrowed at once and none while main playback is active, so previews
+ * never hold decoders that main playback needs.
+ *
+ * Must only be used from the main thread.
+ */
+class PlayerPool(
+	private val createPlayer: () -> ExoPlayer,
+	private val maxPlayers: Int = 2,
+	private val maxIdlePlayers: Int = 1,
+) {
+	private class Entry(
+		val player: ExoPlayer,
+		val defaultParameters: TrackSelectionParameters,
+	)
+
+	private val idle = ArrayDeque<Entry>()
+	private val borrowed = mutableMapOf<PlayerLease, Entry>()
+	private var mainPlaybackCount = 0
+
+	/**
+	 * Amount of players that were built.
+	 */
+	var createCount = 0
+		private set
+
+	/**
+	 * Amount of borrows that were served by an existing player.
+	 */
+	var reuseCount = 0
+		private set
+
+	val borrowedCount get() = borrowed.size
+	val idleCount get() = idle.size
+	val isMainPlaybackActive get() = mainPlaybackCount > 0
+
+	/**
+	 * Build idle players ahead of a likely [borrow].
+	 */
+	fun warmUp() {
+		if (isMainPlaybackActive) return
+
+		while (idle.size < maxIdlePlayers && idle.size + borrowed.size < maxPlayers) {
+			idle.addLast(create())
+		}
+	}
+
+	/**
+	 * Borrow a player, the player must be given back by closing the lease.
+	 *
+	 * @return the lease or null when all players are in use or main playback is active
+	 */
+	fun borrow(): PlayerLease? {
+		if (isMainPlaybackActive) {
+			Timber.d("PlayerPool: Main playback active, not lending a player")
+			return null
+		}
+
+		if (borrowed.size >= maxPlayers) {
+			Timber.d("PlayerPool: All %d players in use", maxPlayers)
+			return null
+		}
+
+		val entry = idle.removeFirstOrNull()?.also { reuseCount++ } ?: create()
+		val lease = PlayerLease(this, entry.player)
+		borrowed[lease] = entry
+		return lease
+	}
+
+	/**
+	 * Mark main playback as started. Idle players are released and borrowed players are stopped to
+	 * free their decoders until [endMainPlayback] is called.
+	 */
+	fun beginMainPlayback() {
+		mainPlaybackCount++
+
+		while (idle.isNotEmpty()) idle.removeFirst().player.release()
+		for (lease in borrowed.keys) lease.player.stop()
+	}
+
+	fun endMainPlayback() {
+		if (mainPlaybackCount > 0) mainPlaybackCount--
+	}
+
+	internal fun giveBack(lease: PlayerLease) {
+		val entry = borrowed.remove(lease) ?: return
+
+		if (isMainPlaybackActive || idle.size >= maxIdlePlayers) {
+			entry.player.release()
+		} else {
+			reset(entry)
+			idle.addLast(entry)
+		}
+	}
+
+	private fun create(): Entry {
+		val player = createPlayer()
+		createCount++
+		return Entry(player, player.trackSelectionParameters)
+	}
+
+	private fun reset(entry: Entry) = with(entry.player) {
+		stop()
+		clearMediaItems()
+		clearVideoSurface()
+		playWhenReady = false
+		volume = 1f
+		repeatMode = Player.REPEAT_MODE_OFF
+		videoScalingMode = C.VIDEO_SCALING_MODE_DEFAULT
+		trackSelectionParameters = entry.defaultParameters
+	}
+}
+
+/**
+ * A player borrowed from [PlayerPool]. Listeners must be added through the lease so they are removed
+ * when the player is given back.
+ */
+class PlayerLease internal constructor(
+	private val pool: PlayerPool,
+	val player: ExoPlayer,
+) : AutoCloseable {
+	private val listeners = mutableListOf<Player.Listener>()
+	private var closed = false
+
+	fun addListener(listener: Player.Listener) {
+		check(!closed) { "Player was already given back" }
+		listeners.add(listener)
+		player.addListener(listener)
+	}
+
+	override fun close() {
+		if (closed) return
+		closed = true
+
+		for (listener in listeners) player.removeListener(listener)
+		listeners.clear()
+		pool.giveBack(this)
+	}
+}
+
+/**
+ * Build players for previews and trailers that share a bandwidth meter and data source factory.
+ */
+@OptIn(UnstableApi::class)
+fun createPreviewPlayerFactory(
+	context: Context,
+	httpDataSourceFactory: HttpDataSource.Factory,
+): () -> ExoPlayer {
+	val bandwidthMeter = DefaultBandwidthMeter.getSingletonInstance(context)
+	val mediaSourceFactory = DefaultMediaSourceFactory(DefaultDataSource.Factory(context, httpDataSourceFactory))
+
+	return {
+		val renderersFactory = DefaultRenderersFactory(context).apply {
+			setEnableDecoderFallback(true)
+			setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_PREFER)
+		}
+
+		ExoPlayer.Builder(context)
+			.setRenderersFactory(renderersFactory)
+			.setTrackSelector(DefaultTrackSelector(context))
+			.setBandwidthMeter(bandwidthMeter)
+			.setMediaSourceFactory(mediaSourceFactory)
+			.build()
+	}
+}
@@ -0,0 +1,149 @@
+package org.jellyfin.androidtv.ui.playback
+
+import java.util.TreeMap
+import kotlin.math.ceil
+
+/**
+ * Shows subtitle cues at the media position shifted by [offsetMs]. Positive offsets show cues later,
+ * negative offsets show them earlier.
+ *
+ * Cues are kept in a timeline sorted by media time, where each entry holds the cues shown from that
+ * time until the next entry. The timeline is either observed from the cues the player renders, or
+ * preloaded with every cue of a sideloaded subtitle file. Only a preloaded timeline can show cues
+ * ahead of the player for negative offsets, an observed one shows them as soon as they are rendered.
+ *
+ * Timing follows the media clock: [update] shows the cues at the current position and asks
+ * [wakeUp] for a single callback at the next cue boundary, scaled by the playback speed. Nothing is
+ * scheduled while paused. Call [update] on play, pause and speed changes and [onSeek] after seeks.
+ */
+class SubtitleCueScheduler<C>(
+	private val clock: Clock,
+	private val wakeUp: WakeUp,
+	private val display: (cues: List<C>) -> Unit,
+) {
+	interface Clock {
+		val positionMs: Long
+		val speed: Float
+		val isPlaying: Boolean
+	}
+
+	interface WakeUp {
+		/**
+		 * Call [SubtitleCueScheduler.update] after [delayMs], replacing a previously scheduled call.
+		 */
+		fun schedule(delayMs: Long)
+
+		fun cancel()
+	}
+
+	/**
+	 * A cue and the media time range it is shown in, end exclusive.
+	 */
+	data class TimedCues<C>(
+		val startMs: Long,
+		val endMs: Long,
+		val cues: List<C>,
+	)
+
+	private val timeline = TreeMap<Long, List<C>>()
+	private var shown: List<C> = emptyList()
+
+	/**
+	 * Whether the timeline holds every cue of the track, set by [setTimeline].
+	 */
+	var isPreloaded = false
+		private set
+
+	var offsetMs = 0L
+		set(value) {
+			field = value
+			update()
+		}
+
+	/**
+	 * Record the cues the player rendered at media time [positionMs]. Ignored when the timeline is
+	 * preloaded.
+	 */
+	fun onCues(positionMs: Long, cues: List<C>) {
+		if (isPreloaded) return
+
+		timeline[positionMs] = cues
+		update()
+	}
+
+	/**
+	 * Replace the timeline with all cues of the track, allowing negative offsets to look ahead.
+	 */
+	fun setTimeline(cues: List<TimedCues<C>>) {
+		timeline.clear()
+		isPreloaded = true
+
+		// Split overlapping cues into entries at every start and end
+		val sorted = cues.sortedBy { it.startMs }
+		val boundaries = cues.flatMapTo(sortedSetOf()) { listOf(it.startMs, it.endMs) }
+		val active = mutableListOf<TimedCues<C>>()
+		var next = 0
+		for (time in boundaries) {
+			active.removeAll { it.endMs <= time }
+			while (next < sorted.size && sorted[next].startMs <= time) {
+				val cue = sorted[next++]
+				if (cue.endMs > time) active.add(cue)
+			}
+			timeline[time] = active.flatMap { it.cues }
+		}
+
+		update()
+	}
+
+	/**
+	 * Forget all cues, used when the subtitle track changes.
+	 */
+	fun clearTimeline() {
+		timeline.clear()
+		isPreloaded = false
+		update()
+	}
+
+	/**
+	 * Handle a seek. Observed cues are dropped as the player renders the cues at the new position again.
+	 */
+	fun onSeek() {
+		if (!isPreloaded) timeline.clear()
+		update()
+	}
+
+	/**
+	 * Show the cues at the current position and schedule the next update.
+	 */
+	fun update() {
+		wakeUp.cancel()
+
+		val targetMs = clock.positionMs - offsetMs
+		val cues = timeline.floorEntry(targetMs)?.value ?: emptyList()
+		if (cues != shown) {
+			shown = cues
+			display(cues)
+		}
+
+		// Observed cues before the one shown are not needed anymore
+		if (!isPreloaded) timeline.headMap(timeline.floorKey(targetMs) ?: Long.MIN_VALUE).clear()
+
+		val speed = clock.speed
+		if (!clock.isPlaying || speed <= 0f) return
+		val nextMs = timeline.higherKey(targetMs) ?: return
+		wakeUp.schedule(ceil((nextMs - targetMs) / speed.toDouble()).toLong())
+	}
+
+	/**
+	 * Hide all cues and stop scheduling.
+	 */
+	fun release() {
+		wakeUp.cancel()
+		timeline.clear()
+		isPreloaded = false
+		if (shown.isNotEmpty()) {
+			shown = emptyList()
+			display(emptyList())
+		}
+	}
+}
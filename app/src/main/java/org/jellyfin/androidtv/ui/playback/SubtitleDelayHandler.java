@@ -4,44 +4,82 @@ import android.os.Handler;
 import android.os.Looper;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.PlaybackParameters;
 import androidx.media3.common.Player;
+import androidx.media3.common.Tracks;
 import androidx.media3.common.text.Cue;
 import androidx.media3.common.text.CueGroup;
 import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
 import androidx.media3.ui.SubtitleView;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import timber.log.Timber;
 
 /**
- * Handles subtitle delay by intercepting cues via Player.Listener and delaying before displaying.
+ * Handles subtitle delay by intercepting cues via Player.Listener and showing them at the player
+ * position shifted by the offset. Sideloaded subtitle files are parsed up front so negative offsets
+ * can show cues before the player renders them.
  */
 @UnstableApi
 public class SubtitleDelayHandler implements Player.Listener {
-    private final SubtitleView subtitleView;
-    private final Handler handler;
-    private final Queue<DelayedCue> delayedCues = new LinkedList<>();
-    private long offsetMs = 0;
-    private Runnable checkRunnable;
-    
-    private static class DelayedCue {
-        final List<Cue> cues;
-        final long showTimeMs;
-        
-        DelayedCue(List<Cue> cues, long showTimeMs) {
-            this.cues = cues;
-            this.showTimeMs = showTimeMs;
-        }
-    }
-    
-    public SubtitleDelayHandler(@NonNull SubtitleView subtitleView) {
-        this.subtitleView = subtitleView;
-        this.handler = new Handler(Looper.getMainLooper());
+    private final Player player;
+    private final DataSource.Factory dataSourceFactory;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+    private final Runnable updateRunnable;
+    private final SubtitleCueScheduler<Cue> scheduler;
+    private List<MediaItem.SubtitleConfiguration> externalSubtitles = new ArrayList<>();
+    @Nullable
+    private String timelineSubtitleId;
+
+    public SubtitleDelayHandler(@NonNull SubtitleView subtitleView, @NonNull Player player, @NonNull DataSource.Factory dataSourceFactory) {
+        this.player = player;
+        this.dataSourceFactory = dataSourceFactory;
+
+        SubtitleCueScheduler.Clock clock = new SubtitleCueScheduler.Clock() {
+            @Override
+            public long getPositionMs() {
+                return player.getCurrentPosition();
+            }
+
+            @Override
+            public float getSpeed() {
+                return player.getPlaybackParameters().speed;
+            }
+
+            @Override
+            public boolean isPlaying() {
+                return player.isPlaying();
+            }
+        };
+
+        SubtitleCueScheduler.WakeUp wakeUp = new SubtitleCueScheduler.WakeUp() {
+            @Override
+            public void schedule(long delayMs) {
+                handler.removeCallbacks(updateRunnable);
+                handler.postDelayed(updateRunnable, delayMs);
+            }
+
+            @Override
+            public void cancel() {
+                handler.removeCallbacks(updateRunnable);
+            }
+        };
+
+        scheduler = new SubtitleCueScheduler<>(clock, wakeUp, cues -> {
+            subtitleView.setCues(cues);
+            return kotlin.Unit.INSTANCE;
+        });
+        updateRunnable = scheduler::update;
     }
 
     /**
@@ -52,80 +90,106 @@ public class SubtitleDelayHandler implements Player.Listener {
      */
     public void setOffsetMs(long offsetMs) {
         Timber.d("SubtitleDelayHandler: Setting offset to %d ms", offsetMs);
-        this.offsetMs = offsetMs;
-        
-        delayedCues.clear();
-        if (checkRunnable != null) {
-            handler.removeCallbacks(checkRunnable);
-            checkRunnable = null;
-        }
-        
-        subtitleView.setCues(Collections.emptyList());
+        scheduler.setOffsetMs(offsetMs);
     }
 
     /**
      * Get the current subtitle time offset in milliseconds.
      */
     public long getOffsetMs() {
-        return offsetMs;
+        return scheduler.getOffsetMs();
+    }
+
+    /**
+     * Set the sideloaded subtitle files of the current media item. Their cues are loaded when the
+     * track is selected.
+     */
+    public void setExternalSubtitles(@NonNull List<MediaItem.SubtitleConfiguration> subtitles) {
+        externalSubtitles = new ArrayList<>(subtitles);
+        timelineSubtitleId = null;
+        scheduler.clearTimeline();
     }
 
     @Override
     public void onCues(@NonNull CueGroup cueGroup) {
-        Timber.d("SubtitleDelayHandler.onCues() called with %d cues, offsetMs=%d", cueGroup.cues.size(), offsetMs);
-        
-        if (offsetMs == 0) {
-            Timber.d("SubtitleDelayHandler: No offset, showing %d cues immediately", cueGroup.cues.size());
-            subtitleView.setCues(cueGroup.cues);
-        } else if (offsetMs > 0) {
-            long showTime = System.currentTimeMillis() + offsetMs;
-            delayedCues.offer(new DelayedCue(cueGroup.cues, showTime));
-            
-            Timber.d("SubtitleDelayHandler: Delaying %d cues by %d ms", cueGroup.cues.size(), offsetMs);
-            subtitleView.setCues(Collections.emptyList());
-            
-            scheduleCheck();
-        } else {
-            Timber.d("SubtitleDelayHandler: Negative offset, showing %d cues immediately", cueGroup.cues.size());
-            subtitleView.setCues(cueGroup.cues);
+        scheduler.onCues(VideoManagerHelperKt.getCuePositionMs(player, cueGroup.presentationTimeUs), cueGroup.cues);
+    }
+
+    @Override
+    public void onIsPlayingChanged(boolean isPlaying) {
+        scheduler.update();
+    }
+
+    @Override
+    public void onPlaybackParametersChanged(@NonNull PlaybackParameters playbackParameters) {
+        scheduler.update();
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition, @NonNull Player.PositionInfo newPosition, int reason) {
+        if (reason == Player.DISCONTINUITY_REASON_SEEK || reason == Player.DISCONTINUITY_REASON_SEEK_ADJUSTMENT) {
+            scheduler.onSeek();
         }
     }
 
-    private void scheduleCheck() {
-        if (checkRunnable != null) return;
-        
-        checkRunnable = new Runnable() {
-            @Override
-            public void run() {
-                checkRunnable = null;
-                long now = System.currentTimeMillis();
-                
-                while (!delayedCues.isEmpty()) {
-                    DelayedCue delayed = delayedCues.peek();
-                    if (delayed.showTimeMs <= now) {
-                        delayedCues.poll();
-                        subtitleView.setCues(delayed.cues);
-                    } else {
-                        long delay = delayed.showTimeMs - now;
-                        handler.postDelayed(this, delay);
-                        checkRunnable = this;
-                        break;
+    @Override
+    public void onTracksChanged(@NonNull Tracks tracks) {
+        MediaItem.SubtitleConfiguration subtitle = findSelectedExternalSubtitle(tracks);
+        String subtitleId = subtitle != null ? subtitle.id : null;
+        if (subtitleId != null && subtitleId.equals(timelineSubtitleId)) return;
+
+        timelineSubtitleId = subtitleId;
+        scheduler.clearTimeline();
+        if (subtitle == null) return;
+
+        loadExecutor.execute(() -> {
+            List<SubtitleCueScheduler.TimedCues<Cue>> timeline;
+            try {
+                timeline = VideoManagerHelperKt.loadSubtitleTimeline(dataSourceFactory, subtitle);
+            } catch (Exception e) {
+                Timber.w(e, "SubtitleDelayHandler: Failed to load subtitle %s", subtitleId);
+                return;
+            }
+            if (timeline == null) return;
+
+            handler.post(() -> {
+                // The track may have changed while loading
+                if (!subtitleId.equals(timelineSubtitleId)) return;
+                Timber.d("SubtitleDelayHandler: Loaded %d cues of subtitle %s", timeline.size(), subtitleId);
+                scheduler.setTimeline(timeline);
+            });
+        });
+    }
+
+    @Nullable
+    private MediaItem.SubtitleConfiguration findSelectedExternalSubtitle(@NonNull Tracks tracks) {
+        for (Tracks.Group group : tracks.getGroups()) {
+            if (group.getType() != C.TRACK_TYPE_TEXT) continue;
+
+            for (int i = 0; i < group.length; i++) {
+                if (!group.isTrackSelected(i)) continue;
+
+                Format format = group.getTrackFormat(i);
+                if (format.id == null) continue;
+
+                // Sideloaded tracks have the configuration id as suffix of their format id
+                for (MediaItem.SubtitleConfiguration subtitle : externalSubtitles) {
+                    if (subtitle.id != null && (format.id.equals(subtitle.id) || format.id.endsWith(":" + subtitle.id))) {
+                        return subtitle;
                     }
                 }
             }
-        };
-        handler.post(checkRunnable);
+        }
+
+        return null;
     }
 
     /**
      * Clean up resources
      */
     public void release() {
-        if (checkRunnable != null) {
-            handler.removeCallbacks(checkRunnable);
-            checkRunnable = null;
-        }
-        delayedCues.clear();
-        subtitleView.setCues(Collections.emptyList());
+        loadExecutor.shutdownNow();
+        handler.removeCallbacksAndMessages(null);
+        scheduler.release();
     }
 }
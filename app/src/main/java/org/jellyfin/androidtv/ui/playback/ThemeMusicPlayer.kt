@@ -2,7 +2,6 @@ package org.jellyfin.androidtv.ui.playback
 
 import android.content.Context
 import android.media.AudioAttributes
-import android.media.AudioManager
 import android.media.MediaPlayer
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -12,7 +11,7 @@ import kotlinx.coroutines.launch
 import org.jellyfin.androidtv.auth.repository.SessionRepository
 import org.jellyfin.androidtv.preference.UserSettingPreferences
 import org.jellyfin.sdk.api.client.ApiClient
-import org.jellyfin.sdk.api.client.extensions.libraryApi
+import org.jellyfin.sdk.api.client.exception.ApiClientException
 import org.jellyfin.sdk.model.api.BaseItemDto
 import org.jellyfin.sdk.model.api.BaseItemKind
 import org.koin.core.component.KoinComponent
@@ -24,6 +23,9 @@ import java.util.UUID
 /**
  * Manages background theme music playback for media items (shows, movies)
  * Theme music plays when viewing item details and fades out when navigating away
+ *
+ * Theme songs are looked up through a [ThemeMusicResolver] and played with a single MediaPlayer that
+ * switches between sources.
  */
 class ThemeMusicPlayer(
 	private val context: Context
@@ -31,12 +33,23 @@ class ThemeMusicPlayer(
 	private val api by inject<ApiClient>()
 	private val sessionRepository by inject<SessionRepository>()
 	private val userPreferences by inject<UserSettingPreferences>()
+	private val resolver by lazy { ThemeMusicResolver(api) }
 	
 	private var mediaPlayer: MediaPlayer? = null
 	private var currentItemId: UUID? = null
 	private val coroutineScope = CoroutineScope(Dispatchers.Main)
 	private var fadeJob: Job? = null
+	private var isFadingOut = false
+	private var volume = 0f
 	private var delayedPlayJob: Job? = null
+	private var resolveJob: Job? = null
+	private var prebufferJob: Job? = null
+
+	// Source that is set on the media player
+	private var sourceUrl: String? = null
+	private var sourceThemeItemId: UUID? = null
+	private var isPrepared = false
+	private var playWhenPrepared = false
 	
 	companion object {
 		private const val FADE_DURATION_MS = 2000L
@@ -73,92 +86,144 @@ class ThemeMusicPlayer(
 		Timber.d("playThemeMusicForItem called for: ${item.name} (${item.type})")
 		
 		// Don't restart if already playing for this item
-		if (currentItemId == item.id && mediaPlayer?.isPlaying == true) {
+		if (currentItemId == item.id && isPlaying()) {
 			Timber.d("Already playing theme music for this item, skipping")
+			cancelFadeOut()
 			return
 		}
 		
 		// Cancel any delayed play job
 		delayedPlayJob?.cancel()
 		
-		// Stop any currently playing theme music
-		stop()
-		
 		if (!shouldPlayThemeMusic(item)) {
 			Timber.d("shouldPlayThemeMusic returned false for ${item.name}")
+			stop()
 			return
 		}
-		
-		Timber.d("Starting to fetch theme music for ${item.name}")
+
+		val userId = sessionRepository.currentSession.value?.userId ?: run {
+			Timber.w("No active session, cannot load theme music")
+			stop()
+			return
+		}
+
+		// Episodes and seasons use the theme music of their series
+		val themeItemId = resolver.themeItemIdOf(item)
 		currentItemId = item.id
-		
-		// For episodes, use the series ID to get theme music from the parent series
-		val themeItemId = if (item.type == BaseItemKind.EPISODE && item.seriesId != null) {
-			Timber.d("Episode detected, using seriesId ${item.seriesId} for theme music lookup")
-			item.seriesId!!
-		} else {
-			item.id
+
+		// Keep playing when moving between items that share the theme, like episodes of a series
+		if (themeItemId == sourceThemeItemId && (isPlaying() || playWhenPrepared)) {
+			Timber.d("Theme music for ${item.name} is already playing")
+			cancelFadeOut()
+			return
 		}
-		
-		// Fetch theme songs in background
-		coroutineScope.launch(Dispatchers.IO) {
-			try {
-				// Get theme songs for this item using the official API
-				val userId = sessionRepository.currentSession.value?.userId ?: run {
-					Timber.w("No active session, cannot load theme music")
-					return@launch
-				}
-				
-				Timber.d("Fetching theme media for item $themeItemId")
-				val themeMediaResponse = api.libraryApi.getThemeMedia(
-					userId = userId,
-					itemId = themeItemId,
-					inheritFromParent = true
-				)
-				
-				val themeSongsResult = themeMediaResponse.content.themeSongsResult
-				val themeSongs = themeSongsResult?.items
-				Timber.d("Theme songs result: ${themeSongs?.size ?: 0} songs found")
-				
-				if (themeSongs.isNullOrEmpty()) {
-					Timber.d("No theme songs found for item ${item.name}")
-					return@launch
-				}
-				
-				// Pick a random theme song
-				val themeSong = themeSongs.random()
-				val audioUrl = buildThemeSongUrl(themeSong.id)
-				Timber.d("Starting playback of theme song: ${themeSong.name}, URL: $audioUrl")
-				
-				// Initialize and start playback on main thread
-				coroutineScope.launch(Dispatchers.Main) {
-					startPlayback(audioUrl)
-				}
-			} catch (e: Exception) {
+
+		// Stop the theme of the previous item, the source is kept when it was prebuffered for this item
+		resolveJob?.cancel()
+		fadeJob?.cancel()
+		isFadingOut = false
+		if (themeItemId != sourceThemeItemId) resetSource()
+
+		Timber.d("Starting to fetch theme music for ${item.name}")
+		resolveJob = coroutineScope.launch {
+			val themeSongs = try {
+				resolver.getThemeSongs(userId, themeItemId)
+			} catch (e: ApiClientException) {
 				Timber.e(e, "Failed to load theme music for item ${item.name}")
+				return@launch
 			}
+			Timber.d("Theme songs result: ${themeSongs.size} songs found")
+
+			if (themeSongs.isEmpty()) {
+				Timber.d("No theme songs found for item ${item.name}")
+				return@launch
+			}
+
+			// Use the prebuffered song or pick a random theme song
+			val audioUrl = sourceUrl.takeIf { themeItemId == sourceThemeItemId }
+				?: buildThemeSongUrl(themeSongs.random())
+				?: return@launch
+			setSource(themeItemId, audioUrl, play = true)
+		}
+	}
+
+	/**
+	 * Look up the theme music of the item that is likely to be focused next on the home rows. The
+	 * song is buffered when no theme music is playing so it can start right away.
+	 */
+	fun prebufferThemeMusicOnFocus(item: BaseItemDto) {
+		if (!userPreferences[UserSettingPreferences.themeMusicOnHomeRows]) return
+		if (!shouldPlayThemeMusic(item)) return
+		val userId = sessionRepository.currentSession.value?.userId ?: return
+		val themeItemId = resolver.themeItemIdOf(item)
+
+		prebufferJob?.cancel()
+		prebufferJob = coroutineScope.launch {
+			val themeSongs = try {
+				resolver.getThemeSongs(userId, themeItemId)
+			} catch (e: ApiClientException) {
+				Timber.w(e, "Failed to prebuffer theme music for item ${item.name}")
+				return@launch
+			}
+
+			// Never interrupt the theme that is playing or about to play
+			val isBusy = isPlaying() || playWhenPrepared || resolveJob?.isActive == true
+			if (themeSongs.isEmpty() || isBusy || themeItemId == sourceThemeItemId) return@launch
+
+			val audioUrl = buildThemeSongUrl(themeSongs.random()) ?: return@launch
+			Timber.d("Prebuffering theme music for ${item.name}")
+			setSource(themeItemId, audioUrl, play = false)
 		}
 	}
 	
 	/**
 	 * Build the audio URL for a theme song
 	 */
-	private fun buildThemeSongUrl(themeItemId: UUID): String {
+	private fun buildThemeSongUrl(themeItemId: UUID): String? {
 		// Build direct stream URL for the theme song
-		val baseUrl = api.baseUrl ?: throw IllegalStateException("API base URL is null")
-		val token = api.accessToken ?: throw IllegalStateException("API token is null")
+		val baseUrl = api.baseUrl
+		val token = api.accessToken
+		if (baseUrl == null || token == null) {
+			Timber.w("API base URL or token is null, cannot play theme music")
+			return null
+		}
 		
 		// Use static stream with low bitrate for background music
 		return "$baseUrl/Audio/$themeItemId/stream?static=true&audioCodec=mp3&audioBitrate=128000&api_key=$token"
 	}
+
+	/**
+	 * Get the media player, it is created once and reused for all theme songs
+	 */
+	private fun getMediaPlayer(): MediaPlayer = mediaPlayer ?: MediaPlayer().apply {
+		setOnPreparedListener {
+			Timber.d("MediaPlayer prepared")
+			isPrepared = true
+			if (playWhenPrepared) startPlayback()
+		}
+
+		setOnErrorListener { _, what, extra ->
+			Timber.e("MediaPlayer error: what=$what, extra=$extra")
+			resetSource()
+			true
+		}
+	}.also { mediaPlayer = it }
 	
 	/**
-	 * Initialize MediaPlayer and start playback with fade in
+	 * Switch the media player to [audioUrl], starting playback with fade in when [play] is set
 	 */
-	private fun startPlayback(audioUrl: String) {
-		Timber.d("startPlayback called with URL: $audioUrl")
+	private fun setSource(themeItemId: UUID, audioUrl: String, play: Boolean) {
+		if (audioUrl == sourceUrl) {
+			Timber.d("Theme song already buffered")
+			if (play && isPrepared) startPlayback()
+			else if (play) playWhenPrepared = true
+			return
+		}
+
+		Timber.d("setSource called with URL: $audioUrl")
 		try {
-			mediaPlayer = MediaPlayer().apply {
+			getMediaPlayer().apply {
+				reset()
 				setAudioAttributes(
 					AudioAttributes.Builder()
 						.setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
@@ -169,47 +234,85 @@ class ThemeMusicPlayer(
 				setDataSource(audioUrl)
 				isLooping = true
 				setVolume(0f, 0f) // Start silent for fade in
-				
-				setOnPreparedListener {
-					Timber.d("MediaPlayer prepared, starting playback")
-					start()
-					fadeIn()
-				}
-				
-				setOnErrorListener { _, what, extra ->
-					Timber.e("MediaPlayer error: what=$what, extra=$extra")
-					stop()
-					true
-				}
-				
+				volume = 0f
+
+				sourceUrl = audioUrl
+				sourceThemeItemId = themeItemId
+				isPrepared = false
+				playWhenPrepared = play
 				prepareAsync()
 			}
 			
 			Timber.d("MediaPlayer prepareAsync called")
 		} catch (e: IOException) {
 			Timber.e(e, "Failed to start theme music playback")
-			stop()
+			resetSource()
+		} catch (e: IllegalStateException) {
+			Timber.e(e, "Failed to start theme music playback")
+			resetSource()
+		}
+	}
+
+	private fun startPlayback() {
+		val player = mediaPlayer ?: return
+		Timber.d("Starting theme music playback")
+		playWhenPrepared = false
+		setVolume(0f)
+		player.start()
+		fadeIn()
+	}
+
+	/**
+	 * Stop playback and remove the source from the media player, the player itself is kept
+	 */
+	private fun resetSource() {
+		fadeJob?.cancel()
+		isFadingOut = false
+		volume = 0f
+		try {
+			mediaPlayer?.reset()
+		} catch (e: IllegalStateException) {
+			Timber.w("Failed to reset MediaPlayer")
 		}
+		sourceUrl = null
+		sourceThemeItemId = null
+		isPrepared = false
+		playWhenPrepared = false
 	}
 	
+	private fun setVolume(value: Float) {
+		volume = value
+		mediaPlayer?.setVolume(value, value)
+	}
+
 	/**
-	 * Fade in the theme music volume
+	 * Fade in the theme music volume, starting from the current volume
 	 */
 	private fun fadeIn() {
 		fadeJob?.cancel()
+		isFadingOut = false
 		fadeJob = coroutineScope.launch {
 			// Get user's preferred volume (0-100) and convert to 0.0-1.0 range
 			val volumePercent = userPreferences[UserSettingPreferences.themeMusicVolume]
 			val targetVolume = volumePercent / 100f
+			val startVolume = volume.coerceAtMost(targetVolume)
 			
 			val steps = (FADE_DURATION_MS / FADE_STEP_MS).toInt()
 			for (i in 0..steps) {
-				val volume = (i.toFloat() / steps) * targetVolume
-				mediaPlayer?.setVolume(volume, volume)
+				setVolume(startVolume + (i.toFloat() / steps) * (targetVolume - startVolume))
 				delay(FADE_STEP_MS)
 			}
 		}
 	}
+
+	/**
+	 * Keep playing when a fade out is running, like when returning to the item before it finished
+	 */
+	private fun cancelFadeOut() {
+		if (!isFadingOut) return
+		Timber.d("Cancelling theme music fade out")
+		fadeIn()
+	}
 	
 	/**
 	 * Play theme music on home row item focus with a delay
@@ -223,7 +326,7 @@ class ThemeMusicPlayer(
 		delayedPlayJob?.cancel()
 		
 		// Don't schedule if this item is already playing
-		if (currentItemId == item.id && mediaPlayer?.isPlaying == true) {
+		if (currentItemId == item.id && isPlaying()) {
 			return
 		}
 		
@@ -245,20 +348,19 @@ class ThemeMusicPlayer(
 	 * Fade out and stop theme music
 	 */
 	fun fadeOutAndStop() {
-		val player = mediaPlayer ?: return // Nothing to fade out
+		if (mediaPlayer == null) return
+		if (sourceUrl == null) return // Nothing to fade out
+		if (isFadingOut) return // Already fading out
 		
 		fadeJob?.cancel()
+		isFadingOut = true
 		fadeJob = coroutineScope.launch {
-			// Get user's preferred volume (0-100) and convert to 0.0-1.0 range
-			val volumePercent = userPreferences[UserSettingPreferences.themeMusicVolume]
-			val currentVolume = volumePercent / 100f
-			
+			val startVolume = volume
 			val steps = (FADE_DURATION_MS / FADE_STEP_MS).toInt()
 			
 			for (i in steps downTo 0) {
-				if (mediaPlayer == null) break // Player was stopped elsewhere
-				val volume = (i.toFloat() / steps) * currentVolume
-				player.setVolume(volume, volume)
+				if (sourceUrl == null) break // Player was stopped elsewhere
+				setVolume((i.toFloat() / steps) * startVolume)
 				delay(FADE_STEP_MS)
 			}
 			
@@ -271,23 +373,14 @@ class ThemeMusicPlayer(
 	 */
 	fun stop() {
 		delayedPlayJob?.cancel()
-		fadeJob?.cancel()
-		mediaPlayer?.apply {
-			try {
-				if (isPlaying) stop()
-				reset()
-			} catch (e: IllegalStateException) {
-				Timber.w("MediaPlayer already released")
-			} finally {
-				release()
-			}
-		}
-		mediaPlayer = null
+		resolveJob?.cancel()
+		prebufferJob?.cancel()
+		resetSource()
 		currentItemId = null
 	}
 	
 	/**
 	 * Check if theme music is currently playing
 	 */
-	fun isPlaying(): Boolean = mediaPlayer?.isPlaying == true
+	fun isPlaying(): Boolean = isPrepared && mediaPlayer?.isPlaying == true
 }
@@ -0,0 +1,120 @@
+package org.jellyfin.androidtv.ui.playback
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import org.jellyfin.androidtv.util.apiclient.ioCallContent
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.extensions.libraryApi
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import java.util.UUID
+
+/**
+ * Looks up the theme songs of items. Episodes and seasons share the theme of their series, so results
+ * are cached per series. Items without theme songs are cached as well so browsing a grid only asks the
+ * server once per series.
+ *
+ * Requests run in a scope owned by the resolver, so a caller that is cancelled, like the focus moving
+ * on, doesn't fail the other callers waiting for the same theme.
+ */
+class ThemeMusicResolver(
+	private val api: ApiClient,
+	private val maxEntries: Int = 256,
+	private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+) {
+	private val lock = Any()
+	private val cache = object : LinkedHashMap<UUID, List<UUID>>(maxEntries + 1, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<UUID, List<UUID>>) = size > maxEntries
+	}
+	private val loading = mutableMapOf<UUID, Deferred<List<UUID>>>()
+	private var cacheUserId: UUID? = null
+
+	/**
+	 * Amount of theme media requests sent to the server.
+	 */
+	@Volatile
+	var requestCount = 0
+		private set
+
+	/**
+	 * Get the id of the item that holds the theme music for [item].
+	 */
+	fun themeItemIdOf(item: BaseItemDto): UUID = when (item.type) {
+		BaseItemKind.EPISODE, BaseItemKind.SEASON -> item.seriesId ?: item.id
+		else -> item.id
+	}
+
+	/**
+	 * Get the ids of the theme songs of [themeItemId] when they are already known, without waiting.
+	 */
+	fun peekThemeSongs(userId: UUID, themeItemId: UUID): List<UUID>? = synchronized(lock) {
+		if (userId != cacheUserId) null else cache[themeItemId]
+	}
+
+	/**
+	 * Get the ids of the theme songs of [themeItemId], an empty list when it has none.
+	 */
+	suspend fun getThemeSongs(userId: UUID, themeItemId: UUID): List<UUID> {
+		val deferred = synchronized(lock) {
+			if (userId != cacheUserId) {
+				// Theme songs depend on the libraries of the user
+				cache.clear()
+				loading.clear()
+				cacheUserId = userId
+			}
+
+			cache[themeItemId]?.let { return it }
+			loading[themeItemId] ?: startFetch(userId, themeItemId)
+		}
+
+		return deferred.await()
+	}
+
+	/**
+	 * Must be called while holding the lock.
+	 */
+	private fun startFetch(userId: UUID, themeItemId: UUID): Deferred<List<UUID>> {
+		lateinit var deferred: Deferred<List<UUID>>
+		// Started after it is registered so it can compare itself with the loading entry
+		deferred = scope.async(start = CoroutineStart.LAZY) {
+			try {
+				fetchThemeSongs(userId, themeItemId).also { songs ->
+					synchronized(lock) {
+						if (loading[themeItemId] === deferred) cache[themeItemId] = songs
+					}
+				}
+			} finally {
+				// Failures are not cached, the next focus tries again
+				synchronized(lock) {
+					if (loading[themeItemId] === deferred) loading.remove(themeItemId)
+				}
+			}
+		}
+		loading[themeItemId] = deferred
+		deferred.start()
+		return deferred
+	}
+
+	fun clear() = synchronized(lock) {
+		cache.clear()
+		loading.clear()
+	}
+
+	private suspend fun fetchThemeSongs(userId: UUID, themeItemId: UUID): List<UUID> {
+		synchronized(lock) { requestCount++ }
+
+		val themeMedia = api.ioCallContent {
+			libraryApi.getThemeMedia(
+				userId = userId,
+				itemId = themeItemId,
+				inheritFromParent = true,
+			)
+		}
+
+		return themeMedia.themeSongsResult?.items.orEmpty().map { it.id }
+	}
+}
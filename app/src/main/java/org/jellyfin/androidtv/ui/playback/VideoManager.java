@@ -90,12 +90,15 @@ public class VideoManager {
     private final UserPreferences userPreferences = KoinJavaComponent.get(UserPreferences.class);
     private final SyncPlayManager syncPlayManager = KoinJavaComponent.get(SyncPlayManager.class);
     private final HttpDataSource.Factory exoPlayerHttpDataSourceFactory = KoinJavaComponent.get(HttpDataSource.Factory.class);
+    private final PlayerPool playerPool = KoinJavaComponent.get(PlayerPool.class);
 
     public VideoManager(@NonNull Activity activity, @NonNull View view, @NonNull PlaybackOverlayFragmentHelper helper) {
         mActivity = activity;
         _helper = helper;
         nightModeEnabled = userPreferences.get(UserPreferences.Companion.getAudioNightMode());
 
+        // Stop previews so they don't hold on to decoders during playback
+        playerPool.beginMainPlayback();
         mExoPlayer = configureExoplayerBuilder(activity).build();
 
         if (userPreferences.get(UserPreferences.Companion.getDebuggingEnabled())) {
@@ -147,7 +150,7 @@ public class VideoManager {
 
         // Initialize subtitle delay handler with our custom subtitle view
         // The handler will intercept cues and manually control when they appear
-        mSubtitleDelayHandler = new SubtitleDelayHandler(mCustomSubtitleView);
+        mSubtitleDelayHandler = new SubtitleDelayHandler(mCustomSubtitleView, mExoPlayer, exoPlayerHttpDataSourceFactory);
         mExoPlayer.addListener(mSubtitleDelayHandler);
 
         // Expand subtitle view to fill screen for wide aspect ratio videos
@@ -476,6 +479,8 @@ public class VideoManager {
                 }
             }
 
+            if (mSubtitleDelayHandler != null) mSubtitleDelayHandler.setExternalSubtitles(subtitleConfigurations);
+
             MediaItem mediaItem = new MediaItem.Builder()
                     .setUri(Uri.parse(path))
                     .setSubtitleConfigurations(subtitleConfigurations)
@@ -682,21 +687,8 @@ public class VideoManager {
         mAudioDelayMs = delayMs;
         
         if (mAudioDelayProcessor != null) {
+            // Applied to the audio that is processed next, no seek needed
             mAudioDelayProcessor.setDelayMs(delayMs);
-            
-            if (isInitialized()) {
-                long currentPosition = mExoPlayer.getCurrentPosition();
-                if (mExoPlayer.isPlaying()) {
-                    mExoPlayer.seekTo(currentPosition);
-                    Timber.d("Seeked to %d ms to apply audio delay change", currentPosition);
-                } else if (mExoPlayer.getPlaybackState() == Player.STATE_BUFFERING) {
-                    Timber.d("Player is buffering");
-                    mExoPlayer.seekTo(currentPosition);
-                    Timber.d("Seeked to %d ms to apply audio delay change", currentPosition);
-                } else {
-                    Timber.d("Player not playing, delay will apply on next playback");
-                }
-            }
         } else {
             Timber.w("AudioDelayProcessor not initialized");
         }
@@ -725,6 +717,7 @@ public class VideoManager {
             mExoPlayerView.setPlayer(null);
             mExoPlayer.release();
             mExoPlayer = null;
+            playerPool.endMainPlayback();
         }
     }
 
@@ -4,7 +4,20 @@ import android.media.audiofx.AudioEffect
 import android.media.audiofx.DynamicsProcessing
 import android.media.audiofx.Equalizer
 import android.os.Build
+import androidx.annotation.OptIn
 import androidx.core.net.toUri
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.common.MediaItem
+import androidx.media3.common.Player
+import androidx.media3.common.Timeline
+import androidx.media3.common.text.Cue
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSourceUtil
+import androidx.media3.datasource.DataSpec
+import androidx.media3.extractor.text.DefaultSubtitleParserFactory
+import androidx.media3.extractor.text.SubtitleParser
 import org.jellyfin.playback.media3.exoplayer.mapping.getFfmpegSubtitleMimeType
 import org.jellyfin.sdk.model.api.MediaStream
 import timber.log.Timber
@@ -68,3 +81,54 @@ fun applyAudioNightmode(audioSessionId: Int) {
 		}
 	}
 }
+
+/**
+ * Get the media position of cues rendered at [presentationTimeUs]. Cue times are relative to the start
+ * of the current period while [Player.getCurrentPosition] is relative to the window, which differs for
+ * live streams and multi-period media.
+ */
+@OptIn(UnstableApi::class)
+fun getCuePositionMs(player: Player, presentationTimeUs: Long): Long {
+	if (presentationTimeUs == C.TIME_UNSET) return player.currentPosition
+
+	val timeline = player.currentTimeline
+	if (timeline.isEmpty) return presentationTimeUs / 1000
+	val period = timeline.getPeriod(player.currentPeriodIndex, Timeline.Period())
+	return (presentationTimeUs + period.positionInWindowUs) / 1000
+}
+
+/**
+ * Download and parse all cues of a sideloaded subtitle file. Returns `null` when the subtitle format
+ * can't be parsed up front.
+ */
+@OptIn(UnstableApi::class)
+fun loadSubtitleTimeline(
+	dataSourceFactory: DataSource.Factory,
+	configuration: MediaItem.SubtitleConfiguration,
+): List<SubtitleCueScheduler.TimedCues<Cue>>? {
+	val format = Format.Builder()
+		.setSampleMimeType(configuration.mimeType)
+		.setLanguage(configuration.language)
+		.build()
+	val parserFactory = DefaultSubtitleParserFactory()
+	if (!parserFactory.supportsFormat(format)) return null
+
+	val dataSource = dataSourceFactory.createDataSource()
+	val data = try {
+		dataSource.open(DataSpec(configuration.uri))
+		DataSourceUtil.readToEnd(dataSource)
+	} finally {
+		DataSourceUtil.closeQuietly(dataSource)
+	}
+
+	val cues = mutableListOf<SubtitleCueScheduler.TimedCues<Cue>>()
+	parserFactory.create(format).parse(data, SubtitleParser.OutputOptions.allCues()) { cuesWithTiming ->
+		if (cuesWithTiming.startTimeUs == C.TIME_UNSET || cuesWithTiming.endTimeUs == C.TIME_UNSET) return@parse
+		cues += SubtitleCueScheduler.TimedCues(
+			startMs = cuesWithTiming.startTimeUs / 1000,
+			endMs = cuesWithTiming.endTimeUs / 1000,
+			cues = cuesWithTiming.cues,
+		)
+	}
+	return cues
+}
@@ -0,0 +1,26 @@
+package org.jellyfin.androidtv.ui.playback.overlay
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+
+/**
+ * [TrickplaySheetDecoder] for Android bitmaps. Sheets have no transparency so they are decoded
+ * without alpha channel, halving their memory use.
+ */
+object BitmapTrickplaySheetDecoder : TrickplaySheetDecoder<Bitmap, Bitmap> {
+	override fun decode(bytes: ByteArray): Bitmap? = BitmapFactory.decodeByteArray(
+		bytes,
+		0,
+		bytes.size,
+		BitmapFactory.Options().apply { inPreferredConfig = Bitmap.Config.RGB_565 },
+	)
+
+	override fun slice(sheet: Bitmap, x: Int, y: Int, width: Int, height: Int): Bitmap {
+		val clampedX = x.coerceIn(0, sheet.width - 1)
+		val clampedY = y.coerceIn(0, sheet.height - 1)
+		val clampedWidth = width.coerceAtMost(sheet.width - clampedX)
+		val clampedHeight = height.coerceAtMost(sheet.height - clampedY)
+
+		return Bitmap.createBitmap(sheet, clampedX, clampedY, clampedWidth, clampedHeight)
+	}
+}
@@ -18,8 +18,9 @@ import org.jellyfin.androidtv.auth.repository.ServerRepository;
 import org.jellyfin.androidtv.util.FeatureSupportKt;
 import org.moonfin.server.core.feature.ServerFeature;
 import org.jellyfin.sdk.api.client.ApiClient;
+import org.jellyfin.sdk.api.client.HttpClientOptions;
+import org.jellyfin.sdk.api.okhttp.OkHttpFactory;
 
-import coil3.ImageLoader;
 import kotlin.Lazy;
 import timber.log.Timber;
 
@@ -29,7 +30,8 @@ public class LeanbackOverlayFragment extends PlaybackSupportFragment {
     private boolean shouldShowOverlay = true;
     private Lazy<PlaybackControllerContainer> playbackControllerContainer = inject(PlaybackControllerContainer.class);
     private final Lazy<UserSettingPreferences> userSettingPreferences = inject(UserSettingPreferences.class);
-    private Lazy<ImageLoader> imageLoader = inject(ImageLoader.class);
+    private Lazy<OkHttpFactory> okHttpFactory = inject(OkHttpFactory.class);
+    private Lazy<HttpClientOptions> httpClientOptions = inject(HttpClientOptions.class);
     private Lazy<ApiClient> api = inject(ApiClient.class);
     private Lazy<UserPreferences> userPreferences = inject(UserPreferences.class);
     private Lazy<ServerRepository> serverRepository = inject(ServerRepository.class);
@@ -109,7 +111,7 @@ public class LeanbackOverlayFragment extends PlaybackSupportFragment {
         long skipForwardLength = userSettingPreferences.getValue().get(UserSettingPreferences.Companion.getSkipForwardLength()).longValue();
         boolean enableTrickPlay = userPreferences.getValue().get(UserPreferences.Companion.getTrickPlayEnabled())
                 && FeatureSupportKt.supportsFeature(serverRepository.getValue().getCurrentServer().getValue(), ServerFeature.TRICKPLAY);
-        playerGlue.setSeekProvider(playerAdapter.canSeek() ? new CustomSeekProvider(playerAdapter, imageLoader.getValue(), api.getValue(), requireContext(), enableTrickPlay, skipForwardLength) : null);
+        playerGlue.setSeekProvider(playerAdapter.canSeek() ? new CustomSeekProvider(playerAdapter, okHttpFactory.getValue().createClient(httpClientOptions.getValue()), api.getValue(), requireContext(), enableTrickPlay, skipForwardLength) : null);
         recordingStateChanged();
         playerAdapter.updateDuration();
     }
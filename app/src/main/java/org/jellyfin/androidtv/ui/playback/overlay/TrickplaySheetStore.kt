@@ -0,0 +1,283 @@
+package org.jellyfin.androidtv.ui.playback.overlay
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import okhttp3.Call
+import okhttp3.Request
+import timber.log.Timber
+import java.io.IOException
+import kotlin.coroutines.cancellation.CancellationException
+
+/**
+ * Layout of the trickplay thumbnails of a video. Thumbnails are taken every [interval] ms and
+ * stored in sheets of [tileWidth] by [tileHeight] thumbnails of [width] by [height] pixels.
+ */
+data class TrickplayLayout(
+	val interval: Int,
+	val tileWidth: Int,
+	val tileHeight: Int,
+	val width: Int,
+	val height: Int,
+	val thumbnailCount: Int,
+) {
+	val thumbnailsPerSheet get() = tileWidth * tileHeight
+	val sheetCount get() = (thumbnailCount + thumbnailsPerSheet - 1) / thumbnailsPerSheet
+
+	fun thumbnailAt(positionMs: Long): Int = (positionMs / interval).toInt().coerceIn(0, thumbnailCount - 1)
+	fun sheetOf(thumbnail: Int): Int = thumbnail / thumbnailsPerSheet
+}
+
+/**
+ * Decodes downloaded trickplay sheets and cuts thumbnails from decoded sheets.
+ */
+interface TrickplaySheetDecoder<Sheet : Any, Thumbnail : Any> {
+	/**
+	 * @return the decoded sheet or null when the data is not a valid image
+	 */
+	fun decode(bytes: ByteArray): Sheet?
+
+	fun slice(sheet: Sheet, x: Int, y: Int, width: Int, height: Int): Thumbnail
+}
+
+/**
+ * Trickplay sheets of a single video. Sheets are only downloaded once the scrub position gets
+ * near them, with the sheets in the seek direction first. Each sheet is decoded once into a
+ * small LRU of [maxSheets] sheets and thumbnails are cut from the decoded sheets.
+ */
+class TrickplaySheetStore<Sheet : Any, Thumbnail : Any>(
+	private val callFactory: Call.Factory,
+	private val layout: TrickplayLayout,
+	private val decoder: TrickplaySheetDecoder<Sheet, Thumbnail>,
+	private val scope: CoroutineScope,
+	private val sheetUrl: (index: Int) -> String,
+	private val authorization: String? = null,
+	private val maxSheets: Int = 3,
+	private val maxThumbnails: Int = 16,
+	private val prefetchDistance: Int = layout.thumbnailsPerSheet / 4,
+) {
+	private val lock = Any()
+	private val sheets = object : LinkedHashMap<Int, Sheet>(maxSheets + 1, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, Sheet>) = size > maxSheets
+	}
+	private val thumbnails = object : LinkedHashMap<Int, Thumbnail>(maxThumbnails + 1, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, Thumbnail>) = size > maxThumbnails
+	}
+	private val loadingSheets = mutableMapOf<Int, CompletableDeferred<Sheet?>>()
+
+	// Sheets waiting to be downloaded, most important first. Sheets are downloaded one at a time
+	private val queue = ArrayDeque<Int>()
+	private var worker: Job? = null
+	private var downloadingSheet = -1
+
+	private var lastThumbnail = -1
+	private var seekDirection = 1
+
+	/**
+	 * Amount of sheets downloaded.
+	 */
+	@Volatile
+	var downloadCount = 0
+		private set
+
+	/**
+	 * Amount of sheets decoded.
+	 */
+	@Volatile
+	var decodeCount = 0
+		private set
+
+	val cachedSheetCount get() = synchronized(lock) { sheets.size }
+
+	/**
+	 * Move the scrub position to [positionMs]. Queues the sheet of the position, followed by the next
+	 * sheet in the seek direction and the previous sheet when the position is close to it. Queued
+	 * sheets that are no longer near the position are dropped.
+	 */
+	fun scrubTo(positionMs: Long) {
+		if (layout.thumbnailCount <= 0) return
+
+		val thumbnail = layout.thumbnailAt(positionMs)
+		val wanted = synchronized(lock) {
+			if (lastThumbnail != -1 && thumbnail != lastThumbnail) seekDirection = if (thumbnail > lastThumbnail) 1 else -1
+			lastThumbnail = thumbnail
+
+			val sheet = layout.sheetOf(thumbnail)
+			val offset = thumbnail % layout.thumbnailsPerSheet
+			val ahead = sheet + seekDirection
+			val behind = sheet - seekDirection
+			val behindOffset = if (seekDirection > 0) offset else layout.thumbnailsPerSheet - 1 - offset
+
+			buildList {
+				add(sheet)
+				if (ahead in 0 until layout.sheetCount) add(ahead)
+				if (behind in 0 until layout.sheetCount && behindOffset <= prefetchDistance) add(behind)
+			}
+		}
+
+		synchronized(lock) {
+			val iterator = queue.iterator()
+			while (iterator.hasNext()) {
+				val sheet = iterator.next()
+				if (sheet !in wanted) {
+					iterator.remove()
+					loadingSheets.remove(sheet)?.cancel()
+				}
+			}
+		}
+
+		// Move the wanted sheets to the front of the queue in order of priority
+		for (sheet in wanted.asReversed()) sheetAsync(sheet)
+	}
+
+	/**
+	 * Get the thumbnail at [positionMs] when its sheet is already decoded, without waiting.
+	 */
+	fun peekThumbnail(positionMs: Long): Thumbnail? {
+		if (layout.thumbnailCount <= 0) return null
+
+		val thumbnail = layout.thumbnailAt(positionMs)
+		val sheet = synchronized(lock) {
+			thumbnails[thumbnail]?.let { return it }
+			sheets[layout.sheetOf(thumbnail)]
+		} ?: return null
+
+		return slice(sheet, thumbnail)
+	}
+
+	/**
+	 * Get the thumbnail at [positionMs], loading its sheet when needed.
+	 */
+	suspend fun getThumbnail(positionMs: Long): Thumbnail? {
+		if (layout.thumbnailCount <= 0) return null
+
+		peekThumbnail(positionMs)?.let { return it }
+
+		val thumbnail = layout.thumbnailAt(positionMs)
+		val deferred = sheetAsync(layout.sheetOf(thumbnail))
+		val sheet = try {
+			deferred.await()
+		} catch (err: CancellationException) {
+			// Scrubbed away from the sheet while waiting
+			if (deferred.isCancelled) null else throw err
+		} ?: return null
+
+		return slice(sheet, thumbnail)
+	}
+
+	/**
+	 * Release everything except the sheet of the last scrub position, where the next scrub is
+	 * likely to start.
+	 */
+	fun trim() = synchronized(lock) {
+		cancelLoading()
+		thumbnails.clear()
+
+		val keep = if (lastThumbnail == -1) -1 else layout.sheetOf(lastThumbnail)
+		sheets.keys.retainAll { it == keep }
+	}
+
+	fun clear() = synchronized(lock) {
+		cancelLoading()
+		sheets.clear()
+		thumbnails.clear()
+		lastThumbnail = -1
+		seekDirection = 1
+	}
+
+	private fun slice(sheet: Sheet, thumbnail: Int): Thumbnail {
+		val offset = thumbnail % layout.thumbnailsPerSheet
+		val x = (offset % layout.tileWidth) * layout.width
+		val y = (offset / layout.tileWidth) * layout.height
+		val result = decoder.slice(sheet, x, y, layout.width, layout.height)
+		synchronized(lock) { thumbnails[thumbnail] = result }
+		return result
+	}
+
+	private fun cancelLoading() {
+		loadingSheets.values.forEach { it.cancel() }
+		loadingSheets.clear()
+		queue.clear()
+	}
+
+	/**
+	 * Get the sheet at [index], putting it at the front of the download queue when it is not
+	 * loaded yet.
+	 */
+	private fun sheetAsync(index: Int): Deferred<Sheet?> = synchronized(lock) {
+		sheets[index]?.let { sheet -> return CompletableDeferred(sheet) }
+
+		val deferred = loadingSheets.getOrPut(index) { CompletableDeferred() }
+		if (index == downloadingSheet) return deferred
+		queue.remove(index)
+		queue.addFirst(index)
+
+		if (worker == null) {
+			// Started lazily so the worker is registered before it can finish
+			worker = scope.launch(start = CoroutineStart.LAZY) { processQueue() }.also { it.start() }
+		}
+
+		deferred
+	}
+
+	private suspend fun processQueue() {
+		try {
+			while (true) {
+				val index = synchronized(lock) {
+					val index = queue.removeFirstOrNull()
+					if (index == null) {
+						worker = null
+						return
+					}
+					downloadingSheet = index
+					index
+				}
+
+				val sheet = loadSheet(index)
+				val deferred = synchronized(lock) {
+					downloadingSheet = -1
+					// Only keep the sheet when it was not released while loading
+					loadingSheets.remove(index)?.also { if (sheet != null) sheets[index] = sheet }
+				}
+				deferred?.complete(sheet)
+			}
+		} catch (err: CancellationException) {
+			synchronized(lock) {
+				worker = null
+				downloadingSheet = -1
+			}
+			throw err
+		}
+	}
+
+	private suspend fun loadSheet(index: Int): Sheet? = withContext(Dispatchers.IO) {
+		val request = Request.Builder().apply {
+			url(sheetUrl(index))
+			if (authorization != null) header("Authorization", authorization)
+		}.build()
+
+		val bytes = try {
+			callFactory.newCall(request).execute().use { response ->
+				if (!response.isSuccessful) {
+					Timber.w("Failed to download trickplay sheet $index: HTTP ${response.code}")
+					return@withContext null
+				}
+				response.body.bytes()
+			}
+		} catch (err: IOException) {
+			Timber.w(err, "Failed to download trickplay sheet $index")
+			null
+		} ?: return@withContext null
+		synchronized(lock) { downloadCount++ }
+
+		val sheet = decoder.decode(bytes)
+		synchronized(lock) { decodeCount++ }
+		if (sheet == null) Timber.w("Failed to decode trickplay sheet $index")
+		sheet
+	}
+}
@@ -0,0 +1,97 @@
+package org.jellyfin.androidtv.ui.playback.segment
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.MediaSegmentDto
+import java.util.UUID
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * Cache of media segments by item id. Entries expire after [ttl] so edited segments are picked up
+ * eventually. Fetches run in [scope] so a prefetch started on focus is shared with the request made
+ * when playback starts, and failed fetches are not cached.
+ */
+class MediaSegmentCache(
+	private val scope: CoroutineScope,
+	private val ttl: Duration = 10.minutes,
+	private val maxEntries: Int = 64,
+	private val clock: () -> Long = { System.nanoTime() / 1_000_000 },
+	private val fetch: suspend (item: BaseItemDto) -> List<MediaSegmentDto>,
+) {
+	private class Entry(
+		val timeline: MediaSegmentTimeline,
+		val expiresAt: Long,
+	)
+
+	private val lock = Any()
+	private val entries = object : LinkedHashMap<UUID, Entry>(maxEntries + 1, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<UUID, Entry>) = size > maxEntries
+	}
+	private val loading = mutableMapOf<UUID, Deferred<MediaSegmentTimeline>>()
+
+	/**
+	 * Amount of fetches started.
+	 */
+	@Volatile
+	var fetchCount = 0
+		private set
+
+	/**
+	 * Get the cached segments of [itemId] without fetching.
+	 */
+	fun peek(itemId: UUID): MediaSegmentTimeline? = synchronized(lock) {
+		val entry = entries[itemId] ?: return null
+		if (clock() >= entry.expiresAt) {
+			entries.remove(itemId)
+			return null
+		}
+		entry.timeline
+	}
+
+	/**
+	 * Get the segments of [item], fetching them when they are not cached.
+	 */
+	suspend fun get(item: BaseItemDto): MediaSegmentTimeline {
+		peek(item.id)?.let { return it }
+		return load(item).await()
+	}
+
+	/**
+	 * Start fetching the segments of [item] when they are not cached.
+	 */
+	fun prefetch(item: BaseItemDto) {
+		if (peek(item.id) != null) return
+		load(item)
+	}
+
+	fun invalidate(itemId: UUID) = synchronized(lock) {
+		entries.remove(itemId)
+	}
+
+	fun clear() = synchronized(lock) {
+		entries.clear()
+	}
+
+	private fun load(item: BaseItemDto): Deferred<MediaSegmentTimeline> = synchronized(lock) {
+		loading[item.id]?.let { return it }
+
+		fetchCount++
+		// Started lazily so the load is registered before it can finish
+		val deferred = scope.async(start = CoroutineStart.LAZY) {
+			try {
+				val timeline = MediaSegmentTimeline(fetch(item))
+				synchronized(lock) { entries[item.id] = Entry(timeline, clock() + ttl.inWholeMilliseconds) }
+				timeline
+			} finally {
+				synchronized(lock) { loading.remove(item.id) }
+			}
+		}
+		loading[item.id] = deferred
+		deferred.start()
+		deferred
+	}
+}
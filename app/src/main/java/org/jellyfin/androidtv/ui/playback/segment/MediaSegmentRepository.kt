@@ -1,6 +1,8 @@
 package org.jellyfin.androidtv.ui.playback.segment
 
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.auth.repository.ServerRepository
 import org.jellyfin.androidtv.preference.UserPreferences
@@ -49,6 +51,17 @@ interface MediaSegmentRepository {
 	fun setDefaultSegmentTypeAction(type: MediaSegmentType, action: MediaSegmentAction)
 
 	suspend fun getSegmentsForItem(item: BaseItemDto): List<MediaSegmentDto>
+
+	/**
+	 * Get the segments of [item] with lookups by position, empty when they could not be fetched.
+	 */
+	suspend fun getSegmentTimelineForItem(item: BaseItemDto): MediaSegmentTimeline
+
+	/**
+	 * Start fetching the segments of [item] in the background so they are cached when playback starts.
+	 */
+	fun prefetchSegmentsForItem(item: BaseItemDto)
+
 	fun getMediaSegmentAction(segment: MediaSegmentDto): MediaSegmentAction
 }
 
@@ -63,6 +76,10 @@ class MediaSegmentRepositoryImpl(
 	private val serverRepository: ServerRepository,
 ) : MediaSegmentRepository {
 	private val mediaTypeActions = mutableMapOf<MediaSegmentType, MediaSegmentAction>()
+	private val segmentCache = MediaSegmentCache(
+		scope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+		fetch = ::fetchSegmentsForItem,
+	)
 
 	init {
 		restoreMediaTypeActions()
@@ -104,17 +121,30 @@ class MediaSegmentRepositoryImpl(
 		return action
 	}
 
-	override suspend fun getSegmentsForItem(item: BaseItemDto): List<MediaSegmentDto> {
-		if (!serverRepository.currentServer.value.supportsFeature(ServerFeature.MEDIA_SEGMENTS)) return emptyList()
-		return runCatching {
-			val serverId = UUIDUtils.parseUUID(item.serverId)
-			val effectiveApi = if (serverId != null) apiClientFactory.getApiClientForServer(serverId) ?: api else api
-			withContext(Dispatchers.IO) {
-				effectiveApi.mediaSegmentsApi.getItemSegments(
-					itemId = item.id,
-					includeSegmentTypes = MediaSegmentRepository.SupportedTypes,
-				).content.items
-			}
-		}.getOrDefault(emptyList())
+	private val supportsMediaSegments
+		get() = serverRepository.currentServer.value.supportsFeature(ServerFeature.MEDIA_SEGMENTS)
+
+	override suspend fun getSegmentsForItem(item: BaseItemDto): List<MediaSegmentDto> =
+		getSegmentTimelineForItem(item).segments
+
+	override suspend fun getSegmentTimelineForItem(item: BaseItemDto): MediaSegmentTimeline {
+		if (!supportsMediaSegments) return MediaSegmentTimeline(emptyList())
+		return runCatching { segmentCache.get(item) }.getOrDefault(MediaSegmentTimeline(emptyList()))
+	}
+
+	override fun prefetchSegmentsForItem(item: BaseItemDto) {
+		if (!supportsMediaSegments) return
+		segmentCache.prefetch(item)
+	}
+
+	private suspend fun fetchSegmentsForItem(item: BaseItemDto): List<MediaSegmentDto> {
+		val serverId = UUIDUtils.parseUUID(item.serverId)
+		val effectiveApi = if (serverId != null) apiClientFactory.getApiClientForServer(serverId) ?: api else api
+		return withContext(Dispatchers.IO) {
+			effectiveApi.mediaSegmentsApi.getItemSegments(
+				itemId = item.id,
+				includeSegmentTypes = MediaSegmentRepository.SupportedTypes,
+			).content.items
+		}
 	}
 }
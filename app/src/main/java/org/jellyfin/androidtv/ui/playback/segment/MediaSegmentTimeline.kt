@@ -0,0 +1,55 @@
+package org.jellyfin.androidtv.ui.playback.segment
+
+import org.jellyfin.sdk.model.api.MediaSegmentDto
+import kotlin.time.Duration
+
+/**
+ * The media segments of an item ordered by start position, with a lookup of the segments at a
+ * position used when playback starts inside a segment. Segments may overlap, for example a recap
+ * inside an intro.
+ */
+class MediaSegmentTimeline(segments: List<MediaSegmentDto>) {
+	val segments = segments.sortedBy { it.startTicks }
+
+	private val startTicks = LongArray(this.segments.size) { this.segments[it].startTicks }
+
+	// Largest end of all segments up to and including the index, used to stop searching early
+	private val maxEndTicks = LongArray(this.segments.size).also { maxEnds ->
+		var maxEnd = Long.MIN_VALUE
+		for (i in this.segments.indices) {
+			maxEnd = maxOf(maxEnd, this.segments[i].endTicks)
+			maxEnds[i] = maxEnd
+		}
+	}
+
+	val isEmpty get() = segments.isEmpty()
+
+	/**
+	 * Get all segments that contain [position], ordered by start position.
+	 */
+	fun segmentsAt(position: Duration): List<MediaSegmentDto> {
+		val ticks = position.toTicks()
+		val result = mutableListOf<MediaSegmentDto>()
+		var i = lastStartingAtOrBefore(ticks)
+		while (i >= 0 && maxEndTicks[i] > ticks) {
+			if (segments[i].endTicks > ticks) result.add(segments[i])
+			i--
+		}
+		result.reverse()
+		return result
+	}
+
+	private fun lastStartingAtOrBefore(ticks: Long): Int {
+		var low = 0
+		var high = startTicks.size - 1
+		while (low <= high) {
+			val mid = (low + high) ushr 1
+			if (startTicks[mid] <= ticks) low = mid + 1
+			else high = mid - 1
+		}
+		return high
+	}
+
+	// One tick is 100 nanoseconds
+	private fun Duration.toTicks() = inWholeNanoseconds / 100
+}
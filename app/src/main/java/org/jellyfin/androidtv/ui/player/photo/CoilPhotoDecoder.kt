@@ -0,0 +1,40 @@
+package org.jellyfin.androidtv.ui.player.photo
+
+import android.content.Context
+import coil3.ImageLoader
+import coil3.request.ImageRequest
+import coil3.request.SuccessResult
+import org.jellyfin.androidtv.util.apiclient.getUrl
+import org.jellyfin.androidtv.util.apiclient.itemImages
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.ImageType
+import org.jellyfin.sdk.model.api.MediaType
+
+/**
+ * [PhotoDecoder] that decodes into the Coil memory cache. Uses the same url and size as
+ * [PhotoPlayerContent] so showing the photo afterwards is a cache hit.
+ */
+class CoilPhotoDecoder(
+	private val context: Context,
+	private val imageLoader: ImageLoader,
+	private val api: ApiClient,
+) : PhotoDecoder {
+	override suspend fun decode(item: BaseItemDto): DecodedPhoto? {
+		if (item.mediaType == MediaType.VIDEO) return null
+
+		val image = item.itemImages[ImageType.PRIMARY] ?: return null
+		val displayMetrics = context.resources.displayMetrics
+		val request = ImageRequest.Builder(context)
+			.data(image.getUrl(
+				api = api,
+				maxWidth = displayMetrics.widthPixels,
+				maxHeight = displayMetrics.heightPixels,
+			))
+			.size(displayMetrics.widthPixels, displayMetrics.heightPixels)
+			.build()
+
+		val result = imageLoader.execute(request) as? SuccessResult ?: return null
+		return DecodedPhoto(result.image, result.image.size)
+	}
+}
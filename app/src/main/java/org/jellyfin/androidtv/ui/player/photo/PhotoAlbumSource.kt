@@ -0,0 +1,176 @@
+package org.jellyfin.androidtv.ui.player.photo
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import org.jellyfin.androidtv.data.repository.ItemRepository
+import org.jellyfin.androidtv.util.apiclient.ioCallContent
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.exception.ApiClientException
+import org.jellyfin.sdk.api.client.extensions.itemsApi
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import org.jellyfin.sdk.model.api.ItemSortBy
+import org.jellyfin.sdk.model.api.SortOrder
+import timber.log.Timber
+import java.util.UUID
+
+/**
+ * Photos and videos of an album, fetched in pages of [pageSize] around the position that is shown.
+ * At most [maxPages] pages are kept and the neighbouring page is fetched once the position gets
+ * within [prefetchDistance] of a page boundary.
+ */
+class PhotoAlbumSource(
+	private val api: ApiClient,
+	private val parentId: UUID?,
+	private val sortBy: Collection<ItemSortBy>,
+	private val sortOrder: SortOrder,
+	private val scope: CoroutineScope,
+	private val pageSize: Int = 100,
+	private val maxPages: Int = 4,
+	private val prefetchDistance: Int = 10,
+	private val locatePageSize: Int = 1000,
+) {
+	private val lock = Any()
+	private val pages = object : LinkedHashMap<Int, List<BaseItemDto>>(maxPages + 1, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, List<BaseItemDto>>) = size > maxPages
+	}
+	private val loadingPages = mutableMapOf<Int, Deferred<List<BaseItemDto>>>()
+
+	/**
+	 * Amount of items in the album, known after [locate].
+	 */
+	@Volatile
+	var size = 0
+		private set
+
+	/**
+	 * Amount of requests made for pages of the album.
+	 */
+	@Volatile
+	var pageRequestCount = 0
+		private set
+
+	val cachedPageCount get() = synchronized(lock) { pages.size }
+
+	/**
+	 * Find the position of [itemId] in the album. Only item ids are requested to find the position,
+	 * full items are fetched with [get].
+	 *
+	 * @return the position or -1 when the item is not part of the album
+	 */
+	suspend fun locate(itemId: UUID): Int {
+		var startIndex = 0
+		do {
+			val result = try {
+				api.ioCallContent {
+					itemsApi.getItems(
+						parentId = parentId,
+						includeItemTypes = includeItemTypes,
+						sortBy = sortBy,
+						sortOrder = listOf(sortOrder),
+						startIndex = startIndex,
+						limit = locatePageSize,
+						enableImages = false,
+						enableUserData = false,
+						enableTotalRecordCount = true,
+					)
+				}
+			} catch (err: ApiClientException) {
+				Timber.w(err, "Unable to locate item $itemId in album $parentId")
+				return -1
+			}
+
+			size = result.totalRecordCount
+			val index = result.items.indexOfFirst { it.id == itemId }
+			if (index != -1) return startIndex + index
+
+			startIndex += result.items.size
+		} while (result.items.isNotEmpty() && startIndex < size)
+
+		return -1
+	}
+
+	/**
+	 * Get the item at [index] if its page is already fetched.
+	 */
+	fun peek(index: Int): BaseItemDto? = synchronized(lock) {
+		pages[index / pageSize]?.getOrNull(index % pageSize)
+	}
+
+	/**
+	 * Get the item at [index], fetching its page when needed. Also starts fetching the
+	 * neighbouring page when [index] is close to a page boundary.
+	 */
+	suspend fun get(index: Int): BaseItemDto? {
+		if (index !in 0 until size) return null
+
+		prefetchAround(index)
+
+		val page = index / pageSize
+		return try {
+			pageAsync(page).await().getOrNull(index % pageSize)
+		} catch (err: ApiClientException) {
+			Timber.w(err, "Unable to retrieve page $page of album $parentId")
+			null
+		}
+	}
+
+	/**
+	 * Fetch the neighbouring page in the background when [index] is close to a page boundary.
+	 * The album wraps around, so the last page neighbours the first one.
+	 */
+	fun prefetchAround(index: Int) {
+		if (size == 0) return
+
+		val pageCount = (size + pageSize - 1) / pageSize
+		if (pageCount == 1) return
+
+		val page = index / pageSize
+		val offset = index % pageSize
+		val lastOffset = minOf(pageSize, size - page * pageSize) - 1
+		if (offset >= lastOffset - prefetchDistance) pageAsync((page + 1) % pageCount)
+		if (offset <= prefetchDistance) pageAsync((page - 1 + pageCount) % pageCount)
+	}
+
+	private fun pageAsync(page: Int): Deferred<List<BaseItemDto>> = synchronized(lock) {
+		pages[page]?.let { return CompletableDeferred(it) }
+		loadingPages[page]?.let { return it }
+
+		// Started lazily so the request is registered before it can complete
+		val deferred = scope.async(start = CoroutineStart.LAZY) {
+			try {
+				fetchPage(page).also { items ->
+					synchronized(lock) { pages[page] = items }
+				}
+			} finally {
+				synchronized(lock) { loadingPages.remove(page) }
+			}
+		}
+		loadingPages[page] = deferred
+		deferred.start()
+		deferred
+	}
+
+	private suspend fun fetchPage(page: Int): List<BaseItemDto> {
+		synchronized(lock) { pageRequestCount++ }
+		return api.ioCallContent {
+			itemsApi.getItems(
+				parentId = parentId,
+				includeItemTypes = includeItemTypes,
+				fields = ItemRepository.itemFields,
+				sortBy = sortBy,
+				sortOrder = listOf(sortOrder),
+				startIndex = page * pageSize,
+				limit = pageSize,
+				enableTotalRecordCount = false,
+			)
+		}.items
+	}
+
+	private companion object {
+		private val includeItemTypes = setOf(BaseItemKind.PHOTO, BaseItemKind.VIDEO)
+	}
+}
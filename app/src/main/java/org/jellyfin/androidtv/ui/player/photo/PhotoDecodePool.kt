@@ -0,0 +1,106 @@
+package org.jellyfin.androidtv.ui.player.photo
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import org.jellyfin.sdk.model.api.BaseItemDto
+import timber.log.Timber
+import java.util.UUID
+import kotlin.coroutines.cancellation.CancellationException
+
+/**
+ * Decodes the image of an album item at screen resolution.
+ */
+fun interface PhotoDecoder {
+	/**
+	 * @return the decoded image or null when the item has no image to show
+	 */
+	suspend fun decode(item: BaseItemDto): DecodedPhoto?
+}
+
+class DecodedPhoto(
+	val image: Any,
+	val byteCount: Long,
+)
+
+/**
+ * Keeps the decoded images of at most [capacity] album items, normally the shown item and its
+ * neighbours. Images that are no longer retained are released so memory use stays bounded.
+ */
+class PhotoDecodePool(
+	private val decoder: PhotoDecoder,
+	private val scope: CoroutineScope,
+	private val capacity: Int = 3,
+) {
+	private val lock = Any()
+	private val entries = LinkedHashMap<UUID, Deferred<DecodedPhoto?>>()
+	private val decoded = mutableMapOf<UUID, DecodedPhoto>()
+
+	/**
+	 * Total size of the images currently held by the pool.
+	 */
+	val byteCount: Long
+		get() = synchronized(lock) { decoded.values.sumOf { it.byteCount } }
+
+	/**
+	 * Decode [items] ahead of time, in order of priority, and release all other images. Only the
+	 * first [capacity] items are kept.
+	 */
+	fun retain(items: List<BaseItemDto>) = synchronized(lock) {
+		val retained = items.distinctBy { it.id }.take(capacity)
+		val retainedIds = retained.mapTo(HashSet()) { it.id }
+
+		val iterator = entries.iterator()
+		while (iterator.hasNext()) {
+			val (id, entry) = iterator.next()
+			if (id !in retainedIds) {
+				entry.cancel()
+				iterator.remove()
+				decoded.remove(id)
+			}
+		}
+
+		for (item in retained) entries.getOrPut(item.id) { decodeAsync(item, pooled = true) }
+	}
+
+	/**
+	 * Get the decoded image of [item], waiting for the decode when it is still running. Items that
+	 * are not retained are decoded without being added to the pool.
+	 */
+	suspend fun await(item: BaseItemDto): DecodedPhoto? {
+		val entry = synchronized(lock) { entries[item.id] } ?: decodeAsync(item, pooled = false)
+		return try {
+			entry.await()
+		} catch (err: CancellationException) {
+			// Released while waiting
+			if (entry.isCancelled) null else throw err
+		}
+	}
+
+	/**
+	 * Get the decoded image of [item] when it is available without waiting.
+	 */
+	fun peek(item: BaseItemDto): DecodedPhoto? = synchronized(lock) { decoded[item.id] }
+
+	fun clear() = synchronized(lock) {
+		entries.values.forEach { it.cancel() }
+		entries.clear()
+		decoded.clear()
+	}
+
+	private fun decodeAsync(item: BaseItemDto, pooled: Boolean): Deferred<DecodedPhoto?> = scope.async {
+		try {
+			decoder.decode(item)?.also { photo ->
+				// Only keep the image when it was not released while decoding
+				if (pooled) synchronized(lock) {
+					if (item.id in entries) decoded[item.id] = photo
+				}
+			}
+		} catch (err: CancellationException) {
+			throw err
+		} catch (err: Exception) {
+			Timber.w(err, "Unable to decode photo ${item.id}")
+			null
+		}
+	}
+}
@@ -9,22 +9,27 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
-import org.jellyfin.androidtv.data.repository.ItemRepository
+import kotlinx.coroutines.withTimeoutOrNull
 import org.jellyfin.androidtv.util.apiclient.ioCallContent
 import org.jellyfin.sdk.api.client.ApiClient
-import org.jellyfin.sdk.api.client.extensions.itemsApi
 import org.jellyfin.sdk.api.client.extensions.userLibraryApi
 import org.jellyfin.sdk.model.api.BaseItemDto
-import org.jellyfin.sdk.model.api.BaseItemKind
 import org.jellyfin.sdk.model.api.ItemSortBy
 import org.jellyfin.sdk.model.api.MediaType
 import org.jellyfin.sdk.model.api.SortOrder
 import java.util.UUID
+import kotlin.time.Duration
 import kotlin.time.Duration.Companion.seconds
 
-class PhotoPlayerViewModel(private val api: ApiClient) : ViewModel() {
-	private var album: List<BaseItemDto> = emptyList()
+class PhotoPlayerViewModel(
+	private val api: ApiClient,
+	photoDecoder: PhotoDecoder,
+) : ViewModel() {
+	private var album: PhotoAlbumSource? = null
 	private var albumIndex = -1
+	private var navigationJob: Job? = null
+	private var decodeJob: Job? = null
+	private val decodePool = PhotoDecodePool(photoDecoder, viewModelScope)
 
 	private val _currentItem = MutableStateFlow<BaseItemDto?>(null)
 	val currentItem = _currentItem.asStateFlow()
@@ -41,49 +46,81 @@ class PhotoPlayerViewModel(private val api: ApiClient) : ViewModel() {
 			userLibraryApi.getItem(itemId = id)
 		}
 		_currentItem.value = itemResponse
+		decodePool.retain(listOf(itemResponse))
 
-		// Load all media items (photos AND videos) from the same folder
+		// Page through all media items (photos AND videos) from the same folder
 		// This enables slideshow-style playback through mixed media
-		val albumResponse = api.ioCallContent {
-			itemsApi.getItems(
-				parentId = itemResponse.parentId,
-				includeItemTypes = setOf(BaseItemKind.PHOTO, BaseItemKind.VIDEO),
-				fields = ItemRepository.itemFields,
-				sortBy = sortBy,
-				sortOrder = listOf(sortOrder),
-			)
-		}
-		album = albumResponse.items
-		albumIndex = album.indexOfFirst { it.id == id }
+		val albumSource = PhotoAlbumSource(
+			api = api,
+			parentId = itemResponse.parentId,
+			sortBy = sortBy,
+			sortOrder = sortOrder,
+			scope = viewModelScope,
+		)
+		val index = albumSource.locate(id)
 
 		// In some rare cases the album of the image might be empty when the
 		// files are considered invalid by the server
-		if (album.isEmpty()) {
-			album = listOf(itemResponse)
-			albumIndex = 0
-		}
+		if (albumSource.size == 0) return
+
+		album = albumSource
+		albumIndex = index
+		if (index != -1) decodeAround(albumSource, index)
 	}
 
 	// Album actions
 
-	fun showNext() {
-		if (album.isEmpty()) return
+	fun showNext() = show(albumIndex + 1)
+
+	fun showPrevious() = show(albumIndex - 1)
+
+	private fun show(index: Int, restart: Boolean = true) {
+		val album = album ?: return
 
-		albumIndex++
-		if (albumIndex == album.size) albumIndex = 0
+		val target = index.mod(album.size)
+		albumIndex = target
+
+		navigationJob?.cancel()
+		val cached = album.peek(target)
+		if (cached != null) {
+			_currentItem.value = cached
+			decodeAround(album, target)
+		} else {
+			navigationJob = viewModelScope.launch {
+				val item = album.get(target) ?: return@launch
+				if (albumIndex != target) return@launch
+
+				_currentItem.value = item
+				decodeAround(album, target)
+			}
+		}
 
-		_currentItem.value = album[albumIndex]
-		restartPresentation()
+		if (restart) restartPresentation()
 	}
 
-	fun showPrevious() {
-		if (album.isEmpty()) return
+	/**
+	 * Decode the photo at [index] and its neighbours so switching photos does not wait for the
+	 * network or decoder.
+	 */
+	private fun decodeAround(album: PhotoAlbumSource, index: Int) {
+		decodeJob?.cancel()
+		decodeJob = viewModelScope.launch {
+			val items = listOf(index, index + 1, index - 1).mapNotNull { album.get(it.mod(album.size)) }
+			decodePool.retain(items)
+		}
+	}
 
-		albumIndex--
-		if (albumIndex == -1) albumIndex = album.size - 1
+	/**
+	 * Wait until the photo after the current one is decoded, at most [timeout].
+	 */
+	private suspend fun awaitNextDecoded(timeout: Duration) {
+		val album = album ?: return
+		val next = album.peek((albumIndex + 1).mod(album.size)) ?: return
+		withTimeoutOrNull(timeout) { decodePool.await(next) }
+	}
 
-		_currentItem.value = album[albumIndex]
-		restartPresentation()
+	override fun onCleared() {
+		decodePool.clear()
 	}
 
 	// Presentation
@@ -99,7 +136,9 @@ class PhotoPlayerViewModel(private val api: ApiClient) : ViewModel() {
 		while (isActive) {
 			delay(presentationDelay)
 			if (_currentItem.value?.mediaType != MediaType.VIDEO) {
-				showNext()
+				// Avoid showing a blank frame when the next photo is still decoding
+				awaitNextDecoded(presentationDelay)
+				show(albumIndex + 1, restart = false)
 			}
 		}
 	}
@@ -119,12 +158,9 @@ class PhotoPlayerViewModel(private val api: ApiClient) : ViewModel() {
 	 * Advances to the next item and resumes slideshow if it was active.
 	 */
 	fun onVideoCompleted() {
-		if (album.isEmpty()) return
-
-		albumIndex++
-		if (albumIndex == album.size) albumIndex = 0
+		if (album == null) return
 
-		_currentItem.value = album[albumIndex]
+		show(albumIndex + 1, restart = false)
 
 		if (wasPlayingBeforeVideo) {
 			presentationJob = createPresentationJob()
@@ -570,7 +570,7 @@ private fun downloadAndInstall(
 		Toast.makeText(context, "Downloading update…", Toast.LENGTH_SHORT).show()
 
 		try {
-			val result = updateChecker.downloadUpdate(updateInfo.downloadUrl) { progress ->
+			val result = updateChecker.downloadUpdate(updateInfo.downloadUrl, updateInfo.sha256) { progress ->
 				Timber.d("Download progress: $progress%")
 			}
 
@@ -2,14 +2,25 @@ package org.jellyfin.androidtv.ui.shuffle
 
 import android.content.Context
 import android.widget.Toast
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import org.jellyfin.androidtv.R
+import org.jellyfin.androidtv.auth.repository.SessionRepository
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidation
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
 import org.jellyfin.androidtv.preference.UserPreferences
 import org.jellyfin.androidtv.ui.navigation.Destinations
 import org.jellyfin.androidtv.ui.navigation.NavigationRepository
@@ -26,18 +37,38 @@ import kotlin.random.Random
 
 /**
  * Centralized manager for shuffle functionality.
- * Handles loading state, debouncing, user feedback, and client-side random selection.
+ * Handles loading state, debouncing, user feedback, and random selection from a pool of
+ * server-side random items with a client-side fallback.
  */
 class ShuffleManager(
 	private val api: ApiClient,
 	private val apiClientFactory: ApiClientFactory,
 	private val userPreferences: UserPreferences,
 	private val navigationRepository: NavigationRepository,
+	sessionRepository: SessionRepository,
+	itemInvalidationBus: ItemInvalidationBus,
 ) {
 	private val _isShuffling = MutableStateFlow(false)
 	val isShuffling: StateFlow<Boolean> = _isShuffling.asStateFlow()
 
 	private val shuffleMutex = Mutex()
+	private val shufflePool = ShufflePool()
+	private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+	init {
+		// Drop pooled items when they may not match the library or user anymore
+		sessionRepository.currentSession
+			.map { it?.serverId to it?.userId }
+			.distinctUntilChanged()
+			.drop(1)
+			.onEach { shufflePool.clear() }
+			.launchIn(scope)
+
+		itemInvalidationBus.invalidations
+			.filter { it.reason == ItemInvalidation.Reason.ADDED || it.reason == ItemInvalidation.Reason.REMOVED }
+			.onEach { shufflePool.clear() }
+			.launchIn(scope)
+	}
 
 	/**
 	 * Quick shuffle - uses user's content type preference
@@ -168,9 +199,8 @@ class ShuffleManager(
 	}
 
 	/**
-	 * Fetch a random item using server-side RANDOM sort (single API call).
+	 * Fetch a random item from the shuffle pool, which hands out server-side RANDOM sorted batches.
 	 * Falls back to client-side random selection if server-side fails.
-	 * Retries if server returns excluded item types (server bug workaround).
 	 */
 	private suspend fun fetchRandomItem(
 		targetApi: ApiClient,
@@ -178,43 +208,13 @@ class ShuffleManager(
 		genreName: String?,
 		includeTypes: Set<BaseItemKind>
 	): BaseItemDto? {
-		val maxRetries = 5
-		
-		// Primary: Use server-side RANDOM sort with retries for excluded item types
-		for (attempt in 1..maxRetries) {
-			try {
-				Timber.d("Shuffle: Using server-side RANDOM sort (attempt $attempt)")
-				val response = targetApi.itemsApi.getItems(
-					parentId = libraryId,
-					genres = genreName?.let { setOf(it) },
-					includeItemTypes = includeTypes,
-					excludeItemTypes = setOf(BaseItemKind.BOX_SET),
-					recursive = true,
-					sortBy = setOf(ItemSortBy.RANDOM),
-					limit = 1,
-				)
-
-				val item = response.content.items?.firstOrNull()
-				if (item == null) {
-					val totalCount = response.content.totalRecordCount ?: 0
-					Timber.d("Shuffle: Server returned no items, totalRecordCount = $totalCount")
-					return null
-				}
-				
-				// Server-side excludeItemTypes with RANDOM sort is buggy - filter client-side
-				if (item.type == BaseItemKind.BOX_SET) {
-					Timber.w("Shuffle: Server returned BoxSet despite exclude filter, retrying...")
-					continue
-				}
-				
-				return item
-			} catch (e: Exception) {
-				Timber.w(e, "Server-side RANDOM failed on attempt $attempt")
-				break // Fall through to client-side fallback
-			}
+		try {
+			return shufflePool.next(targetApi, libraryId, genreName, includeTypes)
+		} catch (e: Exception) {
+			Timber.w(e, "Server-side RANDOM failed")
 		}
-		
-		Timber.w("Server-side random exhausted retries or failed, falling back to client-side random")
+
+		Timber.w("Server-side random failed, falling back to client-side random")
 		
 		// Fallback: Client-side random (two API calls)
 		try {
@@ -0,0 +1,165 @@
+package org.jellyfin.androidtv.ui.shuffle
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.extensions.itemsApi
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import org.jellyfin.sdk.model.api.ItemSortBy
+import timber.log.Timber
+import java.util.UUID
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * Pool of random items for shuffling, kept per server, library, genre and item types. Items are
+ * fetched from the server in randomly sorted batches of [batchSize] and handed out without repeats
+ * until every item of the batch was shown. A new batch is fetched in the background once fewer than
+ * [refillThreshold] items are left, skipping the items already shown. Once every matching item is
+ * known no more batches are fetched and later rounds are shuffled locally.
+ *
+ * Pools expire [ttl] after they were created so added and removed items are picked up eventually,
+ * call [clear] to drop them right away when the library or session changes.
+ */
+class ShufflePool(
+	private val batchSize: Int = 50,
+	private val refillThreshold: Int = 10,
+	private val ttl: Duration = 30.minutes,
+	private val clock: () -> Long = { System.nanoTime() / 1_000_000 },
+	private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+) {
+	private companion object {
+		// Batches that can be full of filtered items before giving up
+		const val MAX_EMPTY_BATCHES = 3
+	}
+
+	private data class Key(
+		val baseUrl: String?,
+		val accessToken: String?,
+		val libraryId: UUID?,
+		val genreName: String?,
+		val includeTypes: Set<BaseItemKind>,
+	)
+
+	private class Pool(val expiresAt: Long) {
+		val items = ArrayDeque<BaseItemDto>()
+		// Items handed out or queued, with their ids for lookups
+		val round = mutableListOf<BaseItemDto>()
+		val seen = HashSet<UUID>()
+		var refill: Deferred<Unit>? = null
+		// Set once every matching item is known, later rounds are shuffled locally
+		var allItems: List<BaseItemDto>? = null
+	}
+
+	private val lock = Any()
+	private val pools = mutableMapOf<Key, Pool>()
+
+	/**
+	 * Amount of batches requested from the server.
+	 */
+	@Volatile
+	var requestCount = 0
+		private set
+
+	/**
+	 * Get the next random item, or `null` when there are no items matching the filters.
+	 */
+	suspend fun next(
+		api: ApiClient,
+		libraryId: UUID?,
+		genreName: String?,
+		includeTypes: Set<BaseItemKind>,
+	): BaseItemDto? {
+		val key = Key(api.baseUrl, api.accessToken, libraryId, genreName, includeTypes)
+		val pool = synchronized(lock) {
+			val now = clock()
+			pools[key]?.takeIf { now < it.expiresAt }
+				?: Pool(now + ttl.inWholeMilliseconds).also { pools[key] = it }
+		}
+
+		// A full batch can be empty after filtering, which doesn't mean there are no items
+		repeat(MAX_EMPTY_BATCHES) {
+			val refill = synchronized(lock) {
+				take(api, key, pool)?.let { return it }
+
+				pool.allItems?.let { allItems ->
+					pool.items.addAll(allItems.shuffled())
+					return take(api, key, pool)
+				}
+
+				startRefill(api, key, pool)
+			}
+			refill.await()
+		}
+
+		return synchronized(lock) { take(api, key, pool) }
+	}
+
+	fun clear() = synchronized(lock) {
+		pools.clear()
+	}
+
+	// Must be called while holding the lock
+	private fun take(api: ApiClient, key: Key, pool: Pool): BaseItemDto? {
+		val item = pool.items.removeFirstOrNull() ?: return null
+		if (pool.items.size < refillThreshold && pool.allItems == null) startRefill(api, key, pool)
+		return item
+	}
+
+	// Must be called while holding the lock
+	private fun startRefill(api: ApiClient, key: Key, pool: Pool): Deferred<Unit> {
+		pool.refill?.let { return it }
+
+		requestCount++
+		// Started lazily so the refill is registered before it can finish
+		val deferred = scope.async(start = CoroutineStart.LAZY) {
+			try {
+				val batch = fetchBatch(api, key)
+				synchronized(lock) { addBatch(pool, batch, key.includeTypes) }
+			} catch (err: Exception) {
+				Timber.w(err, "ShufflePool: Failed to fetch random items")
+				throw err
+			} finally {
+				synchronized(lock) { pool.refill = null }
+			}
+		}
+		pool.refill = deferred
+		deferred.start()
+		return deferred
+	}
+
+	// Must be called while holding the lock
+	private fun addBatch(pool: Pool, response: List<BaseItemDto>, includeTypes: Set<BaseItemKind>) {
+		// Server-side excludeItemTypes with RANDOM sort is buggy - filter client-side
+		val batch = response.filter { it.type in includeTypes && it.type != BaseItemKind.BOX_SET }
+		val fresh = batch.filter { it.id !in pool.seen }.distinctBy { it.id }
+
+		fresh.mapTo(pool.seen) { it.id }
+		pool.round.addAll(fresh)
+		pool.items.addAll(fresh)
+
+		// A short batch or one without unseen items means every matching item is known
+		if (response.size < batchSize || (fresh.isEmpty() && batch.isNotEmpty())) pool.allItems = pool.round.toList()
+		Timber.d("ShufflePool: Added ${fresh.size} of ${batch.size} random items, ${pool.items.size} queued")
+	}
+
+	private suspend fun fetchBatch(api: ApiClient, key: Key): List<BaseItemDto> {
+		val response = api.itemsApi.getItems(
+			parentId = key.libraryId,
+			genres = key.genreName?.let { setOf(it) },
+			includeItemTypes = key.includeTypes,
+			excludeItemTypes = setOf(BaseItemKind.BOX_SET),
+			recursive = true,
+			sortBy = setOf(ItemSortBy.RANDOM),
+			limit = batchSize,
+			enableTotalRecordCount = false,
+		)
+
+		return response.content.items.orEmpty()
+	}
+}
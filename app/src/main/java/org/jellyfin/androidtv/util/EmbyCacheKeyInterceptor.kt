@@ -4,15 +4,19 @@ import coil3.intercept.Interceptor
 import coil3.memory.MemoryCache
 import coil3.request.ImageResult
 
+/**
+ * Uses [ImageCacheKeyNormalizer] for both the memory and disk cache key, so image URLs that only
+ * differ in their access token or parameter order share a cache entry.
+ */
 class EmbyCacheKeyInterceptor : Interceptor {
 
 	override suspend fun intercept(chain: Interceptor.Chain): ImageResult {
 		val request = chain.request
 		val url = request.data?.toString() ?: return chain.proceed()
 
-		if (!url.contains("api_key=")) return chain.proceed()
-
 		val normalized = stripApiKey(url)
+		if (normalized === url) return chain.proceed()
+
 		val newRequest = request.newBuilder()
 			.memoryCacheKey(MemoryCache.Key(normalized))
 			.diskCacheKey(normalized)
@@ -20,8 +24,5 @@ class EmbyCacheKeyInterceptor : Interceptor {
 		return chain.withRequest(newRequest).proceed()
 	}
 
-	private fun stripApiKey(url: String): String = url
-		.replace(Regex("&api_key=[^&]*"), "")
-		.replace(Regex("\\?api_key=[^&]*&"), "?")
-		.replace(Regex("\\?api_key=[^&]*$"), "")
+	private fun stripApiKey(url: String): String = ImageCacheKeyNormalizer.normalize(url)
 }
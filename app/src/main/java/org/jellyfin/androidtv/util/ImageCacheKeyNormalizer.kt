@@ -0,0 +1,101 @@
+package org.jellyfin.androidtv.util
+
+/**
+ * Builds stable image cache keys from image URLs.
+ *
+ * Volatile authentication parameters are removed and the remaining query parameters are sorted by
+ * name, so the same image requested with a different access token or parameter order maps to the
+ * same memory and disk cache entry. Parameters sharing a name keep their relative order.
+ *
+ * The query string is tokenized by hand in a single pass. URLs that are already canonical are
+ * returned as-is without allocating a new string.
+ */
+object ImageCacheKeyNormalizer {
+	private val volatileParameters = arrayOf("api_key", "x-emby-token", "x-mediabrowser-token")
+
+	// Initial capacity of the token index buffers, doubled when a URL has more parameters
+	private const val INITIAL_TOKEN_CAPACITY = 16
+
+	fun normalize(url: String): String {
+		val queryStart = url.indexOf('?')
+		if (queryStart == -1) return url
+		val fragmentStart = url.indexOf('#', queryStart + 1).let { if (it == -1) url.length else it }
+
+		// Token i spans starts[i] until ends[i], name ends at nameEnds[i]
+		var starts = IntArray(INITIAL_TOKEN_CAPACITY)
+		var ends = IntArray(INITIAL_TOKEN_CAPACITY)
+		var nameEnds = IntArray(INITIAL_TOKEN_CAPACITY)
+		var count = 0
+		var changed = false
+
+		var tokenStart = queryStart + 1
+		while (tokenStart <= fragmentStart) {
+			var tokenEnd = url.indexOf('&', tokenStart)
+			if (tokenEnd == -1 || tokenEnd > fragmentStart) tokenEnd = fragmentStart
+
+			var nameEnd = url.indexOf('=', tokenStart)
+			if (nameEnd == -1 || nameEnd > tokenEnd) nameEnd = tokenEnd
+
+			if (tokenEnd == tokenStart || isVolatile(url, tokenStart, nameEnd)) {
+				// Empty token or auth parameter, skip it
+				changed = true
+			} else {
+				if (count == starts.size) {
+					starts = starts.copyOf(count * 2)
+					ends = ends.copyOf(count * 2)
+					nameEnds = nameEnds.copyOf(count * 2)
+				}
+				starts[count] = tokenStart
+				ends[count] = tokenEnd
+				nameEnds[count] = nameEnd
+
+				// Insertion sort by name, stable for equal names
+				var i = count
+				while (i > 0 && compareNames(url, starts[i - 1], nameEnds[i - 1], tokenStart, nameEnd) > 0) {
+					starts[i] = starts[i - 1]
+					ends[i] = ends[i - 1]
+					nameEnds[i] = nameEnds[i - 1]
+					i--
+				}
+				if (i != count) {
+					starts[i] = tokenStart
+					ends[i] = tokenEnd
+					nameEnds[i] = nameEnd
+					changed = true
+				}
+				count++
+			}
+
+			tokenStart = tokenEnd + 1
+		}
+
+		if (!changed) return url
+
+		val builder = StringBuilder(url.length)
+		builder.append(url, 0, queryStart)
+		for (i in 0 until count) {
+			builder.append(if (i == 0) '?' else '&')
+			builder.append(url, starts[i], ends[i])
+		}
+		builder.append(url, fragmentStart, url.length)
+		return builder.toString()
+	}
+
+	private fun isVolatile(url: String, start: Int, end: Int): Boolean {
+		val length = end - start
+		for (name in volatileParameters) {
+			if (name.length == length && url.regionMatches(start, name, 0, length, ignoreCase = true)) return true
+		}
+		return false
+	}
+
+	private fun compareNames(url: String, aStart: Int, aEnd: Int, bStart: Int, bEnd: Int): Int {
+		val aLength = aEnd - aStart
+		val bLength = bEnd - bStart
+		for (i in 0 until minOf(aLength, bLength)) {
+			val diff = url[aStart + i] - url[bStart + i]
+			if (diff != 0) return diff
+		}
+		return aLength - bLength
+	}
+}
@@ -6,6 +6,8 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.NonCancellable
 import kotlinx.coroutines.launch
 import org.jellyfin.androidtv.data.compat.StreamInfo
+import org.jellyfin.androidtv.data.eventhandling.ItemInvalidationBus
+import org.jellyfin.androidtv.data.eventhandling.toPlaybackInvalidation
 import org.jellyfin.androidtv.data.model.DataRefreshService
 import org.jellyfin.androidtv.ui.playback.PlaybackController
 import org.jellyfin.androidtv.util.UUIDUtils
@@ -13,7 +15,6 @@ import org.jellyfin.androidtv.util.sdk.ApiClientFactory
 import org.jellyfin.sdk.api.client.ApiClient
 import org.jellyfin.sdk.api.client.extensions.playStateApi
 import org.jellyfin.sdk.model.api.BaseItemDto
-import org.jellyfin.sdk.model.api.BaseItemKind
 import org.jellyfin.sdk.model.api.PlaybackOrder
 import org.jellyfin.sdk.model.api.PlaybackProgressInfo
 import org.jellyfin.sdk.model.api.PlaybackStartInfo
@@ -24,6 +25,7 @@ import java.time.Instant
 
 class ReportingHelper(
 	private val dataRefreshService: DataRefreshService,
+	private val itemInvalidationBus: ItemInvalidationBus,
 	private val api: ApiClient,
 	private val apiClientFactory: ApiClientFactory,
 ) {
@@ -119,12 +121,7 @@ class ReportingHelper(
 			}.onFailure { error -> Timber.e(error, "Failed to report stopped playback!") }
 		}
 
-		// Update dataRefreshService
 		dataRefreshService.lastPlayback = Instant.now()
-		when (item.type) {
-			BaseItemKind.MOVIE -> dataRefreshService.lastMoviePlayback = Instant.now()
-			BaseItemKind.EPISODE -> dataRefreshService.lastTvPlayback = Instant.now()
-			else -> Unit
-		}
+		itemInvalidationBus.publish(item.toPlaybackInvalidation())
 	}
 }
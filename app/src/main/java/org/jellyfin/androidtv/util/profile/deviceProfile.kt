@@ -90,6 +90,20 @@ fun createDeviceProfile(
 	pgsDirectPlay = userPreferences[UserPreferences.pgsDirectPlay],
 )
 
+/**
+ * Key of the preferences [createDeviceProfile] depends on, the device capabilities never change. It is
+ * cheap to compute and changes whenever a rebuilt profile would, so caches of playback info can use
+ * it instead of building and hashing the profile.
+ */
+fun createDeviceProfileKey(userPreferences: UserPreferences) = listOf(
+	userPreferences.getMaxBitrate(),
+	userPreferences[UserPreferences.maxVideoResolution],
+	userPreferences[UserPreferences.ac3Enabled],
+	userPreferences[UserPreferences.audioBehaviour],
+	userPreferences[UserPreferences.assDirectPlay],
+	userPreferences[UserPreferences.pgsDirectPlay],
+).joinToString(":")
+
 fun createDeviceProfile(
 	mediaTest: MediaCodecCapabilitiesTest,
 	maxBitrate: Int,
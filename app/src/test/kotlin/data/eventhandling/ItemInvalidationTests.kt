@@ -0,0 +1,211 @@
+package org.jellyfin.androidtv.data.eventhandling
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.serialization.json.Json
+import org.jellyfin.androidtv.constant.ChangeTriggerType
+import org.jellyfin.androidtv.ui.itemhandling.RowInvalidation
+import org.jellyfin.androidtv.ui.itemhandling.RowRefresh
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import org.jellyfin.sdk.model.api.LibraryUpdateInfo
+import org.jellyfin.sdk.model.api.UserDataChangeInfo
+import org.moonfin.server.core.model.ServerWebSocketMessage
+import java.util.UUID
+
+class ItemInvalidationTests : FunSpec({
+	val json = Json { ignoreUnknownKeys = true }
+
+	val moviesLibrary = UUID.fromString("00000000-0000-0000-0000-0000000000a1")
+	val showsLibrary = UUID.fromString("00000000-0000-0000-0000-0000000000a2")
+	val season = UUID.fromString("00000000-0000-0000-0000-0000000000b1")
+	val series = UUID.fromString("00000000-0000-0000-0000-0000000000b2")
+	val movieA = UUID.fromString("00000000-0000-0000-0000-000000000001")
+	val movieB = UUID.fromString("00000000-0000-0000-0000-000000000002")
+	val movieC = UUID.fromString("00000000-0000-0000-0000-000000000003")
+	val episode1 = UUID.fromString("00000000-0000-0000-0000-000000000011")
+	val episode2 = UUID.fromString("00000000-0000-0000-0000-000000000012")
+	val episode3 = UUID.fromString("00000000-0000-0000-0000-000000000013")
+	val episode4 = UUID.fromString("00000000-0000-0000-0000-000000000014")
+
+	data class Row(
+		val name: String,
+		val triggers: Array<ChangeTriggerType>,
+		val parentId: UUID?,
+		val itemIds: Set<UUID>,
+	)
+
+	// Rows as the home screen and movie library browse screen create them
+	val rows = listOf(
+		Row("resume movies", arrayOf(ChangeTriggerType.MoviePlayback), moviesLibrary, setOf(movieA, movieB)),
+		Row("next up", arrayOf(ChangeTriggerType.TvPlayback), null, setOf(episode1)),
+		Row("latest movies", arrayOf(ChangeTriggerType.MoviePlayback, ChangeTriggerType.LibraryUpdated), moviesLibrary, setOf(movieC)),
+		Row("latest shows", arrayOf(ChangeTriggerType.LibraryUpdated), showsLibrary, setOf(episode2, episode3)),
+		Row("favorites", arrayOf(ChangeTriggerType.LibraryUpdated, ChangeTriggerType.FavoriteUpdate), moviesLibrary, setOf(movieA)),
+		Row("my media", emptyArray(), null, setOf(movieA, movieC)),
+	)
+
+	fun replay(invalidations: List<ItemInvalidation>): Map<String, RowRefresh> {
+		val bus = ItemInvalidationBus()
+		val start = bus.sequence
+		invalidations.forEach(bus::publish)
+		val pending = bus.since(start).invalidations
+
+		return rows.associate { row -> row.name to RowInvalidation.resolve(row.triggers, row.parentId, row.itemIds, pending) }
+	}
+
+	fun recordedLibraryChanged(data: String) = json.decodeFromString<LibraryUpdateInfo>(data).toItemInvalidations()
+	fun recordedUserDataChanged(data: String) = json.decodeFromString<UserDataChangeInfo>(data).toItemInvalidation()
+
+	test("UserDataChanged reloads playback rows and refreshes the item elsewhere") {
+		val invalidation = recordedUserDataChanged(
+			"""{"UserId":"0000000000000000000000000000000f","UserDataList":[{"PlaybackPositionTicks":0,"PlayCount":1,"IsFavorite":false,"Played":true,"Key":"603","ItemId":"00000000000000000000000000000003"}]}"""
+		)
+
+		replay(listOf(invalidation)) shouldBe mapOf(
+			"resume movies" to RowRefresh.Full,
+			"next up" to RowRefresh.Full,
+			"latest movies" to RowRefresh.Full,
+			"latest shows" to RowRefresh.None,
+			"favorites" to RowRefresh.None,
+			"my media" to RowRefresh.Items(setOf(movieC)),
+		)
+	}
+
+	test("LibraryChanged with added items only reloads rows of the affected library") {
+		val invalidations = recordedLibraryChanged(
+			"""{"FoldersAddedTo":["000000000000000000000000000000b1"],"FoldersRemovedFrom":[],"ItemsAdded":["00000000000000000000000000000014"],"ItemsRemoved":[],"ItemsUpdated":["00000000000000000000000000000012"],"CollectionFolders":["000000000000000000000000000000a2"],"IsEmpty":false}"""
+		)
+
+		invalidations.map { it.reason } shouldContainExactly listOf(ItemInvalidation.Reason.ADDED, ItemInvalidation.Reason.UPDATED)
+		invalidations.first().itemIds shouldBe setOf(episode4)
+		invalidations.first().parentIds shouldBe setOf(season, showsLibrary)
+
+		replay(invalidations) shouldBe mapOf(
+			"resume movies" to RowRefresh.None,
+			"next up" to RowRefresh.None,
+			"latest movies" to RowRefresh.None,
+			"latest shows" to RowRefresh.Full,
+			"favorites" to RowRefresh.None,
+			"my media" to RowRefresh.None,
+		)
+	}
+
+	test("LibraryChanged with updated items only refreshes rows showing them") {
+		val invalidations = recordedLibraryChanged(
+			"""{"FoldersAddedTo":[],"FoldersRemovedFrom":[],"ItemsAdded":[],"ItemsRemoved":[],"ItemsUpdated":["00000000000000000000000000000001"],"CollectionFolders":["000000000000000000000000000000a1"],"IsEmpty":false}"""
+		)
+
+		replay(invalidations) shouldBe mapOf(
+			"resume movies" to RowRefresh.Items(setOf(movieA)),
+			"next up" to RowRefresh.None,
+			"latest movies" to RowRefresh.None,
+			"latest shows" to RowRefresh.None,
+			"favorites" to RowRefresh.Items(setOf(movieA)),
+			"my media" to RowRefresh.Items(setOf(movieA)),
+		)
+	}
+
+	test("Emby messages are mapped the same way") {
+		val invalidations = ServerWebSocketMessage.LibraryChanged(
+			itemsAdded = emptyList(),
+			itemsUpdated = emptyList(),
+			itemsRemoved = listOf(movieB.toString()),
+			foldersRemovedFrom = listOf(moviesLibrary.toString()),
+		).toItemInvalidations() + ServerWebSocketMessage.UserDataChanged(
+			userId = "1",
+			itemIds = listOf("1234"),
+		).toItemInvalidation()
+
+		replay(invalidations) shouldBe mapOf(
+			"resume movies" to RowRefresh.Full,
+			"next up" to RowRefresh.Full,
+			"latest movies" to RowRefresh.Full,
+			"latest shows" to RowRefresh.None,
+			"favorites" to RowRefresh.Full,
+			"my media" to RowRefresh.None,
+		)
+	}
+
+	test("Emby numeric ids are mapped like Emby item ids") {
+		val numeric = ServerWebSocketMessage.LibraryChanged(
+			itemsAdded = emptyList(),
+			itemsUpdated = listOf("3"),
+			itemsRemoved = listOf("2"),
+			foldersRemovedFrom = listOf("177"),
+		).toItemInvalidations() + ServerWebSocketMessage.UserDataChanged(
+			userId = "1",
+			itemIds = listOf("1"),
+		).toItemInvalidation()
+
+		numeric.map { it.itemIds } shouldContainExactly listOf(setOf(movieC), setOf(movieB), setOf(movieA))
+		numeric[1].parentIds shouldBe setOf(UUID.fromString("00000000-0000-0000-0000-000000000177"))
+
+		val uuids = ServerWebSocketMessage.LibraryChanged(
+			itemsAdded = emptyList(),
+			itemsUpdated = listOf(movieC.toString()),
+			itemsRemoved = listOf(movieB.toString()),
+			foldersRemovedFrom = listOf("00000000-0000-0000-0000-000000000177"),
+		).toItemInvalidations() + ServerWebSocketMessage.UserDataChanged(
+			userId = "1",
+			itemIds = listOf(movieA.toString()),
+		).toItemInvalidation()
+
+		replay(numeric) shouldBe replay(uuids)
+	}
+
+	test("local episode playback only reloads tv playback rows") {
+		val episode = BaseItemDto(id = episode1, type = BaseItemKind.EPISODE, seasonId = season, seriesId = series)
+
+		replay(listOf(episode.toPlaybackInvalidation())) shouldBe mapOf(
+			"resume movies" to RowRefresh.None,
+			"next up" to RowRefresh.Full,
+			"latest movies" to RowRefresh.None,
+			"latest shows" to RowRefresh.None,
+			"favorites" to RowRefresh.None,
+			"my media" to RowRefresh.None,
+		)
+	}
+
+	test("favorite toggle only reloads favorite rows") {
+		replay(listOf(ItemInvalidation(ItemInvalidation.Reason.FAVORITE, itemIds = setOf(movieB)))) shouldBe mapOf(
+			"resume movies" to RowRefresh.None,
+			"next up" to RowRefresh.None,
+			"latest movies" to RowRefresh.None,
+			"latest shows" to RowRefresh.None,
+			"favorites" to RowRefresh.Full,
+			"my media" to RowRefresh.None,
+		)
+	}
+
+	test("bus returns invalidations since a sequence") {
+		val bus = ItemInvalidationBus(historySize = 3)
+		val first = ItemInvalidation(ItemInvalidation.Reason.UPDATED, itemIds = setOf(movieA))
+		val second = ItemInvalidation(ItemInvalidation.Reason.UPDATED, itemIds = setOf(movieB))
+
+		bus.publish(first)
+		bus.publish(second)
+
+		bus.since(0) shouldBe ItemInvalidationBus.Pending(2, listOf(first, second))
+		bus.since(1) shouldBe ItemInvalidationBus.Pending(2, listOf(second))
+		bus.since(2) shouldBe ItemInvalidationBus.Pending(2, emptyList())
+	}
+
+	test("bus reports missed invalidations when history overflows") {
+		val bus = ItemInvalidationBus(historySize = 2)
+		repeat(3) { bus.publish(ItemInvalidation(ItemInvalidation.Reason.UPDATED, itemIds = setOf(movieA))) }
+
+		val pending = bus.since(0)
+		pending.invalidations shouldBe null
+
+		rows.associate { row -> row.name to RowInvalidation.resolve(row.triggers, row.parentId, row.itemIds, pending.invalidations) } shouldBe mapOf(
+			"resume movies" to RowRefresh.Full,
+			"next up" to RowRefresh.Full,
+			"latest movies" to RowRefresh.Full,
+			"latest shows" to RowRefresh.Full,
+			"favorites" to RowRefresh.Full,
+			"my media" to RowRefresh.None,
+		)
+	}
+})
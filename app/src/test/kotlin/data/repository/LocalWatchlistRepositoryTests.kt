@@ -0,0 +1,159 @@
+package org.jellyfin.androidtv.data.repository
+
+import android.content.SharedPreferences
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import kotlinx.serialization.encodeToString
+import kotlinx.serialization.json.Json
+import org.jellyfin.androidtv.data.service.jellyseerr.InMemorySharedPreferences
+import java.util.UUID
+
+class LocalWatchlistRepositoryTests : FunSpec({
+	val serverId = UUID(0x5e7, 1)
+	val otherServerId = UUID(0x5e7, 2)
+
+	// Counts reads and edits of the stored list
+	class CountingPreferences(private val prefs: SharedPreferences = InMemorySharedPreferences()) : SharedPreferences by prefs {
+		var reads = 0
+		@Volatile var writes = 0
+
+		override fun getString(key: String, defValue: String?): String? {
+			reads++
+			return prefs.getString(key, defValue)
+		}
+
+		override fun edit(): SharedPreferences.Editor {
+			writes++
+			return prefs.edit()
+		}
+	}
+
+	test("isInWatchlist does not slow down with 5,000 entries") {
+		fun createRepository(ids: List<UUID>): Pair<LocalWatchlistRepository, CountingPreferences> {
+			val prefs = CountingPreferences()
+			val stored = ids.map { WatchlistEntry(it.toString(), serverId.toString(), addedAt = 0) }
+			prefs.edit().putString("watchlist_items", Json.encodeToString(stored)).apply()
+			return LocalWatchlistRepository(prefs) to prefs
+		}
+
+		fun nanosPerLookup(repository: LocalWatchlistRepository, ids: List<UUID>): Long {
+			val iterations = 200_000
+			var found = 0
+			// Warm up before measuring
+			repeat(iterations) { if (repository.isInWatchlist(ids[it % ids.size], serverId)) found++ }
+			val start = System.nanoTime()
+			repeat(iterations) { if (repository.isInWatchlist(ids[it % ids.size], serverId)) found++ }
+			found shouldBe iterations * 2
+			return (System.nanoTime() - start) / iterations
+		}
+
+		val ids = (0 until 5_000).map { UUID(0x17e3, it.toLong()) }
+		val (smallRepository, _) = createRepository(ids.take(50))
+		val (largeRepository, largePrefs) = createRepository(ids)
+		val small = nanosPerLookup(smallRepository, ids.take(50))
+		val large = nanosPerLookup(largeRepository, ids)
+
+		largePrefs.reads shouldBe 1
+		(large < small * 10 + 1_000) shouldBe true
+	}
+
+	test("stored JSON stays compatible") {
+		val prefs = InMemorySharedPreferences()
+		val existingItemId = UUID(0x17e3, 1)
+		prefs.edit().putString(
+			"watchlist_items",
+			"""[{"itemId":"$existingItemId","serverId":"$serverId","addedAt":1000}]""",
+		).apply()
+
+		val repository = LocalWatchlistRepository(prefs)
+		repository.isInWatchlist(existingItemId, serverId) shouldBe true
+
+		val addedItemId = UUID(0x17e3, 2)
+		repository.addToWatchlist(addedItemId, otherServerId) shouldBe true
+		repository.flush()
+
+		val stored = Json.decodeFromString<List<WatchlistEntry>>(prefs.getString("watchlist_items", null)!!)
+		stored.map { it.itemId to it.serverId } shouldContainExactly listOf(
+			existingItemId.toString() to serverId.toString(),
+			addedItemId.toString() to otherServerId.toString(),
+		)
+		stored.first().addedAt shouldBe 1000
+
+		// A new instance reads what was written
+		LocalWatchlistRepository(prefs).isInWatchlist(addedItemId, otherServerId) shouldBe true
+	}
+
+	test("a burst of changes is saved in a single write") {
+		val prefs = CountingPreferences()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		val repository = LocalWatchlistRepository(prefs, scope)
+		val itemId = UUID(0x17e3, 1)
+
+		repository.addToWatchlist(itemId, serverId) shouldBe true
+		repository.addToWatchlist(itemId, serverId) shouldBe false
+		repository.removeFromWatchlist(itemId, serverId) shouldBe true
+		repository.removeFromWatchlist(itemId, serverId) shouldBe false
+		repository.addToWatchlist(itemId, serverId) shouldBe true
+		repository.clearWatchlistForServer(otherServerId)
+		prefs.writes shouldBe 0
+
+		runBlocking {
+			withTimeout(5_000) {
+				while (prefs.writes == 0) delay(10)
+			}
+			// Nothing else is pending
+			delay(1_000)
+		}
+
+		prefs.writes shouldBe 1
+		LocalWatchlistRepository(prefs).isInWatchlist(itemId, serverId) shouldBe true
+
+		scope.cancel()
+	}
+
+	test("pending changes are saved when the app stops") {
+		val prefs = CountingPreferences()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		val stopEvents = MutableSharedFlow<Unit>()
+		val repository = LocalWatchlistRepository(prefs, scope, stopEvents)
+		val itemId = UUID(0x17e3, 1)
+
+		repository.addToWatchlist(itemId, serverId) shouldBe true
+
+		runBlocking {
+			stopEvents.subscriptionCount.first { it > 0 }
+			stopEvents.emit(Unit)
+			// Well before the delayed write would run
+			withTimeout(250) {
+				while (prefs.writes == 0) delay(10)
+			}
+		}
+
+		LocalWatchlistRepository(prefs).isInWatchlist(itemId, serverId) shouldBe true
+
+		scope.cancel()
+	}
+
+	test("clearing a server keeps other servers") {
+		val repository = LocalWatchlistRepository(InMemorySharedPreferences())
+		val itemId = UUID(0x17e3, 1)
+
+		repository.addToWatchlist(itemId, serverId)
+		repository.addToWatchlist(itemId, otherServerId)
+		repository.clearWatchlistForServer(serverId)
+
+		repository.isInWatchlist(itemId, serverId) shouldBe false
+		repository.isInWatchlist(itemId, otherServerId) shouldBe true
+		repository.getWatchlistItemIds(otherServerId) shouldContainExactly listOf(itemId)
+	}
+})
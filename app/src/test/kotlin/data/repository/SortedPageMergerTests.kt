@@ -0,0 +1,120 @@
+package org.jellyfin.androidtv.data.repository
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.ints.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.runBlocking
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.random.Random
+
+class SortedPageMergerTests : FunSpec({
+	// Items are (date, server, position) so ties keep their source order in comparisons
+	data class Item(val date: Int, val server: Int, val position: Int)
+
+	val newestFirst = compareByDescending<Item> { it.date }
+
+	fun createServer(index: Int, size: Int, random: Random) = List(size) { random.nextInt(0, 500) }
+		.sortedDescending()
+		.mapIndexed { position, date -> Item(date, index, position) }
+
+	fun sourceOf(items: List<Item>, fetched: AtomicInteger): SortedPageSource<Item> = { startIndex, limit ->
+		val page = items.drop(startIndex).take(limit)
+		fetched.addAndGet(page.size)
+		page
+	}
+
+	test("merged rows match sort-then-take and fetch fewer items") {
+		val random = Random(42)
+		var mergedFetched = 0
+		var previousFetched = 0
+
+		repeat(200) {
+			val limit = random.nextInt(1, 101)
+			val servers = List(random.nextInt(1, 6)) { index -> createServer(index, random.nextInt(0, 150), random) }
+			val fetched = AtomicInteger()
+
+			val merged = runBlocking {
+				mergeSortedPages(servers.map { sourceOf(it, fetched) }, newestFirst, limit)
+			}
+
+			// The previous implementation asked each server for up to three times the limit
+			val perServerLimit = minOf(limit * 3, 100)
+			val expected = servers.flatMap { it.take(perServerLimit) }.sortedWith(newestFirst).take(limit)
+
+			merged shouldContainExactly expected
+			mergedFetched += fetched.get()
+			previousFetched += servers.sumOf { minOf(it.size, perServerLimit) }
+		}
+
+		mergedFetched shouldBeLessThan previousFetched
+	}
+
+	test("servers that can't place are not read past their first page") {
+		val recent = List(100) { Item(1_000 - it, 0, it) }
+		val old = List(100) { Item(100 - it, 1, it) }
+		val recentFetched = AtomicInteger()
+		val oldFetched = AtomicInteger()
+
+		val merged = runBlocking {
+			mergeSortedPages(
+				sources = listOf(sourceOf(recent, recentFetched), sourceOf(old, oldFetched)),
+				comparator = newestFirst,
+				limit = 50,
+				pageSize = 20,
+			)
+		}
+
+		merged shouldContainExactly recent.take(50)
+		oldFetched.get() shouldBe 20
+		recentFetched.get() shouldBe 60
+	}
+
+	test("ties keep source order") {
+		val first = List(3) { Item(10, 0, it) }
+		val second = List(3) { Item(10, 1, it) }
+		val fetched = AtomicInteger()
+
+		val merged = runBlocking {
+			mergeSortedPages(listOf(sourceOf(second, fetched), sourceOf(first, fetched)), newestFirst, limit = 4)
+		}
+
+		merged shouldContainExactly second + first.take(1)
+	}
+
+	test("partial results are emitted while slower servers load") {
+		val fast = List(5) { Item(50 - it, 0, it) }
+		val slow = List(5) { Item(100 - it, 1, it) }
+		val slowRelease = CompletableDeferred<Unit>()
+		val partials = mutableListOf<List<Item>>()
+
+		val merged = runBlocking {
+			mergeSortedPages(
+				sources = listOf<SortedPageSource<Item>>(
+					{ startIndex, limit ->
+						slowRelease.await()
+						slow.drop(startIndex).take(limit)
+					},
+					{ startIndex, limit -> fast.drop(startIndex).take(limit) },
+				),
+				comparator = newestFirst,
+				limit = 6,
+				onPartialResult = { partial ->
+					partials.add(partial)
+					slowRelease.complete(Unit)
+				},
+			)
+		}
+
+		partials shouldContainExactly listOf(fast)
+		merged shouldContainExactly slow + fast.take(1)
+	}
+
+	test("no sources merge to nothing") {
+		runBlocking {
+			mergeSortedPages(emptyList<SortedPageSource<Item>>(), newestFirst, limit = 10).shouldBeEmpty()
+		}
+	}
+})
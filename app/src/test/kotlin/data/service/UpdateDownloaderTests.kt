@@ -0,0 +1,147 @@
+package org.jellyfin.androidtv.data.service
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+import okio.Buffer
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.security.MessageDigest
+
+class UpdateDownloaderTests : FunSpec({
+	val payload = ByteArray(256 * 1024) { (it % 251).toByte() }
+	val payloadSha256 = MessageDigest.getInstance("SHA-256").digest(payload).joinToString("") { "%02x".format(it) }
+
+	fun tempTarget(): File = File(Files.createTempDirectory("update-downloader").toFile(), "update.apk")
+
+	/**
+	 * Serves [payload], cutting the first full response off halfway and honouring `Range` afterwards.
+	 */
+	class ResumableDispatcher(private val payload: ByteArray) : Dispatcher() {
+		val rangeHeaders = mutableListOf<String?>()
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val range = request.getHeader("Range")
+			rangeHeaders += range
+			if (range == null) {
+				return MockResponse()
+					.setResponseCode(200)
+					.addHeader("ETag", "\"v1\"")
+					.setBody(Buffer().write(payload))
+					.apply { if (rangeHeaders.size == 1) socketPolicy = SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY }
+			}
+
+			val start = range.removePrefix("bytes=").substringBefore('-').toInt()
+			return MockResponse()
+				.setResponseCode(206)
+				.addHeader("ETag", "\"v1\"")
+				.addHeader("Content-Range", "bytes $start-${payload.size - 1}/${payload.size}")
+				.setBody(Buffer().write(payload, start, payload.size - start))
+		}
+	}
+
+	test("downloads a complete file and reports its digest") {
+		runBlocking {
+			MockWebServer().use { server ->
+				server.enqueue(MockResponse().setBody(Buffer().write(payload)))
+				val target = tempTarget()
+
+				val result = UpdateDownloader(OkHttpClient()).download(server.url("/app.apk").toString(), target)
+
+				result.sha256 shouldBe payloadSha256
+				result.resumedFromBytes shouldBe 0L
+				target.readBytes().contentEquals(payload).shouldBeTrue()
+				UpdateDownloader.partialFileFor(target).exists().shouldBeFalse()
+			}
+		}
+	}
+
+	test("resumes an interrupted download with a range request") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = ResumableDispatcher(payload)
+				server.dispatcher = dispatcher
+				val url = server.url("/app.apk").toString()
+				val target = tempTarget()
+				val downloader = UpdateDownloader(OkHttpClient())
+
+				shouldThrow<IOException> { downloader.download(url, target) }
+				val partialLength = UpdateDownloader.partialFileFor(target).length()
+				partialLength shouldBeGreaterThan 0L
+
+				val result = downloader.download(url, target, expectedSha256 = payloadSha256)
+
+				dispatcher.rangeHeaders shouldContainExactly listOf(null, "bytes=$partialLength-")
+				server.takeRequest()
+				server.takeRequest().getHeader("If-Range") shouldBe "\"v1\""
+				result.resumedFromBytes shouldBe partialLength
+				result.sha256 shouldBe payloadSha256
+				target.readBytes().contentEquals(payload).shouldBeTrue()
+			}
+		}
+	}
+
+	test("restarts from zero when the server ignores the range request") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = ResumableDispatcher(payload)
+				server.dispatcher = dispatcher
+				val url = server.url("/app.apk").toString()
+				val target = tempTarget()
+				val downloader = UpdateDownloader(OkHttpClient())
+				shouldThrow<IOException> { downloader.download(url, target) }
+
+				server.dispatcher = object : Dispatcher() {
+					override fun dispatch(request: RecordedRequest) = MockResponse().setBody(Buffer().write(payload))
+				}
+				val result = downloader.download(url, target)
+
+				result.resumedFromBytes shouldBe 0L
+				result.sha256 shouldBe payloadSha256
+				target.readBytes().contentEquals(payload).shouldBeTrue()
+			}
+		}
+	}
+
+	test("rejects a file whose digest does not match") {
+		runBlocking {
+			MockWebServer().use { server ->
+				server.enqueue(MockResponse().setBody(Buffer().write(payload)))
+				val target = tempTarget()
+
+				shouldThrow<SecurityException> {
+					UpdateDownloader(OkHttpClient()).download(server.url("/app.apk").toString(), target, expectedSha256 = "00")
+				}
+
+				target.exists().shouldBeFalse()
+				UpdateDownloader.partialFileFor(target).exists().shouldBeFalse()
+			}
+		}
+	}
+
+	test("suppresses progress callbacks inside the rate limit window") {
+		runBlocking {
+			MockWebServer().use { server ->
+				server.enqueue(MockResponse().setBody(Buffer().write(payload)))
+				val progress = mutableListOf<Int>()
+				val downloader = UpdateDownloader(OkHttpClient(), progressIntervalMs = 1_000L) { 0L }
+
+				downloader.download(server.url("/app.apk").toString(), tempTarget()) { progress += it }
+
+				progress shouldContainExactly listOf(100)
+			}
+		}
+	}
+})
@@ -0,0 +1,154 @@
+package org.jellyfin.androidtv.data.service.jellyseerr
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import java.io.File
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.time.Duration.Companion.hours
+
+class JellyseerrMetadataStoreTests : FunSpec({
+	val context = createFakeContext()
+
+	afterEach {
+		runBlocking { clearJellyseerrCookiesForUsers(context, "test-user") }
+	}
+
+	fun tempCacheFile(): File = File(Files.createTempDirectory("jellyseerr-metadata").toFile(), "metadata.json")
+
+	/**
+	 * Answers movie and TV details requests, counting calls per path.
+	 */
+	class DetailsDispatcher : Dispatcher() {
+		val calls = ConcurrentHashMap<String, AtomicInteger>()
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val path = request.path.orEmpty()
+			calls.getOrPut(path) { AtomicInteger() }.incrementAndGet()
+			val id = path.substringAfterLast('/').toInt()
+			val body = when {
+				path.startsWith("/api/v1/movie/") -> """{"id":$id,"title":"Movie $id","posterPath":"/m$id.jpg"}"""
+				path.startsWith("/api/v1/tv/") -> """{"id":$id,"name":"Show $id","posterPath":"/t$id.jpg"}"""
+				else -> return MockResponse().setResponseCode(404)
+			}
+			return MockResponse()
+				.addHeader("Content-Type", "application/json")
+				.setBody(body)
+		}
+	}
+
+	val ids = listOf("movie" to 1, "tv" to 2, "movie" to 1, "movie" to 3, "tv" to 2)
+
+	suspend fun refresh(store: JellyseerrMetadataStore, client: JellyseerrHttpClient) = coroutineScope {
+		ids.map { (type, id) ->
+			async {
+				store.get(type, id) {
+					when (type) {
+						"movie" -> client.getMovieDetails(id).getOrNull()?.let(JellyseerrMetadata::from)
+						else -> client.getTvDetails(id).getOrNull()?.let(JellyseerrMetadata::from)
+					}
+				}
+			}
+		}.awaitAll()
+	}
+
+	test("two refreshes fetch details once per id") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = DetailsDispatcher()
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				val store = JellyseerrMetadataStore(tempCacheFile())
+
+				val first = refresh(store, client)
+				val second = refresh(store, client)
+
+				second shouldBe first
+				first[0]?.title shouldBe "Movie 1"
+				first[1]?.name shouldBe "Show 2"
+				dispatcher.calls.mapValues { it.value.get() } shouldBe mapOf(
+					"/api/v1/movie/1" to 1,
+					"/api/v1/tv/2" to 1,
+					"/api/v1/movie/3" to 1,
+				)
+			}
+		}
+	}
+
+	test("persisted metadata is served without network calls after a restart") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = DetailsDispatcher()
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				val cacheFile = tempCacheFile()
+
+				val store = JellyseerrMetadataStore(cacheFile)
+				refresh(store, client)
+				store.flush()
+				val callsBefore = server.requestCount
+
+				val restored = refresh(JellyseerrMetadataStore(cacheFile), client)
+
+				server.requestCount shouldBe callsBefore
+				restored[3]?.title shouldBe "Movie 3"
+			}
+		}
+	}
+
+	test("expired entries are fetched again") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = DetailsDispatcher()
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				var now = 0L
+				val store = JellyseerrMetadataStore(tempCacheFile(), ttl = 1.hours, clock = { now })
+
+				refresh(store, client)
+				now += 2.hours.inWholeMilliseconds
+				refresh(store, client)
+
+				dispatcher.calls.getValue("/api/v1/movie/1").get() shouldBe 2
+			}
+		}
+	}
+
+	test("failed fetches are not cached") {
+		runBlocking {
+			val store = JellyseerrMetadataStore(tempCacheFile())
+			var attempts = 0
+
+			store.get("movie", 1) { attempts++; null } shouldBe null
+			store.get("movie", 1) { attempts++; JellyseerrMetadata(title = "Movie 1") }?.title shouldBe "Movie 1"
+
+			attempts shouldBe 2
+		}
+	}
+
+	test("least recently used entries are evicted past the bound") {
+		runBlocking {
+			val store = JellyseerrMetadataStore(tempCacheFile(), maxEntries = 2)
+			var attempts = 0
+			suspend fun get(id: Int) = store.get("movie", id) { attempts++; JellyseerrMetadata(title = "Movie $id") }
+
+			get(1)
+			get(2)
+			get(1)
+			get(3)
+			get(1)
+			get(2)
+
+			attempts shouldBe 4
+		}
+	}
+})
@@ -7,6 +7,7 @@ import io.mockk.mockk
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArraySet
 
 internal fun createFakeContext(): Context {
 	val prefsByName = ConcurrentHashMap<String, SharedPreferences>()
@@ -21,6 +22,7 @@ internal fun createFakeContext(): Context {
 
 internal class InMemorySharedPreferences : SharedPreferences {
 	private val data = ConcurrentHashMap<String, Any?>()
+	private val listeners = CopyOnWriteArraySet<SharedPreferences.OnSharedPreferenceChangeListener>()
 
 	override fun getAll(): Map<String, *> = data.toMap()
 
@@ -39,15 +41,18 @@ internal class InMemorySharedPreferences : SharedPreferences {
 
 	override fun contains(key: String) = data.containsKey(key)
 
-	override fun edit(): SharedPreferences.Editor = Editor(data)
+	override fun edit(): SharedPreferences.Editor = Editor()
 
-	override fun registerOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) = Unit
+	override fun registerOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) {
+		listeners += listener
+	}
 
-	override fun unregisterOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) = Unit
+	override fun unregisterOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) {
+		listeners -= listener
+	}
 
-	private class Editor(
-		private val data: ConcurrentHashMap<String, Any?>,
-	) : SharedPreferences.Editor {
+	// Listeners are notified right away for every key whose value changed
+	private inner class Editor : SharedPreferences.Editor {
 		private val pending = mutableMapOf<String, Any?>()
 		private var clearRequested = false
 
@@ -77,10 +82,12 @@ internal class InMemorySharedPreferences : SharedPreferences {
 				data.clear()
 				clearRequested = false
 			}
+			val changed = pending.filter { (key, value) -> data[key] != value }.keys
 			pending.forEach { (key, value) ->
 				if (value == null) data.remove(key) else data[key] = value
 			}
 			pending.clear()
+			for (key in changed) listeners.forEach { it.onSharedPreferenceChanged(this@InMemorySharedPreferences, key) }
 		}
 	}
 }
@@ -8,7 +8,12 @@ import io.ktor.http.Cookie
 import io.ktor.http.CookieEncoding
 import io.ktor.http.Url
 import android.content.Context
+import android.content.SharedPreferences
+import io.ktor.util.date.GMTDate
+import io.mockk.every
+import io.mockk.mockk
 import kotlinx.coroutines.runBlocking
+import kotlin.concurrent.thread
 
 class PersistentCookiesStorageTests : FunSpec({
 	val context = createFakeContext()
@@ -110,4 +115,97 @@ class PersistentCookiesStorageTests : FunSpec({
 			delegating.get(requestUrl).single().value shouldBe "user-a-session"
 		}
 	}
+
+	test("coalesces a burst of cookie writes into one preferences edit") {
+		runBlocking {
+			val preferences = CountingSharedPreferences(InMemorySharedPreferences())
+			val countingContext = mockk<Context>(relaxed = true)
+			every { countingContext.getSharedPreferences(any(), any()) } returns preferences
+
+			val storage = PersistentCookiesStorage(countingContext, "cookie-user-burst")
+			repeat(20) { index ->
+				storage.addCookie(
+					requestUrl,
+					Cookie(name = "cookie$index", value = "value$index", encoding = CookieEncoding.RAW),
+				)
+			}
+			storage.get(requestUrl) shouldHaveSize 20
+			storage.flush()
+
+			preferences.edits shouldBe 1
+			preferences.all.size shouldBe 20
+		}
+	}
+
+	test("clearAll during a flush is not undone by the flushed changes") {
+		runBlocking {
+			val preferences = CountingSharedPreferences(InMemorySharedPreferences())
+			val countingContext = mockk<Context>(relaxed = true)
+			every { countingContext.getSharedPreferences(any(), any()) } returns preferences
+
+			val storage = PersistentCookiesStorage(countingContext, "cookie-user-clear-flush")
+			storage.addCookie(requestUrl, Cookie(name = "session", value = "old", encoding = CookieEncoding.RAW))
+
+			// Clear from another thread while the flush is writing
+			var clearThread: Thread? = null
+			preferences.onEdit = {
+				preferences.onEdit = null
+				clearThread = thread { runBlocking { storage.clearAll() } }.apply { join(200) }
+			}
+			storage.flush()
+			clearThread!!.join()
+
+			storage.get(requestUrl).shouldBeEmpty()
+			preferences.all.size shouldBe 0
+		}
+	}
+
+	test("removes a cookie resent with an expiry in the past") {
+		runBlocking {
+			val storage = PersistentCookiesStorage(context, "cookie-user-expire")
+			storage.addCookie(requestUrl, Cookie(name = "session", value = "live", encoding = CookieEncoding.RAW))
+			storage.addCookie(requestUrl, Cookie(name = "other", value = "keep", encoding = CookieEncoding.RAW))
+			storage.addCookie(
+				requestUrl,
+				Cookie(name = "session", value = "", encoding = CookieEncoding.RAW, expires = GMTDate(0L)),
+			)
+			storage.flush()
+
+			storage.get(requestUrl).map { it.name } shouldBe listOf("other")
+			context.getSharedPreferences("jellyseerr_cookies_cookie-user-expire", Context.MODE_PRIVATE)
+				.all.keys shouldBe setOf("other_jellyseerr.example")
+		}
+	}
+
+	test("domain cookies match subdomains while host-only cookies stay on their host") {
+		runBlocking {
+			val storage = PersistentCookiesStorage(context, "cookie-user-domain")
+			storage.addCookie(
+				Url("http://requests.example.com/"),
+				Cookie(name = "shared", value = "a", encoding = CookieEncoding.RAW, domain = ".example.com"),
+			)
+			storage.addCookie(
+				Url("http://requests.example.com/"),
+				Cookie(name = "hostOnly", value = "b", encoding = CookieEncoding.RAW),
+			)
+
+			storage.get(Url("http://requests.example.com/api")).map { it.name }.toSet() shouldBe setOf("shared", "hostOnly")
+			storage.get(Url("http://other.example.com/api")).map { it.name } shouldBe listOf("shared")
+			storage.get(Url("http://example.org/api")).shouldBeEmpty()
+		}
+	}
 })
+
+private class CountingSharedPreferences(
+	private val delegate: SharedPreferences,
+) : SharedPreferences by delegate {
+	var edits = 0
+		private set
+	var onEdit: (() -> Unit)? = null
+
+	override fun edit(): SharedPreferences.Editor {
+		edits++
+		onEdit?.invoke()
+		return delegate.edit()
+	}
+}
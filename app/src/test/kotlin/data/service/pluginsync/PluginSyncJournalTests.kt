@@ -0,0 +1,61 @@
+package org.jellyfin.androidtv.data.service.pluginsync
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.maps.shouldBeEmpty
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import org.jellyfin.androidtv.data.service.jellyseerr.InMemorySharedPreferences
+
+class PluginSyncJournalTests : FunSpec({
+	test("records changed keys with increasing versions") {
+		val journal = PluginSyncJournal(InMemorySharedPreferences())
+
+		val first = journal.recordChange("confirmExit")
+		val second = journal.recordChange("seasonalSurprise")
+
+		journal.pending() shouldBe mapOf("confirmExit" to first, "seasonalSurprise" to second)
+		(second > first) shouldBe true
+	}
+
+	test("records a batch of keys with one version") {
+		val journal = PluginSyncJournal(InMemorySharedPreferences())
+
+		val version = journal.recordChanges(listOf("confirmExit", "seasonalSurprise"))
+
+		journal.pending() shouldBe mapOf("confirmExit" to version, "seasonalSurprise" to version)
+	}
+
+	test("acknowledge keeps keys changed again during the push") {
+		val journal = PluginSyncJournal(InMemorySharedPreferences())
+		journal.recordChange("confirmExit")
+		journal.recordChange("seasonalSurprise")
+		val pushed = journal.pending()
+
+		val newer = journal.recordChange("confirmExit")
+		journal.acknowledge(pushed)
+
+		journal.pending() shouldBe mapOf("confirmExit" to newer)
+	}
+
+	test("reports only keys with a newer server version") {
+		val journal = PluginSyncJournal(InMemorySharedPreferences())
+		journal.recordServerVersions(mapOf("confirmExit" to 3L, "seasonalSurprise" to 7L))
+
+		journal.serverChangedKeys(mapOf("confirmExit" to 4L, "seasonalSurprise" to 7L)) shouldBe setOf("confirmExit")
+	}
+
+	test("treats every key as changed when the server has no versions") {
+		PluginSyncJournal(InMemorySharedPreferences()).serverChangedKeys(null).shouldBeNull()
+	}
+
+	test("reset clears pending changes and the stored ETag") {
+		val journal = PluginSyncJournal(InMemorySharedPreferences())
+		journal.recordChange("confirmExit")
+		journal.etag = "\"abc\""
+
+		journal.reset()
+
+		journal.pending().shouldBeEmpty()
+		journal.etag.shouldBeNull()
+	}
+})
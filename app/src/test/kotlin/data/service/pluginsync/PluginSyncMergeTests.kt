@@ -76,4 +76,25 @@ class PluginSyncMergeTests : FunSpec({
 
 		merged shouldBe mapOf(key to false)
 	}
+
+	test("server view keeps snapshot values for keys unchanged on the server") {
+		val snapshot = mapOf(key to false, "seasonalSurprise" to "none")
+		val server = mapOf(key to true, "seasonalSurprise" to "winter")
+
+		PluginSyncMerge.serverView(server, snapshot, setOf("seasonalSurprise")) shouldBe
+			mapOf(key to false, "seasonalSurprise" to "winter")
+	}
+
+	test("server view without per-key versions uses the full server map") {
+		val server = mapOf(key to true)
+
+		PluginSyncMerge.serverView(server, mapOf(key to false), null) shouldBe server
+	}
+
+	test("changed keys only include syncable keys that differ from the baseline") {
+		val settings = mapOf(key to true, "userPinLength" to "4", "notASyncKey" to "x")
+		val baseline = mapOf(key to false, "userPinLength" to 4)
+
+		PluginSyncMerge.changedKeys(settings, baseline) shouldBe setOf(key)
+	}
 })
@@ -0,0 +1,134 @@
+package org.jellyfin.androidtv.data.service.pluginsync
+
+import android.content.Context
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.maps.shouldBeEmpty
+import io.kotest.matchers.shouldBe
+import io.mockk.coEvery
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.androidtv.auth.repository.UserRepository
+import org.jellyfin.androidtv.data.repository.JellyseerrRepository
+import org.jellyfin.androidtv.data.service.UpdateCheckerService
+import org.jellyfin.androidtv.data.service.jellyseerr.baseUrl
+import org.jellyfin.androidtv.data.service.jellyseerr.createFakeContext
+import org.jellyfin.androidtv.preference.UserPreferences
+import org.jellyfin.androidtv.preference.UserSettingPreferences
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.model.api.UserDto
+import java.util.Collections
+
+class PluginSyncServiceTests : FunSpec({
+	// v1 settings endpoint guarding writes with an ETag that changes on every write
+	class SettingsServer : Dispatcher() {
+		@Volatile var settings = JsonObject(emptyMap())
+		@Volatile var version = 1
+		val ifMatch: MutableList<String?> = Collections.synchronizedList(mutableListOf())
+		val pushed: MutableList<JsonObject> = Collections.synchronizedList(mutableListOf())
+
+		// Write made by another device
+		@Synchronized
+		fun update(key: String, value: String) {
+			settings = JsonObject(settings + (key to JsonPrimitive(value)))
+			version++
+		}
+
+		@Synchronized
+		override fun dispatch(request: RecordedRequest): MockResponse = when {
+			request.path == "/Moonfin/Ping" -> MockResponse().setBody("{}")
+			request.method == "GET" -> MockResponse().setHeader("ETag", "\"$version\"").setBody(settings.toString())
+			else -> {
+				val etag = request.getHeader("If-Match")
+				ifMatch += etag
+				if (etag != "\"$version\"") {
+					MockResponse().setResponseCode(412)
+				} else {
+					settings = Json.parseToJsonElement(request.body.readUtf8()).jsonObject.getValue("settings").jsonObject
+					pushed += settings
+					version++
+					MockResponse().setHeader("ETag", "\"$version\"")
+				}
+			}
+		}
+	}
+
+	fun createService(context: Context, server: MockWebServer, userPreferences: UserPreferences): PluginSyncService {
+		val api = mockk<ApiClient> {
+			every { baseUrl } returns server.baseUrl()
+			every { accessToken } returns "token"
+		}
+		val userRepository = mockk<UserRepository> {
+			every { currentUser } returns MutableStateFlow<UserDto?>(null)
+		}
+		val updateCheckerService = mockk<UpdateCheckerService> {
+			coEvery { checkForUpdateViaPlugin(any(), any()) } returns Result.success(null)
+		}
+
+		return PluginSyncService(
+			context,
+			api,
+			userPreferences,
+			UserSettingPreferences(context),
+			userRepository,
+			mockk<JellyseerrRepository>(),
+			updateCheckerService,
+		)
+	}
+
+	test("push conflict pulls, merges and retries with the new ETag") {
+		val context = createFakeContext()
+		val settingsServer = SettingsServer()
+		val server = MockWebServer()
+		server.dispatcher = settingsServer
+		server.start()
+		val userPreferences = UserPreferences(context)
+		val service = createService(context, server, userPreferences)
+
+		try {
+			runBlocking {
+				service.syncOnStartup()
+				settingsServer.ifMatch shouldContainExactly listOf("\"1\"")
+
+				settingsServer.update("seasonalSurprise", "halloween")
+				userPreferences[UserPreferences.confirmExit] = false
+
+				withTimeout(5_000) {
+					while (service.syncCompletedCounter.value < 2) delay(10)
+				}
+				// Give an echo of the merged values the time to schedule another push
+				delay(1_000)
+			}
+
+			settingsServer.ifMatch shouldContainExactly listOf("\"1\"", "\"2\"", "\"3\"")
+
+			// Every push holds the full settings, merged with the other device's change
+			val (startup, retry) = settingsServer.pushed
+			retry.keys shouldBe startup.keys
+			retry.getValue("confirmExit") shouldBe JsonPrimitive(false)
+			retry.getValue("seasonalSurprise") shouldBe JsonPrimitive("halloween")
+			userPreferences[UserPreferences.seasonalSurprise] shouldBe "halloween"
+
+			// Only the user's change was journaled, the merged value written locally was not
+			val journal = PluginSyncJournal(context.getSharedPreferences(PluginSyncConstants.JOURNAL_PREFS_NAME, Context.MODE_PRIVATE))
+			journal.pending().shouldBeEmpty()
+			journal.recordChange("confirmExit") shouldBe 2L
+			journal.etag shouldBe "\"4\""
+		} finally {
+			service.unregisterChangeListeners()
+			server.shutdown()
+		}
+	}
+})
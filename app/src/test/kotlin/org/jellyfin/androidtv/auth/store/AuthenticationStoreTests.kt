@@ -0,0 +1,189 @@
+package org.jellyfin.androidtv.auth.store
+
+import android.content.Context
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import org.jellyfin.androidtv.auth.model.AuthenticationStoreServer
+import org.jellyfin.androidtv.auth.model.AuthenticationStoreUser
+import java.io.File
+import java.nio.file.Files
+import java.util.UUID
+import kotlin.time.Duration.Companion.hours
+import kotlin.time.Duration.Companion.milliseconds
+
+class AuthenticationStoreTests : FunSpec({
+	val serverA = UUID.fromString("00000000-0000-0000-0000-0000000000a1")
+	val serverB = UUID.fromString("00000000-0000-0000-0000-0000000000a2")
+	val user = UUID.fromString("00000000-0000-0000-0000-000000000001")
+
+	fun createContext(): Context {
+		val filesDir = Files.createTempDirectory("authentication-store").toFile()
+		return mockk { every { this@mockk.filesDir } returns filesDir }
+	}
+
+	// A scope that never runs the background flush, like a process that gets killed before it happens
+	fun crashingStore(context: Context): AuthenticationStore {
+		val scope = CoroutineScope(Dispatchers.IO + SupervisorJob()).apply { cancel() }
+		return AuthenticationStore(context, scope, flushDelay = 1.hours)
+	}
+
+	fun server(name: String, lastUsed: Long = 0) = AuthenticationStoreServer(
+		name = name,
+		address = "http://$name.local:8096",
+		lastUsed = lastUsed,
+		lastRefreshed = 0,
+	)
+
+	fun Context.file(name: String) = File(filesDir, name)
+
+	test("bursts of updates are written once") {
+		val context = createContext()
+		val store = AuthenticationStore(context, flushDelay = 100.milliseconds)
+
+		store.putServer(serverA, server("a"))
+		store.putUser(serverA, user, AuthenticationStoreUser(name = "user", lastUsed = 0))
+		repeat(100) { index ->
+			store.putServer(serverA, store.getServer(serverA)!!.copy(lastUsed = index.toLong()))
+		}
+
+		store.storeWriteCount shouldBe 0
+		store.getServer(serverA)?.lastUsed shouldBe 99
+
+		Thread.sleep(500)
+
+		store.storeWriteCount shouldBe 1
+		context.file("authentication_store.journal").exists() shouldBe false
+		AuthenticationStore(context).getServer(serverA)?.lastUsed shouldBe 99
+	}
+
+	test("unchanged values are not journaled") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		repeat(10) { store.putServer(serverA, server("a")) }
+
+		context.file("authentication_store.journal").readLines().size shouldBe 1
+	}
+
+	test("changes survive a crash before the flush") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		store.putServer(serverB, server("b"))
+		store.putUser(serverA, user, AuthenticationStoreUser(name = "user", lastUsed = 0))
+		store.removeServer(serverB)
+		store.storeWriteCount shouldBe 0
+
+		val recovered = crashingStore(context)
+		recovered.getServers().keys shouldBe setOf(serverA)
+		recovered.getUser(serverA, user)?.name shouldBe "user"
+	}
+
+	test("journal entry cut off while appending is ignored") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a", lastUsed = 1))
+		store.putServer(serverA, server("a", lastUsed = 2))
+
+		val journal = context.file("authentication_store.journal")
+		val content = journal.readText()
+		journal.writeText(content.substring(0, content.length - 20))
+
+		crashingStore(context).getServer(serverA)?.lastUsed shouldBe 1
+	}
+
+	test("store write interrupted before the rename keeps the previous state") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		store.flush() shouldBe true
+		store.putServer(serverB, server("b"))
+
+		// Partially written replacement that never got renamed
+		context.file("authentication_store.json.tmp").writeText("""{"version":2,"servers":{""")
+
+		val recovered = crashingStore(context)
+		recovered.getServers().keys shouldBe setOf(serverA, serverB)
+		context.file("authentication_store.json.tmp").exists() shouldBe false
+	}
+
+	test("store deleted during an interrupted write is recovered from the replacement") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		store.flush() shouldBe true
+		store.putServer(serverB, server("b"))
+
+		// The only complete copy is the replacement that never got renamed
+		context.file("authentication_store.json").renameTo(context.file("authentication_store.json.tmp"))
+
+		val recovered = crashingStore(context)
+		recovered.getServers().keys shouldBe setOf(serverA, serverB)
+		context.file("authentication_store.json").exists() shouldBe true
+		context.file("authentication_store.json.tmp").exists() shouldBe false
+	}
+
+	test("unreadable store is recovered from a complete replacement") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		store.flush() shouldBe true
+		context.file("authentication_store.json").copyTo(context.file("authentication_store.json.tmp"))
+		context.file("authentication_store.json").writeText("{not json")
+
+		crashingStore(context).getServers().keys shouldBe setOf(serverA)
+		context.file("authentication_store.json.tmp").exists() shouldBe false
+	}
+
+	test("a new account survives a crash right after it was added") {
+		val context = createContext()
+		// Production scope, the crash happens while the rewrite is still waiting
+		val store = AuthenticationStore(context, flushDelay = 1.hours)
+
+		store.putServer(serverA, server("a"))
+		store.putUser(serverA, user, AuthenticationStoreUser(name = "user", lastUsed = 0))
+
+		// Read by a new process without any flush or pending work of the old one
+		val recovered = crashingStore(context)
+		recovered.getUser(serverA, user)?.name shouldBe "user"
+		store.storeWriteCount shouldBe 0
+	}
+
+	test("flush replaces the store and clears the journal") {
+		val context = createContext()
+		val store = crashingStore(context)
+
+		store.putServer(serverA, server("a"))
+		store.flush() shouldBe true
+		store.flush() shouldBe true
+
+		store.storeWriteCount shouldBe 1
+		context.file("authentication_store.journal").exists() shouldBe false
+		context.file("authentication_store.json.tmp").exists() shouldBe false
+		crashingStore(context).getServers().keys shouldBe setOf(serverA)
+	}
+
+	test("corrupt store is quarantined and the journal is still replayed") {
+		val context = createContext()
+		context.file("authentication_store.json").writeText("{not json")
+
+		val store = crashingStore(context)
+		store.getServers() shouldBe emptyMap()
+		context.file("authentication_store.json.corrupt").exists() shouldBe true
+
+		store.putServer(serverA, server("a"))
+		crashingStore(context).getServers().keys shouldBe setOf(serverA)
+	}
+})
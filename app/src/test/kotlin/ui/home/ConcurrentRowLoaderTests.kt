@@ -0,0 +1,198 @@
+package org.jellyfin.androidtv.ui.home
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.androidtv.ui.presentation.MutableObjectAdapter
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.extensions.userLibraryApi
+import org.jellyfin.sdk.createJellyfin
+import org.jellyfin.sdk.model.ClientInfo
+import org.jellyfin.sdk.model.DeviceInfo
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.request.GetLatestMediaRequest
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.time.measureTimedValue
+
+class ConcurrentRowLoaderTests : FunSpec({
+	// Latency of the latest items endpoint per library, the slowest library is in the middle
+	val latencies = listOf(120L, 80L, 300L, 60L, 150L, 90L, 200L, 40L, 100L, 70L)
+	val libraries = latencies.indices.map { UUID(0x11b, it.toLong()) }
+
+	class LatestServer : Dispatcher() {
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val parentId = UUID.fromString(request.requestUrl!!.queryParameter("parentId"))
+			val latency = latencies[libraries.indexOf(parentId)]
+			return MockResponse()
+				.setHeader("Content-Type", "application/json")
+				.setBody("""[{"Id":"${UUID(parentId.mostSignificantBits, 0xffff)}","Type":"Movie","Name":"Latest"}]""")
+				.setHeadersDelay(latency, TimeUnit.MILLISECONDS)
+		}
+	}
+
+	fun createApi(server: MockWebServer): ApiClient = createJellyfin {
+		clientInfo = ClientInfo("Test", "1.0")
+		deviceInfo = DeviceInfo("test", "Test")
+	}.createApi(baseUrl = server.url("/").toString().trimEnd('/'), accessToken = "token")
+
+	suspend fun ApiClient.getLatest(parentId: UUID): List<BaseItemDto> = withContext(Dispatchers.IO) {
+		userLibraryApi.getLatestMedia(GetLatestMediaRequest(parentId = parentId, limit = 15)).content
+	}
+
+	// Adapter backed by a plain list, the leanback observers don't exist on the JVM
+	fun adapterOf(vararg rows: String): Pair<MutableObjectAdapter<String>, MutableList<String>> {
+		val data = rows.toMutableList()
+		val adapter = mockk<MutableObjectAdapter<String>> {
+			every { indexOf(any()) } answers { data.indexOf(firstArg()) }
+			every { set(any(), any()) } answers { data[firstArg<Int>()] = secondArg() }
+			every { add(any<Int>(), any()) } answers { data.add(firstArg<Int>(), secondArg()) }
+			every { removeAt(any(), any()) } answers { data.removeAt(firstArg<Int>()); true }
+		}
+		return adapter to data
+	}
+
+	test("loading all libraries with the home row bound takes about as long as the slowest one") {
+		val server = MockWebServer()
+		server.dispatcher = LatestServer()
+		server.start()
+		val api = createApi(server)
+
+		val rows = arrayOfNulls<List<BaseItemDto>>(libraries.size)
+		val inFlight = AtomicInteger()
+		val maxInFlight = AtomicInteger()
+		val (_, elapsed) = measureTimedValue {
+			runBlocking {
+				loadRowsConcurrently(
+					sources = libraries,
+					maxConcurrency = HomeFragmentAggregatedLatestRow.MAX_CONCURRENT_LIBRARIES,
+					load = { parentId ->
+						maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+						try {
+							api.getLatest(parentId)
+						} finally {
+							inFlight.decrementAndGet()
+						}
+					},
+				) { index, _, result -> rows[index] = result.getOrThrow() }
+			}
+		}
+
+		rows.all { it?.size == 1 } shouldBe true
+		server.requestCount shouldBe libraries.size
+		maxInFlight.get() shouldBe HomeFragmentAggregatedLatestRow.MAX_CONCURRENT_LIBRARIES
+		// With this latency table the bounded schedule also ends with the slowest library
+		elapsed.inWholeMilliseconds shouldBeLessThan latencies.max() + 200
+
+		server.shutdown()
+	}
+
+	test("results are handed over as they land with the index of their source") {
+		val order = mutableListOf<Int>()
+
+		runBlocking {
+			loadRowsConcurrently(
+				sources = listOf(300L, 100L, 200L),
+				maxConcurrency = 3,
+				load = { latency -> delay(latency) },
+			) { index, _, _ -> order.add(index) }
+		}
+
+		order shouldContainExactly listOf(1, 2, 0)
+	}
+
+	test("requests in flight are bounded") {
+		val inFlight = AtomicInteger()
+		var maxInFlight = 0
+
+		runBlocking {
+			loadRowsConcurrently(
+				sources = (0 until 20).toList(),
+				maxConcurrency = 4,
+				load = {
+					maxInFlight = maxOf(maxInFlight, inFlight.incrementAndGet())
+					delay(10)
+					inFlight.decrementAndGet()
+				},
+			) { _, _, _ -> }
+		}
+
+		maxInFlight shouldBe 4
+	}
+
+	test("failures are handed over without stopping other rows") {
+		val results = mutableMapOf<Int, Result<Int>>()
+
+		runBlocking {
+			loadRowsConcurrently(
+				sources = listOf(1, 2, 3),
+				maxConcurrency = 2,
+				load = { value -> if (value == 2) error("Library unavailable") else value },
+			) { index, _, result -> results[index] = result }
+		}
+
+		results[0]?.getOrNull() shouldBe 1
+		results[1]?.isFailure shouldBe true
+		results[2]?.getOrNull() shouldBe 3
+	}
+
+	test("placeholders take the place of the anchor") {
+		val (adapter, rows) = adapterOf("top", "anchor", "bottom")
+
+		PlaceholderRows(adapter, "anchor").expand(listOf("a", "b", "c")) shouldBe true
+
+		rows shouldContainExactly listOf("top", "a", "b", "c", "bottom")
+	}
+
+	test("the anchor is removed when there are no placeholders") {
+		val (adapter, rows) = adapterOf("top", "anchor", "bottom")
+
+		PlaceholderRows(adapter, "anchor").expand(emptyList()) shouldBe false
+
+		rows shouldContainExactly listOf("top", "bottom")
+	}
+
+	test("nothing is added when the anchor is gone") {
+		val (adapter, rows) = adapterOf("top", "bottom")
+
+		PlaceholderRows(adapter, "anchor").expand(listOf("a", "b")) shouldBe false
+
+		rows shouldContainExactly listOf("top", "bottom")
+	}
+
+	test("rows landing out of order replace their placeholder in place") {
+		val (adapter, rows) = adapterOf("top", "anchor", "bottom")
+		val placeholderRows = PlaceholderRows(adapter, "anchor")
+		placeholderRows.expand(listOf("a", "b", "c"))
+
+		placeholderRows.replace("c", "C")
+		placeholderRows.replace("b", null)
+		placeholderRows.replace("a", "A")
+
+		rows shouldContainExactly listOf("top", "A", "C", "bottom")
+	}
+
+	test("placeholders removed meanwhile are left alone") {
+		val (adapter, rows) = adapterOf("anchor")
+		val placeholderRows = PlaceholderRows(adapter, "anchor")
+		placeholderRows.expand(listOf("a", "b"))
+		rows.remove("a")
+
+		placeholderRows.isShown("a") shouldBe false
+		placeholderRows.replace("a", "A")
+
+		rows shouldContainExactly listOf("b")
+	}
+})
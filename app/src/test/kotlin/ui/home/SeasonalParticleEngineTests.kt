@@ -0,0 +1,111 @@
+package org.jellyfin.androidtv.ui.home
+
+import com.sun.management.ThreadMXBean
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import java.lang.management.ManagementFactory
+import kotlin.random.Random
+
+class SeasonalParticleEngineTests : FunSpec({
+	val width = 1920
+	val height = 1080
+
+	class CountingRenderer : SeasonalParticleRenderer {
+		var particles = 0
+		val perSprite = IntArray(4)
+
+		override fun drawParticle(
+			sprite: Int,
+			variant: Int,
+			x: Float,
+			y: Float,
+			size: Int,
+			rotation: Float,
+			mirrored: Boolean,
+			alpha: Int,
+		) {
+			particles++
+			perSprite[sprite]++
+		}
+	}
+
+	val engines = mapOf(
+		"winter" to ::createSnowfallEngine,
+		"spring" to ::createPetalfallEngine,
+		"fall" to ::createLeaffallEngine,
+		"halloween" to ::createHalloweenEngine,
+	)
+
+	fun SeasonalParticleEngine.run(frames: Int, renderer: SeasonalParticleRenderer) {
+		repeat(frames) {
+			step(width, height)
+			draw(renderer)
+		}
+	}
+
+	for ((name, createEngine) in engines) {
+		test("$name steady-state frames do not allocate") {
+			val threads = ManagementFactory.getThreadMXBean() as ThreadMXBean
+			val threadId = Thread.currentThread().id
+			val engine = createEngine(Random(42))
+			val renderer = CountingRenderer()
+			val frames = 10_000
+
+			// Warm up past the first waves of figures so all buffers are in use
+			engine.run(frames, renderer)
+			threads.getThreadAllocatedBytes(threadId)
+
+			renderer.particles = 0
+			val before = threads.getThreadAllocatedBytes(threadId)
+			engine.run(frames, renderer)
+			val allocated = threads.getThreadAllocatedBytes(threadId) - before
+
+			renderer.particles shouldBeGreaterThan frames
+			allocated shouldBe 0L
+		}
+	}
+
+	test("figures appear again in later waves") {
+		val engine = createSnowfallEngine(Random(1))
+		val renderer = CountingRenderer()
+
+		// Snowmen spawn after 300 updates at every other frame
+		engine.run(3_000, renderer)
+
+		renderer.perSprite[0] shouldBe 25 * 3_000
+		renderer.perSprite[1] shouldBeGreaterThan 0
+	}
+
+	test("at most the configured amount of spiders is shown") {
+		val engine = createHalloweenEngine(Random(7))
+		val renderer = CountingRenderer()
+
+		repeat(5_000) {
+			renderer.perSprite[1] = 0
+			engine.step(width, height)
+			engine.draw(renderer)
+			renderer.perSprite[1] shouldBeLessThanOrEqual 2
+		}
+	}
+
+	test("engine does not step without a size and starts over after a reset") {
+		val engine = createPetalfallEngine(Random(3))
+		val renderer = CountingRenderer()
+
+		engine.step(0, 0)
+		engine.draw(renderer)
+		engine.frameCount shouldBe 0
+		renderer.particles shouldBe 0
+
+		engine.run(100, renderer)
+		engine.frameCount shouldBe 100
+
+		engine.reset()
+		renderer.particles = 0
+		engine.draw(renderer)
+		engine.frameCount shouldBe 0
+		renderer.particles shouldBe 0
+	}
+})
@@ -0,0 +1,158 @@
+package org.jellyfin.androidtv.ui.jellyseerr
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.androidtv.data.service.jellyseerr.JellyseerrHttpClient
+import org.jellyfin.androidtv.data.service.jellyseerr.clearJellyseerrCookiesForUsers
+import org.jellyfin.androidtv.data.service.jellyseerr.createFakeContext
+import org.jellyfin.androidtv.data.service.jellyseerr.createJellyseerrClient
+import java.util.Collections
+
+class JellyseerrRowPagerTests : FunSpec({
+	val context = createFakeContext()
+	val pageSize = 4
+
+	afterEach {
+		runBlocking { clearJellyseerrCookiesForUsers(context, "test-user") }
+	}
+
+	/**
+	 * Serves the trending endpoint with [pageSize] movies per page, ids `page * 100 + index`.
+	 */
+	class TrendingDispatcher(private val totalPages: Int) : Dispatcher() {
+		val requestedPages: MutableList<Int> = Collections.synchronizedList(mutableListOf())
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val page = request.requestUrl?.queryParameter("page")?.toInt() ?: return MockResponse().setResponseCode(404)
+			requestedPages += page
+			val results = (0 until 4).joinToString(",") { """{"id":${page * 100 + it},"mediaType":"movie"}""" }
+			return MockResponse()
+				.addHeader("Content-Type", "application/json")
+				.setBody("""{"page":$page,"totalPages":$totalPages,"totalResults":${totalPages * 4},"results":[$results]}""")
+		}
+	}
+
+	fun CoroutineScope.createPager(client: JellyseerrHttpClient, maxRetainedPages: Int = 10) = JellyseerrRowPager(
+		scope = this,
+		prefetchThreshold = 0.5f,
+		maxRetainedPages = maxRetainedPages,
+	) { page ->
+		client.getTrending(limit = pageSize, offset = (page - 1) * pageSize).map {
+			JellyseerrRowPager.Page(items = it.results, isLast = it.page >= it.totalPages)
+		}
+	}
+
+	suspend fun JellyseerrRowPager.awaitEndIndex(endIndex: Int) = withTimeout(5_000) {
+		snapshot.first { it.endIndex >= endIndex }
+	}
+
+	suspend fun JellyseerrRowPager.loadFirstPage(client: JellyseerrHttpClient) {
+		val page = client.getTrending(limit = pageSize, offset = 0).getOrThrow()
+		submitFirstPage(JellyseerrRowPager.Page(items = page.results, isLast = page.page >= page.totalPages))
+	}
+
+	test("prefetches the next page once focus passes the threshold of the last page") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = TrendingDispatcher(totalPages = 10)
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				val pager = createPager(client)
+				pager.loadFirstPage(client)
+
+				pager.onItemFocused(0)
+				pager.onItemFocused(1)
+				dispatcher.requestedPages shouldContainExactly listOf(1)
+
+				pager.onItemFocused(2)
+				pager.awaitEndIndex(8)
+				dispatcher.requestedPages shouldContainExactly listOf(1, 2)
+
+				// Page 2 spans positions 4..7, so its threshold is position 6
+				pager.onItemFocused(3)
+				pager.onItemFocused(5)
+				dispatcher.requestedPages shouldContainExactly listOf(1, 2)
+
+				pager.onItemFocused(6)
+				pager.awaitEndIndex(12)
+				dispatcher.requestedPages shouldContainExactly listOf(1, 2, 3)
+				pager.snapshot.value.items.map { it.id } shouldContainExactly listOf(
+					100, 101, 102, 103,
+					200, 201, 202, 203,
+					300, 301, 302, 303,
+				)
+			}
+		}
+	}
+
+	test("does not request the same page twice while it is loading") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = TrendingDispatcher(totalPages = 10)
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				val pager = createPager(client)
+				pager.loadFirstPage(client)
+
+				pager.onItemFocused(2)
+				pager.onItemFocused(3)
+				pager.awaitEndIndex(8)
+
+				dispatcher.requestedPages shouldContainExactly listOf(1, 2)
+			}
+		}
+	}
+
+	test("keeps at most the configured number of pages") {
+		runBlocking {
+			MockWebServer().use { server ->
+				server.dispatcher = TrendingDispatcher(totalPages = 10)
+				val client = createJellyseerrClient(context, server)
+				val pager = createPager(client, maxRetainedPages = 3)
+				pager.loadFirstPage(client)
+
+				for (page in 2..5) {
+					pager.onItemFocused(pager.snapshot.value.items.lastIndex)
+					pager.awaitEndIndex(page * pageSize)
+				}
+
+				val snapshot = pager.snapshot.value
+				snapshot.items.size shouldBe 3 * pageSize
+				snapshot.droppedCount shouldBe 2 * pageSize
+				snapshot.endIndex shouldBe 5 * pageSize
+				snapshot.items.first().id shouldBe 300
+				snapshot.items.last().id shouldBe 503
+			}
+		}
+	}
+
+	test("stops paging after the last page") {
+		runBlocking {
+			MockWebServer().use { server ->
+				val dispatcher = TrendingDispatcher(totalPages = 2)
+				server.dispatcher = dispatcher
+				val client = createJellyseerrClient(context, server)
+				val pager = createPager(client)
+				pager.loadFirstPage(client)
+
+				pager.onItemFocused(3)
+				pager.awaitEndIndex(8)
+				pager.onItemFocused(7)
+
+				pager.snapshot.value.endReached.shouldBeTrue()
+				pager.isLoading shouldBe false
+				dispatcher.requestedPages shouldContainExactly listOf(1, 2)
+			}
+		}
+	}
+})
@@ -0,0 +1,149 @@
+package org.jellyfin.androidtv.ui.playback
+
+import androidx.media3.common.C
+import androidx.media3.common.audio.AudioProcessor.AudioFormat
+import com.sun.management.ThreadMXBean
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import java.lang.management.ManagementFactory
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import kotlin.math.abs
+
+class AudioDelayProcessorTests : FunSpec({
+	val sampleRate = 48_000
+	val chunkFrames = 1024
+
+	fun createProcessor(encoding: Int, channels: Int, delayMs: Long) = AudioDelayProcessor().apply {
+		setDelayMs(delayMs)
+		configure(AudioFormat(sampleRate, channels, encoding))
+		flush()
+	}
+
+	fun directBuffer(bytes: Int) = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder())
+
+	/**
+	 * Feed [frames] 16-bit frames produced by [signal] to the processor and collect the output
+	 * of the first channel. [onChunk] is called with the amount of frames queued before each chunk.
+	 */
+	fun AudioDelayProcessor.process16(
+		frames: Int,
+		channels: Int,
+		signal: (Int) -> Short,
+		onChunk: (Int) -> Unit = {},
+	): List<Short> {
+		val output = mutableListOf<Short>()
+		fun drain() {
+			val buffer = getOutput()
+			while (buffer.hasRemaining()) {
+				output += buffer.getShort()
+				repeat(channels - 1) { buffer.getShort() }
+			}
+		}
+
+		val input = directBuffer(chunkFrames * channels * 2)
+		var frame = 0
+		while (frame < frames) {
+			onChunk(frame)
+			input.clear()
+			val count = minOf(chunkFrames, frames - frame)
+			repeat(count) {
+				repeat(channels) { input.putShort(signal(frame)) }
+				frame++
+			}
+			input.flip()
+			queueInput(input)
+			drain()
+		}
+
+		queueEndOfStream()
+		drain()
+		isEnded() shouldBe true
+		return output
+	}
+
+	test("positive delay outputs silence before the input") {
+		val processor = createProcessor(C.ENCODING_PCM_16BIT, 2, 10)
+		val output = processor.process16(48_000, 2, { frame -> (frame % 30_000).toShort() })
+
+		output.size shouldBe 48_000 + 480
+		output.subList(0, 480).all { it == 0.toShort() } shouldBe true
+		for (i in 480 until output.size) output[i] shouldBe ((i - 480) % 30_000).toShort()
+	}
+
+	test("negative delay skips the start of the input") {
+		val processor = createProcessor(C.ENCODING_PCM_FLOAT, 2, -10)
+		val frames = 48_000
+		val input = directBuffer(chunkFrames * 2 * 4)
+		val output = mutableListOf<Float>()
+
+		var frame = 0
+		while (frame < frames) {
+			input.clear()
+			repeat(minOf(chunkFrames, frames - frame)) {
+				input.putFloat(frame / frames.toFloat())
+				input.putFloat(-frame / frames.toFloat())
+				frame++
+			}
+			input.flip()
+			processor.queueInput(input)
+			val buffer = processor.getOutput()
+			while (buffer.hasRemaining()) {
+				output += buffer.getFloat()
+				buffer.getFloat() shouldBe -output.last()
+			}
+		}
+		processor.queueEndOfStream()
+		processor.getOutput().hasRemaining() shouldBe false
+
+		output.size shouldBe frames - 480
+		for (i in output.indices) output[i] shouldBe (i + 480) / frames.toFloat()
+	}
+
+	test("changing the delay while playing crossfades to the new delay") {
+		val processor = createProcessor(C.ENCODING_PCM_16BIT, 1, 0)
+		val frames = 48_000
+		val output = processor.process16(frames, 1, { frame -> (frame / 4).toShort() }) { frame ->
+			if (frame == 24 * chunkFrames) processor.setDelayMs(100)
+		}
+
+		val changedAt = 24 * chunkFrames
+		val fadeFrames = sampleRate / 50
+		output.size shouldBe frames + 4800
+		for (i in 0 until changedAt) output[i] shouldBe (i / 4).toShort()
+		for (i in changedAt + fadeFrames until output.size) output[i] shouldBe ((i - 4800) / 4).toShort()
+
+		// Jumping back 100ms without crossfade would be a step of 1200
+		var largestStep = 0
+		for (i in 1 until output.size) largestStep = maxOf(largestStep, abs(output[i] - output[i - 1]))
+		largestStep shouldBeLessThanOrEqual 4
+	}
+
+	test("steady-state processing does not allocate") {
+		val threads = ManagementFactory.getThreadMXBean() as ThreadMXBean
+		val threadId = Thread.currentThread().id
+		val processor = createProcessor(C.ENCODING_PCM_16BIT, 6, 250)
+		val input = directBuffer(chunkFrames * 6 * 2)
+		val iterations = 10_000
+
+		fun run() = repeat(iterations) {
+			input.clear()
+			processor.queueInput(input)
+			val output = processor.getOutput()
+			output.position(output.limit())
+		}
+
+		// Warm up, including a delay change so the delay line has its final size
+		run()
+		processor.setDelayMs(-250)
+		run()
+		threads.getThreadAllocatedBytes(threadId)
+
+		val before = threads.getThreadAllocatedBytes(threadId)
+		run()
+		val allocated = threads.getThreadAllocatedBytes(threadId) - before
+
+		allocated shouldBe 0L
+	}
+})
@@ -0,0 +1,104 @@
+package org.jellyfin.androidtv.ui.playback
+
+import androidx.media3.common.Player
+import androidx.media3.exoplayer.ExoPlayer
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.mockk.mockk
+import io.mockk.verify
+
+class PlayerPoolTests : FunSpec({
+	fun createPool(maxPlayers: Int = 2, maxIdlePlayers: Int = 1): Pair<PlayerPool, MutableList<ExoPlayer>> {
+		val players = mutableListOf<ExoPlayer>()
+		val pool = PlayerPool(
+			createPlayer = { mockk<ExoPlayer>(relaxed = true).also { players.add(it) } },
+			maxPlayers = maxPlayers,
+			maxIdlePlayers = maxIdlePlayers,
+		)
+		return pool to players
+	}
+
+	test("focusing cards reuses a warm player") {
+		val (pool, players) = createPool()
+		val focusChanges = 100
+
+		repeat(focusChanges) {
+			pool.warmUp()
+			val lease = pool.borrow().shouldNotBeNull()
+			lease.close()
+		}
+
+		pool.createCount shouldBe 1
+		pool.reuseCount shouldBe focusChanges
+		players.size shouldBe 1
+		pool.idleCount shouldBe 1
+	}
+
+	test("given back players are reset and keep no listeners") {
+		val (pool, _) = createPool()
+		val listener = mockk<Player.Listener>()
+
+		val lease = pool.borrow().shouldNotBeNull()
+		val player = lease.player
+		lease.addListener(listener)
+		lease.close()
+		lease.close()
+
+		verify(exactly = 1) { player.addListener(listener) }
+		verify(exactly = 1) { player.removeListener(listener) }
+		verify(exactly = 1) { player.stop() }
+		verify(exactly = 1) { player.clearMediaItems() }
+		verify(exactly = 1) { player.clearVideoSurface() }
+		verify(exactly = 0) { player.release() }
+		pool.borrowedCount shouldBe 0
+
+		pool.borrow().shouldNotBeNull().player shouldBeSameInstanceAs player
+	}
+
+	test("borrowing is capped") {
+		val (pool, players) = createPool(maxPlayers = 2, maxIdlePlayers = 1)
+
+		val first = pool.borrow().shouldNotBeNull()
+		val second = pool.borrow().shouldNotBeNull()
+		pool.borrow().shouldBeNull()
+		pool.borrowedCount shouldBe 2
+
+		first.close()
+		second.close()
+
+		// Only one player is kept warm
+		pool.idleCount shouldBe 1
+		verify(exactly = 1) { players[1].release() }
+
+		pool.borrow().shouldNotBeNull().player shouldBeSameInstanceAs players[0]
+		pool.createCount shouldBe 2
+	}
+
+	test("main playback stops previews and frees idle players") {
+		val (pool, players) = createPool()
+		pool.warmUp()
+		val preview = pool.borrow().shouldNotBeNull()
+		pool.warmUp()
+		val idle = players[1]
+
+		pool.beginMainPlayback()
+		verify(exactly = 1) { preview.player.stop() }
+		verify(exactly = 1) { idle.release() }
+		pool.idleCount shouldBe 0
+		pool.borrow().shouldBeNull()
+
+		pool.warmUp()
+		pool.idleCount shouldBe 0
+
+		// Players given back during main playback are not kept
+		preview.close()
+		verify(exactly = 1) { preview.player.release() }
+
+		pool.endMainPlayback()
+		pool.borrow().shouldNotBeNull()
+		pool.createCount shouldBe 3
+	}
+})
@@ -0,0 +1,203 @@
+package org.jellyfin.androidtv.ui.playback
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+
+class SubtitleCueSchedulerTests : FunSpec({
+	// Media clock and wake ups driven by the test instead of wall time
+	class FakePlayer : SubtitleCueScheduler.Clock, SubtitleCueScheduler.WakeUp {
+		override var positionMs = 0L
+		override var speed = 1f
+		override var isPlaying = true
+
+		var scheduledMs: Long? = null
+		val delays = mutableListOf<Long>()
+		val shown = mutableListOf<List<String>>()
+		lateinit var scheduler: SubtitleCueScheduler<String>
+
+		private var nowMs = 0L
+		private var dueMs: Long? = null
+
+		override fun schedule(delayMs: Long) {
+			scheduledMs = delayMs
+			dueMs = nowMs + delayMs
+			delays += delayMs
+		}
+
+		override fun cancel() {
+			scheduledMs = null
+			dueMs = null
+		}
+
+		// Let [realMs] of wall time pass, firing the scheduled wake ups along the way
+		fun play(realMs: Long) {
+			val endMs = nowMs + realMs
+			while (true) {
+				val due = dueMs?.takeIf { it <= endMs } ?: break
+				positionMs += ((due - nowMs) * speed).toLong()
+				nowMs = due
+				cancel()
+				scheduler.update()
+			}
+			if (isPlaying) positionMs += ((endMs - nowMs) * speed).toLong()
+			nowMs = endMs
+		}
+
+		val current get() = shown.lastOrNull().orEmpty()
+	}
+
+	fun createScheduler(): Pair<FakePlayer, SubtitleCueScheduler<String>> {
+		val player = FakePlayer()
+		val scheduler = SubtitleCueScheduler(player, player) { player.shown += it }
+		player.scheduler = scheduler
+		return player to scheduler
+	}
+
+	val subtitleFile = listOf(
+		SubtitleCueScheduler.TimedCues(1_000, 3_000, listOf("first")),
+		SubtitleCueScheduler.TimedCues(5_000, 7_000, listOf("second")),
+		SubtitleCueScheduler.TimedCues(6_000, 8_000, listOf("overlap")),
+	)
+
+	test("no offset shows rendered cues right away") {
+		val (player, scheduler) = createScheduler()
+
+		player.positionMs = 1_000
+		scheduler.onCues(1_000, listOf("first"))
+
+		player.current shouldContainExactly listOf("first")
+		player.scheduledMs.shouldBeNull()
+	}
+
+	test("positive offset shows rendered cues later on the media clock") {
+		val (player, scheduler) = createScheduler()
+		scheduler.offsetMs = 500
+
+		player.positionMs = 1_000
+		scheduler.onCues(1_000, listOf("first"))
+		player.current.shouldBeEmpty()
+		player.scheduledMs shouldBe 500
+
+		player.play(499)
+		player.current.shouldBeEmpty()
+		player.play(1)
+		player.current shouldContainExactly listOf("first")
+
+		player.positionMs = 3_000
+		scheduler.onCues(3_000, emptyList())
+		player.current shouldContainExactly listOf("first")
+		player.play(500)
+		player.current.shouldBeEmpty()
+	}
+
+	test("negative offset shows preloaded cues early") {
+		val (player, scheduler) = createScheduler()
+		scheduler.setTimeline(subtitleFile)
+		scheduler.offsetMs = -400
+
+		player.scheduledMs shouldBe 600
+		player.play(600)
+		player.positionMs shouldBe 600
+		player.current shouldContainExactly listOf("first")
+
+		player.play(4_000)
+		player.current shouldContainExactly listOf("second")
+		player.play(1_000)
+		player.current shouldContainExactly listOf("second", "overlap")
+		player.play(1_000)
+		player.current shouldContainExactly listOf("overlap")
+		player.play(1_000)
+		player.current.shouldBeEmpty()
+		player.scheduledMs.shouldBeNull()
+	}
+
+	test("pausing stops wake ups and resuming continues from the position") {
+		val (player, scheduler) = createScheduler()
+		scheduler.setTimeline(subtitleFile)
+		scheduler.offsetMs = 200
+
+		player.play(800)
+		player.isPlaying = false
+		scheduler.update()
+		player.scheduledMs.shouldBeNull()
+
+		// A long pause doesn't move the media clock
+		player.play(60_000)
+		player.current.shouldBeEmpty()
+
+		player.isPlaying = true
+		scheduler.update()
+		player.scheduledMs shouldBe 400
+		player.play(400)
+		player.current shouldContainExactly listOf("first")
+	}
+
+	test("seeking keeps preloaded cues and drops observed ones") {
+		val (player, preloaded) = createScheduler()
+		preloaded.setTimeline(subtitleFile)
+		player.positionMs = 5_500
+		preloaded.onSeek()
+		player.current shouldContainExactly listOf("second")
+		player.positionMs = 2_000
+		preloaded.onSeek()
+		player.current shouldContainExactly listOf("first")
+
+		val (observedPlayer, observed) = createScheduler()
+		observed.offsetMs = 1_000
+		observedPlayer.positionMs = 1_000
+		observed.onCues(1_000, listOf("first"))
+		observedPlayer.positionMs = 10_000
+		observed.onSeek()
+		observedPlayer.current.shouldBeEmpty()
+		observedPlayer.positionMs = 1_500
+		observed.onSeek()
+		observedPlayer.current.shouldBeEmpty()
+		observedPlayer.scheduledMs.shouldBeNull()
+	}
+
+	test("wake ups are scaled by playback speed") {
+		val (player, scheduler) = createScheduler()
+		scheduler.setTimeline(subtitleFile)
+
+		player.delays.last() shouldBe 1_000
+		player.speed = 2f
+		scheduler.update()
+		player.delays.last() shouldBe 500
+		player.speed = 0.5f
+		scheduler.update()
+		player.delays.last() shouldBe 2_000
+
+		player.play(2_000)
+		player.positionMs shouldBe 1_000
+		player.current shouldContainExactly listOf("first")
+	}
+
+	test("changing the offset keeps the timeline") {
+		val (player, scheduler) = createScheduler()
+		scheduler.setTimeline(subtitleFile)
+		player.positionMs = 1_500
+		scheduler.update()
+		player.current shouldContainExactly listOf("first")
+
+		scheduler.offsetMs = 1_000
+		player.current.shouldBeEmpty()
+		scheduler.offsetMs = -4_600
+		player.current shouldContainExactly listOf("second", "overlap")
+		scheduler.offsetMs = 0
+		player.current shouldContainExactly listOf("first")
+	}
+
+	test("releasing hides cues") {
+		val (player, scheduler) = createScheduler()
+		scheduler.setTimeline(subtitleFile)
+		player.positionMs = 1_500
+		scheduler.update()
+
+		scheduler.release()
+		player.current.shouldBeEmpty()
+		player.scheduledMs.shouldBeNull()
+	}
+})
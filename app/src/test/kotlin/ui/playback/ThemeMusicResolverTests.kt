@@ -0,0 +1,186 @@
+package org.jellyfin.androidtv.ui.playback
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.exception.ApiClientException
+import org.jellyfin.sdk.createJellyfin
+import org.jellyfin.sdk.model.ClientInfo
+import org.jellyfin.sdk.model.DeviceInfo
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import java.util.Collections
+import java.util.UUID
+import java.util.concurrent.CountDownLatch
+
+class ThemeMusicResolverTests : FunSpec({
+	val userId = UUID(0xabc, 1)
+	val seriesId = UUID(0x5e5, 1)
+	val movieId = UUID(0x300, 1)
+	val silentMovieId = UUID(0x300, 2)
+	val themeSongId = UUID(0x7e3e, 1)
+
+	// Theme media endpoint where only the series and the first movie have a theme song
+	class ThemeServer : Dispatcher() {
+		val requests: MutableList<UUID> = Collections.synchronizedList(mutableListOf())
+		lateinit var themeSongs: (UUID) -> List<UUID>
+		var failures = 0
+		var gate: CountDownLatch? = null
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val segments = request.requestUrl!!.pathSegments
+			val itemId = UUID.fromString(segments[segments.indexOf("ThemeMedia") - 1])
+			requests += itemId
+			gate?.await()
+
+			if (failures > 0) {
+				failures--
+				return MockResponse().setResponseCode(500)
+			}
+
+			val songs = themeSongs(itemId)
+			val items = songs.joinToString(",") { """{"Id":"$it","Type":"Audio","Name":"Theme"}""" }
+			val result = """{"Items":[$items],"TotalRecordCount":${songs.size},"StartIndex":0,"OwnerId":"$itemId"}"""
+			return MockResponse()
+				.setHeader("Content-Type", "application/json")
+				.setBody("""{"ThemeVideosResult":null,"ThemeSongsResult":$result,"SoundtrackSongsResult":null}""")
+		}
+	}
+
+	fun createServer(): Pair<MockWebServer, ThemeServer> {
+		val themes = ThemeServer().apply {
+			themeSongs = { id -> if (id == seriesId || id == movieId) listOf(themeSongId) else emptyList() }
+		}
+		val server = MockWebServer()
+		server.dispatcher = themes
+		server.start()
+		return server to themes
+	}
+
+	fun createApi(server: MockWebServer): ApiClient = createJellyfin {
+		clientInfo = ClientInfo("Test", "1.0")
+		deviceInfo = DeviceInfo("test", "Test")
+	}.createApi(baseUrl = server.url("/").toString().trimEnd('/'), accessToken = "token")
+
+	fun episode(index: Int) = BaseItemDto(
+		id = UUID(0xe915, index.toLong()),
+		type = BaseItemKind.EPISODE,
+		seriesId = seriesId,
+	)
+
+	fun movie(id: UUID) = BaseItemDto(id = id, type = BaseItemKind.MOVIE)
+
+	test("browsing a grid asks for each theme once") {
+		val (server, themes) = createServer()
+		val resolver = ThemeMusicResolver(createApi(server))
+
+		// Scroll back and forth through a row with episodes of one series and two movies
+		val row = (0 until 10).map(::episode) + movie(movieId) + movie(silentMovieId)
+		val focusSequence = row + row.asReversed() + row
+
+		runBlocking {
+			for (item in focusSequence) resolver.getThemeSongs(userId, resolver.themeItemIdOf(item))
+		}
+
+		themes.requests shouldContainExactly listOf(seriesId, movieId, silentMovieId)
+		resolver.requestCount shouldBe 3
+
+		server.shutdown()
+	}
+
+	test("items without theme songs are cached") {
+		val (server, themes) = createServer()
+		val resolver = ThemeMusicResolver(createApi(server))
+
+		runBlocking {
+			resolver.getThemeSongs(userId, silentMovieId).shouldBeEmpty()
+			resolver.getThemeSongs(userId, silentMovieId).shouldBeEmpty()
+		}
+
+		resolver.peekThemeSongs(userId, silentMovieId) shouldBe emptyList()
+		themes.requests.size shouldBe 1
+
+		server.shutdown()
+	}
+
+	test("concurrent lookups share a request") {
+		val (server, themes) = createServer()
+		val resolver = ThemeMusicResolver(createApi(server))
+
+		val results = runBlocking {
+			(0 until 10).map { async { resolver.getThemeSongs(userId, seriesId) } }.awaitAll()
+		}
+
+		results.toSet() shouldBe setOf(listOf(themeSongId))
+		themes.requests.size shouldBe 1
+
+		server.shutdown()
+	}
+
+	test("cancelling a caller doesn't fail other callers") {
+		val (server, themes) = createServer()
+		val gate = CountDownLatch(1)
+		themes.gate = gate
+		val resolver = ThemeMusicResolver(createApi(server))
+
+		val songs = runBlocking {
+			val cancelled = async(Dispatchers.IO) { resolver.getThemeSongs(userId, seriesId) }
+			while (themes.requests.isEmpty()) delay(10)
+			val waiting = async(Dispatchers.IO) { resolver.getThemeSongs(userId, seriesId) }
+
+			cancelled.cancelAndJoin()
+			gate.countDown()
+			waiting.await()
+		}
+
+		songs shouldContainExactly listOf(themeSongId)
+		resolver.peekThemeSongs(userId, seriesId) shouldBe listOf(themeSongId)
+		themes.requests.size shouldBe 1
+
+		server.shutdown()
+	}
+
+	test("failures are not cached") {
+		val (server, themes) = createServer()
+		themes.failures = 1
+		val resolver = ThemeMusicResolver(createApi(server))
+
+		runBlocking {
+			shouldThrow<ApiClientException> { resolver.getThemeSongs(userId, movieId) }
+			resolver.getThemeSongs(userId, movieId) shouldContainExactly listOf(themeSongId)
+		}
+
+		themes.requests.size shouldBe 2
+
+		server.shutdown()
+	}
+
+	test("switching users clears the cache") {
+		val (server, themes) = createServer()
+		val resolver = ThemeMusicResolver(createApi(server))
+		val otherUserId = UUID(0xabc, 2)
+
+		runBlocking {
+			resolver.getThemeSongs(userId, movieId)
+			resolver.getThemeSongs(otherUserId, movieId)
+		}
+
+		resolver.peekThemeSongs(userId, movieId) shouldBe null
+		themes.requests.size shouldBe 2
+
+		server.shutdown()
+	}
+})
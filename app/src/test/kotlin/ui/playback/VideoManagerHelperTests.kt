@@ -0,0 +1,56 @@
+package org.jellyfin.androidtv.ui.playback
+
+import androidx.media3.common.C
+import androidx.media3.common.Player
+import androidx.media3.common.Timeline
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.mockk.every
+import io.mockk.mockk
+
+class VideoManagerHelperTests : FunSpec({
+	// Player in a period that starts [periodPositionInWindowUs] after the start of the window
+	fun player(periodPositionInWindowUs: Long, positionMs: Long = 0) = mockk<Player> {
+		val timeline = mockk<Timeline> {
+			every { isEmpty } returns false
+			every { getPeriod(1, any()) } answers {
+				secondArg<Timeline.Period>().apply { set(null, null, 0, C.TIME_UNSET, periodPositionInWindowUs) }
+			}
+		}
+		every { currentTimeline } returns timeline
+		every { currentPeriodIndex } returns 1
+		every { currentPosition } returns positionMs
+	}
+
+	test("cue times of a period at the window start are kept") {
+		getCuePositionMs(player(periodPositionInWindowUs = 0), 12_345_000) shouldBe 12_345
+	}
+
+	test("cue times are moved to the window time base") {
+		// Live window that starts 10 minutes into the period
+		getCuePositionMs(player(periodPositionInWindowUs = -600_000_000), 601_500_000) shouldBe 1_500
+		// Second period of multi-period media
+		getCuePositionMs(player(periodPositionInWindowUs = 30_000_000), 2_000_000) shouldBe 32_000
+	}
+
+	test("cues without presentation time use the player position") {
+		getCuePositionMs(player(periodPositionInWindowUs = -600_000_000, positionMs = 4_200), C.TIME_UNSET) shouldBe 4_200
+	}
+
+	test("cues match the scheduler clock of a live window") {
+		val player = player(periodPositionInWindowUs = -600_000_000, positionMs = 1_500)
+		val clock = object : SubtitleCueScheduler.Clock, SubtitleCueScheduler.WakeUp {
+			override val positionMs get() = player.currentPosition
+			override val speed = 1f
+			override val isPlaying = true
+			override fun schedule(delayMs: Long) = Unit
+			override fun cancel() = Unit
+		}
+		val shown = mutableListOf<List<String>>()
+		val scheduler = SubtitleCueScheduler(clock, clock) { shown += it }
+
+		scheduler.onCues(getCuePositionMs(player, 601_500_000), listOf("live"))
+
+		shown.last() shouldBe listOf("live")
+	}
+})
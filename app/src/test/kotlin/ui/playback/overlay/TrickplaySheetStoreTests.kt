@@ -0,0 +1,195 @@
+package org.jellyfin.androidtv.ui.playback.overlay
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import java.util.Collections
+import java.util.concurrent.atomic.AtomicInteger
+
+class TrickplaySheetStoreTests : FunSpec({
+	// Two hour video with a thumbnail every 10 seconds in sheets of 10x10 thumbnails
+	val layout = TrickplayLayout(
+		interval = 10_000,
+		tileWidth = 10,
+		tileHeight = 10,
+		width = 320,
+		height = 180,
+		thumbnailCount = 720,
+	)
+	val sheetBytes = 250 * 1024
+	val forwardTime = 30_000L
+
+	class SheetServer : Dispatcher() {
+		val requests: MutableList<Int> = Collections.synchronizedList(mutableListOf())
+		val authorizations: MutableList<String?> = Collections.synchronizedList(mutableListOf())
+		lateinit var body: (Int) -> ByteArray
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val index = request.requestUrl!!.pathSegments.last().removeSuffix(".jpg").toInt()
+			requests += index
+			authorizations += request.getHeader("Authorization")
+			return MockResponse()
+				.setHeader("Content-Type", "image/jpeg")
+				.setBody(Buffer().write(body(index)))
+		}
+	}
+
+	data class FakeSheet(val index: Int, val size: Int)
+	data class FakeThumbnail(val sheet: Int, val x: Int, val y: Int)
+
+	class FakeDecoder : TrickplaySheetDecoder<FakeSheet, FakeThumbnail> {
+		val decodeCount = AtomicInteger()
+		val sliceCount = AtomicInteger()
+
+		override fun decode(bytes: ByteArray): FakeSheet {
+			decodeCount.incrementAndGet()
+			return FakeSheet(bytes[0].toInt(), bytes.size)
+		}
+
+		override fun slice(sheet: FakeSheet, x: Int, y: Int, width: Int, height: Int): FakeThumbnail {
+			sliceCount.incrementAndGet()
+			return FakeThumbnail(sheet.index, x, y)
+		}
+	}
+
+	fun createServer(): Pair<MockWebServer, SheetServer> {
+		val sheets = SheetServer().apply {
+			body = { index -> ByteArray(sheetBytes) { index.toByte() } }
+		}
+		val server = MockWebServer()
+		server.dispatcher = sheets
+		server.start()
+		return server to sheets
+	}
+
+	fun createStore(server: MockWebServer, decoder: FakeDecoder, scope: CoroutineScope) = TrickplaySheetStore(
+		callFactory = OkHttpClient(),
+		layout = layout,
+		decoder = decoder,
+		scope = scope,
+		sheetUrl = { index -> server.url("/Videos/item/Trickplay/320/$index.jpg").toString() },
+		authorization = "MediaBrowser Token=\"token\"",
+	)
+
+	suspend fun awaitDecodes(store: TrickplaySheetStore<*, *>, count: Int) {
+		repeat(200) {
+			if (store.decodeCount >= count) return
+			delay(10)
+		}
+	}
+
+	test("scrubbing only downloads and decodes sheets near the position") {
+		val (server, sheets) = createServer()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val decoder = FakeDecoder()
+		val store = createStore(server, decoder, scope)
+
+		val startMs = 30 * 60_000L
+		val steps = 60
+
+		var startupDownloads = 0
+		runBlocking {
+			// Playback starts, no scrubbing yet
+			store.scrubTo(startMs)
+			awaitDecodes(store, 2)
+			startupDownloads = store.downloadCount
+
+			// Scrub forward for 30 minutes, Leanback requests the visible thumbnails around the position
+			for (step in 0..steps) {
+				val index = (startMs / forwardTime).toInt() + step
+				for (visible in index - 3..index + 3) {
+					val positionMs = (visible * forwardTime).coerceAtLeast(0)
+					store.scrubTo(index * forwardTime)
+					store.getThumbnail(positionMs) shouldNotBe null
+				}
+			}
+
+			// Wait for the sheet that is prefetched ahead
+			awaitDecodes(store, 4)
+		}
+
+		startupDownloads shouldBe 2
+		// Sheets 1 to 3 are shown and sheet 4 is prefetched ahead
+		sheets.requests.toSet() shouldBe setOf(1, 2, 3, 4)
+		sheets.requests.size shouldBe sheets.requests.toSet().size
+		decoder.decodeCount.get() shouldBe store.downloadCount
+		store.cachedSheetCount shouldBeLessThanOrEqual 3
+		sheets.authorizations.toSet() shouldBe setOf("MediaBrowser Token=\"token\"")
+
+		scope.cancel()
+		server.shutdown()
+	}
+
+	test("sheets are fetched in seek direction order") {
+		val (server, sheets) = createServer()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val store = createStore(server, FakeDecoder(), scope)
+
+		runBlocking {
+			// Middle of sheet 5, moving backwards
+			store.scrubTo(560 * 10_000L)
+			store.scrubTo(550 * 10_000L)
+			awaitDecodes(store, 2)
+		}
+
+		sheets.requests shouldContainExactly listOf(5, 4)
+
+		scope.cancel()
+		server.shutdown()
+	}
+
+	test("thumbnails are cut from the decoded sheet") {
+		val (server, _) = createServer()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val decoder = FakeDecoder()
+		val store = createStore(server, decoder, scope)
+
+		runBlocking {
+			// Thumbnail 123 is on sheet 1 at row 2, column 3
+			store.getThumbnail(123 * 10_000L) shouldBe FakeThumbnail(1, 3 * 320, 2 * 180)
+		}
+
+		store.peekThumbnail(124 * 10_000L) shouldBe FakeThumbnail(1, 4 * 320, 2 * 180)
+		store.peekThumbnail(124 * 10_000L) shouldBe FakeThumbnail(1, 4 * 320, 2 * 180)
+		// Not loaded yet
+		store.peekThumbnail(250 * 10_000L) shouldBe null
+		decoder.decodeCount.get() shouldBe 1
+		decoder.sliceCount.get() shouldBe 2
+
+		scope.cancel()
+		server.shutdown()
+	}
+
+	test("trim keeps only the sheet of the last position") {
+		val (server, _) = createServer()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val store = createStore(server, FakeDecoder(), scope)
+
+		runBlocking {
+			store.scrubTo(150 * 10_000L)
+			awaitDecodes(store, 2)
+			store.getThumbnail(150 * 10_000L) shouldNotBe null
+		}
+
+		store.trim()
+		store.cachedSheetCount shouldBe 1
+		store.peekThumbnail(151 * 10_000L) shouldNotBe null
+
+		scope.cancel()
+		server.shutdown()
+	}
+})
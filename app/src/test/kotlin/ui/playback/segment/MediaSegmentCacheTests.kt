@@ -0,0 +1,141 @@
+package org.jellyfin.androidtv.ui.playback.segment
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.runBlocking
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import org.jellyfin.sdk.model.api.MediaSegmentDto
+import org.jellyfin.sdk.model.api.MediaSegmentType
+import java.util.UUID
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+class MediaSegmentCacheTests : FunSpec({
+	fun episode(index: Int) = BaseItemDto(id = UUID(0xe915, index.toLong()), type = BaseItemKind.EPISODE)
+
+	// One tick is 100 nanoseconds
+	fun segment(item: BaseItemDto, type: MediaSegmentType, startSeconds: Int, endSeconds: Int) = MediaSegmentDto(
+		id = UUID.randomUUID(),
+		itemId = item.id,
+		type = type,
+		startTicks = startSeconds * 10_000_000L,
+		endTicks = endSeconds * 10_000_000L,
+	)
+
+	fun segmentsOf(item: BaseItemDto) = listOf(
+		segment(item, MediaSegmentType.INTRO, 60, 90),
+		segment(item, MediaSegmentType.OUTRO, 1300, 1400),
+	)
+
+	test("replaying a season fetches each episode once") {
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		val cache = MediaSegmentCache(scope = scope, fetch = ::segmentsOf)
+		val episodes = (0 until 10).map(::episode)
+		val playSequence = episodes + episodes + episodes
+
+		runBlocking {
+			for (item in playSequence) cache.get(item).segments.size shouldBe 2
+		}
+
+		cache.fetchCount shouldBe episodes.size
+
+		scope.cancel()
+	}
+
+	test("entries expire after the ttl") {
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		var now = 0L
+		val cache = MediaSegmentCache(scope = scope, ttl = 10.minutes, clock = { now }, fetch = ::segmentsOf)
+		val item = episode(1)
+
+		runBlocking {
+			val timeline = cache.get(item)
+			now += 9.minutes.inWholeMilliseconds
+			cache.peek(item.id) shouldBeSameInstanceAs timeline
+
+			now += 1.minutes.inWholeMilliseconds
+			cache.peek(item.id).shouldBeNull()
+			cache.get(item)
+		}
+
+		cache.fetchCount shouldBe 2
+
+		scope.cancel()
+	}
+
+	test("a prefetch is shared with the request at playback start") {
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		val release = CompletableDeferred<Unit>()
+		val cache = MediaSegmentCache(scope = scope) { item ->
+			release.await()
+			segmentsOf(item)
+		}
+		val item = episode(1)
+
+		cache.prefetch(item)
+		cache.prefetch(item)
+		cache.peek(item.id).shouldBeNull()
+
+		val timeline = runBlocking {
+			release.complete(Unit)
+			cache.get(item)
+		}
+
+		timeline.segments.size shouldBe 2
+		cache.peek(item.id) shouldBeSameInstanceAs timeline
+		cache.fetchCount shouldBe 1
+
+		scope.cancel()
+	}
+
+	test("failures are not cached") {
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+		var failures = 1
+		val cache = MediaSegmentCache(scope = scope) { item ->
+			if (failures-- > 0) error("Server unavailable")
+			segmentsOf(item)
+		}
+		val item = episode(1)
+
+		runBlocking {
+			shouldThrow<IllegalStateException> { cache.get(item) }
+			cache.peek(item.id).shouldBeNull()
+			cache.get(item).segments.size shouldBe 2
+		}
+
+		cache.fetchCount shouldBe 2
+
+		scope.cancel()
+	}
+
+	test("overlapping segments are found by position") {
+		val item = episode(1)
+		val intro = segment(item, MediaSegmentType.INTRO, 60, 120)
+		val recap = segment(item, MediaSegmentType.RECAP, 70, 90)
+		val commercial = segment(item, MediaSegmentType.COMMERCIAL, 100, 200)
+		val outro = segment(item, MediaSegmentType.OUTRO, 1300, 1400)
+		val timeline = MediaSegmentTimeline(listOf(outro, commercial, recap, intro))
+
+		timeline.segments shouldContainExactly listOf(intro, recap, commercial, outro)
+
+		timeline.segmentsAt(30.seconds).shouldBeEmpty()
+		timeline.segmentsAt(60.seconds) shouldContainExactly listOf(intro)
+		timeline.segmentsAt(80.seconds) shouldContainExactly listOf(intro, recap)
+		timeline.segmentsAt(90.seconds) shouldContainExactly listOf(intro)
+		timeline.segmentsAt(110.seconds) shouldContainExactly listOf(intro, commercial)
+		timeline.segmentsAt(120.seconds) shouldContainExactly listOf(commercial)
+		timeline.segmentsAt(1400.seconds).shouldBeEmpty()
+		MediaSegmentTimeline(emptyList()).segmentsAt(0.seconds).shouldBeEmpty()
+	}
+})
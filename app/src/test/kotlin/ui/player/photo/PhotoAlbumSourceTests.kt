@@ -0,0 +1,204 @@
+package org.jellyfin.androidtv.ui.player.photo
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.longs.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.androidtv.util.apiclient.ioCallContent
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.api.client.extensions.itemsApi
+import org.jellyfin.sdk.createJellyfin
+import org.jellyfin.sdk.model.ClientInfo
+import org.jellyfin.sdk.model.DeviceInfo
+import org.jellyfin.sdk.model.api.BaseItemDto
+import org.jellyfin.sdk.model.api.BaseItemKind
+import org.jellyfin.sdk.model.api.ItemSortBy
+import org.jellyfin.sdk.model.api.SortOrder
+import java.util.UUID
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+class PhotoAlbumSourceTests : FunSpec({
+	val albumSize = 10_000
+	val albumId = UUID.fromString("00000000-0000-0000-0000-00000000a1b0")
+	val decodedPhotoBytes = 1920L * 1080 * 4
+
+	fun photoId(index: Int) = UUID(0xf0f0, index.toLong())
+
+	fun photoJson(index: Int, full: Boolean) = buildString {
+		append("""{"Name":"IMG_${index.toString().padStart(5, '0')}.jpg","Id":"${photoId(index)}","Type":"Photo","MediaType":"Photo","ParentId":"$albumId"""")
+		if (full) {
+			append(""","Path":"/media/photos/album/IMG_$index.jpg","DateCreated":"2024-05-01T12:00:00.0000000Z","Width":4032,"Height":3024""")
+			append(""","ImageTags":{"Primary":"${UUID(index.toLong(), 0xabc)}"},"ImageBlurHashes":{"Primary":{"${UUID(index.toLong(), 0xabc)}":"LEHV6nWB2yk8pyo0adR*.7kCMdnj"}}""")
+		}
+		append("}")
+	}
+
+	// Album of photos with the query parameters the server uses for paging
+	class AlbumServer : Dispatcher() {
+		val requests = AtomicInteger()
+		val bytes = AtomicLong()
+		lateinit var json: (Int, Boolean) -> String
+		var size = 0
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			val url = request.requestUrl!!
+			fun query(name: String) = url.queryParameterNames
+				.firstOrNull { it.equals(name, ignoreCase = true) }
+				?.let(url::queryParameter)
+
+			val startIndex = query("startIndex")?.toInt() ?: 0
+			val limit = query("limit")?.toInt() ?: size
+			val full = query("enableImages") != "false"
+			val end = minOf(size, startIndex + limit)
+
+			val body = (startIndex until end).joinToString(
+				separator = ",",
+				prefix = """{"Items":[""",
+				postfix = """],"TotalRecordCount":$size,"StartIndex":$startIndex}""",
+			) { json(it, full) }
+
+			requests.incrementAndGet()
+			bytes.addAndGet(body.length.toLong())
+			return MockResponse()
+				.setHeader("Content-Type", "application/json")
+				.setBody(body)
+		}
+	}
+
+	fun createServer(): Pair<MockWebServer, AlbumServer> {
+		val album = AlbumServer().apply {
+			json = ::photoJson
+			size = albumSize
+		}
+		val server = MockWebServer()
+		server.dispatcher = album
+		server.start()
+		return server to album
+	}
+
+	fun createApi(server: MockWebServer): ApiClient = createJellyfin {
+		clientInfo = ClientInfo("Test", "1.0")
+		deviceInfo = DeviceInfo("test", "Test")
+	}.createApi(baseUrl = server.url("/").toString().trimEnd('/'), accessToken = "token")
+
+	fun createSource(api: ApiClient, scope: CoroutineScope) = PhotoAlbumSource(
+		api = api,
+		parentId = albumId,
+		sortBy = setOf(ItemSortBy.SORT_NAME),
+		sortOrder = SortOrder.ASCENDING,
+		scope = scope,
+	)
+
+	class FakeDecoder(private val bytes: Long) : PhotoDecoder {
+		val decodeCount = AtomicInteger()
+
+		override suspend fun decode(item: BaseItemDto): DecodedPhoto {
+			delay(5)
+			decodeCount.incrementAndGet()
+			return DecodedPhoto(item.id, bytes)
+		}
+	}
+
+	test("paged album is ready with a fraction of the data") {
+		val (server, album) = createServer()
+		val api = createApi(server)
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val startIndex = 7_500
+
+		// Previous behavior: the full album in a single request
+		val fullAlbum = runBlocking {
+			api.ioCallContent { itemsApi.getItems(parentId = albumId) }.items
+		}
+		val fullBytes = album.bytes.getAndSet(0)
+		fullAlbum.size shouldBe albumSize
+
+		val source = createSource(api, scope)
+		val (index, item) = runBlocking {
+			val index = source.locate(photoId(startIndex))
+			index to source.get(index)
+		}
+		val pagedBytes = album.bytes.get()
+
+		index shouldBe startIndex
+		item?.id shouldBe photoId(startIndex)
+		source.size shouldBe albumSize
+		pagedBytes shouldBeLessThan fullBytes / 2
+
+		scope.cancel()
+		server.shutdown()
+	}
+
+	test("walking the album keeps pages and decoded photos bounded") {
+		val (server, _) = createServer()
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val source = createSource(createApi(server), scope)
+		val decoder = FakeDecoder(decodedPhotoBytes)
+		val pool = PhotoDecodePool(decoder, scope)
+		val steps = 500
+
+		var peakBytes = 0L
+		var peakPages = 0
+		var blankFrames = 0
+		runBlocking {
+			val start = source.locate(photoId(9_800))
+
+			for (step in 0..steps) {
+				val index = (start + step).mod(source.size)
+				val item = source.get(index)!!
+
+				// The next photo was decoded ahead while the previous one was shown
+				if (step > 0 && pool.peek(item) == null) blankFrames++
+
+				val neighbours = listOf(index, index + 1, index - 1).mapNotNull { source.get(it.mod(source.size)) }
+				pool.retain(neighbours)
+				neighbours.forEach { pool.await(it) }
+
+				peakBytes = maxOf(peakBytes, pool.byteCount)
+				peakPages = maxOf(peakPages, source.cachedPageCount)
+			}
+		}
+
+		blankFrames shouldBe 0
+		peakBytes shouldBeLessThanOrEqual 3 * decodedPhotoBytes
+		peakPages shouldBeLessThanOrEqual 4
+		// Every photo is decoded once, plus the one before the start
+		decoder.decodeCount.get() shouldBe steps + 3
+		// Wrapped around from the end of the album to the start
+		source.pageRequestCount shouldBeLessThanOrEqual 8
+
+		scope.cancel()
+		server.shutdown()
+	}
+
+	test("released photos are not kept when their decode finishes") {
+		val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+		val pool = PhotoDecodePool(FakeDecoder(decodedPhotoBytes), scope)
+		val first = BaseItemDto(id = photoId(0), type = BaseItemKind.PHOTO)
+		val second = BaseItemDto(id = photoId(1), type = BaseItemKind.PHOTO)
+
+		runBlocking {
+			pool.retain(listOf(first))
+			pool.retain(listOf(second))
+			pool.await(second) shouldNotBe null
+			delay(20)
+		}
+
+		pool.peek(first) shouldBe null
+		pool.byteCount shouldBe decodedPhotoBytes
+
+		scope.cancel()
+	}
+})
@@ -0,0 +1,223 @@
+package org.jellyfin.androidtv.ui.shuffle
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeIn
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.jellyfin.sdk.api.client.ApiClient
+import org.jellyfin.sdk.createJellyfin
+import org.jellyfin.sdk.model.ClientInfo
+import org.jellyfin.sdk.model.DeviceInfo
+import org.jellyfin.sdk.model.api.BaseItemKind
+import java.util.Collections
+import java.util.UUID
+import kotlin.time.Duration.Companion.minutes
+
+class ShufflePoolTests : FunSpec({
+	val moviesLibrary = UUID(0x11b, 1)
+	val smallLibrary = UUID(0x11b, 2)
+	val emptyLibrary = UUID(0x11b, 3)
+
+	data class Item(val id: UUID, val type: String)
+
+	// A library with movies, series and box sets, box sets are returned despite the exclude filter
+	val libraries = mapOf(
+		moviesLibrary to List(200) { Item(UUID(0x300, it.toLong()), "Movie") } +
+			List(30) { Item(UUID(0x5e5, it.toLong()), "Series") } +
+			List(20) { Item(UUID(0xb0c, it.toLong()), "BoxSet") },
+		smallLibrary to List(3) { Item(UUID(0x301, it.toLong()), "Movie") },
+		emptyLibrary to emptyList(),
+	)
+
+	class ItemsServer : Dispatcher() {
+		val requests: MutableList<RecordedRequest> = Collections.synchronizedList(mutableListOf())
+		// Amount of batches that only hold box sets before the requested items are returned
+		@Volatile var boxSetBatches = 0
+
+		override fun dispatch(request: RecordedRequest): MockResponse {
+			requests += request
+			val url = request.requestUrl!!
+			val library = libraries.getValue(UUID.fromString(url.queryParameter("parentId")))
+			val includeTypes = url.queryParameter("includeItemTypes").orEmpty().split(',')
+			val limit = url.queryParameter("limit")!!.toInt()
+
+			val items = if (boxSetBatches > 0) {
+				boxSetBatches--
+				List(limit) { Item(UUID(0xb0c, it.toLong()), "BoxSet") }
+			} else {
+				library
+					.filter { it.type in includeTypes || it.type == "BoxSet" }
+					.shuffled()
+					.take(limit)
+			}
+			val body = items.joinToString(",") { """{"Id":"${it.id}","Type":"${it.type}","Name":"Item"}""" }
+
+			return MockResponse()
+				.setHeader("Content-Type", "application/json")
+				.setBody("""{"Items":[$body],"TotalRecordCount":0,"StartIndex":0}""")
+		}
+	}
+
+	fun createServer(): Pair<MockWebServer, ItemsServer> {
+		val items = ItemsServer()
+		val server = MockWebServer()
+		server.dispatcher = items
+		server.start()
+		return server to items
+	}
+
+	fun createApi(server: MockWebServer): ApiClient = createJellyfin {
+		clientInfo = ClientInfo("Test", "1.0")
+		deviceInfo = DeviceInfo("test", "Test")
+	}.createApi(baseUrl = server.url("/").toString().trimEnd('/'), accessToken = "token")
+
+	val movies = setOf(BaseItemKind.MOVIE)
+
+	test("repeated shuffles share batched round trips") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 10)
+		val shuffles = 100
+
+		val shown = runBlocking {
+			List(shuffles) { pool.next(api, moviesLibrary, null, movies).shouldNotBeNull().id }
+		}
+
+		shown.toSet().size shouldBe shuffles
+		items.requests.size shouldBeLessThanOrEqual shuffles / 10
+
+		server.shutdown()
+	}
+
+	test("a batch is handed out without repeats") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 0)
+
+		val shown = runBlocking {
+			List(30) { pool.next(api, moviesLibrary, null, movies).shouldNotBeNull().id }
+		}
+
+		shown.toSet().size shouldBe shown.size
+		items.requests.size shouldBe 1
+
+		server.shutdown()
+	}
+
+	test("only requested item types are handed out") {
+		val (server, _) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 10)
+		val series = setOf(BaseItemKind.SERIES)
+
+		runBlocking {
+			repeat(60) { pool.next(api, moviesLibrary, null, series).shouldNotBeNull().type shouldBe BaseItemKind.SERIES }
+			pool.requestCount shouldBeLessThanOrEqual 10
+			repeat(60) { pool.next(api, moviesLibrary, null, movies).shouldNotBeNull().type shouldBe BaseItemKind.MOVIE }
+		}
+
+		server.shutdown()
+	}
+
+	test("filters get their own pool") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 0)
+
+		runBlocking {
+			pool.next(api, moviesLibrary, null, movies)
+			pool.next(api, moviesLibrary, "Comedy", movies)
+			pool.next(api, smallLibrary, null, movies)
+			pool.next(api, moviesLibrary, null, movies)
+		}
+
+		items.requests.size shouldBe 3
+		items.requests[1].requestUrl!!.queryParameter("genres") shouldBe "Comedy"
+		items.requests.forEach { it.requestUrl!!.queryParameter("sortBy") shouldBe "Random" }
+
+		server.shutdown()
+	}
+
+	test("small libraries are shuffled locally after the first batch") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 10)
+		val library = libraries.getValue(smallLibrary).map { it.id }
+
+		val shown = runBlocking {
+			List(9) { pool.next(api, smallLibrary, null, movies).shouldNotBeNull().id }
+		}
+
+		shown.chunked(3).forEach { round -> round shouldContainExactlyInAnyOrder library }
+		shown.forEach { it shouldBeIn library }
+		items.requests.size shouldBe 1
+
+		server.shutdown()
+	}
+
+	test("a full batch of box sets doesn't end the shuffle") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 0)
+		items.boxSetBatches = 2
+
+		runBlocking { pool.next(api, smallLibrary, null, movies) }.shouldNotBeNull().type shouldBe BaseItemKind.MOVIE
+		items.requests.size shouldBe 3
+
+		server.shutdown()
+	}
+
+	test("pools expire after the ttl") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		var now = 0L
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 0, ttl = 1.minutes, clock = { now })
+
+		runBlocking {
+			pool.next(api, smallLibrary, null, movies)
+			now += 59_000
+			pool.next(api, smallLibrary, null, movies)
+			items.requests.size shouldBe 1
+
+			now += 1_000
+			pool.next(api, smallLibrary, null, movies)
+			items.requests.size shouldBe 2
+		}
+
+		server.shutdown()
+	}
+
+	test("clearing drops the pooled items") {
+		val (server, items) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool(batchSize = 50, refillThreshold = 0)
+
+		runBlocking {
+			pool.next(api, smallLibrary, null, movies)
+			pool.clear()
+			pool.next(api, smallLibrary, null, movies)
+		}
+
+		items.requests.size shouldBe 2
+
+		server.shutdown()
+	}
+
+	test("empty libraries have nothing to shuffle") {
+		val (server, _) = createServer()
+		val api = createApi(server)
+		val pool = ShufflePool()
+
+		runBlocking { pool.next(api, emptyLibrary, null, movies) }.shouldBeNull()
+
+		server.shutdown()
+	}
+})
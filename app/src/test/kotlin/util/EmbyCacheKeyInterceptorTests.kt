@@ -70,4 +70,10 @@ class EmbyCacheKeyInterceptorTests : FunSpec({
 		val key2 = stripApiKey(url2)
 		(key1 == key2) shouldBe false
 	}
+
+	test("same image with different parameter order produces same cache key") {
+		val url1 = "http://emby:8096/Items/123/Images/Primary?tag=abc&maxWidth=300&api_key=token1"
+		val url2 = "http://emby:8096/Items/123/Images/Primary?api_key=token2&maxWidth=300&tag=abc"
+		stripApiKey(url1) shouldBe stripApiKey(url2)
+	}
 })
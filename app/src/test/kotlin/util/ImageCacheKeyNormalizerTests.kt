@@ -0,0 +1,106 @@
+package util
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import org.jellyfin.androidtv.util.ImageCacheKeyNormalizer
+import kotlin.random.Random
+
+class ImageCacheKeyNormalizerTests : FunSpec({
+	// Previous regex based implementation, used as reference
+	fun legacyStripApiKey(url: String): String = url
+		.replace(Regex("&api_key=[^&]*"), "")
+		.replace(Regex("\\?api_key=[^&]*&"), "?")
+		.replace(Regex("\\?api_key=[^&]*$"), "")
+
+	val names = listOf("maxWidth", "maxHeight", "quality", "tag", "format", "fillWidth", "fillHeight", "Format", "percentPlayed")
+	val bases = listOf(
+		"http://emby:8096/Items/123/Images/Primary",
+		"https://media.example.com/emby/Items/9f2c/Images/Backdrop/0",
+		"http://10.0.0.2:8096/Users/abc/Images/Primary",
+	)
+
+	fun Random.value(): String {
+		val chars = "abcdefABCDEF0123456789-_.%"
+		return (0 until nextInt(0, 12)).map { chars[nextInt(chars.length)] }.joinToString("")
+	}
+
+	fun Random.parameters(): List<String> = names
+		.shuffled(this)
+		.take(nextInt(0, names.size))
+		.sorted()
+		.map { "$it=${value()}" }
+
+	fun Random.withApiKey(parameters: List<String>): List<String> {
+		if (nextBoolean()) return parameters
+		return parameters.toMutableList().apply { add(nextInt(0, size + 1), "api_key=${value()}") }
+	}
+
+	fun url(base: String, parameters: List<String>) =
+		if (parameters.isEmpty()) base else base + "?" + parameters.joinToString("&")
+
+	test("matches the regex implementation for canonically ordered urls") {
+		val random = Random(33)
+		repeat(2_000) {
+			val base = bases[random.nextInt(bases.size)]
+			val input = url(base, random.withApiKey(random.parameters()))
+
+			ImageCacheKeyNormalizer.normalize(input) shouldBe legacyStripApiKey(input)
+		}
+	}
+
+	test("parameter order does not affect the key") {
+		val random = Random(34)
+		repeat(2_000) {
+			val base = bases[random.nextInt(bases.size)]
+			val parameters = random.withApiKey(random.parameters())
+			val canonical = url(base, parameters)
+			val shuffled = url(base, parameters.shuffled(random))
+
+			ImageCacheKeyNormalizer.normalize(shuffled) shouldBe legacyStripApiKey(canonical)
+		}
+	}
+
+	test("normalization is idempotent") {
+		val random = Random(35)
+		repeat(2_000) {
+			val base = bases[random.nextInt(bases.size)]
+			val input = url(base, random.withApiKey(random.parameters()).shuffled(random))
+			val normalized = ImageCacheKeyNormalizer.normalize(input)
+
+			ImageCacheKeyNormalizer.normalize(normalized) shouldBeSameInstanceAs normalized
+		}
+	}
+
+	test("returns the same instance for canonical urls") {
+		val url = "http://emby:8096/Items/123/Images/Primary?maxWidth=300&tag=abc"
+		ImageCacheKeyNormalizer.normalize(url) shouldBeSameInstanceAs url
+	}
+
+	test("strips other auth parameters regardless of case") {
+		ImageCacheKeyNormalizer.normalize("http://emby:8096/Items/1/Images/Primary?X-Emby-Token=t&tag=a&API_KEY=k") shouldBe
+			"http://emby:8096/Items/1/Images/Primary?tag=a"
+	}
+
+	test("keeps relative order of repeated parameters") {
+		ImageCacheKeyNormalizer.normalize("http://emby:8096/Items/1/Images/Primary?tag=b&fields=x&tag=a") shouldBe
+			"http://emby:8096/Items/1/Images/Primary?fields=x&tag=b&tag=a"
+	}
+
+	test("does not treat parameters with an auth prefix as auth parameters") {
+		ImageCacheKeyNormalizer.normalize("http://emby:8096/Items/1/Images/Primary?api_keys=1&tag=a") shouldBe
+			"http://emby:8096/Items/1/Images/Primary?api_keys=1&tag=a"
+	}
+
+	test("preserves the fragment") {
+		ImageCacheKeyNormalizer.normalize("http://emby:8096/Items/1/Images/Primary?tag=a&api_key=k#frag") shouldBe
+			"http://emby:8096/Items/1/Images/Primary?tag=a#frag"
+	}
+
+	test("handles urls with more parameters than the initial buffer") {
+		val parameters = (0 until 40).map { "p%02d=%d".format(it, it) }
+		val base = "http://emby:8096/Items/1/Images/Primary"
+
+		ImageCacheKeyNormalizer.normalize(url(base, parameters.reversed() + "api_key=k")) shouldBe url(base, parameters)
+	}
+})
@@ -0,0 +1,40 @@
+package org.jellyfin.playback.core.mediastream
+
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+
+/**
+ * Short-lived LRU cache of resolved media streams keyed by [MediaStreamResolver.getCacheKey].
+ *
+ * Only streams without conversion are stored. Remux and transcode URLs belong to a server-side
+ * transcoding session that ends when playback stops, so they are never reused.
+ */
+internal class MediaStreamCache(
+	private val ttl: Duration = 2.minutes,
+	private val maxSize: Int = 32,
+	private val timeSource: TimeSource = TimeSource.Monotonic,
+) {
+	private class Entry(val stream: PlayableMediaStream, val expiresAt: TimeMark)
+
+	private val entries = object : LinkedHashMap<String, Entry>(maxSize, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?) = size > maxSize
+	}
+
+	@Synchronized
+	fun get(key: String): PlayableMediaStream? {
+		val entry = entries[key] ?: return null
+		if (entry.expiresAt.hasPassedNow()) {
+			entries.remove(key)
+			return null
+		}
+		return entry.stream
+	}
+
+	@Synchronized
+	fun put(key: String, stream: PlayableMediaStream) {
+		if (stream.conversionMethod != MediaConversionMethod.None) return
+		entries[key] = Entry(stream, timeSource.markNow() + ttl)
+	}
+}
@@ -6,6 +6,19 @@ import org.jellyfin.playback.core.queue.QueueEntry
  * Determine the media stream for a given queue item.
  */
 interface MediaStreamResolver {
+	/**
+	 * Cheap, non-suspending precheck. Resolvers returning false are skipped for [queueEntry]
+	 * without calling [getStream]. Eligible resolvers may be raced against each other.
+	 */
+	fun canResolve(queueEntry: QueueEntry): Boolean = true
+
+	/**
+	 * Key for caching the resolved stream, or null to disable caching. The key should cover
+	 * everything that changes the playback info response, like the item, media source and
+	 * device profile. It is computed on every resolve, so it should not build the device profile.
+	 */
+	fun getCacheKey(queueEntry: QueueEntry): String? = null
+
 	/**
 	 * @return [PlayableMediaStream] or null if no stream can be determined by this resolver
 	 */
@@ -1,8 +1,12 @@
 package org.jellyfin.playback.core.mediastream
 
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.plus
 import kotlinx.coroutines.withContext
 import org.jellyfin.playback.core.backend.PlayerBackend
@@ -14,11 +18,17 @@ import timber.log.Timber
 internal class MediaStreamService(
 	private val mediaStreamResolvers: Collection<MediaStreamResolver>,
 ) : PlayerService() {
+	private val cache = MediaStreamCache()
+	private var previousEntry: QueueEntry? = null
+
 	override suspend fun onInitialize() {
 		manager.queue.entry.onEach { entry ->
 			Timber.d("Queue entry changed to $entry")
 			val backend = requireNotNull(manager.backend)
 
+			previousEntry?.takeIf { it !== entry }?.invalidateSessionStream()
+			previousEntry = entry
+
 			if (entry == null) {
 				backend.setCurrent(null)
 			} else {
@@ -42,19 +52,41 @@ internal class MediaStreamService(
 	}
 
 	private suspend fun QueueEntry.ensureMediaStream(): Boolean {
-		mediaStream = mediaStream ?: mediaStreamResolvers.firstNotNullOfOrNull { resolver ->
-			runCatching {
-				withContext(Dispatchers.IO) {
-					resolver.getStream(this@ensureMediaStream)
-				}
-			}.onFailure {
-				Timber.e(it, "Media stream resolver failed for $this")
-			}.getOrNull()
-		}
+		mediaStream = mediaStream ?: resolveMediaStream(this)
 
 		return mediaStream != null
 	}
 
+	/**
+	 * Remux and transcode streams point at a transcoding session that the server ends once the
+	 * entry stops playing. Drop them so returning to the entry resolves a fresh session.
+	 */
+	private fun QueueEntry.invalidateSessionStream() {
+		val stream = mediaStream ?: return
+		if (stream.conversionMethod == MediaConversionMethod.None) return
+
+		Timber.d("Invalidating transcoding session ${stream.identifier} for $this")
+		mediaStream = null
+	}
+
+	private suspend fun resolveMediaStream(entry: QueueEntry): PlayableMediaStream? {
+		val eligible = mediaStreamResolvers.filter { resolver ->
+			runCatching { resolver.canResolve(entry) }.getOrDefault(false)
+		}
+		if (eligible.isEmpty()) return null
+
+		val cacheKeys = eligible.associateWith { resolver -> runCatching { resolver.getCacheKey(entry) }.getOrNull() }
+		val cached = cacheKeys.values.firstNotNullOfOrNull { key -> key?.let(cache::get) }
+		if (cached != null) {
+			Timber.d("Using cached media stream ${cached.identifier} for $entry")
+			return cached.copy(queueEntry = entry)
+		}
+
+		val (resolver, stream) = raceResolvers(eligible, entry) ?: return null
+		cacheKeys[resolver]?.let { key -> cache.put(key, stream) }
+		return stream
+	}
+
 	private fun PlayerBackend.setCurrent(item: QueueEntry?) {
 		Timber.d("Current item changed to $item")
 
@@ -62,3 +94,41 @@ internal class MediaStreamService(
 		else playItem(item)
 	}
 }
+
+/**
+ * Run all [resolvers] concurrently and return the first non-null stream, cancelling the rest.
+ */
+internal suspend fun raceResolvers(
+	resolvers: List<MediaStreamResolver>,
+	entry: QueueEntry,
+): Pair<MediaStreamResolver, PlayableMediaStream>? {
+	if (resolvers.size == 1) {
+		val resolver = resolvers.single()
+		return resolver.getStreamSafely(entry)?.let { resolver to it }
+	}
+
+	return coroutineScope {
+		val results = Channel<Pair<MediaStreamResolver, PlayableMediaStream>?>(resolvers.size)
+		val jobs = resolvers.map { resolver ->
+			launch { results.send(resolver.getStreamSafely(entry)?.let { resolver to it }) }
+		}
+
+		var winner: Pair<MediaStreamResolver, PlayableMediaStream>? = null
+		for (attempt in resolvers.indices) {
+			winner = results.receive()
+			if (winner != null) break
+		}
+
+		jobs.forEach { it.cancel() }
+		winner
+	}
+}
+
+private suspend fun MediaStreamResolver.getStreamSafely(entry: QueueEntry): PlayableMediaStream? = try {
+	withContext(Dispatchers.IO) { getStream(entry) }
+} catch (err: CancellationException) {
+	throw err
+} catch (err: Exception) {
+	Timber.e(err, "Media stream resolver failed for $entry")
+	null
+}
@@ -0,0 +1,72 @@
+package org.jellyfin.playback.core.mediastream
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import org.jellyfin.playback.core.queue.QueueEntry
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.TestTimeSource
+
+class MediaStreamCacheTests : FunSpec({
+	fun stream(identifier: String, conversionMethod: MediaConversionMethod = MediaConversionMethod.None) = PlayableMediaStream(
+		identifier = identifier,
+		conversionMethod = conversionMethod,
+		container = MediaStreamContainer("mkv"),
+		tracks = emptyList(),
+		queueEntry = QueueEntry(),
+		url = "https://example.com/$identifier",
+	)
+
+	test("returns a stored stream for the same key") {
+		val cache = MediaStreamCache()
+		val direct = stream("direct")
+
+		cache.put("item:profile", direct)
+
+		cache.get("item:profile") shouldBe direct
+	}
+
+	test("misses for an unknown key") {
+		val cache = MediaStreamCache()
+		cache.put("item:profile", stream("direct"))
+
+		cache.get("other:profile").shouldBeNull()
+		// A changed device profile key is a different entry
+		cache.get("item:changed").shouldBeNull()
+	}
+
+	test("expires entries after the ttl") {
+		val timeSource = TestTimeSource()
+		val cache = MediaStreamCache(ttl = 2.minutes, timeSource = timeSource)
+		cache.put("item:profile", stream("direct"))
+
+		timeSource += 119.seconds
+		cache.get("item:profile")?.identifier shouldBe "direct"
+		timeSource += 1.seconds
+		cache.get("item:profile").shouldBeNull()
+	}
+
+	test("never stores remux or transcode streams") {
+		val cache = MediaStreamCache()
+
+		cache.put("remux", stream("remux", MediaConversionMethod.Remux))
+		cache.put("transcode", stream("transcode", MediaConversionMethod.Transcode))
+
+		cache.get("remux").shouldBeNull()
+		cache.get("transcode").shouldBeNull()
+	}
+
+	test("evicts the least recently used entry") {
+		val cache = MediaStreamCache(maxSize = 2)
+		cache.put("first", stream("first"))
+		cache.put("second", stream("second"))
+		cache.get("first")
+
+		cache.put("third", stream("third"))
+
+		cache.get("first")?.identifier shouldBe "first"
+		cache.get("second").shouldBeNull()
+		cache.get("third")?.identifier shouldBe "third"
+	}
+})
@@ -0,0 +1,66 @@
+package org.jellyfin.playback.core.mediastream
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.jellyfin.playback.core.queue.QueueEntry
+
+class MediaStreamServiceTests : FunSpec({
+	fun stream(identifier: String, entry: QueueEntry) = PlayableMediaStream(
+		identifier = identifier,
+		conversionMethod = MediaConversionMethod.None,
+		container = MediaStreamContainer("mkv"),
+		tracks = emptyList(),
+		queueEntry = entry,
+		url = "https://example.com/$identifier",
+	)
+
+	class TestResolver(private val resolve: suspend (QueueEntry) -> PlayableMediaStream?) : MediaStreamResolver {
+		override suspend fun getStream(queueEntry: QueueEntry) = resolve(queueEntry)
+	}
+
+	test("raceResolvers picks the first non-null stream") {
+		val entry = QueueEntry()
+		val empty = TestResolver { null }
+		val fast = TestResolver { delay(50); stream("fast", it) }
+		val slow = TestResolver { delay(5_000); stream("slow", it) }
+
+		val (resolver, stream) = runBlocking { raceResolvers(listOf(empty, slow, fast), entry) }!!
+
+		resolver shouldBe fast
+		stream.identifier shouldBe "fast"
+	}
+
+	test("raceResolvers cancels the losing resolvers") {
+		val entry = QueueEntry()
+		val cancelled = CompletableDeferred<Unit>()
+		val winner = TestResolver { stream("winner", it) }
+		val loser = TestResolver {
+			try {
+				awaitCancellation()
+			} finally {
+				cancelled.complete(Unit)
+			}
+		}
+
+		runBlocking {
+			raceResolvers(listOf(loser, winner), entry)?.second?.identifier shouldBe "winner"
+			cancelled.isCompleted shouldBe true
+		}
+	}
+
+	test("raceResolvers treats failing resolvers as not resolving") {
+		val entry = QueueEntry()
+		val failing = TestResolver { error("Server unavailable") }
+		val working = TestResolver { delay(50); stream("working", it) }
+
+		runBlocking {
+			raceResolvers(listOf(failing, working), entry)?.second?.identifier shouldBe "working"
+			raceResolvers(listOf(failing, TestResolver { null }), entry).shouldBeNull()
+		}
+	}
+})
@@ -7,4 +7,5 @@ import org.moonfin.server.emby.EmbyApiClient
 fun embyPlugin(
 	api: EmbyApiClient,
 	deviceProfileBuilder: () -> DeviceProfile,
+	deviceProfileKey: (() -> String)? = null,
 ) = playbackPlugin { }
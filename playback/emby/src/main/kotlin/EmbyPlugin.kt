@@ -9,7 +9,8 @@ import org.moonfin.server.emby.EmbyApiClient
 fun embyPlugin(
 	api: EmbyApiClient,
 	deviceProfileBuilder: () -> DeviceProfile,
+	deviceProfileKey: (() -> String)? = null,
 ) = playbackPlugin {
-	provide(EmbyMediaStreamResolver(api, deviceProfileBuilder))
+	provide(EmbyMediaStreamResolver(api, deviceProfileBuilder, deviceProfileKey))
 	provide(EmbyPlaySessionService(api))
 }
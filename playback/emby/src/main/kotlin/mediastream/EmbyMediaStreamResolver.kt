@@ -23,11 +23,21 @@ import org.jellyfin.sdk.model.api.DeviceProfile as JellyfinDeviceProfile
 class EmbyMediaStreamResolver(
 	private val api: EmbyApiClient,
 	private val deviceProfileBuilder: () -> JellyfinDeviceProfile,
+	private val deviceProfileKey: (() -> String)? = null,
 ) : MediaStreamResolver {
 	companion object {
 		private val supportedMediaTypes = arrayOf(MediaType.VIDEO, MediaType.AUDIO)
 	}
 
+	override fun canResolve(queueEntry: QueueEntry): Boolean =
+		api.isConfigured && queueEntry.baseItem?.mediaType in supportedMediaTypes
+
+	override fun getCacheKey(queueEntry: QueueEntry): String? {
+		val profileKey = deviceProfileKey?.invoke() ?: return null
+		val baseItem = queueEntry.baseItem ?: return null
+		return "emby:${api.baseUrl}:${baseItem.id}:${queueEntry.mediaSourceId}:$profileKey"
+	}
+
 	override suspend fun getStream(queueEntry: QueueEntry): PlayableMediaStream? {
 		if (!api.isConfigured) return null
 
@@ -15,8 +15,9 @@ fun jellyfinPlugin(
 	lifecycle: Lifecycle? = null,
 	apiClientResolver: ((UUID?) -> ApiClient?)? = null,
 	isActive: () -> Boolean = { true },
+	deviceProfileKey: (() -> String)? = null,
 ) = playbackPlugin {
-	provide(JellyfinMediaStreamResolver(api, deviceProfileBuilder))
+	provide(JellyfinMediaStreamResolver(api, deviceProfileBuilder, isActive, deviceProfileKey))
 
 	val playSessionService = PlaySessionService(api, apiClientResolver, isActive)
 	provide(playSessionService)
@@ -0,0 +1,49 @@
+package org.jellyfin.playback.jellyfin
+
+import org.jellyfin.sdk.model.api.LyricDto
+
+/**
+ * Lyrics pre-indexed by start time. Lines are sorted by their start ticks once, so the active line
+ * for a playback position is found with a binary search instead of scanning every line per tick.
+ */
+class LyricsTimeline(lyrics: LyricDto) {
+	/** Whether the lyrics carry start times. Unsynced lyrics keep their original order. */
+	val isSynced: Boolean = lyrics.lyrics.firstOrNull()?.start != null
+
+	/** Line texts in timeline order. */
+	val lines: List<String>
+
+	/** Start of each entry in [lines] in ticks, ascending. Empty for unsynced lyrics. */
+	private val startTicks: LongArray
+
+	init {
+		if (isSynced) {
+			val sorted = lyrics.lyrics.sortedBy { it.start ?: 0L }
+			lines = sorted.map { it.text }
+			startTicks = LongArray(sorted.size) { index -> sorted[index].start ?: 0L }
+		} else {
+			lines = lyrics.lyrics.map { it.text }
+			startTicks = LongArray(0)
+		}
+	}
+
+	/**
+	 * @return index into [lines] of the last line starting at or before [positionTicks], or null
+	 * when no line started yet or the lyrics are unsynced
+	 */
+	fun indexAt(positionTicks: Long): Int? {
+		var low = 0
+		var high = startTicks.size - 1
+		var result = -1
+		while (low <= high) {
+			val mid = (low + high) ushr 1
+			if (startTicks[mid] <= positionTicks) {
+				result = mid
+				low = mid + 1
+			} else {
+				high = mid - 1
+			}
+		}
+		return result.takeIf { it != -1 }
+	}
+}
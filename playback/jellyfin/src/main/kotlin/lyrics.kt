@@ -1,7 +1,10 @@
 package org.jellyfin.playback.jellyfin
 
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.launch
 import org.jellyfin.playback.core.element.ElementKey
 import org.jellyfin.playback.core.element.element
 import org.jellyfin.playback.core.element.elementFlow
@@ -12,8 +15,11 @@ import org.jellyfin.playback.jellyfin.queue.baseItem
 import org.jellyfin.sdk.api.client.ApiClient
 import org.jellyfin.sdk.api.client.extensions.lyricsApi
 import org.jellyfin.sdk.model.api.LyricDto
+import timber.log.Timber
+import java.util.UUID
 
 private val lyricsKey = ElementKey<LyricDto>("LyricDto")
+private val lyricsTimelineKey = ElementKey<LyricsTimeline>("LyricsTimeline")
 
 /**
  * Get or set the [LyricDto] for this [QueueEntry].
@@ -21,16 +27,52 @@ private val lyricsKey = ElementKey<LyricDto>("LyricDto")
 var QueueEntry.lyrics by element(lyricsKey)
 val QueueEntry.lyricsFlow by elementFlow(lyricsKey)
 
+/**
+ * Get or set the [LyricsTimeline] for this [QueueEntry], set together with [lyrics].
+ */
+var QueueEntry.lyricsTimeline by element(lyricsTimelineKey)
+
 class LyricsPlayerService(
 	private val api: ApiClient,
 ) : PlayerService() {
+	companion object {
+		private const val PREFETCH_COUNT = 2
+		private const val CACHE_SIZE = 32
+	}
+
+	private class CachedLyrics(val lyrics: LyricDto, val timeline: LyricsTimeline)
+
+	private val cache = object : LinkedHashMap<UUID, CachedLyrics>(CACHE_SIZE, 0.75f, true) {
+		override fun removeEldestEntry(eldest: MutableMap.MutableEntry<UUID, CachedLyrics>?) = size > CACHE_SIZE
+	}
+
+	private var prefetchJob: Job? = null
+
 	override suspend fun onInitialize() {
-		// Load lyrics for an item as soon as it becomes the currently playing item
+		// Load lyrics for an item as soon as it becomes the currently playing item, then prefetch
+		// the upcoming items so their lyrics are ready on track change
 		manager.queue.entry
-			.onEach { entry -> entry?.let { fetchLyrics(entry) } }
+			.onEach { entry ->
+				prefetchJob?.cancel()
+				if (entry == null) return@onEach
+				fetchLyrics(entry)
+				prefetchJob = coroutineScope.launch { prefetchLyrics() }
+			}
 			.launchIn(coroutineScope)
 	}
 
+	private suspend fun prefetchLyrics() {
+		for (next in manager.queue.peekNext(PREFETCH_COUNT)) {
+			try {
+				fetchLyrics(next)
+			} catch (err: CancellationException) {
+				throw err
+			} catch (err: Exception) {
+				Timber.w(err, "Failed to prefetch lyrics for $next")
+			}
+		}
+	}
+
 	private suspend fun fetchLyrics(entry: QueueEntry) {
 		// Already has lyrics!
 		if (entry.lyrics != null) return
@@ -39,8 +81,13 @@ class LyricsPlayerService(
 		val baseItem = entry.baseItem ?: return
 		if (baseItem.hasLyrics != true) return
 
-		// Get via API
-		val lyrics by api.lyricsApi.getLyrics(baseItem.id)
-		entry.lyrics = lyrics
+		val cached = synchronized(cache) { cache[baseItem.id] } ?: run {
+			// Get via API
+			val lyrics by api.lyricsApi.getLyrics(baseItem.id)
+			CachedLyrics(lyrics, LyricsTimeline(lyrics)).also { synchronized(cache) { cache[baseItem.id] = it } }
+		}
+
+		entry.lyricsTimeline = cached.timeline
+		entry.lyrics = cached.lyrics
 	}
 }
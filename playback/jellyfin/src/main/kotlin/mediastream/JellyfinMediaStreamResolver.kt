@@ -19,11 +19,22 @@ import org.jellyfin.sdk.model.api.PlaybackInfoDto
 class JellyfinMediaStreamResolver(
 	private val api: ApiClient,
 	private val deviceProfileBuilder: () -> DeviceProfile,
+	private val isActive: () -> Boolean = { true },
+	private val deviceProfileKey: (() -> String)? = null,
 ) : MediaStreamResolver {
 	companion object {
 		private val supportedMediaTypes = arrayOf(MediaType.VIDEO, MediaType.AUDIO)
 	}
 
+	override fun canResolve(queueEntry: QueueEntry): Boolean =
+		isActive() && queueEntry.baseItem?.mediaType in supportedMediaTypes
+
+	override fun getCacheKey(queueEntry: QueueEntry): String? {
+		val profileKey = deviceProfileKey?.invoke() ?: return null
+		val baseItem = queueEntry.baseItem ?: return null
+		return "jellyfin:${api.baseUrl}:${baseItem.id}:${queueEntry.mediaSourceId}:$profileKey"
+	}
+
 	override suspend fun getStream(queueEntry: QueueEntry): PlayableMediaStream? {
 		val baseItem = queueEntry.baseItem
 		if (baseItem == null || !supportedMediaTypes.contains(baseItem.mediaType)) return null
@@ -0,0 +1,59 @@
+package org.jellyfin.playback.jellyfin
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import org.jellyfin.sdk.model.api.LyricDto
+import org.jellyfin.sdk.model.api.LyricLine
+import org.jellyfin.sdk.model.api.LyricMetadata
+
+class LyricsTimelineTests : FunSpec({
+	fun lyrics(vararg lines: Pair<String, Long?>) = LyricDto(
+		metadata = LyricMetadata(),
+		lyrics = lines.map { (text, start) -> LyricLine(text = text, start = start) },
+	)
+
+	val timeline = LyricsTimeline(lyrics("first" to 1_000L, "second" to 5_000L, "third" to 9_000L))
+
+	test("no line is active before the first line starts") {
+		timeline.indexAt(0).shouldBeNull()
+		timeline.indexAt(999).shouldBeNull()
+	}
+
+	test("a line is active from its exact start") {
+		timeline.indexAt(1_000) shouldBe 0
+		timeline.indexAt(4_999) shouldBe 0
+		timeline.indexAt(5_000) shouldBe 1
+		timeline.indexAt(9_000) shouldBe 2
+	}
+
+	test("the last line stays active after it started") {
+		timeline.indexAt(Long.MAX_VALUE) shouldBe 2
+	}
+
+	test("lines with the same start resolve to the last of them") {
+		val duplicates = LyricsTimeline(lyrics("intro" to 0L, "first" to 2_000L, "second" to 2_000L, "outro" to 4_000L))
+
+		duplicates.indexAt(1_999) shouldBe 0
+		duplicates.indexAt(2_000) shouldBe 2
+		duplicates.lines[2] shouldBe "second"
+		duplicates.indexAt(4_000) shouldBe 3
+	}
+
+	test("lines are sorted by start") {
+		val unsorted = LyricsTimeline(lyrics("second" to 5_000L, "first" to 1_000L))
+
+		unsorted.isSynced shouldBe true
+		unsorted.lines shouldContainExactly listOf("first", "second")
+		unsorted.indexAt(2_000) shouldBe 0
+	}
+
+	test("unsynced lyrics keep their order and have no active line") {
+		val unsynced = LyricsTimeline(lyrics("b" to null, "a" to null))
+
+		unsynced.isSynced shouldBe false
+		unsynced.lines shouldContainExactly listOf("b", "a")
+		unsynced.indexAt(1_000).shouldBeNull()
+	}
+})
@@ -0,0 +1,11 @@
+package org.jellyfin.preference.store
+
+/**
+ * Listener for changes made through a [SharedPreferenceStore].
+ */
+fun interface PreferenceChangeListener {
+	/**
+	 * Called after a write or transaction was saved, with all keys that got a different value.
+	 */
+	fun onPreferencesChanged(keys: Set<String>)
+}
@@ -6,6 +6,7 @@ import org.jellyfin.preference.PreferenceEnum
 import org.jellyfin.preference.intPreference
 import org.jellyfin.preference.migration.MigrationContext
 import timber.log.Timber
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * Implementation of the [PreferenceStore] using Android shared preferences.
@@ -16,6 +17,9 @@ import timber.log.Timber
  * 	```
  * Specify as "val" instead of "var" to make it read-only.
  *
+ * Multiple writes can be grouped with [transaction] so they are saved in a single edit and
+ * [PreferenceChangeListener]s are notified once.
+ *
  * Migrations should be added to the `init` block of a store and look like this:
  * ```kotlin
  * migration(toVersion = 1) {
@@ -33,36 +37,105 @@ abstract class SharedPreferenceStore(
 	 */
 	protected val sharedPreferences: SharedPreferences
 ) : PreferenceStore<SharedPreferences.Editor, SharedPreferences>() {
+	private class PendingTransaction(val editor: SharedPreferences.Editor) {
+		// Written values by key, null for removed keys
+		val values = mutableMapOf<String, Any?>()
+	}
+
+	private val pendingTransaction = ThreadLocal<PendingTransaction?>()
+	private val changeListeners = CopyOnWriteArrayList<PreferenceChangeListener>()
+
 	// Internal helpers
-	private fun transaction(body: SharedPreferences.Editor.() -> Unit) {
+	private fun edit(body: SharedPreferences.Editor.() -> Unit) {
 		val editor = sharedPreferences.edit()
 		editor.body()
 		editor.apply()
 	}
 
-	override fun getInt(key: String, defaultValue: Int) =
+	private fun write(key: String, value: Any?, body: SharedPreferences.Editor.() -> Unit) {
+		val pending = pendingTransaction.get()
+		if (pending == null) {
+			transaction { write(key, value, body) }
+		} else {
+			pending.editor.body()
+			pending.values[key] = value
+		}
+	}
+
+	@Suppress("UNCHECKED_CAST")
+	private inline fun <T> read(key: String, defaultValue: T, body: () -> T): T {
+		val pending = pendingTransaction.get()?.values
+		return if (pending != null && key in pending) pending[key] as T? ?: defaultValue
+		else body()
+	}
+
+	/**
+	 * Modify multiple preferences and save them in a single edit. Values written in [body] are
+	 * visible to reads from the same thread straight away, other threads only see them once the
+	 * transaction completes. Nothing is saved when [body] throws. Nested transactions join the
+	 * outer one.
+	 *
+	 * ```kotlin
+	 * store.transaction {
+	 * 	this[Preference.x] = value
+	 * 	reset(Preference.y)
+	 * }
+	 * ```
+	 */
+	fun transaction(body: SharedPreferenceStore.() -> Unit) {
+		if (pendingTransaction.get() != null) return body()
+
+		val pending = PendingTransaction(sharedPreferences.edit())
+		pendingTransaction.set(pending)
+		try {
+			body()
+		} finally {
+			pendingTransaction.remove()
+		}
+
+		if (pending.values.isEmpty()) return
+
+		// Only compared when someone listens, reading all values copies the whole file
+		val changedKeys = if (changeListeners.isEmpty()) emptySet() else {
+			val stored = sharedPreferences.all
+			pending.values.filter { (key, value) -> stored[key] != value }.keys
+		}
+
+		pending.editor.apply()
+
+		if (changedKeys.isNotEmpty()) {
+			for (listener in changeListeners) listener.onPreferencesChanged(changedKeys)
+		}
+	}
+
+	override fun getInt(key: String, defaultValue: Int) = read(key, defaultValue) {
 		sharedPreferences.getInt(key, defaultValue)
+	}
 
-	override fun getLong(key: String, defaultValue: Long) =
+	override fun getLong(key: String, defaultValue: Long) = read(key, defaultValue) {
 		sharedPreferences.getLong(key, defaultValue)
+	}
 
-	override fun getFloat(key: String, defaultValue: Float) =
+	override fun getFloat(key: String, defaultValue: Float) = read(key, defaultValue) {
 		sharedPreferences.getFloat(key, defaultValue)
+	}
 
-	override fun getBool(key: String, defaultValue: Boolean) =
+	override fun getBool(key: String, defaultValue: Boolean) = read(key, defaultValue) {
 		sharedPreferences.getBoolean(key, defaultValue)
+	}
 
-	override fun getString(key: String, defaultValue: String) =
+	override fun getString(key: String, defaultValue: String) = read(key, defaultValue) {
 		sharedPreferences.getString(key, defaultValue) ?: defaultValue
+	}
 
-	override fun setInt(key: String, value: Int) = transaction { putInt(key, value) }
-	override fun setLong(key: String, value: Long) = transaction { putLong(key, value) }
-	override fun setFloat(key: String, value: Float) = transaction { putFloat(key, value) }
+	override fun setInt(key: String, value: Int) = write(key, value) { putInt(key, value) }
+	override fun setLong(key: String, value: Long) = write(key, value) { putLong(key, value) }
+	override fun setFloat(key: String, value: Float) = write(key, value) { putFloat(key, value) }
 	override fun setBool(key: String, value: Boolean) =
-		transaction { putBoolean(key, value) }
+		write(key, value) { putBoolean(key, value) }
 
 	override fun setString(key: String, value: String) =
-		transaction { putString(key, value) }
+		write(key, value) { putString(key, value) }
 
 	override fun <T : Enum<T>> getEnum(preference: Preference<T>): T {
 		val stringValue = getString(preference.key, "")
@@ -79,7 +152,7 @@ abstract class SharedPreferenceStore(
 			})
 
 	// Additional mutations
-	override fun <T : Any> delete(preference: Preference<T>) = transaction {
+	override fun <T : Any> delete(preference: Preference<T>) = write(preference.key, null) {
 		remove(preference.key)
 	}
 
@@ -92,7 +165,7 @@ abstract class SharedPreferenceStore(
 			Timber.i("Migrating a preference store to version ${migration.toVersion}")
 
 			// Create a new transaction and execute the migration
-			transaction { migration.body(this, sharedPreferences) }
+			edit { migration.body(this, sharedPreferences) }
 		}
 	}
 
@@ -118,18 +191,32 @@ abstract class SharedPreferenceStore(
 		sharedPreferences.unregisterOnSharedPreferenceChangeListener(listener)
 	}
 
+	/**
+	 * Register a listener that is called once per write or [transaction] made through this store,
+	 * with all keys that changed. Writes made through other store instances or directly on the
+	 * shared preferences are not reported, use [registerChangeListener] for those. Callers are
+	 * responsible for unregistering via [removeChangeListener].
+	 */
+	fun addChangeListener(listener: PreferenceChangeListener) {
+		changeListeners.addIfAbsent(listener)
+	}
+
+	/**
+	 * Remove a listener added with [addChangeListener].
+	 */
+	fun removeChangeListener(listener: PreferenceChangeListener) {
+		changeListeners.remove(listener)
+	}
+
 	/**
 	 * Read a raw string value from the underlying SharedPreferences by key.
 	 * Useful for reading enum preferences as their serialized string form.
 	 */
-	fun getRawString(key: String, defaultValue: String): String =
-		sharedPreferences.getString(key, defaultValue) ?: defaultValue
+	fun getRawString(key: String, defaultValue: String): String = getString(key, defaultValue)
 
 	/**
 	 * Write a raw string value to the underlying SharedPreferences by key.
 	 * Useful for writing enum preferences from their serialized string form.
 	 */
-	fun putRawString(key: String, value: String) {
-		sharedPreferences.edit().putString(key, value).apply()
-	}
+	fun putRawString(key: String, value: String) = setString(key, value)
 }
@@ -0,0 +1,244 @@
+package org.jellyfin.preference
+
+import android.content.SharedPreferences
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import org.jellyfin.preference.store.PreferenceChangeListener
+import org.jellyfin.preference.store.SharedPreferenceStore
+import kotlin.concurrent.thread
+
+class SharedPreferenceStoreTests : FunSpec({
+	val intValue = intPreference("int", 0)
+	val longValue = longPreference("long", 0L)
+	val floatValue = floatPreference("float", 0f)
+	val boolValue = booleanPreference("bool", false)
+	val stringValue = stringPreference("string", "")
+	val enumValue = enumPreference("enum", TestEnum.NOT_SET)
+
+	fun createStore(): Pair<TestStore, CountingSharedPreferences> {
+		val sharedPreferences = CountingSharedPreferences()
+		return TestStore(sharedPreferences) to sharedPreferences
+	}
+
+	test("writes outside a transaction are saved one by one") {
+		val (store, sharedPreferences) = createStore()
+
+		store[intValue] = 1
+		store[stringValue] = "value"
+
+		sharedPreferences.flushCount shouldBe 2
+		store[intValue] shouldBe 1
+		store[stringValue] shouldBe "value"
+	}
+
+	test("transaction saves all writes in a single edit") {
+		val (store, sharedPreferences) = createStore()
+
+		store.transaction {
+			this[intValue] = 1
+			this[longValue] = 2L
+			this[floatValue] = 3f
+			this[boolValue] = true
+			this[stringValue] = "value"
+			this[enumValue] = TestEnum.SET
+		}
+
+		sharedPreferences.flushCount shouldBe 1
+		store[intValue] shouldBe 1
+		store[longValue] shouldBe 2L
+		store[floatValue] shouldBe 3f
+		store[boolValue] shouldBe true
+		store[stringValue] shouldBe "value"
+		store[enumValue] shouldBe TestEnum.SET
+	}
+
+	test("transaction reads its own writes") {
+		val (store, sharedPreferences) = createStore()
+		store[intValue] = 1
+
+		store.transaction {
+			this[intValue] = this[intValue] + 1
+			this[intValue] = this[intValue] + 1
+			delete(stringValue)
+			this[stringValue] shouldBe ""
+
+			// Not saved yet
+			sharedPreferences.getInt(intValue.key, 0) shouldBe 1
+		}
+
+		store[intValue] shouldBe 3
+	}
+
+	test("other threads do not see or join a running transaction") {
+		val (store, sharedPreferences) = createStore()
+
+		var otherThreadValue: Int? = null
+		store.transaction {
+			this[intValue] = 1
+			thread {
+				otherThreadValue = store[intValue]
+				store[stringValue] = "other"
+			}.join()
+		}
+
+		otherThreadValue shouldBe 0
+		sharedPreferences.flushCount shouldBe 2
+		store[intValue] shouldBe 1
+		store[stringValue] shouldBe "other"
+	}
+
+	test("failed transaction saves nothing") {
+		val (store, sharedPreferences) = createStore()
+		store[intValue] = 1
+
+		shouldThrow<IllegalStateException> {
+			store.transaction {
+				this[intValue] = 2
+				this[stringValue] = "value"
+				error("Failed halfway")
+			}
+		}
+
+		sharedPreferences.flushCount shouldBe 1
+		store[intValue] shouldBe 1
+		store[stringValue] shouldBe ""
+
+		// The store is usable again afterwards
+		store[intValue] = 3
+		sharedPreferences.getInt(intValue.key, 0) shouldBe 3
+	}
+
+	test("nested transactions join the outer one") {
+		val (store, sharedPreferences) = createStore()
+
+		store.transaction {
+			this[intValue] = 1
+			transaction { this[longValue] = 2L }
+			sharedPreferences.flushCount shouldBe 0
+		}
+
+		sharedPreferences.flushCount shouldBe 1
+		store[longValue] shouldBe 2L
+	}
+
+	test("listeners are called once per transaction with the changed keys") {
+		val (store, _) = createStore()
+		store[boolValue] = true
+
+		val calls = mutableListOf<Set<String>>()
+		val listener = PreferenceChangeListener { keys -> calls += keys }
+		store.addChangeListener(listener)
+
+		store.transaction {
+			this[intValue] = 1
+			this[intValue] = 2
+			this[stringValue] = "value"
+			// Unchanged
+			this[boolValue] = true
+		}
+		store[longValue] = 1L
+		store[longValue] = 1L
+		store.transaction { }
+
+		calls shouldContainExactly listOf(setOf(intValue.key, stringValue.key), setOf(longValue.key))
+
+		store.removeChangeListener(listener)
+		store[longValue] = 2L
+		calls.size shouldBe 2
+	}
+
+	test("bulk writes in a transaction are flushed once") {
+		val keys = (0 until 50).map { stringPreference("key_$it", "") }
+
+		val (separateStore, separate) = createStore()
+		keys.forEach { separateStore[it] = "value" }
+
+		val (transactionStore, batched) = createStore()
+		transactionStore.transaction { keys.forEach { this[it] = "value" } }
+
+		separate.flushCount shouldBe keys.size
+		batched.flushCount shouldBe 1
+		batched.all shouldBe separate.all
+	}
+})
+
+private class TestStore(sharedPreferences: SharedPreferences) : SharedPreferenceStore(sharedPreferences)
+
+private enum class TestEnum { NOT_SET, SET }
+
+/**
+ * In-memory [SharedPreferences] that counts the edits written to disk.
+ */
+private class CountingSharedPreferences : SharedPreferences {
+	private val values = mutableMapOf<String, Any?>()
+	var flushCount = 0
+		private set
+
+	@Synchronized
+	override fun getAll(): Map<String, *> = values.toMap()
+
+	@Synchronized
+	override fun getString(key: String, defValue: String?) = values[key] as? String ?: defValue
+
+	override fun getStringSet(key: String, defValues: MutableSet<String>?) = defValues
+
+	@Synchronized
+	override fun getInt(key: String, defValue: Int) = values[key] as? Int ?: defValue
+
+	@Synchronized
+	override fun getLong(key: String, defValue: Long) = values[key] as? Long ?: defValue
+
+	@Synchronized
+	override fun getFloat(key: String, defValue: Float) = values[key] as? Float ?: defValue
+
+	@Synchronized
+	override fun getBoolean(key: String, defValue: Boolean) = values[key] as? Boolean ?: defValue
+
+	@Synchronized
+	override fun contains(key: String) = key in values
+
+	override fun edit(): SharedPreferences.Editor = Editor()
+
+	override fun registerOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) = Unit
+
+	override fun unregisterOnSharedPreferenceChangeListener(listener: SharedPreferences.OnSharedPreferenceChangeListener) = Unit
+
+	private inner class Editor : SharedPreferences.Editor {
+		private val pending = mutableMapOf<String, Any?>()
+		private var clear = false
+
+		override fun putString(key: String, value: String?) = apply { pending[key] = value }
+
+		override fun putStringSet(key: String, values: MutableSet<String>?) = apply { pending[key] = values }
+
+		override fun putInt(key: String, value: Int) = apply { pending[key] = value }
+
+		override fun putLong(key: String, value: Long) = apply { pending[key] = value }
+
+		override fun putFloat(key: String, value: Float) = apply { pending[key] = value }
+
+		override fun putBoolean(key: String, value: Boolean) = apply { pending[key] = value }
+
+		override fun remove(key: String) = apply { pending[key] = null }
+
+		override fun clear() = apply { clear = true }
+
+		override fun commit(): Boolean {
+			apply()
+			return true
+		}
+
+		override fun apply() {
+			synchronized(this@CountingSharedPreferences) {
+				// Like Android, clearing happens before the other changes of the edit
+				if (clear) values.clear()
+				pending.forEach { (key, value) ->
+					if (value == null) values.remove(key) else values[key] = value
+				}
+				flushCount++
+			}
+		}
+	}
+}
@@ -5,6 +5,9 @@ sealed class ServerWebSocketMessage {
         val itemsAdded: List<String>,
         val itemsUpdated: List<String>,
         val itemsRemoved: List<String>,
+        val foldersAddedTo: List<String> = emptyList(),
+        val foldersRemovedFrom: List<String> = emptyList(),
+        val collectionFolders: List<String> = emptyList(),
     ) : ServerWebSocketMessage()
 
     data class UserDataChanged(
@@ -38,4 +38,6 @@ dependencies {
 	testImplementation(libs.kotest.runner.junit5)
 	testImplementation(libs.kotest.assertions)
 	testImplementation(libs.mockk)
+	testImplementation(libs.okhttp.mockwebserver)
+	testImplementation(libs.kotlinx.coroutines.test)
 }
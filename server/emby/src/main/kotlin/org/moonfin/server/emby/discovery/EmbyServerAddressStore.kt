@@ -0,0 +1,64 @@
+package org.moonfin.server.emby.discovery
+
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Remembers which address of a server answered last, so the next connection tries it first.
+ */
+interface EmbyServerAddressStore {
+    fun getPreferredAddress(serverId: String): String?
+    fun setPreferredAddress(serverId: String, address: String)
+}
+
+class InMemoryEmbyServerAddressStore : EmbyServerAddressStore {
+    private val addresses = ConcurrentHashMap<String, String>()
+
+    override fun getPreferredAddress(serverId: String): String? = addresses[serverId]
+
+    override fun setPreferredAddress(serverId: String, address: String) {
+        addresses[serverId] = address
+    }
+}
+
+/**
+ * [EmbyServerAddressStore] backed by a properties file. Writes go to a temporary file that replaces
+ * the previous one, so a crash never leaves a partially written file behind.
+ */
+class FileEmbyServerAddressStore(private val file: File) : EmbyServerAddressStore {
+    private val addresses: Properties by lazy {
+        Properties().apply {
+            if (file.exists()) {
+                try {
+                    file.inputStream().use(::load)
+                } catch (e: IOException) {
+                    Timber.w(e, "Failed to read preferred Emby server addresses")
+                }
+            }
+        }
+    }
+
+    @Synchronized
+    override fun getPreferredAddress(serverId: String): String? = addresses.getProperty(serverId)
+
+    @Synchronized
+    override fun setPreferredAddress(serverId: String, address: String) {
+        if (addresses.getProperty(serverId) == address) return
+        addresses.setProperty(serverId, address)
+
+        try {
+            file.parentFile?.mkdirs()
+            val temp = File(file.parentFile, "${file.name}.tmp")
+            temp.outputStream().use { addresses.store(it, null) }
+            if (!temp.renameTo(file)) {
+                file.delete()
+                temp.renameTo(file)
+            }
+        } catch (e: IOException) {
+            Timber.w(e, "Failed to write preferred Emby server addresses")
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package org.moonfin.server.emby.discovery
 
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.cancelChildren
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.currentCoroutineContext
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.channelFlow
 import kotlinx.coroutines.isActive
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.jsonObject
 import kotlinx.serialization.json.jsonPrimitive
@@ -20,38 +24,102 @@ import timber.log.Timber
 import java.net.DatagramPacket
 import java.net.DatagramSocket
 import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.NetworkInterface
+import java.net.SocketTimeoutException
 
-class EmbyServerDiscovery : ServerDiscoveryApi {
+/**
+ * Emby server discovery and address validation.
+ *
+ * Discovery broadcasts on every network interface at the same time and listens for answers on all
+ * of them for [discoveryWindowMs]. Address validation races all candidates happy-eyeballs style: a
+ * new attempt starts every [attemptStaggerMs] or as soon as the previous one fails, and the first
+ * healthy answer wins. The winning address is remembered per server id in [addressStore] and tried
+ * first next time. Each attempt is checked with [validator], which requests the public system info.
+ */
+class EmbyServerDiscovery(
+    private val addressStore: EmbyServerAddressStore = InMemoryEmbyServerAddressStore(),
+    private val broadcastTargets: () -> List<InetSocketAddress> = ::interfaceBroadcastTargets,
+    private val discoveryWindowMs: Long = DISCOVERY_WINDOW_MS,
+    private val attemptStaggerMs: Long = ATTEMPT_STAGGER_MS,
+    private val attemptTimeoutMs: Long = ATTEMPT_TIMEOUT_MS,
+    private val validator: suspend (address: String) -> ServerValidationResult = ::requestSystemInfo,
+) : ServerDiscoveryApi {
 
     companion object {
         private const val DISCOVERY_PORT = 7359
         private const val DISCOVERY_MESSAGE = "who is EmbyServer?"
-        private const val RECEIVE_TIMEOUT_MS = 3000
         private const val DISCOVERY_ROUNDS = 3
-        private const val ROUND_DELAY_MS = 1500L
+        private const val DISCOVERY_WINDOW_MS = 3000L
+        private const val ATTEMPT_STAGGER_MS = 250L
+        private const val ATTEMPT_TIMEOUT_MS = 5000L
+
+        private fun interfaceBroadcastTargets(): List<InetSocketAddress> {
+            val addresses = try {
+                NetworkInterface.getNetworkInterfaces()?.toList().orEmpty()
+                    .filter { it.isUp && !it.isLoopback }
+                    .flatMap { it.interfaceAddresses }
+                    .mapNotNull { it.broadcast }
+            } catch (e: Exception) {
+                Timber.d(e, "Unable to list network interfaces")
+                emptyList()
+            }
+
+            return (addresses + InetAddress.getByName("255.255.255.255"))
+                .distinct()
+                .map { InetSocketAddress(it, DISCOVERY_PORT) }
+        }
+
+        private suspend fun requestSystemInfo(address: String): ServerValidationResult {
+            return try {
+                val service = SystemServiceApi(address)
+                val info = service.getSystemInfoPublic().body()
+                ServerValidationResult(
+                    address = address,
+                    isValid = true,
+                    serverType = ServerType.EMBY,
+                    systemInfo = PublicSystemInfo(
+                        serverName = info.serverName ?: "",
+                        version = info.version ?: "",
+                        productName = "Emby Server",
+                        id = info.id ?: "",
+                        startupWizardCompleted = null,
+                        localAddress = info.localAddress,
+                        wanAddress = info.wanAddress,
+                    ),
+                    errorMessage = null,
+                )
+            } catch (e: CancellationException) {
+                // Losing attempts of a race are cancelled and must not turn into a failure result
+                throw e
+            } catch (e: Exception) {
+                invalidResult(address, e.message)
+            }
+        }
+
+        private fun invalidResult(address: String, message: String?) = ServerValidationResult(
+            address = address,
+            isValid = false,
+            serverType = null,
+            systemInfo = null,
+            errorMessage = message,
+        )
     }
 
     private val json = Json { ignoreUnknownKeys = true }
 
-    override fun discoverLocalServers(): Flow<DiscoveredServer> = flow {
+    override fun discoverLocalServers(): Flow<DiscoveredServer> = channelFlow {
         val seen = mutableSetOf<String>()
 
-        repeat(DISCOVERY_ROUNDS) {
-            if (!currentCoroutineContext().isActive) return@repeat
-
-            try {
-                val servers = sendDiscoveryBroadcast()
-                for (server in servers) {
-                    if (seen.add(server.id)) {
-                        emit(server)
+        for (target in broadcastTargets()) {
+            launch(Dispatchers.IO) {
+                try {
+                    broadcast(target) { server ->
+                        if (synchronized(seen) { seen.add(server.id) }) send(server)
                     }
+                } catch (e: Exception) {
+                    Timber.d(e, "Discovery broadcast to %s failed", target)
                 }
-            } catch (e: Exception) {
-                Timber.d(e, "Emby discovery round failed")
-            }
-
-            if (it < DISCOVERY_ROUNDS - 1) {
-                delay(ROUND_DELAY_MS)
             }
         }
     }
@@ -73,69 +141,105 @@ class EmbyServerDiscovery : ServerDiscoveryApi {
         return candidates
     }
 
-    override suspend fun validateServer(address: String): ServerValidationResult {
-        return try {
-            val service = SystemServiceApi(address)
-            val info = service.getSystemInfoPublic().body()
-            ServerValidationResult(
-                address = address,
-                isValid = true,
-                serverType = ServerType.EMBY,
-                systemInfo = PublicSystemInfo(
-                    serverName = info.serverName ?: "",
-                    version = info.version ?: "",
-                    productName = "Emby Server",
-                    id = info.id ?: "",
-                    startupWizardCompleted = null,
-                    localAddress = info.localAddress,
-                    wanAddress = info.wanAddress,
-                ),
-                errorMessage = null,
-            )
-        } catch (e: Exception) {
-            ServerValidationResult(
-                address = address,
-                isValid = false,
-                serverType = null,
-                systemInfo = null,
-                errorMessage = e.message,
-            )
+    override suspend fun validateServer(address: String): ServerValidationResult = validator(address)
+
+    /**
+     * Find the first healthy address for [input], preferring the address that worked last time for
+     * [serverId].
+     *
+     * @return the winning result, or the failure of the first candidate when none are healthy
+     */
+    suspend fun findServer(input: String, serverId: String? = null): ServerValidationResult? =
+        raceCandidates(getAddressCandidates(input), serverId)
+
+    /**
+     * Validate [candidates] concurrently with a staggered start and return the first healthy one.
+     * The remembered address for [serverId] is tried first.
+     *
+     * @return the winning result, or the failure of the first candidate when none are healthy
+     */
+    suspend fun raceCandidates(candidates: List<String>, serverId: String? = null): ServerValidationResult? {
+        val preferred = serverId?.let(addressStore::getPreferredAddress)
+        val ordered = listOfNotNull(preferred).plus(candidates).distinct()
+        if (ordered.isEmpty()) return null
+
+        val winner = race(ordered)
+        val winnerId = winner.systemInfo?.id
+        if (winner.isValid && !winnerId.isNullOrBlank()) {
+            addressStore.setPreferredAddress(winnerId, winner.address)
         }
+        return winner
     }
 
-    private suspend fun sendDiscoveryBroadcast(): List<DiscoveredServer> = withContext(Dispatchers.IO) {
-        val results = mutableListOf<DiscoveredServer>()
+    private suspend fun race(candidates: List<String>): ServerValidationResult = coroutineScope {
+        val results = Channel<Pair<Int, ServerValidationResult>>(Channel.UNLIMITED)
+        val failures = Channel<Unit>(Channel.CONFLATED)
 
-        try {
-            DatagramSocket().use { socket ->
-                socket.broadcast = true
-                socket.soTimeout = RECEIVE_TIMEOUT_MS
-
-                val data = DISCOVERY_MESSAGE.toByteArray()
-                val packet = DatagramPacket(
-                    data, data.size,
-                    InetAddress.getByName("255.255.255.255"),
-                    DISCOVERY_PORT,
-                )
-                socket.send(packet)
-
-                val buffer = ByteArray(4096)
-                while (true) {
-                    try {
-                        val response = DatagramPacket(buffer, buffer.size)
-                        socket.receive(response)
-                        val responseText = String(response.data, 0, response.length)
-                        parseDiscoveryResponse(responseText)?.let { results.add(it) }
-                    } catch (_: java.net.SocketTimeoutException) {
-                        break
-                    }
+        launch {
+            candidates.forEachIndexed { index, address ->
+                launch {
+                    val result = withTimeoutOrNull(attemptTimeoutMs) { validateServer(address) }
+                        ?: invalidResult(address, "Timed out after ${attemptTimeoutMs}ms")
+                    results.send(index to result)
                 }
+
+                // Start the next attempt after the stagger delay, or right away when one failed
+                if (index < candidates.lastIndex) withTimeoutOrNull(attemptStaggerMs) { failures.receive() }
             }
-        } catch (e: Exception) {
-            Timber.d(e, "Discovery broadcast failed")
         }
 
-        results
+        val failed = arrayOfNulls<ServerValidationResult>(candidates.size)
+        repeat(candidates.size) {
+            val (index, result) = results.receive()
+            if (result.isValid) {
+                Timber.i("Emby server answered at %s", result.address)
+                coroutineContext.cancelChildren()
+                return@coroutineScope result
+            }
+
+            Timber.d("Emby server candidate %s failed: %s", result.address, result.errorMessage)
+            failed[index] = result
+            failures.trySend(Unit)
+        }
+
+        failed.first()!!
+    }
+
+    private suspend fun broadcast(target: InetSocketAddress, onServer: suspend (DiscoveredServer) -> Unit) {
+        DatagramSocket().use { socket ->
+            socket.broadcast = true
+
+            val data = DISCOVERY_MESSAGE.toByteArray()
+            val buffer = ByteArray(4096)
+            val start = System.currentTimeMillis()
+            val roundInterval = discoveryWindowMs / DISCOVERY_ROUNDS
+            var nextRound = start
+            var rounds = 0
+
+            while (currentCoroutineContext().isActive) {
+                val now = System.currentTimeMillis()
+                if (now - start >= discoveryWindowMs) break
+
+                // Repeat the broadcast a few times in case a packet gets lost
+                if (rounds < DISCOVERY_ROUNDS && now >= nextRound) {
+                    socket.send(DatagramPacket(data, data.size, target))
+                    rounds++
+                    nextRound += roundInterval
+                }
+
+                val wakeUp = if (rounds < DISCOVERY_ROUNDS) nextRound else start + discoveryWindowMs
+                socket.soTimeout = (wakeUp - now).coerceIn(1, discoveryWindowMs).toInt()
+
+                try {
+                    val response = DatagramPacket(buffer, buffer.size)
+                    socket.receive(response)
+                    val responseText = String(response.data, 0, response.length)
+                    parseDiscoveryResponse(responseText)?.let { onServer(it) }
+                } catch (_: SocketTimeoutException) {
+                    continue
+                }
+            }
+        }
     }
 
     private fun parseDiscoveryResponse(response: String): DiscoveredServer? {
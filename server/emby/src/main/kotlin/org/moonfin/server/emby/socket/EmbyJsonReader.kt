@@ -0,0 +1,256 @@
+package org.moonfin.server.emby.socket
+
+/**
+ * Minimal pull-style JSON reader over a socket frame.
+ *
+ * Values are read in document order without building a tree. Object keys and enum-like string
+ * values can be matched against a fixed set of options without allocating, and anything not
+ * needed is skipped by scanning characters.
+ *
+ * Commas between elements are consumed by [hasNext]. Malformed input throws
+ * [IllegalArgumentException].
+ */
+internal class EmbyJsonReader(private val text: String, private var pos: Int = 0) {
+	val position: Int get() = pos
+
+	fun beginObject() = expect('{')
+	fun endObject() = expect('}')
+	fun beginArray() = expect('[')
+	fun endArray() = expect(']')
+
+	/** Whether the current object or array has another element. */
+	fun hasNext(): Boolean {
+		skipWhitespace()
+		if (pos < text.length && text[pos] == ',') {
+			pos++
+			skipWhitespace()
+		}
+		require(pos < text.length) { "Unexpected end of input" }
+		val c = text[pos]
+		return c != '}' && c != ']'
+	}
+
+	fun peekIsNull(): Boolean {
+		skipWhitespace()
+		return text.startsWith("null", pos)
+	}
+
+	fun peekIsObject(): Boolean {
+		skipWhitespace()
+		return pos < text.length && text[pos] == '{'
+	}
+
+	fun peekIsArray(): Boolean {
+		skipWhitespace()
+		return pos < text.length && text[pos] == '['
+	}
+
+	/** Read an object key as a string. Consumes the following colon. */
+	fun nextName(): String {
+		val name = nextStringOrNull().orEmpty()
+		expect(':')
+		return name
+	}
+
+	/**
+	 * Read an object key and return its index in [options], or -1 when it is not one of them.
+	 * Consumes the following colon.
+	 */
+	fun nextName(options: Array<String>): Int {
+		val index = nextStringOption(options)
+		expect(':')
+		return index
+	}
+
+	/**
+	 * Read a string value and return its index in [options], or -1 when it is not one of them or
+	 * not a string.
+	 */
+	fun nextStringOption(options: Array<String>): Int {
+		skipWhitespace()
+		if (pos >= text.length || text[pos] != '"') {
+			skipValue()
+			return -1
+		}
+
+		val start = pos + 1
+		val end = stringEnd(start)
+		pos = end + 1
+
+		if (text.indexOf('\\', start).let { it != -1 && it < end }) {
+			val decoded = decodeString(start, end)
+			return options.indexOf(decoded)
+		}
+
+		val length = end - start
+		for (i in options.indices) {
+			val option = options[i]
+			if (option.length == length && text.regionMatches(start, option, 0, length)) return i
+		}
+		return -1
+	}
+
+	/**
+	 * Read a primitive value as a string. Numbers and booleans are returned as written, `null`
+	 * and nested objects or arrays (which are skipped) return `null`.
+	 */
+	fun nextStringOrNull(): String? {
+		skipWhitespace()
+		require(pos < text.length) { "Unexpected end of input" }
+		return when (text[pos]) {
+			'"' -> {
+				val start = pos + 1
+				val end = stringEnd(start)
+				pos = end + 1
+				decodeString(start, end)
+			}
+			'{', '[' -> {
+				skipValue()
+				null
+			}
+			else -> {
+				val start = pos
+				val end = literalEnd(start)
+				pos = end
+				if (end - start == 4 && text.startsWith("null", start)) null
+				else text.substring(start, end)
+			}
+		}
+	}
+
+	/**
+	 * Read an integral number, also accepting numeric strings. Returns `null` for anything else.
+	 */
+	fun nextLongOrNull(): Long? {
+		skipWhitespace()
+		require(pos < text.length) { "Unexpected end of input" }
+		return when (text[pos]) {
+			'"' -> nextStringOrNull()?.toLongOrNull()
+			'{', '[' -> {
+				skipValue()
+				null
+			}
+			else -> {
+				val start = pos
+				val end = literalEnd(start)
+				pos = end
+				parseLong(start, end)
+			}
+		}
+	}
+
+	/** Skip the next value, including nested objects and arrays. */
+	fun skipValue() {
+		skipWhitespace()
+		require(pos < text.length) { "Unexpected end of input" }
+		when (text[pos]) {
+			'"' -> pos = stringEnd(pos + 1) + 1
+			'{', '[' -> {
+				var depth = 0
+				while (pos < text.length) {
+					when (text[pos]) {
+						'"' -> {
+							pos = stringEnd(pos + 1) + 1
+							continue
+						}
+						'{', '[' -> depth++
+						'}', ']' -> {
+							depth--
+							if (depth == 0) {
+								pos++
+								return
+							}
+						}
+					}
+					pos++
+				}
+				throw IllegalArgumentException("Unterminated object or array")
+			}
+			else -> pos = literalEnd(pos)
+		}
+	}
+
+	private fun expect(c: Char) {
+		skipWhitespace()
+		require(pos < text.length && text[pos] == c) { "Expected '$c' at $pos" }
+		pos++
+	}
+
+	private fun skipWhitespace() {
+		while (pos < text.length && text[pos].isJsonWhitespace()) pos++
+	}
+
+	private fun Char.isJsonWhitespace() = this == ' ' || this == '\n' || this == '\r' || this == '\t'
+
+	/** Index of the closing quote of a string whose content starts at [start]. */
+	private fun stringEnd(start: Int): Int {
+		var i = start
+		while (i < text.length) {
+			when (text[i]) {
+				'\\' -> i += 2
+				'"' -> return i
+				else -> i++
+			}
+		}
+		throw IllegalArgumentException("Unterminated string")
+	}
+
+	private fun literalEnd(start: Int): Int {
+		var i = start
+		while (i < text.length) {
+			val c = text[i]
+			if (c == ',' || c == '}' || c == ']' || c.isJsonWhitespace()) break
+			i++
+		}
+		require(i > start) { "Expected a value at $start" }
+		return i
+	}
+
+	private fun parseLong(start: Int, end: Int): Long? {
+		var i = start
+		val negative = text[i] == '-'
+		if (negative) i++
+		if (i == end) return null
+
+		var result = 0L
+		while (i < end) {
+			val digit = text[i] - '0'
+			if (digit !in 0..9) return null
+			result = result * 10 + digit
+			i++
+		}
+		return if (negative) -result else result
+	}
+
+	private fun decodeString(start: Int, end: Int): String {
+		val firstEscape = text.indexOf('\\', start)
+		if (firstEscape == -1 || firstEscape >= end) return text.substring(start, end)
+
+		val builder = StringBuilder(end - start)
+		builder.append(text, start, firstEscape)
+		var i = firstEscape
+		while (i < end) {
+			val c = text[i]
+			if (c != '\\') {
+				builder.append(c)
+				i++
+				continue
+			}
+
+			when (val escaped = text[i + 1]) {
+				'n' -> builder.append('\n')
+				'r' -> builder.append('\r')
+				't' -> builder.append('\t')
+				'b' -> builder.append('\b')
+				'f' -> builder.append('\u000C')
+				'u' -> {
+					builder.append(text.substring(i + 2, i + 6).toInt(16).toChar())
+					i += 4
+				}
+				else -> builder.append(escaped)
+			}
+			i += 2
+		}
+		return builder.toString()
+	}
+}
@@ -0,0 +1,100 @@
+package org.moonfin.server.emby.socket
+
+import org.moonfin.server.core.model.ServerWebSocketMessage
+import timber.log.Timber
+
+/**
+ * Bounded queue between the socket reader thread and message consumers.
+ *
+ * Library and user data notifications are coalesced: while one is still pending, later ones are
+ * merged into it instead of being queued, so a burst during a library scan reaches consumers as a
+ * handful of messages. Other messages are kept in order. When the queue is full the oldest message
+ * is dropped.
+ */
+internal class EmbyMessageDispatchQueue(private val capacity: Int = DEFAULT_CAPACITY) {
+	companion object {
+		const val DEFAULT_CAPACITY = 64
+	}
+
+	private val queue = ArrayDeque<ServerWebSocketMessage>()
+	private var draining = false
+
+	/** Number of messages merged into a pending one since creation. */
+	var coalescedCount = 0
+		private set
+
+	/** Number of messages dropped because the queue was full since creation. */
+	var droppedCount = 0
+		private set
+
+	val size: Int @Synchronized get() = queue.size
+
+	/**
+	 * Add [message], merging it into a pending message of the same kind when possible.
+	 * @return `true` when no consumer is draining the queue and the caller needs to start one
+	 */
+	@Synchronized
+	fun offer(message: ServerWebSocketMessage): Boolean {
+		val startDrain = !draining
+		draining = true
+
+		val index = when (message) {
+			is ServerWebSocketMessage.LibraryChanged -> queue.indexOfFirst { it is ServerWebSocketMessage.LibraryChanged }
+			is ServerWebSocketMessage.UserDataChanged -> queue.indexOfFirst {
+				it is ServerWebSocketMessage.UserDataChanged && it.userId == message.userId
+			}
+			else -> -1
+		}
+
+		if (index != -1) {
+			queue[index] = merge(queue[index], message)
+			coalescedCount++
+			return startDrain
+		}
+
+		if (queue.size >= capacity) {
+			val dropped = queue.removeFirst()
+			droppedCount++
+			Timber.w("Emby WebSocket dispatch queue full, dropping %s", dropped::class.simpleName)
+		}
+		queue.addLast(message)
+		return startDrain
+	}
+
+	/**
+	 * Take the next message. Returning `null` ends the current drain, the next [offer] asks for a
+	 * new one.
+	 */
+	@Synchronized
+	fun poll(): ServerWebSocketMessage? {
+		val next = queue.removeFirstOrNull()
+		if (next == null) draining = false
+		return next
+	}
+
+	private fun merge(pending: ServerWebSocketMessage, next: ServerWebSocketMessage): ServerWebSocketMessage = when {
+		pending is ServerWebSocketMessage.LibraryChanged && next is ServerWebSocketMessage.LibraryChanged ->
+			ServerWebSocketMessage.LibraryChanged(
+				itemsAdded = union(pending.itemsAdded, next.itemsAdded),
+				itemsUpdated = union(pending.itemsUpdated, next.itemsUpdated),
+				itemsRemoved = union(pending.itemsRemoved, next.itemsRemoved),
+				foldersAddedTo = union(pending.foldersAddedTo, next.foldersAddedTo),
+				foldersRemovedFrom = union(pending.foldersRemovedFrom, next.foldersRemovedFrom),
+				collectionFolders = union(pending.collectionFolders, next.collectionFolders),
+			)
+
+		pending is ServerWebSocketMessage.UserDataChanged && next is ServerWebSocketMessage.UserDataChanged ->
+			pending.copy(itemIds = union(pending.itemIds, next.itemIds))
+
+		else -> next
+	}
+
+	private fun union(first: List<String>, second: List<String>): List<String> = when {
+		second.isEmpty() -> first
+		first.isEmpty() -> second
+		else -> LinkedHashSet<String>(first.size + second.size).apply {
+			addAll(first)
+			addAll(second)
+		}.toList()
+	}
+}
@@ -14,13 +14,6 @@ import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import kotlinx.serialization.json.Json
-import kotlinx.serialization.json.JsonObject
-import kotlinx.serialization.json.contentOrNull
-import kotlinx.serialization.json.jsonArray
-import kotlinx.serialization.json.jsonObject
-import kotlinx.serialization.json.jsonPrimitive
-import kotlinx.serialization.json.longOrNull
 import okhttp3.OkHttpClient
 import okhttp3.Request
 import okhttp3.Response
@@ -39,13 +32,13 @@ import kotlin.random.Random
 class EmbyWebSocketClient(
 	private val api: EmbyApiClient,
 	private val audioManager: AudioManager,
+	private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
 ) : ServerWebSocketApi {
 
 	companion object {
 		private const val MAX_RECONNECT_ATTEMPTS = 12
 	}
 
-	private val json = Json { ignoreUnknownKeys = true }
 	private val _messages = MutableSharedFlow<ServerWebSocketMessage>(extraBufferCapacity = 64)
 	override val messages: Flow<ServerWebSocketMessage> = _messages
 
@@ -54,10 +47,10 @@ class EmbyWebSocketClient(
 
 	private var webSocket: WebSocket? = null
 	private var httpClient: OkHttpClient? = null
-	private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
 	private var reconnectAttempt = 0
 	private var reconnectJob: Job? = null
 	private var keepAliveJob: Job? = null
+	private val dispatchQueue = EmbyMessageDispatchQueue()
 
 	override suspend fun connect() {
 		disconnect()
@@ -166,27 +159,31 @@ class EmbyWebSocketClient(
 		}
 	}
 
-	private fun handleRawMessage(ws: WebSocket, text: String) {
+	internal fun handleRawMessage(ws: WebSocket, text: String) {
 		try {
-			val root = json.parseToJsonElement(text).jsonObject
-			val messageType = root["MessageType"]?.jsonPrimitive?.contentOrNull ?: return
-			val data = root["Data"]
-
-			if (messageType == "ForceKeepAlive") {
-				val intervalSeconds = data?.jsonPrimitive?.longOrNull ?: 60
-				startKeepAlive(ws, intervalSeconds)
-				return
-			}
-
-			val dataObj = data as? JsonObject
-			EmbyWebSocketMessageParser.parse(messageType, dataObj)?.let { msg ->
-				scope.launch { _messages.emit(msg) }
+			// Frames of types the app does not handle (like Sessions) are dropped unread
+			when (val frame = EmbyWebSocketMessageParser.decode(text)) {
+				is EmbySocketFrame.ForceKeepAlive -> startKeepAlive(ws, frame.intervalSeconds)
+				is EmbySocketFrame.Message -> dispatch(frame.message)
+				null -> Unit
 			}
 		} catch (e: Exception) {
 			Timber.w(e, "Failed to parse WebSocket message")
 		}
 	}
 
+	private fun dispatch(message: ServerWebSocketMessage) {
+		if (!dispatchQueue.offer(message)) return
+
+		// No drain running, start one. Messages offered meanwhile are picked up by this loop.
+		scope.launch {
+			while (true) {
+				val next = dispatchQueue.poll() ?: break
+				_messages.emit(next)
+			}
+		}
+	}
+
 	private fun startKeepAlive(ws: WebSocket, intervalSeconds: Long) {
 		keepAliveJob?.cancel()
 		keepAliveJob = scope.launch {
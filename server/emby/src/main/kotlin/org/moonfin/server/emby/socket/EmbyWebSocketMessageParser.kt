@@ -1,101 +1,289 @@
 package org.moonfin.server.emby.socket
 
-import kotlinx.serialization.json.JsonObject
-import kotlinx.serialization.json.contentOrNull
-import kotlinx.serialization.json.jsonArray
-import kotlinx.serialization.json.jsonObject
-import kotlinx.serialization.json.jsonPrimitive
-import kotlinx.serialization.json.longOrNull
 import org.moonfin.server.core.model.ServerWebSocketMessage
-import timber.log.Timber
 
+/**
+ * A decoded Emby WebSocket frame.
+ */
+internal sealed interface EmbySocketFrame {
+	data class Message(val message: ServerWebSocketMessage) : EmbySocketFrame
+	data class ForceKeepAlive(val intervalSeconds: Long) : EmbySocketFrame
+}
+
+/**
+ * Streaming decoder for Emby WebSocket frames.
+ *
+ * The top level `MessageType` is matched first. Frames of types that are not subscribed are
+ * dropped without reading their `Data` payload, others are decoded straight into
+ * [ServerWebSocketMessage] models with [EmbyJsonReader].
+ */
 internal object EmbyWebSocketMessageParser {
+	const val LIBRARY_CHANGED = "LibraryChanged"
+	const val USER_DATA_CHANGED = "UserDataChanged"
+	const val PLAY = "Play"
+	const val PLAYSTATE = "Playstate"
+	const val GENERAL_COMMAND = "GeneralCommand"
+	const val SERVER_RESTARTING = "ServerRestarting"
+	const val SERVER_SHUTTING_DOWN = "ServerShuttingDown"
+	const val SESSION_ENDED = "SessionEnded"
+	const val SCHEDULED_TASK_ENDED = "ScheduledTaskEnded"
+	const val FORCE_KEEP_ALIVE = "ForceKeepAlive"
+
+	private val messageTypes = arrayOf(
+		LIBRARY_CHANGED,
+		USER_DATA_CHANGED,
+		PLAY,
+		PLAYSTATE,
+		GENERAL_COMMAND,
+		SERVER_RESTARTING,
+		SERVER_SHUTTING_DOWN,
+		SESSION_ENDED,
+		SCHEDULED_TASK_ENDED,
+		FORCE_KEEP_ALIVE,
+	)
+
+	/** All message types this parser can decode. */
+	val HANDLED_TYPES: Set<String> = messageTypes.toSet()
+
+	private val envelopeKeys = arrayOf("MessageType", "Data")
+	private val libraryChangedKeys = arrayOf(
+		"ItemsAdded",
+		"ItemsUpdated",
+		"ItemsRemoved",
+		"FoldersAddedTo",
+		"FoldersRemovedFrom",
+		"CollectionFolders",
+	)
+	private val userDataChangedKeys = arrayOf("UserId", "UserDataList")
+	private val userDataKeys = arrayOf("ItemId")
+	private val playKeys = arrayOf("ItemIds", "StartPositionTicks", "PlayCommand")
+	private val playstateKeys = arrayOf("Command", "SeekPositionTicks")
+	private val generalCommandKeys = arrayOf("Name", "Arguments")
+	private val idKeys = arrayOf("Id", "SessionId", "Name", "Status")
+
+	/**
+	 * Decode a raw frame.
+	 *
+	 * @param subscribedTypes message types to decode, everything else returns `null` unread
+	 */
+	fun decode(text: String, subscribedTypes: Set<String> = HANDLED_TYPES): EmbySocketFrame? {
+		val reader = EmbyJsonReader(text)
+		reader.beginObject()
+
+		var typeIndex = -1
+		var dataReader: EmbyJsonReader? = null
+		while (reader.hasNext()) {
+			when (reader.nextName(envelopeKeys)) {
+				0 -> {
+					typeIndex = reader.nextStringOption(messageTypes)
+					if (typeIndex == -1 || messageTypes[typeIndex] !in subscribedTypes) return null
+					// Data already seen, or still to come in this reader
+					if (dataReader != null) break
+				}
+				1 -> {
+					if (typeIndex != -1) {
+						dataReader = reader
+						break
+					}
+					// MessageType comes later, remember where Data starts and skip it for now
+					dataReader = EmbyJsonReader(text, reader.position)
+					reader.skipValue()
+				}
+				else -> reader.skipValue()
+			}
+		}
+		if (typeIndex == -1) return null
+
+		val data = dataReader?.takeUnless { it.peekIsNull() }
+		return decodeData(messageTypes[typeIndex], data)
+	}
+
+	private fun decodeData(type: String, data: EmbyJsonReader?): EmbySocketFrame? {
+		if (type == FORCE_KEEP_ALIVE) return EmbySocketFrame.ForceKeepAlive(data?.nextLongOrNull() ?: 60)
 
-	fun parse(type: String, data: JsonObject?): ServerWebSocketMessage? = when (type) {
-		"LibraryChanged" -> parseLibraryChanged(data)
-		"UserDataChanged" -> parseUserDataChanged(data)
-		"Play" -> parsePlay(data)
-		"Playstate" -> parsePlaystate(data)
-		"GeneralCommand" -> parseGeneralCommand(data)
-		"ServerRestarting" -> ServerWebSocketMessage.ServerRestarting
-		"ServerShuttingDown" -> ServerWebSocketMessage.ServerShuttingDown
-		"SessionEnded" -> parseSessionEnded(data)
-		"ScheduledTaskEnded" -> parseScheduledTaskEnded(data)
-		else -> {
-			Timber.d("Unhandled Emby WebSocket message: %s", type)
-			null
+		val message = when (type) {
+			SERVER_RESTARTING -> ServerWebSocketMessage.ServerRestarting
+			SERVER_SHUTTING_DOWN -> ServerWebSocketMessage.ServerShuttingDown
+			else -> {
+				if (data == null || !data.peekIsObject()) return null
+				when (type) {
+					LIBRARY_CHANGED -> readLibraryChanged(data)
+					USER_DATA_CHANGED -> readUserDataChanged(data)
+					PLAY -> readPlay(data)
+					PLAYSTATE -> readPlaystate(data)
+					GENERAL_COMMAND -> readGeneralCommand(data)
+					SESSION_ENDED -> readSessionEnded(data)
+					SCHEDULED_TASK_ENDED -> readScheduledTaskEnded(data)
+					else -> null
+				}
+			}
 		}
+		return message?.let(EmbySocketFrame::Message)
 	}
 
-	private fun parseLibraryChanged(data: JsonObject?): ServerWebSocketMessage.LibraryChanged? {
-		data ?: return null
+	private fun readLibraryChanged(reader: EmbyJsonReader): ServerWebSocketMessage.LibraryChanged {
+		var added = emptyList<String>()
+		var updated = emptyList<String>()
+		var removed = emptyList<String>()
+		var foldersAddedTo = emptyList<String>()
+		var foldersRemovedFrom = emptyList<String>()
+		var collectionFolders = emptyList<String>()
+		reader.readObject(libraryChangedKeys) { key ->
+			when (key) {
+				0 -> added = reader.readStringList()
+				1 -> updated = reader.readStringList()
+				2 -> removed = reader.readStringList()
+				3 -> foldersAddedTo = reader.readStringList()
+				4 -> foldersRemovedFrom = reader.readStringList()
+				5 -> collectionFolders = reader.readStringList()
+				else -> reader.skipValue()
+			}
+		}
 		return ServerWebSocketMessage.LibraryChanged(
-			itemsAdded = data.stringList("ItemsAdded"),
-			itemsUpdated = data.stringList("ItemsUpdated"),
-			itemsRemoved = data.stringList("ItemsRemoved"),
+			itemsAdded = added,
+			itemsUpdated = updated,
+			itemsRemoved = removed,
+			foldersAddedTo = foldersAddedTo,
+			foldersRemovedFrom = foldersRemovedFrom,
+			collectionFolders = collectionFolders,
 		)
 	}
 
-	private fun parseUserDataChanged(data: JsonObject?): ServerWebSocketMessage.UserDataChanged? {
-		data ?: return null
-		val userId = data["UserId"]?.jsonPrimitive?.contentOrNull ?: return null
-		val itemIds = data["UserDataList"]?.jsonArray
-			?.mapNotNull { it.jsonObject["ItemId"]?.jsonPrimitive?.contentOrNull }
-			?: emptyList()
-		return ServerWebSocketMessage.UserDataChanged(userId = userId, itemIds = itemIds)
+	private fun readUserDataChanged(reader: EmbyJsonReader): ServerWebSocketMessage.UserDataChanged? {
+		var userId: String? = null
+		var itemIds = emptyList<String>()
+		reader.readObject(userDataChangedKeys) { key ->
+			when (key) {
+				0 -> userId = reader.nextStringOrNull()
+				1 -> itemIds = reader.readList {
+					var itemId: String? = null
+					if (reader.peekIsObject()) {
+						reader.readObject(userDataKeys) { entryKey ->
+							if (entryKey == 0) itemId = reader.nextStringOrNull() else reader.skipValue()
+						}
+					} else {
+						reader.skipValue()
+					}
+					itemId
+				}
+				else -> reader.skipValue()
+			}
+		}
+		return ServerWebSocketMessage.UserDataChanged(userId = userId ?: return null, itemIds = itemIds)
 	}
 
-	private fun parsePlay(data: JsonObject?): ServerWebSocketMessage.Play? {
-		data ?: return null
-		val itemIds = data.stringList("ItemIds")
+	private fun readPlay(reader: EmbyJsonReader): ServerWebSocketMessage.Play? {
+		var itemIds = emptyList<String>()
+		var startPositionTicks: Long? = null
+		var playCommand: String? = null
+		reader.readObject(playKeys) { key ->
+			when (key) {
+				0 -> itemIds = reader.readStringList()
+				1 -> startPositionTicks = reader.nextLongOrNull()
+				2 -> playCommand = reader.nextStringOrNull()
+				else -> reader.skipValue()
+			}
+		}
 		if (itemIds.isEmpty()) return null
 		return ServerWebSocketMessage.Play(
 			itemIds = itemIds,
-			startPositionTicks = data["StartPositionTicks"]?.jsonPrimitive?.longOrNull,
-			playCommand = data["PlayCommand"]?.jsonPrimitive?.contentOrNull ?: "PlayNow",
+			startPositionTicks = startPositionTicks,
+			playCommand = playCommand ?: "PlayNow",
 		)
 	}
 
-	private fun parsePlaystate(data: JsonObject?): ServerWebSocketMessage.Playstate? {
-		data ?: return null
-		val command = data["Command"]?.jsonPrimitive?.contentOrNull ?: return null
+	private fun readPlaystate(reader: EmbyJsonReader): ServerWebSocketMessage.Playstate? {
+		var command: String? = null
+		var seekPositionTicks: Long? = null
+		reader.readObject(playstateKeys) { key ->
+			when (key) {
+				0 -> command = reader.nextStringOrNull()
+				1 -> seekPositionTicks = reader.nextLongOrNull()
+				else -> reader.skipValue()
+			}
+		}
 		return ServerWebSocketMessage.Playstate(
-			command = command,
-			seekPositionTicks = data["SeekPositionTicks"]?.jsonPrimitive?.longOrNull,
+			command = command ?: return null,
+			seekPositionTicks = seekPositionTicks,
 		)
 	}
 
-	private fun parseGeneralCommand(data: JsonObject?): ServerWebSocketMessage.GeneralCommand? {
-		data ?: return null
-		val name = data["Name"]?.jsonPrimitive?.contentOrNull ?: return null
-		val arguments = data["Arguments"]?.jsonObject
-			?.mapValues { (_, v) -> v.jsonPrimitive.contentOrNull ?: "" }
-			?: emptyMap()
-		return ServerWebSocketMessage.GeneralCommand(name = name, arguments = arguments)
+	private fun readGeneralCommand(reader: EmbyJsonReader): ServerWebSocketMessage.GeneralCommand? {
+		var name: String? = null
+		var arguments = emptyMap<String, String>()
+		reader.readObject(generalCommandKeys) { key ->
+			when (key) {
+				0 -> name = reader.nextStringOrNull()
+				1 -> arguments = reader.readStringMap()
+				else -> reader.skipValue()
+			}
+		}
+		return ServerWebSocketMessage.GeneralCommand(name = name ?: return null, arguments = arguments)
 	}
 
-	private fun parseSessionEnded(data: JsonObject?): ServerWebSocketMessage.SessionEnded? {
-		data ?: return null
-		val sessionId = data["Id"]?.jsonPrimitive?.contentOrNull
-			?: data["SessionId"]?.jsonPrimitive?.contentOrNull
-			?: return null
-		return ServerWebSocketMessage.SessionEnded(sessionId = sessionId)
+	private fun readSessionEnded(reader: EmbyJsonReader): ServerWebSocketMessage.SessionEnded? {
+		var id: String? = null
+		var sessionId: String? = null
+		reader.readObject(idKeys) { key ->
+			when (key) {
+				0 -> id = reader.nextStringOrNull()
+				1 -> sessionId = reader.nextStringOrNull()
+				else -> reader.skipValue()
+			}
+		}
+		return ServerWebSocketMessage.SessionEnded(sessionId = id ?: sessionId ?: return null)
 	}
 
-	private fun parseScheduledTaskEnded(data: JsonObject?): ServerWebSocketMessage.ScheduledTaskEnded? {
-		data ?: return null
-		val taskId = data["Id"]?.jsonPrimitive?.contentOrNull ?: return null
-		val taskName = data["Name"]?.jsonPrimitive?.contentOrNull ?: return null
-		val status = data["Status"]?.jsonPrimitive?.contentOrNull ?: return null
+	private fun readScheduledTaskEnded(reader: EmbyJsonReader): ServerWebSocketMessage.ScheduledTaskEnded? {
+		var taskId: String? = null
+		var taskName: String? = null
+		var status: String? = null
+		reader.readObject(idKeys) { key ->
+			when (key) {
+				0 -> taskId = reader.nextStringOrNull()
+				2 -> taskName = reader.nextStringOrNull()
+				3 -> status = reader.nextStringOrNull()
+				else -> reader.skipValue()
+			}
+		}
 		return ServerWebSocketMessage.ScheduledTaskEnded(
-			taskId = taskId,
-			taskName = taskName,
-			status = status,
+			taskId = taskId ?: return null,
+			taskName = taskName ?: return null,
+			status = status ?: return null,
 		)
 	}
 
-	private fun JsonObject.stringList(key: String): List<String> =
-		this[key]?.jsonArray
-			?.mapNotNull { it.jsonPrimitive.contentOrNull }
-			?: emptyList()
+	private inline fun EmbyJsonReader.readObject(keys: Array<String>, onKey: (Int) -> Unit) {
+		beginObject()
+		while (hasNext()) onKey(nextName(keys))
+		endObject()
+	}
+
+	private inline fun <T : Any> EmbyJsonReader.readList(readItem: () -> T?): List<T> {
+		if (!peekIsArray()) {
+			skipValue()
+			return emptyList()
+		}
+		val items = ArrayList<T>()
+		beginArray()
+		while (hasNext()) readItem()?.let(items::add)
+		endArray()
+		return items
+	}
+
+	private fun EmbyJsonReader.readStringList(): List<String> = readList { nextStringOrNull() }
+
+	private fun EmbyJsonReader.readStringMap(): Map<String, String> {
+		if (!peekIsObject()) {
+			skipValue()
+			return emptyMap()
+		}
+		val map = LinkedHashMap<String, String>()
+		beginObject()
+		while (hasNext()) {
+			map[nextName()] = nextStringOrNull() ?: ""
+		}
+		endObject()
+		return map
+	}
 }
@@ -0,0 +1,192 @@
+package org.moonfin.server.emby.discovery
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withTimeoutOrNull
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.moonfin.server.core.model.PublicSystemInfo
+import org.moonfin.server.core.model.ServerType
+import org.moonfin.server.core.model.ServerValidationResult
+import java.io.File
+import java.net.DatagramPacket
+import java.net.DatagramSocket
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.SocketException
+import java.nio.file.Files
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class EmbyServerDiscoveryTests : FunSpec({
+	val loopback = InetAddress.getLoopbackAddress()
+
+	// Answers discovery broadcasts like an Emby server would, optionally once [answerAfter] opened
+	fun udpResponder(id: String, received: CountDownLatch? = null, answerAfter: CountDownLatch? = null): DatagramSocket {
+		val socket = DatagramSocket(InetSocketAddress(loopback, 0))
+		thread(isDaemon = true) {
+			val buffer = ByteArray(512)
+			try {
+				while (true) {
+					val request = DatagramPacket(buffer, buffer.size)
+					socket.receive(request)
+					if (String(request.data, 0, request.length) != "who is EmbyServer?") continue
+
+					received?.countDown()
+					answerAfter?.await(5, TimeUnit.SECONDS)
+					val response = """{"Address":"http://$id.local:8096","Id":"$id","Name":"Server $id"}""".toByteArray()
+					socket.send(DatagramPacket(response, response.size, request.socketAddress))
+				}
+			} catch (_: SocketException) {
+				// Socket closed
+			}
+		}
+		return socket
+	}
+
+	// Candidate addresses answering after a delay on the virtual clock of the test
+	class FakeServers(vararg servers: Pair<String, Pair<Long, Boolean>>) {
+		private val servers = servers.toMap()
+		val requested: MutableList<String> = Collections.synchronizedList(mutableListOf())
+
+		suspend fun validate(address: String): ServerValidationResult {
+			requested += address
+			val (delayMs, isValid) = servers.getValue(address)
+			delay(delayMs)
+			return ServerValidationResult(
+				address = address,
+				isValid = isValid,
+				serverType = ServerType.EMBY.takeIf { isValid },
+				systemInfo = PublicSystemInfo("Server", "4.8.10.0", "Emby Server", "server-1", null).takeIf { isValid },
+				errorMessage = "Server error".takeUnless { isValid },
+			)
+		}
+	}
+
+	test("discovery listens on all interfaces concurrently") {
+		// The first target only answers once the second one was asked, which never happens in time
+		// when the targets are asked one after the other
+		val secondAsked = CountDownLatch(1)
+		val first = udpResponder("first", answerAfter = secondAsked)
+		val second = udpResponder("second", received = secondAsked)
+		val discovery = EmbyServerDiscovery(
+			broadcastTargets = { listOf(first.localSocketAddress, second.localSocketAddress).map { it as InetSocketAddress } },
+			discoveryWindowMs = 1500,
+		)
+
+		val servers = runBlocking { discovery.discoverLocalServers().toList() }
+
+		// Answers to repeated rounds are only emitted once
+		servers.map { it.id } shouldContainExactlyInAnyOrder listOf("first", "second")
+		servers.first { it.id == "second" }.address shouldBe "http://second.local:8096"
+
+		first.close()
+		second.close()
+	}
+
+	test("discovery ignores targets that fail") {
+		val server = udpResponder("only")
+		val discovery = EmbyServerDiscovery(
+			broadcastTargets = {
+				listOf(InetSocketAddress("0.0.0.0", 0), server.localSocketAddress as InetSocketAddress)
+			},
+			discoveryWindowMs = 500,
+		)
+
+		runBlocking { discovery.discoverLocalServers().toList() }.map { it.id } shouldBe listOf("only")
+		server.close()
+	}
+
+	test("validation is cancelled instead of reporting a failure") {
+		val slow = MockWebServer()
+		slow.enqueue(MockResponse().setHeadersDelay(10, TimeUnit.SECONDS))
+		val discovery = EmbyServerDiscovery()
+
+		runBlocking {
+			withTimeoutOrNull(200) { discovery.validateServer(slow.url("/").toString().trimEnd('/')) }
+		}.shouldBeNull()
+
+		slow.shutdown()
+	}
+
+	test("a dead address does not delay the healthy one") {
+		val servers = FakeServers("dead" to (10_000L to true), "healthy" to (50L to true))
+		val discovery = EmbyServerDiscovery(attemptStaggerMs = 100, attemptTimeoutMs = 5000, validator = servers::validate)
+
+		runTest {
+			val result = discovery.raceCandidates(listOf("dead", "healthy"))
+
+			result?.isValid shouldBe true
+			result?.address shouldBe "healthy"
+			testScheduler.currentTime shouldBe 150
+		}
+	}
+
+	test("a failed attempt starts the next one without waiting for the stagger") {
+		val servers = FakeServers("failing" to (10L to false), "healthy" to (20L to true))
+		val discovery = EmbyServerDiscovery(attemptStaggerMs = 5000, validator = servers::validate)
+
+		runTest {
+			discovery.raceCandidates(listOf("failing", "healthy"))?.address shouldBe "healthy"
+			testScheduler.currentTime shouldBe 30
+		}
+	}
+
+	test("slow candidates time out and the first failure is reported") {
+		val servers = FakeServers("slow" to (10_000L to true), "failing" to (0L to false))
+		val discovery = EmbyServerDiscovery(attemptStaggerMs = 50, attemptTimeoutMs = 300, validator = servers::validate)
+
+		runTest {
+			val result = discovery.raceCandidates(listOf("slow", "failing"))
+
+			result?.isValid shouldBe false
+			result?.address shouldBe "slow"
+			result?.errorMessage shouldBe "Timed out after 300ms"
+			testScheduler.currentTime shouldBe 300
+		}
+	}
+
+	test("the winning address is remembered and tried first next time") {
+		val servers = FakeServers("lan" to (0L to true), "remote" to (300L to true))
+		val store = InMemoryEmbyServerAddressStore()
+		store.setPreferredAddress("server-1", "lan")
+		val discovery = EmbyServerDiscovery(addressStore = store, attemptStaggerMs = 1000, validator = servers::validate)
+
+		runTest {
+			discovery.raceCandidates(listOf("remote"), serverId = "server-1")?.address shouldBe "lan"
+		}
+
+		servers.requested shouldContainExactly listOf("lan")
+	}
+
+	test("a new winner replaces the remembered address") {
+		val servers = FakeServers("healthy" to (0L to true))
+		val store = InMemoryEmbyServerAddressStore()
+		val discovery = EmbyServerDiscovery(addressStore = store, validator = servers::validate)
+
+		runTest { discovery.raceCandidates(listOf("healthy")) }
+
+		store.getPreferredAddress("server-1") shouldBe "healthy"
+	}
+
+	test("file store keeps addresses across instances") {
+		val file = File(Files.createTempDirectory("emby-addresses").toFile(), "emby_addresses.properties")
+
+		FileEmbyServerAddressStore(file).setPreferredAddress("server-1", "http://192.168.1.2:8096")
+		FileEmbyServerAddressStore(file).getPreferredAddress("server-1") shouldBe "http://192.168.1.2:8096"
+		FileEmbyServerAddressStore(file).getPreferredAddress("server-2") shouldBe null
+		File(file.parentFile, "${file.name}.tmp").exists() shouldNotBe true
+	}
+})
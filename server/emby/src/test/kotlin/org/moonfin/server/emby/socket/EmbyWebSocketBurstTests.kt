@@ -0,0 +1,198 @@
+package org.moonfin.server.emby.socket
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.ints.shouldBeLessThan
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.mockk.mockk
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.contentOrNull
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import okhttp3.WebSocket
+import org.moonfin.server.core.model.ServerWebSocketMessage
+import java.lang.management.ManagementFactory
+import java.util.concurrent.Executor
+
+/**
+ * Replays a captured burst of socket frames from a library scan: library and user data changes
+ * interleaved with session and scheduled task updates nobody subscribes to.
+ */
+class EmbyWebSocketBurstTests : FunSpec({
+	val frames = EmbyWebSocketBurstTests::class.java.getResourceAsStream("/emby-socket-burst.jsonl")!!
+		.bufferedReader()
+		.readLines()
+		.filter { it.isNotBlank() }
+
+	val json = Json { ignoreUnknownKeys = true }
+
+	// Tree based reference decoding
+	fun referenceTree(text: String): Pair<String?, JsonObject?> {
+		val root = json.parseToJsonElement(text).jsonObject
+		return root["MessageType"]?.jsonPrimitive?.contentOrNull to (root["Data"] as? JsonObject)
+	}
+
+	fun JsonObject.strings(key: String) = this[key]?.jsonArray?.mapNotNull { it.jsonPrimitive.contentOrNull }.orEmpty()
+
+	fun allocatedBytes(block: () -> Unit): Long? {
+		val bean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean ?: return null
+		if (!bean.isThreadAllocatedMemorySupported) return null
+		bean.isThreadAllocatedMemoryEnabled = true
+
+		// Warm up so class loading and JIT do not count
+		repeat(20) { block() }
+		val threadId = Thread.currentThread().id
+		val before = bean.getThreadAllocatedBytes(threadId)
+		block()
+		return bean.getThreadAllocatedBytes(threadId) - before
+	}
+
+	test("streaming decoder matches tree decoding for every frame in the burst") {
+		for (text in frames) {
+			val (type, data) = referenceTree(text)
+			val frame = EmbyWebSocketMessageParser.decode(text)
+
+			when (type) {
+				"LibraryChanged" -> frame shouldBe EmbySocketFrame.Message(
+					ServerWebSocketMessage.LibraryChanged(
+						itemsAdded = data!!.strings("ItemsAdded"),
+						itemsUpdated = data.strings("ItemsUpdated"),
+						itemsRemoved = data.strings("ItemsRemoved"),
+						foldersAddedTo = data.strings("FoldersAddedTo"),
+						foldersRemovedFrom = data.strings("FoldersRemovedFrom"),
+						collectionFolders = data.strings("CollectionFolders"),
+					)
+				)
+
+				"UserDataChanged" -> frame shouldBe EmbySocketFrame.Message(
+					ServerWebSocketMessage.UserDataChanged(
+						userId = data!!["UserId"]!!.jsonPrimitive.content,
+						itemIds = data["UserDataList"]!!.jsonArray.map { it.jsonObject["ItemId"]!!.jsonPrimitive.content },
+					)
+				)
+
+				"ForceKeepAlive" -> frame shouldBe EmbySocketFrame.ForceKeepAlive(60)
+				"Playstate" -> frame.shouldBeInstanceOf<EmbySocketFrame.Message>()
+				else -> frame shouldBe null
+			}
+		}
+	}
+
+	test("dispatch queue coalesces the burst into one message per kind") {
+		val queue = EmbyMessageDispatchQueue()
+		val messages = frames.mapNotNull { (EmbyWebSocketMessageParser.decode(it) as? EmbySocketFrame.Message)?.message }
+
+		// Nothing drains while the burst arrives, as if the consumer were busy
+		messages.forEach(queue::offer)
+
+		val drained = generateSequence { queue.poll() }.toList()
+		drained.map { it::class.simpleName } shouldContainExactly listOf(
+			"LibraryChanged",
+			"UserDataChanged",
+			"UserDataChanged",
+			"Playstate",
+		)
+		queue.coalescedCount shouldBe messages.size - drained.size
+
+		val libraryChanges = messages.filterIsInstance<ServerWebSocketMessage.LibraryChanged>()
+		val merged = drained.filterIsInstance<ServerWebSocketMessage.LibraryChanged>().single()
+		merged.itemsAdded shouldContainExactly libraryChanges.flatMap { it.itemsAdded }.distinct()
+		merged.itemsUpdated shouldContainExactly libraryChanges.flatMap { it.itemsUpdated }.distinct()
+
+		for (userData in drained.filterIsInstance<ServerWebSocketMessage.UserDataChanged>()) {
+			userData.itemIds shouldContainExactly messages
+				.filterIsInstance<ServerWebSocketMessage.UserDataChanged>()
+				.filter { it.userId == userData.userId }
+				.flatMap { it.itemIds }
+				.distinct()
+		}
+	}
+
+	test("client coalesces a burst that arrives while the drain is pending") {
+		// Coroutines of the client only run when the test says so
+		val tasks = ArrayDeque<Runnable>()
+		val scope = CoroutineScope(Executor { tasks.addLast(it) }.asCoroutineDispatcher())
+		val client = EmbyWebSocketClient(mockk(relaxed = true), mockk(relaxed = true), scope)
+		val socket = mockk<WebSocket>(relaxed = true)
+		val received = mutableListOf<ServerWebSocketMessage>()
+
+		runBlocking {
+			val collector = launch(Dispatchers.Unconfined) { client.messages.toList(received) }
+
+			frames.forEach { client.handleRawMessage(socket, it) }
+			while (tasks.isNotEmpty()) tasks.removeFirst().run()
+
+			yield()
+			collector.cancel()
+		}
+		scope.cancel()
+
+		received.map { it::class.simpleName } shouldContainExactly listOf(
+			"LibraryChanged",
+			"UserDataChanged",
+			"UserDataChanged",
+			"Playstate",
+		)
+		val libraryChanges = frames.mapNotNull {
+			(EmbyWebSocketMessageParser.decode(it) as? EmbySocketFrame.Message)?.message as? ServerWebSocketMessage.LibraryChanged
+		}
+		received.filterIsInstance<ServerWebSocketMessage.LibraryChanged>().single().itemsAdded shouldContainExactly
+			libraryChanges.flatMap { it.itemsAdded }.distinct()
+	}
+
+	test("dispatch queue stays bounded") {
+		val queue = EmbyMessageDispatchQueue(capacity = 8)
+		repeat(20) { queue.offer(ServerWebSocketMessage.Playstate(command = "Seek", seekPositionTicks = it.toLong())) }
+
+		queue.size shouldBe 8
+		queue.droppedCount shouldBe 12
+		(queue.poll() as ServerWebSocketMessage.Playstate).seekPositionTicks shouldBe 12L
+	}
+
+	test("dispatch queue asks for a single drain at a time") {
+		val queue = EmbyMessageDispatchQueue()
+		queue.offer(ServerWebSocketMessage.ServerRestarting) shouldBe true
+		queue.offer(ServerWebSocketMessage.ServerShuttingDown) shouldBe false
+		queue.poll() shouldBe ServerWebSocketMessage.ServerRestarting
+		queue.offer(ServerWebSocketMessage.ServerRestarting) shouldBe false
+		queue.poll() shouldBe ServerWebSocketMessage.ServerShuttingDown
+		queue.poll() shouldBe ServerWebSocketMessage.ServerRestarting
+		queue.poll() shouldBe null
+		queue.offer(ServerWebSocketMessage.ServerRestarting) shouldBe true
+	}
+
+	test("streaming decoder allocates less than tree decoding") {
+		val treeBytes = allocatedBytes {
+			for (text in frames) LegacyEmbyMessageDecoder.decode(text)
+		} ?: return@test
+		val streamingBytes = allocatedBytes {
+			for (text in frames) EmbyWebSocketMessageParser.decode(text)
+		}!!
+
+		streamingBytes shouldBeLessThan treeBytes / 2
+	}
+
+	test("skipping unsubscribed frames allocates almost nothing") {
+		val unsubscribed = frames.filter { referenceTree(it).first in setOf("Sessions", "ScheduledTasksInfo") }
+		val subscribedTypes = setOf(EmbyWebSocketMessageParser.LIBRARY_CHANGED)
+
+		val bytes = allocatedBytes {
+			for (text in unsubscribed) EmbyWebSocketMessageParser.decode(text, subscribedTypes)
+		} ?: return@test
+
+		// Only the reader itself is allocated per frame
+		(bytes / unsubscribed.size).toInt() shouldBeLessThan 128
+	}
+})
@@ -6,6 +6,7 @@ import io.kotest.matchers.shouldBe
 import io.kotest.matchers.types.shouldBeInstanceOf
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
 import kotlinx.serialization.json.jsonObject
 import org.moonfin.server.core.model.ServerWebSocketMessage
 
@@ -16,6 +17,12 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 	fun parseData(jsonStr: String): JsonObject =
 		json.parseToJsonElement(jsonStr).jsonObject
 
+	// Decode a frame of the given type carrying the data object
+	fun parse(type: String, data: JsonObject?): ServerWebSocketMessage? {
+		val frame = EmbyWebSocketMessageParser.decode("""{"MessageType":${JsonPrimitive(type)},"Data":${data ?: "null"}}""")
+		return (frame as? EmbySocketFrame.Message)?.message
+	}
+
 	test("parse LibraryChanged with all fields") {
 		val data = parseData("""
 			{
@@ -24,7 +31,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"ItemsRemoved": ["item4", "item5", "item6"]
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("LibraryChanged", data)
+		val msg = parse("LibraryChanged", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.LibraryChanged>()
 		msg.itemsAdded shouldBe listOf("item1", "item2")
 		msg.itemsUpdated shouldBe listOf("item3")
@@ -39,7 +46,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"ItemsRemoved": []
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("LibraryChanged", data)
+		val msg = parse("LibraryChanged", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.LibraryChanged>()
 		msg.itemsAdded shouldBe emptyList()
 		msg.itemsUpdated shouldBe emptyList()
@@ -47,7 +54,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 	}
 
 	test("parse LibraryChanged with null data returns null") {
-		EmbyWebSocketMessageParser.parse("LibraryChanged", null).shouldBeNull()
+		parse("LibraryChanged", null).shouldBeNull()
 	}
 
 	test("parse UserDataChanged") {
@@ -60,7 +67,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				]
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("UserDataChanged", data)
+		val msg = parse("UserDataChanged", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.UserDataChanged>()
 		msg.userId shouldBe "user-abc"
 		msg.itemIds shouldBe listOf("item1", "item2")
@@ -68,11 +75,11 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse UserDataChanged without UserId returns null") {
 		val data = parseData("""{"UserDataList": []}""")
-		EmbyWebSocketMessageParser.parse("UserDataChanged", data).shouldBeNull()
+		parse("UserDataChanged", data).shouldBeNull()
 	}
 
 	test("parse UserDataChanged with null data returns null") {
-		EmbyWebSocketMessageParser.parse("UserDataChanged", null).shouldBeNull()
+		parse("UserDataChanged", null).shouldBeNull()
 	}
 
 	test("parse UserDataChanged with empty UserDataList") {
@@ -82,7 +89,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"UserDataList": []
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("UserDataChanged", data)
+		val msg = parse("UserDataChanged", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.UserDataChanged>()
 		msg.itemIds shouldBe emptyList()
 	}
@@ -95,7 +102,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"PlayCommand": "PlayNow"
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("Play", data)
+		val msg = parse("Play", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.Play>()
 		msg.itemIds shouldBe listOf("item-a", "item-b")
 		msg.startPositionTicks shouldBe 50000000L
@@ -104,31 +111,31 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse Play defaults PlayCommand to PlayNow when missing") {
 		val data = parseData("""{"ItemIds": ["item-1"]}""")
-		val msg = EmbyWebSocketMessageParser.parse("Play", data)
+		val msg = parse("Play", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.Play>()
 		msg.playCommand shouldBe "PlayNow"
 	}
 
 	test("parse Play with empty ItemIds returns null") {
 		val data = parseData("""{"ItemIds": [], "PlayCommand": "PlayNow"}""")
-		EmbyWebSocketMessageParser.parse("Play", data).shouldBeNull()
+		parse("Play", data).shouldBeNull()
 	}
 
 	test("parse Play with null StartPositionTicks") {
 		val data = parseData("""{"ItemIds": ["item-1"], "PlayCommand": "PlayLast"}""")
-		val msg = EmbyWebSocketMessageParser.parse("Play", data)
+		val msg = parse("Play", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.Play>()
 		msg.startPositionTicks shouldBe null
 		msg.playCommand shouldBe "PlayLast"
 	}
 
 	test("parse Play with null data returns null") {
-		EmbyWebSocketMessageParser.parse("Play", null).shouldBeNull()
+		parse("Play", null).shouldBeNull()
 	}
 
 	test("parse Playstate with seek") {
 		val data = parseData("""{"Command": "Seek", "SeekPositionTicks": 1234567890}""")
-		val msg = EmbyWebSocketMessageParser.parse("Playstate", data)
+		val msg = parse("Playstate", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.Playstate>()
 		msg.command shouldBe "Seek"
 		msg.seekPositionTicks shouldBe 1234567890L
@@ -136,7 +143,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse Playstate pause has no seek position") {
 		val data = parseData("""{"Command": "Pause"}""")
-		val msg = EmbyWebSocketMessageParser.parse("Playstate", data)
+		val msg = parse("Playstate", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.Playstate>()
 		msg.command shouldBe "Pause"
 		msg.seekPositionTicks shouldBe null
@@ -144,11 +151,11 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse Playstate without Command returns null") {
 		val data = parseData("""{"SeekPositionTicks": 100}""")
-		EmbyWebSocketMessageParser.parse("Playstate", data).shouldBeNull()
+		parse("Playstate", data).shouldBeNull()
 	}
 
 	test("parse Playstate with null data returns null") {
-		EmbyWebSocketMessageParser.parse("Playstate", null).shouldBeNull()
+		parse("Playstate", null).shouldBeNull()
 	}
 
 	test("parse GeneralCommand with arguments") {
@@ -158,7 +165,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"Arguments": {"Volume": "75"}
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("GeneralCommand", data)
+		val msg = parse("GeneralCommand", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.GeneralCommand>()
 		msg.name shouldBe "SetVolume"
 		msg.arguments shouldBe mapOf("Volume" to "75")
@@ -166,7 +173,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse GeneralCommand without arguments") {
 		val data = parseData("""{"Name": "Mute"}""")
-		val msg = EmbyWebSocketMessageParser.parse("GeneralCommand", data)
+		val msg = parse("GeneralCommand", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.GeneralCommand>()
 		msg.name shouldBe "Mute"
 		msg.arguments shouldBe emptyMap()
@@ -174,11 +181,11 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse GeneralCommand without Name returns null") {
 		val data = parseData("""{"Arguments": {"key": "val"}}""")
-		EmbyWebSocketMessageParser.parse("GeneralCommand", data).shouldBeNull()
+		parse("GeneralCommand", data).shouldBeNull()
 	}
 
 	test("parse GeneralCommand with null data returns null") {
-		EmbyWebSocketMessageParser.parse("GeneralCommand", null).shouldBeNull()
+		parse("GeneralCommand", null).shouldBeNull()
 	}
 
 	test("parse DisplayMessage general command") {
@@ -188,7 +195,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"Arguments": {"Header": "Test", "Text": "Hello World", "TimeoutMs": "5000"}
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("GeneralCommand", data)
+		val msg = parse("GeneralCommand", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.GeneralCommand>()
 		msg.name shouldBe "DisplayMessage"
 		msg.arguments["Header"] shouldBe "Test"
@@ -196,43 +203,43 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 	}
 
 	test("parse ServerRestarting") {
-		val msg = EmbyWebSocketMessageParser.parse("ServerRestarting", null)
+		val msg = parse("ServerRestarting", null)
 		msg shouldBe ServerWebSocketMessage.ServerRestarting
 	}
 
 	test("parse ServerShuttingDown") {
-		val msg = EmbyWebSocketMessageParser.parse("ServerShuttingDown", null)
+		val msg = parse("ServerShuttingDown", null)
 		msg shouldBe ServerWebSocketMessage.ServerShuttingDown
 	}
 
 	test("parse SessionEnded with Id field") {
 		val data = parseData("""{"Id": "session-123"}""")
-		val msg = EmbyWebSocketMessageParser.parse("SessionEnded", data)
+		val msg = parse("SessionEnded", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.SessionEnded>()
 		msg.sessionId shouldBe "session-123"
 	}
 
 	test("parse SessionEnded with SessionId fallback") {
 		val data = parseData("""{"SessionId": "session-456"}""")
-		val msg = EmbyWebSocketMessageParser.parse("SessionEnded", data)
+		val msg = parse("SessionEnded", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.SessionEnded>()
 		msg.sessionId shouldBe "session-456"
 	}
 
 	test("parse SessionEnded prefers Id over SessionId") {
 		val data = parseData("""{"Id": "primary", "SessionId": "fallback"}""")
-		val msg = EmbyWebSocketMessageParser.parse("SessionEnded", data)
+		val msg = parse("SessionEnded", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.SessionEnded>()
 		msg.sessionId shouldBe "primary"
 	}
 
 	test("parse SessionEnded without any id returns null") {
 		val data = parseData("""{"foo": "bar"}""")
-		EmbyWebSocketMessageParser.parse("SessionEnded", data).shouldBeNull()
+		parse("SessionEnded", data).shouldBeNull()
 	}
 
 	test("parse SessionEnded with null data returns null") {
-		EmbyWebSocketMessageParser.parse("SessionEnded", null).shouldBeNull()
+		parse("SessionEnded", null).shouldBeNull()
 	}
 
 	test("parse ScheduledTaskEnded") {
@@ -243,7 +250,7 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 				"Status": "Completed"
 			}
 		""")
-		val msg = EmbyWebSocketMessageParser.parse("ScheduledTaskEnded", data)
+		val msg = parse("ScheduledTaskEnded", data)
 		msg.shouldBeInstanceOf<ServerWebSocketMessage.ScheduledTaskEnded>()
 		msg.taskId shouldBe "task-99"
 		msg.taskName shouldBe "Scan Library"
@@ -252,29 +259,71 @@ class EmbyWebSocketMessageParserTests : FunSpec({
 
 	test("parse ScheduledTaskEnded missing Id returns null") {
 		val data = parseData("""{"Name": "Task", "Status": "OK"}""")
-		EmbyWebSocketMessageParser.parse("ScheduledTaskEnded", data).shouldBeNull()
+		parse("ScheduledTaskEnded", data).shouldBeNull()
 	}
 
 	test("parse ScheduledTaskEnded missing Name returns null") {
 		val data = parseData("""{"Id": "1", "Status": "OK"}""")
-		EmbyWebSocketMessageParser.parse("ScheduledTaskEnded", data).shouldBeNull()
+		parse("ScheduledTaskEnded", data).shouldBeNull()
 	}
 
 	test("parse ScheduledTaskEnded missing Status returns null") {
 		val data = parseData("""{"Id": "1", "Name": "Task"}""")
-		EmbyWebSocketMessageParser.parse("ScheduledTaskEnded", data).shouldBeNull()
+		parse("ScheduledTaskEnded", data).shouldBeNull()
 	}
 
 	test("parse ScheduledTaskEnded with null data returns null") {
-		EmbyWebSocketMessageParser.parse("ScheduledTaskEnded", null).shouldBeNull()
+		parse("ScheduledTaskEnded", null).shouldBeNull()
 	}
 
 	test("unknown message type returns null") {
 		val data = parseData("""{"foo": "bar"}""")
-		EmbyWebSocketMessageParser.parse("SomeUnknownType", data).shouldBeNull()
+		parse("SomeUnknownType", data).shouldBeNull()
 	}
 
 	test("unknown message type with null data returns null") {
-		EmbyWebSocketMessageParser.parse("NotAMessage", null).shouldBeNull()
+		parse("NotAMessage", null).shouldBeNull()
+	}
+
+	test("decode reads typed message from a raw frame") {
+		val frame = EmbyWebSocketMessageParser.decode(
+			"""{"MessageType":"Playstate","Data":{"Command":"Seek","SeekPositionTicks":"42"},"MessageId":"abc"}"""
+		)
+		frame shouldBe EmbySocketFrame.Message(ServerWebSocketMessage.Playstate(command = "Seek", seekPositionTicks = 42L))
+	}
+
+	test("decode handles Data before MessageType") {
+		val frame = EmbyWebSocketMessageParser.decode(
+			"""{"Data":{"UserId":"u","UserDataList":[{"ItemId":"a"},{"Key":"no-id"}]},"MessageType":"UserDataChanged"}"""
+		)
+		frame shouldBe EmbySocketFrame.Message(ServerWebSocketMessage.UserDataChanged(userId = "u", itemIds = listOf("a")))
+	}
+
+	test("decode skips unsubscribed message types") {
+		val text = """{"MessageType":"LibraryChanged","Data":{"ItemsAdded":["a"]}}"""
+		EmbyWebSocketMessageParser.decode(text, subscribedTypes = setOf("UserDataChanged")).shouldBeNull()
+		EmbyWebSocketMessageParser.decode(text, subscribedTypes = setOf("LibraryChanged")).shouldBeInstanceOf<EmbySocketFrame.Message>()
+	}
+
+	test("decode does not read the payload of unsubscribed message types") {
+		// Payload is malformed, reading it would throw
+		EmbyWebSocketMessageParser.decode("""{"MessageType":"Sessions","Data":[{"Id":""", subscribedTypes = emptySet()).shouldBeNull()
+	}
+
+	test("decode unescapes strings") {
+		val frame = EmbyWebSocketMessageParser.decode(
+			"""{"MessageType":"GeneralCommand","Data":{"Name":"DisplayMessage","Arguments":{"Text":"say \"hi\"\n\u00e9","TimeoutMs":5000,"Extra":{"nested":[1]}}}}"""
+		)
+		frame.shouldBeInstanceOf<EmbySocketFrame.Message>()
+		val msg = frame.message
+		msg.shouldBeInstanceOf<ServerWebSocketMessage.GeneralCommand>()
+		msg.arguments shouldBe mapOf("Text" to "say \"hi\"\n\u00e9", "TimeoutMs" to "5000", "Extra" to "")
+	}
+
+	test("decode ForceKeepAlive interval") {
+		EmbyWebSocketMessageParser.decode("""{"MessageType":"ForceKeepAlive","Data":30}""") shouldBe
+			EmbySocketFrame.ForceKeepAlive(30)
+		EmbyWebSocketMessageParser.decode("""{"MessageType":"ForceKeepAlive"}""") shouldBe
+			EmbySocketFrame.ForceKeepAlive(60)
 	}
 })